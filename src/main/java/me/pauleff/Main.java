@@ -5,11 +5,15 @@ import me.pauleff.common.argparse.ParseResult;
 import me.pauleff.common.argparse.ParsedArguments;
 import me.pauleff.common.exceptions.PathNotValidException;
 import me.pauleff.common.exceptions.UnknownWorldFolderStructureException;
+import me.pauleff.common.handlers.uuid.OnlineProfileLookup;
+import me.pauleff.common.handlers.uuid.ProfileCache;
 import me.pauleff.converter.PluginOrchestrator;
 import me.pauleff.converter.api.PluginContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+
 import static java.lang.System.exit;
 
 /**
@@ -49,16 +53,38 @@ public final class Main
             fail(argumentParser, "No action specified.");
         }
 
-        try
+        try (ProfileCache _ = installProfileCache(parsedArgs))
         {
             PluginContext ctx = PluginContext.from(parsedArgs);
             new PluginOrchestrator().run(ctx);
         } catch (PathNotValidException | UnknownWorldFolderStructureException e)
         {
             fail(argumentParser, e.getMessage());
+        } catch (IOException e)
+        {
+            LOGGER.warn("Could not close profile cache: {}", e.getMessage());
         }
     }
 
+    /**
+     * Installs the profile cache for all online profile lookups of this run.
+     * <p>
+     * The cache file is opened on the first lookup, so runs that look up no profile leave it
+     * untouched. A cache that cannot be opened then is logged and skipped; lookups then go
+     * online.
+     *
+     * @param parsedArgs the parsed CLI arguments naming the cache file, if caching is on
+     * @return the installed cache, to be closed once the run is over
+     */
+    private static ProfileCache installProfileCache(ParsedArguments parsedArgs)
+    {
+        ProfileCache cache = parsedArgs.profileCache()
+                .map(ProfileCache::deferred)
+                .orElseGet(ProfileCache::disabled);
+        OnlineProfileLookup.useCache(cache);
+        return cache;
+    }
+
     /**
      * Logs an error, prints CLI help, and terminates the process with exit code {@code 1}.
      *
@@ -3,6 +3,8 @@ package me.pauleff.common.argparse;
 import me.pauleff.common.LoggerConfigurator;
 import me.pauleff.common.handlers.uuid.OnlineProfileLookup;
 import me.pauleff.common.handlers.uuid.ProfileApiConfig;
+import me.pauleff.common.handlers.uuid.UuidMap;
+import me.pauleff.common.handlers.uuid.UuidRewriteMode;
 import org.apache.commons.cli.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,16 +14,19 @@ import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.zip.Deflater;
 
 /**
  * Parses command-line arguments into a {@link ParseResult} for this application.
  * <p>
  * Handles help and version requests as terminal exits, configures logging verbosity,
- * and applies custom UUID API options when present.
+ * and applies custom UUID API options and the compression level when present.
  */
 public final class ArgumentParser
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(ArgumentParser.class);
+    private static final Path DEFAULT_PROFILE_CACHE =
+            Paths.get(System.getProperty("user.home"), ".mooc", "profiles.cache");
 
     private final String appName;
     private final String version;
@@ -126,13 +131,107 @@ public final class ArgumentParser
             copyPlayerDataSourceWorld = Optional.of(sourceWorld);
         }
 
+        UuidRewriteMode uuidRewriteMode = UuidRewriteMode.TOKEN;
+        if (cmd.hasOption("uuidRewriteMode"))
+        {
+            try
+            {
+                uuidRewriteMode = UuidRewriteMode.fromName(cmd.getOptionValue("uuidRewriteMode"));
+            } catch (IllegalArgumentException e)
+            {
+                throw new ParseException("Option uuidRewriteMode must be one of: token, pattern");
+            }
+        }
+
+        int threads = cmd.hasOption("threads")
+                ? parsePositiveInt(cmd, "threads")
+                : Runtime.getRuntime().availableProcessors();
+
+        long regionMemoryBudget = cmd.hasOption("regionMemoryBudget")
+                ? parsePositiveInt(cmd, "regionMemoryBudget") * 1024L * 1024L
+                : Runtime.getRuntime().maxMemory() / 4;
+
+        Optional<Path> profileCache = Optional.empty();
+        if (!cmd.hasOption("noProfileCache"))
+        {
+            String file = cmd.getOptionValue("profileCache", "");
+            profileCache = Optional.of(file.isBlank() ? DEFAULT_PROFILE_CACHE : Paths.get(file));
+        }
+
+        Optional<Path> importMappings = optionalPath(cmd, "importMappings");
+        Optional<Path> exportMappings = optionalPath(cmd, "exportMappings");
+        UuidMap.Storage mappingStorage = cmd.hasOption("offHeapMappings")
+                ? UuidMap.Storage.OFF_HEAP
+                : UuidMap.Storage.HEAP;
+        Optional<Path> metricsReport = optionalPath(cmd, "metricsReport");
+        Optional<Path> metricsPrometheus = optionalPath(cmd, "metricsPrometheus");
+
+        int compressionLevel = parseCompressionLevel(cmd);
+
         applyCustomApiOptions(cmd);
 
         return new ParsedArguments(
                 serverPath,
                 toOnlineMode,
                 copyPlayerDataSourceWorld,
-                parseServerPropertiesChanges(cmd));
+                parseServerPropertiesChanges(cmd),
+                uuidRewriteMode,
+                threads,
+                regionMemoryBudget,
+                compressionLevel,
+                profileCache,
+                importMappings,
+                exportMappings,
+                mappingStorage,
+                metricsReport,
+                metricsPrometheus);
+    }
+
+    /**
+     * Parses the value of an optional option that names a file.
+     *
+     * @param cmd    the parsed command line
+     * @param option the option's name
+     * @return the file path, or empty if the option is absent
+     * @throws ParseException if the option is given without a file name
+     */
+    private static Optional<Path> optionalPath(CommandLine cmd, String option) throws ParseException
+    {
+        if (!cmd.hasOption(option))
+        {
+            return Optional.empty();
+        }
+        String file = cmd.getOptionValue(option);
+        if (file == null || file.isBlank())
+        {
+            throw new ParseException("Option " + option + " requires a file name");
+        }
+        return Optional.of(Paths.get(file));
+    }
+
+    /**
+     * Parses the value of an option that requires a positive integer.
+     *
+     * @param cmd    the parsed command line
+     * @param option the option's name
+     * @return the parsed value; at least {@code 1}
+     * @throws ParseException if the value is not a positive integer
+     */
+    private static int parsePositiveInt(CommandLine cmd, String option) throws ParseException
+    {
+        int value;
+        try
+        {
+            value = Integer.parseInt(cmd.getOptionValue(option).trim());
+        } catch (NumberFormatException e)
+        {
+            value = 0;
+        }
+        if (value < 1)
+        {
+            throw new ParseException("Option " + option + " requires a positive number");
+        }
+        return value;
     }
 
     /**
@@ -186,12 +285,57 @@ public final class ArgumentParser
             }
         }
 
+        if (cmd.hasOption("retrieveUUIDsBulkUrl"))
+        {
+            String retrieveUuidsBulkUrl = cmd.getOptionValue("retrieveUUIDsBulkUrl");
+            if (retrieveUuidsBulkUrl != null && !retrieveUuidsBulkUrl.isBlank())
+            {
+                config = config.withRetrieveUuidsBulkUrl(retrieveUuidsBulkUrl);
+                configured = true;
+            } else
+            {
+                LOGGER.warn("Option -retrieveUUIDsBulkUrl was set without a URL. Ignoring.");
+            }
+        }
+
         if (configured)
         {
             OnlineProfileLookup.configure(config);
         }
     }
 
+    /**
+     * Parses the {@code -compressionLevel} option.
+     * <p>
+     * Without the option, {@link Deflater#DEFAULT_COMPRESSION} is used, the level the game
+     * writes its own files with.
+     *
+     * @param cmd the parsed command line
+     * @return the deflate level for rewritten NBT and region data
+     * @throws ParseException if the level is not a number between 0 and 9
+     */
+    private static int parseCompressionLevel(CommandLine cmd) throws ParseException
+    {
+        if (!cmd.hasOption("compressionLevel"))
+        {
+            return Deflater.DEFAULT_COMPRESSION;
+        }
+        int level;
+        try
+        {
+            level = Integer.parseInt(cmd.getOptionValue("compressionLevel").trim());
+        } catch (NumberFormatException e)
+        {
+            level = -1;
+        }
+        if (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+        {
+            throw new ParseException("Option compressionLevel requires a number between 0 and 9");
+        }
+        LOGGER.debug("Using compression level {}", level);
+        return level;
+    }
+
     /**
      * Parses {@code -properties} key/value pairs into an immutable map of server property changes.
      *
@@ -63,6 +63,80 @@ public final class CliOptions
                 .build();
         options.addOption(retrieveNameUrl);
 
+        Option retrieveUuidsBulkUrl = Option.builder("retrieveUUIDsBulkUrl")
+                .desc("Full names to profiles bulk endpoint URL (domain + path). Up to 10 names are posted per request. Overrides -customApiBaseUrl")
+                .hasArg()
+                .argName("url")
+                .build();
+        options.addOption(retrieveUuidsBulkUrl);
+
+        Option uuidRewriteMode = Option.builder("uuidRewriteMode")
+                .desc("Engine used to rewrite UUIDs in file contents: \"token\" (default, scans for UUID-shaped tokens) or \"pattern\" (matches every known UUID; falls back to token while new mappings are added, until a batch of at least 1024 is recompiled)")
+                .hasArg()
+                .argName("mode")
+                .build();
+        options.addOption(uuidRewriteMode);
+
+        Option threads = Option.builder("threads")
+                .desc("Maximum number of files converted in parallel (default: number of available processors; 1 converts sequentially)")
+                .hasArg()
+                .argName("n")
+                .build();
+        options.addOption(threads);
+
+        Option regionMemoryBudget = Option.builder("regionMemoryBudget")
+                .desc("Maximum memory in MB used by region file chunks being converted at once (default: a quarter of the maximum heap)")
+                .hasArg()
+                .argName("mb")
+                .build();
+        options.addOption(regionMemoryBudget);
+
+        Option compressionLevel = Option.builder("compressionLevel")
+                .desc("Deflate level from 0 (none) to 9 (smallest) for rewritten NBT and region data (default: the game's own level)")
+                .hasArg()
+                .argName("level")
+                .build();
+        options.addOption(compressionLevel);
+
+        Option profileCache = Option.builder("profileCache")
+                .desc("File caching online name/UUID lookups between runs and servers (default: .mooc/profiles.cache in the user's home folder)")
+                .hasArg()
+                .argName("file")
+                .build();
+        options.addOption(profileCache);
+
+        options.addOption("noProfileCache", false, "Resolve every name and UUID online without reading or writing the profile cache");
+
+        Option importMappings = Option.builder("importMappings")
+                .desc("CSV or JSON file of UUID mappings (e.g. from -exportMappings) applied before players are looked up; mapped players need no network lookup")
+                .hasArg()
+                .argName("file")
+                .build();
+        options.addOption(importMappings);
+
+        Option exportMappings = Option.builder("exportMappings")
+                .desc("Writes all UUID mappings to this file after conversion, as JSON if it ends in .json and as CSV otherwise")
+                .hasArg()
+                .argName("file")
+                .build();
+        options.addOption(exportMappings);
+
+        options.addOption("offHeapMappings", false, "Keeps the UUID mappings outside the Java heap, for servers with millions of players");
+
+        Option metricsReport = Option.builder("metricsReport")
+                .desc("Writes wall time, files visited, bytes read and written, renames, HTTP requests and cache hits per plugin and phase to this JSON file")
+                .hasArg()
+                .argName("file")
+                .build();
+        options.addOption(metricsReport);
+
+        Option metricsPrometheus = Option.builder("metricsPrometheus")
+                .desc("Writes the same metrics as -metricsReport to this file in the Prometheus text format, e.g. for the node exporter's textfile collector")
+                .hasArg()
+                .argName("file")
+                .build();
+        options.addOption(metricsPrometheus);
+
         return options;
     }
 }
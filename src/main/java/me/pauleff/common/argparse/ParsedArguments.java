@@ -1,5 +1,8 @@
 package me.pauleff.common.argparse;
 
+import me.pauleff.common.handlers.uuid.UuidMap;
+import me.pauleff.common.handlers.uuid.UuidRewriteMode;
+
 import java.nio.file.Path;
 import java.util.Map;
 import java.util.Optional;
@@ -12,12 +15,36 @@ import java.util.Optional;
  *                                  or empty when no conversion was requested
  * @param copyPlayerDataSourceWorld the source world folder name to copy player data from, if requested
  * @param serverPropertiesChanges   key/value pairs to apply to {@code server.properties}; may be empty
+ * @param uuidRewriteMode           the engine used to rewrite UUIDs inside file content
+ * @param threads                   the maximum number of files converted concurrently; at least {@code 1}
+ * @param regionMemoryBudget        the maximum number of bytes held by region file chunks being
+ *                                  rewritten at once; positive
+ * @param compressionLevel          the deflate level for rewritten NBT and region data, {@code 0} to
+ *                                  {@code 9}, or {@link java.util.zip.Deflater#DEFAULT_COMPRESSION}
+ * @param profileCache              the file caching online profile lookups between runs, or empty
+ *                                  when caching is turned off
+ * @param importMappings            a UUID mapping file to load before resolving players, if specified
+ * @param exportMappings            the file to write the final UUID mappings to, if specified
+ * @param mappingStorage            where the UUID map of the run keeps its entries
+ * @param metricsReport             the file to write the run's JSON metrics report to, if specified
+ * @param metricsPrometheus         the file to write the run's metrics to in the Prometheus text
+ *                                  format, if specified
  */
 public record ParsedArguments(
         Optional<Path> serverPath,
         Optional<Boolean> toOnlineMode,
         Optional<String> copyPlayerDataSourceWorld,
-        Map<String, String> serverPropertiesChanges)
+        Map<String, String> serverPropertiesChanges,
+        UuidRewriteMode uuidRewriteMode,
+        int threads,
+        long regionMemoryBudget,
+        int compressionLevel,
+        Optional<Path> profileCache,
+        Optional<Path> importMappings,
+        Optional<Path> exportMappings,
+        UuidMap.Storage mappingStorage,
+        Optional<Path> metricsReport,
+        Optional<Path> metricsPrometheus)
 {
     /**
      * Indicates whether an online/offline conversion was requested.
@@ -0,0 +1,110 @@
+package me.pauleff.common.handlers;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps the number of bytes that concurrent tasks may hold in memory at once.
+ * <p>
+ * Callers {@link #reserve(long) reserve} an estimate before allocating large buffers and
+ * release it when done; a reservation blocks until enough of the budget is free. Requests
+ * larger than the whole budget are clamped to it, so an oversized task still runs, just
+ * not alongside any other. The budget is tracked in KiB, so it fits in a {@link Semaphore}
+ * for any realistic heap size.
+ * <p>
+ * Instances are safe to share between threads.
+ */
+public final class MemoryBudget
+{
+    private static final int UNIT = 1024;
+
+    private final Semaphore permits;
+    private final int totalUnits;
+
+    /**
+     * Creates a budget of the given size.
+     *
+     * @param bytes the total number of bytes that may be reserved at once
+     * @throws IllegalArgumentException if {@code bytes} is not positive
+     */
+    public MemoryBudget(long bytes)
+    {
+        if (bytes <= 0)
+        {
+            throw new IllegalArgumentException("Memory budget must be positive: " + bytes);
+        }
+        this.totalUnits = (int) Math.min(Integer.MAX_VALUE, Math.max(1, bytes / UNIT));
+        this.permits = new Semaphore(totalUnits);
+    }
+
+    /**
+     * Creates a budget that never blocks in practice.
+     *
+     * @return a budget of about 2 TiB
+     */
+    public static MemoryBudget unlimited()
+    {
+        return new MemoryBudget(Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns the total size of this budget.
+     *
+     * @return the number of bytes that may be reserved at once, rounded down to whole KiB
+     */
+    public long totalBytes()
+    {
+        return (long) totalUnits * UNIT;
+    }
+
+    /**
+     * Returns the part of this budget that is currently not reserved.
+     *
+     * @return the number of free bytes, rounded down to whole KiB
+     */
+    public long availableBytes()
+    {
+        return (long) permits.availablePermits() * UNIT;
+    }
+
+    /**
+     * Reserves the given number of bytes, waiting until they are available.
+     * <p>
+     * Waiting is not interruptible, matching how conversion workers acquire their permits.
+     *
+     * @param bytes the estimated number of bytes the caller is about to hold
+     * @return the reservation, to be closed once the memory is no longer held
+     */
+    public Reservation reserve(long bytes)
+    {
+        int units = (int) Math.min(totalUnits, Math.max(1, (bytes + UNIT - 1) / UNIT));
+        permits.acquireUninterruptibly(units);
+        return new Reservation(units);
+    }
+
+    /**
+     * A held part of a {@link MemoryBudget}, returned to it on {@link #close()}.
+     */
+    public final class Reservation implements AutoCloseable
+    {
+        private final int units;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Reservation(int units)
+        {
+            this.units = units;
+        }
+
+        /**
+         * Returns the reserved bytes to the budget. Closing more than once has no further effect.
+         */
+        @Override
+        public void close()
+        {
+            if (released.compareAndSet(false, true))
+            {
+                permits.release(units);
+            }
+        }
+    }
+}
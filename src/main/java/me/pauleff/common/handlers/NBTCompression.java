@@ -0,0 +1,84 @@
+package me.pauleff.common.handlers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * Identifies how an NBT document is compressed on disk.
+ * <p>
+ * Compressed streams are created through {@link ZlibCodec}, so they reuse pooled zlib
+ * contexts.
+ */
+public enum NBTCompression
+{
+    /**
+     * GZIP-wrapped NBT, used by {@code level.dat} and playerdata files.
+     */
+    GZIP,
+
+    /**
+     * ZLIB-wrapped NBT, used for chunks inside region files.
+     */
+    ZLIB,
+
+    /**
+     * Raw, uncompressed NBT.
+     */
+    NONE;
+
+    /**
+     * Wraps a stream of data compressed this way in a decompressing stream.
+     *
+     * @param in the compressed input
+     * @return a stream yielding the uncompressed NBT, to be closed after use; {@code in} itself
+     * for {@link #NONE}
+     * @throws IOException if a GZIP header cannot be read
+     */
+    public InputStream decompress(InputStream in) throws IOException
+    {
+        return switch (this)
+        {
+            case GZIP -> ZlibCodec.gzipInput(in);
+            case ZLIB -> ZlibCodec.zlibInput(in);
+            case NONE -> in;
+        };
+    }
+
+    /**
+     * Wraps an output stream so that data written to it is compressed this way, at the
+     * default deflate level.
+     * <p>
+     * The returned stream must be closed to finish the compressed data.
+     *
+     * @param out the destination for the compressed data
+     * @return a compressing stream; {@code out} itself for {@link #NONE}
+     * @throws IOException if a GZIP header cannot be written
+     */
+    public OutputStream compress(OutputStream out) throws IOException
+    {
+        return compress(out, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Wraps an output stream so that data written to it is compressed this way.
+     * <p>
+     * The returned stream must be closed to finish the compressed data.
+     *
+     * @param out   the destination for the compressed data
+     * @param level the deflate level, as accepted by {@link ZlibCodec#checkLevel(int)};
+     *              ignored for {@link #NONE}
+     * @return a compressing stream; {@code out} itself for {@link #NONE}
+     * @throws IOException if a GZIP header cannot be written
+     */
+    public OutputStream compress(OutputStream out, int level) throws IOException
+    {
+        return switch (this)
+        {
+            case GZIP -> ZlibCodec.gzipOutput(out, level);
+            case ZLIB -> ZlibCodec.zlibOutput(out, level);
+            case NONE -> out;
+        };
+    }
+}
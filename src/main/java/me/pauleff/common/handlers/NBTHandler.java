@@ -1,19 +1,37 @@
 package me.pauleff.common.handlers;
 
+import me.pauleff.common.metrics.Metrics;
+import net.querz.nbt.io.NBTDeserializer;
+import net.querz.nbt.io.NBTSerializer;
 import net.querz.nbt.io.NBTUtil;
 import net.querz.nbt.io.NamedTag;
 import net.querz.nbt.tag.CompoundTag;
 
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Optional;
+import java.util.zip.ZipException;
 
 /**
  * Provides utilities for reading, writing, and inspecting Minecraft NBT files.
  */
 public final class NBTHandler
 {
+    private static final int TAG_END = 0;
+    private static final int TAG_BYTE_ARRAY = 7;
+    private static final int TAG_STRING = 8;
+    private static final int TAG_LIST = 9;
+    private static final int TAG_INT_ARRAY = 11;
+    private static final int TAG_LONG_ARRAY = 12;
+    // Nested compounds whose first child is checked as well, before the payload is accepted.
+    private static final int PROBE_DEPTH = 4;
     private static final String[] DEFAULT_TAGS_TO_KEEP = {
             "Pos",
             "Rotation",
@@ -36,30 +54,229 @@ public final class NBTHandler
     }
 
     /**
-     * Determines whether a file can be parsed as a valid NBT document.
+     * Determines whether a file looks like an NBT document readable by {@link NBTUtil#read(File)}.
      * <p>
-     * Attempts to read the file via {@link NBTUtil#read(File)}, which detects GZIP
-     * and NBT headers. Parse failures (including invalid gzip or tag IDs) are treated
-     * as non-NBT.
+     * Only the header is inspected via {@link #probe(Path)}; the document is not parsed.
+     * ZLIB-compressed documents are rejected, as {@link NBTUtil} cannot read them.
      *
      * @param file the file to inspect
-     * @return {@code true} if the file parses as NBT; {@code false} otherwise
+     * @return {@code true} if the file has a GZIP or uncompressed NBT header; {@code false} otherwise
      */
     public static boolean isNBTFile(File file)
     {
         try
         {
-            // NBTUtil.read tries to detect GZIP and valid NBT headers.
-            // If it fails to parse the root tag, it's likely not NBT.
-            NBTUtil.read(file);
-            return true;
+            return probe(file.toPath()).filter(NBTHeader::isReadableByNBTUtil).isPresent();
         } catch (IOException e)
         {
-            // This includes "Not in GZIP format" or "Invalid Tag ID"
             return false;
         }
     }
 
+    /**
+     * Classifies a file by the first bytes of its (decompressed) content.
+     * <p>
+     * Detects GZIP and ZLIB by their magic bytes, then reads only the root tag header and the
+     * start of its payload, decompressing a few bytes at most. The root tag must have a valid
+     * type id and a modified UTF-8 name, and the first value of its payload must be well
+     * formed: the first child header of a compound, the element type and length of a list,
+     * and so on. For uncompressed files, the name and any length read must also fit in the
+     * file. That rejects text that merely starts with a tab or newline, which are valid tag
+     * ids. No tag tree is built.
+     *
+     * @param file the file to inspect
+     * @return the header, or empty if the file does not start like an NBT document
+     * @throws IOException if the file cannot be read
+     */
+    public static Optional<NBTHeader> probe(Path file) throws IOException
+    {
+        try (PushbackInputStream in = new PushbackInputStream(Metrics.countReads(Files.newInputStream(file)), 2))
+        {
+            byte[] magic = in.readNBytes(2);
+            in.unread(magic);
+            if (magic.length < 2)
+            {
+                return Optional.empty();
+            }
+
+            int first = magic[0] & 0xFF;
+            int second = magic[1] & 0xFF;
+            if (first == 0x1F && second == 0x8B)
+            {
+                return readRootHeader(in, NBTCompression.GZIP, Long.MAX_VALUE);
+            }
+            // CMF: deflate method with a window of at most 32 KiB, and a valid FCHECK over both bytes.
+            if ((first & 0x0F) == 8 && (first >> 4) <= 7 && ((first << 8) | second) % 31 == 0)
+            {
+                return readRootHeader(in, NBTCompression.ZLIB, Long.MAX_VALUE);
+            }
+            return readRootHeader(in, NBTCompression.NONE, Files.size(file));
+        } catch (ZipException | EOFException e)
+        {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Reads the root tag id and name length from a positioned stream.
+     *
+     * @param in          the stream at the start of the file, closed by this method
+     * @param compression the compression to unwrap the stream with
+     * @param payloadSize the payload size, used to check that the root name fits
+     * @return the header, or empty if the bytes are not a valid root tag header
+     * @throws IOException if reading fails or the stream ends early
+     */
+    private static Optional<NBTHeader> readRootHeader(InputStream in, NBTCompression compression, long payloadSize)
+            throws IOException
+    {
+        try (DataInputStream data = new DataInputStream(compression.decompress(in)))
+        {
+            int tagId = data.readUnsignedByte();
+            int nameLength = data.readUnsignedShort();
+            if (tagId < 1 || tagId > 12 || 3L + nameLength > payloadSize
+                    || !isModifiedUtf8(data.readNBytes(nameLength), nameLength)
+                    || !startsWellFormedPayload(data, tagId, payloadSize, PROBE_DEPTH))
+            {
+                return Optional.empty();
+            }
+            return Optional.of(new NBTHeader(compression, tagId, nameLength));
+        }
+    }
+
+    /**
+     * Checks the first value of a tag's payload, following the first child of a compound.
+     *
+     * @param data        the stream positioned after the tag's name
+     * @param tagId       the tag id
+     * @param payloadSize the payload size, an upper bound for any element count
+     * @param depth       how many more nested compounds to follow
+     * @return {@code true} if the payload starts like a value of the given type
+     * @throws IOException if reading fails or the stream ends early
+     */
+    private static boolean startsWellFormedPayload(DataInputStream data, int tagId, long payloadSize, int depth)
+            throws IOException
+    {
+        return switch (tagId)
+        {
+            case NBTHeader.COMPOUND_TAG_ID ->
+            {
+                int childId = data.readUnsignedByte();
+                if (childId == TAG_END || childId > 12 || depth == 0)
+                {
+                    yield childId <= 12;
+                }
+                int childNameLength = data.readUnsignedShort();
+                yield isModifiedUtf8(data.readNBytes(childNameLength), childNameLength)
+                        && startsWellFormedPayload(data, childId, payloadSize, depth - 1);
+            }
+            case TAG_LIST ->
+            {
+                int elementId = data.readUnsignedByte();
+                int length = data.readInt();
+                // Every element takes at least one byte, and a list of TAG_End must be empty.
+                yield elementId <= 12 && length >= 0 && length <= payloadSize && (elementId != TAG_END || length == 0);
+            }
+            case TAG_STRING ->
+            {
+                int length = data.readUnsignedShort();
+                yield isModifiedUtf8(data.readNBytes(length), length);
+            }
+            case TAG_BYTE_ARRAY, TAG_INT_ARRAY, TAG_LONG_ARRAY ->
+            {
+                int length = data.readInt();
+                yield length >= 0 && length <= payloadSize;
+            }
+            // Numeric payloads accept any bits.
+            default -> true;
+        };
+    }
+
+    /**
+     * Checks that bytes are complete, well-formed modified UTF-8, as used for NBT names and strings.
+     * <p>
+     * Modified UTF-8 encodes every character in one to three bytes and never contains a zero byte.
+     *
+     * @param bytes          the bytes read
+     * @param expectedLength the number of bytes that should have been read
+     * @return {@code true} if all expected bytes were read and decode cleanly
+     */
+    private static boolean isModifiedUtf8(byte[] bytes, int expectedLength)
+    {
+        if (bytes.length != expectedLength)
+        {
+            return false;
+        }
+        int i = 0;
+        while (i < bytes.length)
+        {
+            int lead = bytes[i] & 0xFF;
+            int continuationBytes;
+            if (lead >= 0x01 && lead <= 0x7F)
+            {
+                continuationBytes = 0;
+            } else if (lead >= 0xC0 && lead <= 0xDF)
+            {
+                continuationBytes = 1;
+            } else if (lead >= 0xE0 && lead <= 0xEF)
+            {
+                continuationBytes = 2;
+            } else
+            {
+                return false;
+            }
+            if (i + continuationBytes >= bytes.length)
+            {
+                return false;
+            }
+            for (int k = 1; k <= continuationBytes; k++)
+            {
+                if ((bytes[i + k] & 0xC0) != 0x80)
+                {
+                    return false;
+                }
+            }
+            i += continuationBytes + 1;
+        }
+        return true;
+    }
+
+    /**
+     * Reads an NBT document of any supported compression.
+     * <p>
+     * Decompression goes through {@link ZlibCodec}, so no zlib context is created per file.
+     *
+     * @param file the NBT file to read
+     * @return the root tag and its name
+     * @throws IOException if the file cannot be read or is not NBT
+     */
+    public static NamedTag read(Path file) throws IOException
+    {
+        NBTHeader header = probe(file).orElseThrow(() -> new IOException("Not an NBT file: " + file.normalize()));
+        try (InputStream in = header.compression().decompress(Metrics.countReads(Files.newInputStream(file))))
+        {
+            return new NBTDeserializer(false).fromStream(in);
+        }
+    }
+
+    /**
+     * Writes an NBT document GZIP-compressed, as the game stores player and level data.
+     * <p>
+     * Compression goes through {@link ZlibCodec}.
+     *
+     * @param tag              the root tag and its name
+     * @param file             the file to write
+     * @param compressionLevel the deflate level, as accepted by {@link ZlibCodec#checkLevel(int)}
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(NamedTag tag, Path file, int compressionLevel) throws IOException
+    {
+        try (OutputStream out = NBTCompression.GZIP.compress(
+                Metrics.countWrites(Files.newOutputStream(file)), compressionLevel))
+        {
+            new NBTSerializer(false).toStream(tag, out);
+        }
+    }
+
     /**
      * Writes playerdata from {@code nbtSource} to {@code nbtDest}, preserving selected
      * tags from the destination when it already exists.
@@ -67,21 +284,22 @@ public final class NBTHandler
      * Loads the source compound, then for each path in the default keep-list copies the
      * corresponding tag from the destination into the source before writing. Nested paths
      * use dot notation (e.g. {@code abilities.flying}). The destination is written with
-     * GZIP compression as handled by the Querz NBT library.
+     * GZIP compression through {@link #write(NamedTag, Path, int)}.
      *
-     * @param nbtSource the path to the source NBT playerdata file
-     * @param nbtDest   the path to write the merged playerdata to
+     * @param nbtSource        the path to the source NBT playerdata file
+     * @param nbtDest          the path to write the merged playerdata to
+     * @param compressionLevel the deflate level the destination is written with
      * @throws IOException if reading or writing either NBT file fails
      */
-    public static void copyPlayerDataNBT(Path nbtSource, Path nbtDest) throws IOException
+    public static void copyPlayerDataNBT(Path nbtSource, Path nbtDest, int compressionLevel) throws IOException
     {
         // 1. Load the new data we want to apply (Source)
-        NamedTag sourceRoot = NBTUtil.read(nbtSource.toFile());
+        NamedTag sourceRoot = read(nbtSource);
         CompoundTag sourceCompound = (CompoundTag) sourceRoot.getTag();
         // 2. If the destination exists, grab the tags we want to keep
         if (Files.exists(nbtDest))
         {
-            NamedTag destRoot = NBTUtil.read(nbtDest.toFile());
+            NamedTag destRoot = read(nbtDest);
             CompoundTag destCompound = (CompoundTag) destRoot.getTag();
             //We use dot notation to specify nested tags
             for (String tagPath : DEFAULT_TAGS_TO_KEEP)
@@ -90,8 +308,7 @@ public final class NBTHandler
             }
         }
         // 3. Write the modified source compound to the destination path
-        // Querz NBT handles GZIP compression automatically by default
-        NBTUtil.write(sourceCompound, nbtDest.toFile());
+        write(sourceRoot, nbtDest, compressionLevel);
     }
 
     /**
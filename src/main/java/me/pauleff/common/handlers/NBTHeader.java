@@ -0,0 +1,58 @@
+package me.pauleff.common.handlers;
+
+import java.util.Objects;
+
+/**
+ * Describes the start of an NBT document as read by {@link NBTHandler#probe(java.nio.file.Path)}.
+ *
+ * @param compression    the compression wrapping the document
+ * @param rootTagId      the NBT type id of the root tag, between {@code 1} and {@code 12}
+ * @param rootNameLength the length in bytes of the root tag's modified UTF-8 name
+ */
+public record NBTHeader(NBTCompression compression, int rootTagId, int rootNameLength)
+{
+    /**
+     * NBT type id of a compound tag.
+     */
+    public static final int COMPOUND_TAG_ID = 10;
+
+    /**
+     * Validates the header fields.
+     *
+     * @throws NullPointerException     if {@code compression} is {@code null}
+     * @throws IllegalArgumentException if the tag id or name length is out of range
+     */
+    public NBTHeader
+    {
+        Objects.requireNonNull(compression, "compression");
+        if (rootTagId < 1 || rootTagId > 12)
+        {
+            throw new IllegalArgumentException("Invalid root tag id: " + rootTagId);
+        }
+        if (rootNameLength < 0 || rootNameLength > 0xFFFF)
+        {
+            throw new IllegalArgumentException("Invalid root name length: " + rootNameLength);
+        }
+    }
+
+    /**
+     * Indicates whether the root tag is a compound, as in every Minecraft save file.
+     *
+     * @return {@code true} if the root is a compound tag; {@code false} otherwise
+     */
+    public boolean hasCompoundRoot()
+    {
+        return rootTagId == COMPOUND_TAG_ID;
+    }
+
+    /**
+     * Indicates whether the document can be read with {@link net.querz.nbt.io.NBTUtil#read(java.io.File)},
+     * which handles GZIP and uncompressed NBT only.
+     *
+     * @return {@code true} unless the document is ZLIB-compressed
+     */
+    public boolean isReadableByNBTUtil()
+    {
+        return compression != NBTCompression.ZLIB;
+    }
+}
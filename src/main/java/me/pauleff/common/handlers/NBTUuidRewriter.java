@@ -0,0 +1,453 @@
+package me.pauleff.common.handlers;
+
+import me.pauleff.common.handlers.uuid.UuidMap;
+import me.pauleff.common.handlers.uuid.UuidRewriter;
+import me.pauleff.common.metrics.Metric;
+import me.pauleff.common.metrics.Metrics;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.Deflater;
+
+/**
+ * Rewrites mapped player UUIDs inside NBT documents while streaming through their tags.
+ * <p>
+ * Tags are copied from input to output one at a time; no tag tree is built. Three UUID
+ * encodings are rewritten:
+ * <ul>
+ *     <li>int arrays of length 4 (e.g. {@code UUID}, {@code Owner}), the encoding since 1.16,</li>
+ *     <li>long pairs named {@code <prefix>Most} / {@code <prefix>Least} in the same compound
+ *     (e.g. {@code UUIDMost}, {@code OwnerUUIDLeast}), the encoding before 1.16,</li>
+ *     <li>UUID strings, through the given {@link UuidRewriter}.</li>
+ * </ul>
+ * Only mapped UUIDs are replaced, so unrelated int arrays and long pairs pass through
+ * unchanged. The two halves of a long pair can be far apart in a compound, so the output is
+ * collected in a buffer where the first half is patched once the second has been read.
+ * {@link #rewrite(InputStream)} returns that buffer together with the replacement count, so
+ * callers can skip recompressing documents in which nothing matched.
+ * <p>
+ * Binary UUIDs are looked up by their raw bits in a {@link UuidMap}, so matching them does not
+ * allocate. A {@link UuidMap} passed in is used live; any other map is copied.
+ * <p>
+ * Instances are immutable and safe to share between threads as long as the map is.
+ */
+public final class NBTUuidRewriter
+{
+    private static final int MAX_DEPTH = 512;
+
+    private static final int TAG_END = 0;
+    private static final int TAG_BYTE = 1;
+    private static final int TAG_SHORT = 2;
+    private static final int TAG_INT = 3;
+    private static final int TAG_LONG = 4;
+    private static final int TAG_FLOAT = 5;
+    private static final int TAG_DOUBLE = 6;
+    private static final int TAG_BYTE_ARRAY = 7;
+    private static final int TAG_STRING = 8;
+    private static final int TAG_LIST = 9;
+    private static final int TAG_COMPOUND = 10;
+    private static final int TAG_INT_ARRAY = 11;
+    private static final int TAG_LONG_ARRAY = 12;
+
+    private final UuidMap mappings;
+    private final UuidRewriter stringRewriter;
+    private final int compressionLevel;
+
+    /**
+     * Creates a rewriter for the given mappings that recompresses at the default deflate level.
+     *
+     * @param mappings       the original-to-remapped UUIDs, consulted for binary UUIDs
+     * @param stringRewriter the rewriter applied to every string tag and string list element
+     * @throws NullPointerException if an argument is {@code null}
+     */
+    public NBTUuidRewriter(Map<UUID, UUID> mappings, UuidRewriter stringRewriter)
+    {
+        this(mappings, stringRewriter, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Creates a rewriter for the given mappings.
+     *
+     * @param mappings         the original-to-remapped UUIDs, consulted for binary UUIDs
+     * @param stringRewriter   the rewriter applied to every string tag and string list element
+     * @param compressionLevel the deflate level for recompressed documents, as accepted by
+     *                         {@link ZlibCodec#checkLevel(int)}
+     * @throws NullPointerException     if an argument is {@code null}
+     * @throws IllegalArgumentException if {@code compressionLevel} is out of range
+     */
+    public NBTUuidRewriter(Map<UUID, UUID> mappings, UuidRewriter stringRewriter, int compressionLevel)
+    {
+        this.mappings = UuidMap.copyOf(Objects.requireNonNull(mappings, "mappings"));
+        this.stringRewriter = Objects.requireNonNull(stringRewriter, "stringRewriter");
+        this.compressionLevel = ZlibCodec.checkLevel(compressionLevel);
+    }
+
+    /**
+     * Returns the deflate level documents are recompressed with.
+     *
+     * @return the compression level, or {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public int compressionLevel()
+    {
+        return compressionLevel;
+    }
+
+    /**
+     * Rewrites an NBT file in place, keeping its compression.
+     * <p>
+     * The file is classified with {@link NBTHandler#probe(Path)} and only recompressed and
+     * written back when at least one UUID was replaced. The new content goes to a sibling
+     * {@code .tmp} file first, which is then moved over {@code file}.
+     *
+     * @param file the file to rewrite
+     * @return the number of replaced UUIDs; {@code 0} if the file is not NBT or nothing matched
+     * @throws IOException if the file cannot be read or written, or its NBT is malformed
+     */
+    public int rewriteFile(Path file) throws IOException
+    {
+        Optional<NBTHeader> header = NBTHandler.probe(file);
+        if (header.isEmpty())
+        {
+            return 0;
+        }
+        NBTCompression compression = header.get().compression();
+
+        Rewritten rewritten;
+        try (InputStream in = compression.decompress(Metrics.countReads(Files.newInputStream(file))))
+        {
+            rewritten = rewrite(in);
+        }
+        if (rewritten.replaced() == 0)
+        {
+            return 0;
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = compression.compress(compressed, compressionLevel))
+        {
+            rewritten.writeTo(out);
+        }
+        byte[] bytes = compressed.toByteArray();
+        replace(file, bytes);
+        Metrics.add(Metric.BYTES_WRITTEN, bytes.length);
+        return rewritten.replaced();
+    }
+
+    /**
+     * Replaces {@code file} with {@code bytes} through a sibling temp file, so an interrupted
+     * conversion never leaves a truncated document behind.
+     */
+    private static void replace(Path file, byte[] bytes) throws IOException
+    {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, bytes);
+        try
+        {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e)
+        {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Copies one uncompressed NBT document from {@code in} to {@code out}, rewriting mapped UUIDs.
+     * <p>
+     * Neither stream is closed.
+     *
+     * @param in  the uncompressed NBT input, positioned at the root tag
+     * @param out the destination for the rewritten document
+     * @return the number of replaced UUIDs
+     * @throws IOException if reading or writing fails, or the NBT is malformed
+     */
+    public int rewrite(InputStream in, OutputStream out) throws IOException
+    {
+        Rewritten rewritten = rewrite(in);
+        rewritten.writeTo(out);
+        return rewritten.replaced();
+    }
+
+    /**
+     * Rewrites one uncompressed NBT document from {@code in} into memory.
+     * <p>
+     * The stream is not closed. Check {@link Rewritten#replaced()} before compressing the
+     * result; an unchanged document need not be written anywhere.
+     *
+     * @param in the uncompressed NBT input, positioned at the root tag
+     * @return the rewritten document and the number of replaced UUIDs
+     * @throws IOException if reading fails, or the NBT is malformed
+     */
+    public Rewritten rewrite(InputStream in) throws IOException
+    {
+        PatchableBuffer buffer = new PatchableBuffer();
+        Session session = new Session(new DataInputStream(new BufferedInputStream(in)), new DataOutputStream(buffer), buffer);
+
+        int rootType = session.in.readUnsignedByte();
+        session.out.writeByte(rootType);
+        if (rootType != TAG_END)
+        {
+            session.copyName();
+            session.copyPayload(rootType, 0);
+        }
+        return new Rewritten(buffer, session.replaced);
+    }
+
+    /**
+     * An uncompressed NBT document rewritten by {@link #rewrite(InputStream)}.
+     */
+    public static final class Rewritten
+    {
+        private final ByteArrayOutputStream document;
+        private final int replaced;
+
+        private Rewritten(ByteArrayOutputStream document, int replaced)
+        {
+            this.document = document;
+            this.replaced = replaced;
+        }
+
+        /**
+         * Returns the number of UUIDs replaced in the document.
+         *
+         * @return the replacement count; {@code 0} if the document equals its input
+         */
+        public int replaced()
+        {
+            return replaced;
+        }
+
+        /**
+         * Writes the uncompressed document to a stream, which is not closed.
+         *
+         * @param out the destination, typically a compressing stream
+         * @throws IOException if writing fails
+         */
+        public void writeTo(OutputStream out) throws IOException
+        {
+            document.writeTo(out);
+        }
+    }
+
+    /**
+     * State of a single {@link #rewrite(InputStream, OutputStream)} call.
+     */
+    private final class Session
+    {
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final PatchableBuffer buffer;
+        private final long[] target = new long[2];
+        private int replaced;
+
+        private Session(DataInputStream in, DataOutputStream out, PatchableBuffer buffer)
+        {
+            this.in = in;
+            this.out = out;
+            this.buffer = buffer;
+        }
+
+        private void copyPayload(int type, int depth) throws IOException
+        {
+            switch (type)
+            {
+                case TAG_BYTE -> out.writeByte(in.readByte());
+                case TAG_SHORT -> out.writeShort(in.readShort());
+                case TAG_INT, TAG_FLOAT -> out.writeInt(in.readInt());
+                case TAG_LONG, TAG_DOUBLE -> out.writeLong(in.readLong());
+                case TAG_BYTE_ARRAY -> copyBytes(readLength(1));
+                case TAG_STRING -> copyStringValue();
+                case TAG_LIST -> copyList(depth + 1);
+                case TAG_COMPOUND -> copyCompound(depth + 1);
+                case TAG_INT_ARRAY -> copyIntArray();
+                case TAG_LONG_ARRAY -> copyBytes(readLength(8));
+                default -> throw new IOException("Invalid NBT tag id: " + type);
+            }
+        }
+
+        private void copyCompound(int depth) throws IOException
+        {
+            checkDepth(depth);
+            // Offsets of <prefix>Most / <prefix>Least values seen in this compound, keyed by prefix.
+            Map<String, int[]> longPairs = null;
+            while (true)
+            {
+                int type = in.readUnsignedByte();
+                out.writeByte(type);
+                if (type == TAG_END)
+                {
+                    return;
+                }
+                String name = copyName();
+                if (type == TAG_LONG && (name.endsWith("Most") || name.endsWith("Least")))
+                {
+                    boolean most = name.endsWith("Most");
+                    String prefix = name.substring(0, name.length() - (most ? 4 : 5));
+                    if (longPairs == null)
+                    {
+                        longPairs = new HashMap<>();
+                    }
+                    int[] offsets = longPairs.computeIfAbsent(prefix, _ -> new int[]{-1, -1});
+                    offsets[most ? 0 : 1] = buffer.size();
+                    out.writeLong(in.readLong());
+                    if (offsets[0] >= 0 && offsets[1] >= 0)
+                    {
+                        rewriteLongPair(offsets[0], offsets[1]);
+                        longPairs.remove(prefix);
+                    }
+                } else
+                {
+                    copyPayload(type, depth);
+                }
+            }
+        }
+
+        private void copyList(int depth) throws IOException
+        {
+            checkDepth(depth);
+            int elementType = in.readUnsignedByte();
+            int length = in.readInt();
+            out.writeByte(elementType);
+            out.writeInt(length);
+            if (length > 0 && elementType == TAG_END)
+            {
+                throw new IOException("Non-empty NBT list without element type");
+            }
+            for (int i = 0; i < length; i++)
+            {
+                copyPayload(elementType, depth);
+            }
+        }
+
+        private void copyIntArray() throws IOException
+        {
+            int length = readLength(4);
+            if (length != 4)
+            {
+                copyBytes(length * 4);
+                return;
+            }
+            long most = (long) in.readInt() << 32 | in.readInt() & 0xFFFFFFFFL;
+            long least = (long) in.readInt() << 32 | in.readInt() & 0xFFFFFFFFL;
+            if (mappings.findTarget(most, least, target))
+            {
+                most = target[0];
+                least = target[1];
+                replaced++;
+            }
+            out.writeInt((int) (most >>> 32));
+            out.writeInt((int) most);
+            out.writeInt((int) (least >>> 32));
+            out.writeInt((int) least);
+        }
+
+        private void rewriteLongPair(int mostOffset, int leastOffset)
+        {
+            if (mappings.findTarget(buffer.readLong(mostOffset), buffer.readLong(leastOffset), target))
+            {
+                buffer.patchLong(mostOffset, target[0]);
+                buffer.patchLong(leastOffset, target[1]);
+                replaced++;
+            }
+        }
+
+        /**
+         * Copies a tag name and returns it.
+         */
+        private String copyName() throws IOException
+        {
+            String name = in.readUTF();
+            out.writeUTF(name);
+            return name;
+        }
+
+        /**
+         * Copies a string payload, rewriting UUIDs in its raw bytes.
+         * <p>
+         * Modified UTF-8 encodes ASCII as single bytes, so the byte-level rewriter applies
+         * without decoding the string.
+         */
+        private void copyStringValue() throws IOException
+        {
+            int length = in.readUnsignedShort();
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            replaced += stringRewriter.rewriteInPlace(bytes);
+            out.writeShort(length);
+            out.write(bytes);
+        }
+
+        private int readLength(int elementSize) throws IOException
+        {
+            int length = in.readInt();
+            if (length < 0 || (long) length * elementSize > Integer.MAX_VALUE)
+            {
+                throw new IOException("Invalid NBT array length: " + length);
+            }
+            out.writeInt(length);
+            return length;
+        }
+
+        private void copyBytes(int count) throws IOException
+        {
+            byte[] chunk = new byte[Math.min(count, 8192)];
+            int remaining = count;
+            while (remaining > 0)
+            {
+                int read = in.read(chunk, 0, Math.min(remaining, chunk.length));
+                if (read < 0)
+                {
+                    throw new IOException("Truncated NBT array");
+                }
+                out.write(chunk, 0, read);
+                remaining -= read;
+            }
+        }
+
+        private void checkDepth(int depth) throws IOException
+        {
+            if (depth > MAX_DEPTH)
+            {
+                throw new IOException("NBT nesting exceeds " + MAX_DEPTH + " levels");
+            }
+        }
+    }
+
+    /**
+     * Output buffer whose already-written longs can be read back and patched.
+     */
+    private static final class PatchableBuffer extends ByteArrayOutputStream
+    {
+        private long readLong(int offset)
+        {
+            long value = 0;
+            for (int i = 0; i < 8; i++)
+            {
+                value = value << 8 | buf[offset + i] & 0xFF;
+            }
+            return value;
+        }
+
+        private void patchLong(int offset, long value)
+        {
+            for (int i = 7; i >= 0; i--)
+            {
+                buf[offset + i] = (byte) value;
+                value >>>= 8;
+            }
+        }
+    }
+}
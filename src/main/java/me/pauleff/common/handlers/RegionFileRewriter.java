@@ -0,0 +1,365 @@
+package me.pauleff.common.handlers;
+
+import me.pauleff.common.metrics.Metric;
+import me.pauleff.common.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.Objects;
+
+/**
+ * Rewrites mapped player UUIDs inside the chunks of an Anvil region file ({@code .mca}).
+ * <p>
+ * The 8 KiB header is read first and every present chunk is decompressed and streamed
+ * through a {@link NBTUuidRewriter}. Chunks without mapped UUIDs are neither read back nor
+ * written, so their sectors cause no write traffic at all. A changed chunk is recompressed
+ * with its original compression and written to sectors no chunk in the on-disk header uses,
+ * filling gaps before growing the file, and never over its own old sectors. The header, with
+ * updated locations and timestamps, is written once at the end, after the chunk data has
+ * been forced to disk. A run that is interrupted therefore leaves every chunk readable, in
+ * either its old or its new version. The sectors left behind are reclaimed by the game's own
+ * sector allocator. Chunks stored in external {@code c.<x>.<z>.mcc} files are rewritten in
+ * those files.
+ * <p>
+ * Both {@code region} (block entities, and entities before 1.17) and {@code entities}
+ * folders use this format.
+ * <p>
+ * Chunks are processed one at a time, and each one reserves an estimate of the memory it
+ * needs from a {@link MemoryBudget} while it is decompressed and rewritten. Sharing one
+ * budget between rewriters running in parallel caps the decompressed bytes held by all
+ * of them together. Instances are safe to share between threads as long as the wrapped
+ * NBT rewriter is.
+ */
+public final class RegionFileRewriter
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(RegionFileRewriter.class);
+
+    /**
+     * Size of a region file sector in bytes.
+     */
+    public static final int SECTOR_SIZE = 4096;
+
+    private static final int CHUNKS_PER_REGION = 1024;
+    private static final int HEADER_SIZE = 2 * SECTOR_SIZE;
+    private static final int CHUNK_HEADER_SIZE = 5;
+    private static final int MAX_SECTORS_PER_CHUNK = 255;
+    private static final int MAX_SECTOR_OFFSET = 0xFFFFFF;
+    private static final int EXTERNAL_FLAG = 0x80;
+    private static final byte[] REWRITTEN_EXTERNALLY = new byte[0];
+
+    /**
+     * Assumed ratio between a chunk's decompressed and compressed size. Chunk NBT is highly
+     * repetitive and typically compresses between 4:1 and 10:1.
+     */
+    private static final int EXPANSION_FACTOR = 8;
+
+    private final NBTUuidRewriter nbtRewriter;
+    private final MemoryBudget memoryBudget;
+
+    /**
+     * Creates a region file rewriter that delegates chunk content to the given NBT rewriter,
+     * without a memory limit.
+     *
+     * @param nbtRewriter the rewriter applied to every chunk's NBT, whose compression level
+     *                    changed chunks are recompressed with
+     * @throws NullPointerException if {@code nbtRewriter} is {@code null}
+     */
+    public RegionFileRewriter(NBTUuidRewriter nbtRewriter)
+    {
+        this(nbtRewriter, MemoryBudget.unlimited());
+    }
+
+    /**
+     * Creates a region file rewriter that delegates chunk content to the given NBT rewriter
+     * and draws chunk buffers from the given budget.
+     *
+     * @param nbtRewriter  the rewriter applied to every chunk's NBT, whose compression level
+     *                     changed chunks are recompressed with
+     * @param memoryBudget the budget reserved from while a chunk is held in memory
+     * @throws NullPointerException if an argument is {@code null}
+     */
+    public RegionFileRewriter(NBTUuidRewriter nbtRewriter, MemoryBudget memoryBudget)
+    {
+        this.nbtRewriter = Objects.requireNonNull(nbtRewriter, "nbtRewriter");
+        this.memoryBudget = Objects.requireNonNull(memoryBudget, "memoryBudget");
+    }
+
+    /**
+     * Rewrites mapped UUIDs in every chunk of a region file.
+     * <p>
+     * Malformed or unsupported chunks (e.g. LZ4-compressed ones) are logged and skipped
+     * without affecting the others. Empty and truncated region files are ignored.
+     *
+     * @param regionFile the {@code .mca} file to rewrite
+     * @return the number of chunks that changed
+     * @throws IOException if the region file header cannot be read or written
+     */
+    public int rewrite(Path regionFile) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(regionFile, StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            long size = channel.size();
+            if (size < HEADER_SIZE)
+            {
+                return 0;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, 0);
+
+            BitSet usedSectors = usedSectors(header);
+            int changed = 0;
+            for (int index = 0; index < CHUNKS_PER_REGION; index++)
+            {
+                int location = header.getInt(index * 4);
+                if (location == 0)
+                {
+                    continue;
+                }
+                try
+                {
+                    int sectorOffset = location >>> 8;
+                    int sectorCount = location & 0xFF;
+                    byte[] chunk = rewriteChunk(channel, regionFile, index, sectorOffset, sectorCount, size);
+                    if (chunk == null)
+                    {
+                        continue;
+                    }
+                    changed++;
+                    if (chunk == REWRITTEN_EXTERNALLY)
+                    {
+                        continue;
+                    }
+                    int sectors = chunk.length / SECTOR_SIZE;
+                    int newOffset = allocate(usedSectors, sectors);
+                    writeFully(channel, ByteBuffer.wrap(chunk), (long) newOffset * SECTOR_SIZE);
+                    header.putInt(index * 4, newOffset << 8 | sectors);
+                    header.putInt(SECTOR_SIZE + index * 4, (int) (System.currentTimeMillis() / 1000));
+                } catch (IOException e)
+                {
+                    LOGGER.warn("Skipping chunk {} in {}: {}", index, regionFile.normalize(), e.getMessage());
+                }
+            }
+
+            if (changed > 0)
+            {
+                // Chunk data must be durable before the header points at it.
+                channel.force(false);
+                writeFully(channel, header.rewind(), 0);
+            }
+            return changed;
+        }
+    }
+
+    /**
+     * Marks the header sectors and every sector the header's chunk locations refer to.
+     */
+    private static BitSet usedSectors(ByteBuffer header)
+    {
+        BitSet used = new BitSet();
+        used.set(0, HEADER_SIZE / SECTOR_SIZE);
+        for (int index = 0; index < CHUNKS_PER_REGION; index++)
+        {
+            int location = header.getInt(index * 4);
+            used.set(location >>> 8, (location >>> 8) + (location & 0xFF));
+        }
+        return used;
+    }
+
+    /**
+     * Reserves the first run of {@code sectors} unused sectors, past the end of the file if
+     * no gap is large enough.
+     *
+     * @return the first sector of the run
+     * @throws IOException if the run would start beyond the largest sector offset a location can hold
+     */
+    private static int allocate(BitSet used, int sectors) throws IOException
+    {
+        int start = used.nextClearBit(0);
+        int nextUsed = used.nextSetBit(start);
+        while (nextUsed >= 0 && nextUsed - start < sectors)
+        {
+            start = used.nextClearBit(nextUsed);
+            nextUsed = used.nextSetBit(start);
+        }
+        if (start > MAX_SECTOR_OFFSET)
+        {
+            throw new IOException("Region file has no room for the rewritten chunk");
+        }
+        used.set(start, start + sectors);
+        return start;
+    }
+
+    /**
+     * Rewrites one chunk and returns its new sector-padded record, if it changed.
+     *
+     * @param channel      the region file
+     * @param regionFile   the region file's path, used to locate external chunks
+     * @param index        the chunk's index in the header
+     * @param sectorOffset the chunk's first sector
+     * @param sectorCount  the number of sectors allocated to the chunk
+     * @param fileSize     the region file's size
+     * @return the sector-padded chunk record to write, {@link #REWRITTEN_EXTERNALLY} if the chunk's
+     * external file was rewritten, or {@code null} if nothing changed
+     * @throws IOException if the chunk is malformed or cannot be read
+     */
+    private byte[] rewriteChunk(FileChannel channel, Path regionFile, int index, int sectorOffset, int sectorCount,
+                                long fileSize) throws IOException
+    {
+        long position = (long) sectorOffset * SECTOR_SIZE;
+        if (sectorOffset < 2 || position + (long) sectorCount * SECTOR_SIZE > fileSize)
+        {
+            throw new IOException("Chunk sectors outside of file");
+        }
+        ByteBuffer chunkHeader = ByteBuffer.allocate(CHUNK_HEADER_SIZE);
+        readFully(channel, chunkHeader, position);
+        int length = chunkHeader.getInt(0);
+        int type = chunkHeader.get(4) & 0xFF;
+        if (length < 1 || length + 4L > (long) sectorCount * SECTOR_SIZE)
+        {
+            throw new IOException("Invalid chunk length " + length);
+        }
+        NBTCompression compression = compressionOf(type & ~EXTERNAL_FLAG);
+
+        if ((type & EXTERNAL_FLAG) != 0)
+        {
+            return rewriteExternalChunk(regionFile, index, compression) ? REWRITTEN_EXTERNALLY : null;
+        }
+
+        byte[] rewritten;
+        try (MemoryBudget.Reservation _ = reserveFor(length))
+        {
+            ByteBuffer payload = ByteBuffer.allocate(length - 1);
+            readFully(channel, payload, position + CHUNK_HEADER_SIZE);
+            rewritten = rewritePayload(payload.array(), compression);
+        }
+        if (rewritten == null)
+        {
+            return null;
+        }
+
+        int sectors = (CHUNK_HEADER_SIZE + rewritten.length + SECTOR_SIZE - 1) / SECTOR_SIZE;
+        if (sectors > MAX_SECTORS_PER_CHUNK)
+        {
+            throw new IOException("Rewritten chunk exceeds " + MAX_SECTORS_PER_CHUNK + " sectors");
+        }
+        ByteBuffer record = ByteBuffer.allocate(sectors * SECTOR_SIZE);
+        record.putInt(rewritten.length + 1).put((byte) type).put(rewritten);
+        return record.array();
+    }
+
+    /**
+     * Rewrites a chunk stored in an external {@code c.<x>.<z>.mcc} file next to the region file.
+     *
+     * @return {@code true} if the external file changed; {@code false} otherwise
+     */
+    private boolean rewriteExternalChunk(Path regionFile, int index, NBTCompression compression) throws IOException
+    {
+        String[] parts = regionFile.getFileName().toString().split("\\.");
+        if (parts.length != 4)
+        {
+            throw new IOException("Cannot locate external chunk for region file name");
+        }
+        int chunkX = Integer.parseInt(parts[1]) * 32 + index % 32;
+        int chunkZ = Integer.parseInt(parts[2]) * 32 + index / 32;
+        Path external = regionFile.resolveSibling("c." + chunkX + "." + chunkZ + ".mcc");
+
+        try (MemoryBudget.Reservation _ = reserveFor(Files.size(external)))
+        {
+            byte[] payload = Files.readAllBytes(external);
+            Metrics.add(Metric.BYTES_READ, payload.length);
+            byte[] rewritten = rewritePayload(payload, compression);
+            if (rewritten == null)
+            {
+                return false;
+            }
+            Files.write(external, rewritten);
+            Metrics.add(Metric.BYTES_WRITTEN, rewritten.length);
+            return true;
+        }
+    }
+
+    /**
+     * Decompresses and rewrites a chunk payload, recompressing it only if a UUID was replaced.
+     * <p>
+     * Callers hold a {@link #reserveFor(long) reservation} for the payload while calling this.
+     *
+     * @return the recompressed payload, or {@code null} if no UUID was replaced
+     */
+    private byte[] rewritePayload(byte[] payload, NBTCompression compression) throws IOException
+    {
+        NBTUuidRewriter.Rewritten document;
+        try (InputStream in = compression.decompress(new ByteArrayInputStream(payload)))
+        {
+            document = nbtRewriter.rewrite(in);
+        }
+        if (document.replaced() == 0)
+        {
+            return null;
+        }
+
+        ByteArrayOutputStream rewritten = new ByteArrayOutputStream(payload.length + 64);
+        try (OutputStream out = compression.compress(rewritten, nbtRewriter.compressionLevel()))
+        {
+            document.writeTo(out);
+        }
+        return rewritten.toByteArray();
+    }
+
+    /**
+     * Reserves the memory needed to rewrite a chunk of the given compressed size.
+     * <p>
+     * The estimate covers the compressed input, the decompressed document buffered by the
+     * NBT rewriter, and the recompressed output.
+     */
+    private MemoryBudget.Reservation reserveFor(long compressedLength)
+    {
+        return memoryBudget.reserve(compressedLength * (2 + EXPANSION_FACTOR));
+    }
+
+    /**
+     * Maps a region chunk compression id to the matching {@link NBTCompression}.
+     */
+    private static NBTCompression compressionOf(int type) throws IOException
+    {
+        return switch (type)
+        {
+            case 1 -> NBTCompression.GZIP;
+            case 2 -> NBTCompression.ZLIB;
+            case 3 -> NBTCompression.NONE;
+            default -> throw new IOException("Unsupported chunk compression " + type);
+        };
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+    {
+        Metrics.add(Metric.BYTES_WRITTEN, buffer.remaining());
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+    {
+        Metrics.add(Metric.BYTES_READ, buffer.remaining());
+        while (buffer.hasRemaining())
+        {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+            {
+                throw new EOFException("Unexpected end of region file");
+            }
+        }
+    }
+}
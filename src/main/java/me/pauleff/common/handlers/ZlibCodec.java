@@ -0,0 +1,400 @@
+package me.pauleff.common.handlers;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Creates GZIP and ZLIB streams backed by pooled {@link Inflater}s and {@link Deflater}s.
+ * <p>
+ * {@link java.util.zip.GZIPInputStream} and friends create a fresh native zlib context for
+ * every stream and free it again on close, which dominates the cost of converting many small
+ * NBT files and region chunks. The streams returned here borrow a context from a small
+ * bounded pool, {@link Inflater#reset() reset} it and hand it back when they are closed.
+ * Contexts beyond the pool's capacity are ended. Pooling rather than thread-local caching
+ * keeps reuse effective for the short-lived virtual threads that run conversions.
+ * <p>
+ * GZIP framing is written and verified here, including the CRC-32 and size trailer, so
+ * output is readable by any GZIP reader. Only single-member GZIP data is read. Returned
+ * streams must be closed to return their context to the pool; unclosed contexts are
+ * released by the garbage collector.
+ * <p>
+ * Output streams take their compression level per stream, so callers with different
+ * settings can share the pool. Without one, {@link Deflater#DEFAULT_COMPRESSION} is used,
+ * the level the game itself writes with.
+ */
+public final class ZlibCodec
+{
+    private static final int BUFFER_SIZE = 8192;
+    private static final int POOL_CAPACITY = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private static final int GZIP_MAGIC = 0x8B1F;
+    private static final int GZIP_FHCRC = 2;
+    private static final int GZIP_FEXTRA = 4;
+    private static final int GZIP_FNAME = 8;
+    private static final int GZIP_FCOMMENT = 16;
+    private static final byte[] GZIP_HEADER = {
+            (byte) GZIP_MAGIC, (byte) (GZIP_MAGIC >> 8), Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xFF
+    };
+
+    private static final BlockingQueue<Inflater> ZLIB_INFLATERS = new ArrayBlockingQueue<>(POOL_CAPACITY);
+    private static final BlockingQueue<Inflater> RAW_INFLATERS = new ArrayBlockingQueue<>(POOL_CAPACITY);
+    private static final BlockingQueue<Deflater> ZLIB_DEFLATERS = new ArrayBlockingQueue<>(POOL_CAPACITY);
+    private static final BlockingQueue<Deflater> RAW_DEFLATERS = new ArrayBlockingQueue<>(POOL_CAPACITY);
+
+    private ZlibCodec()
+    {
+    }
+
+    /**
+     * Checks that a deflate level is one {@link Deflater} accepts.
+     *
+     * @param level {@code 0} (store only) to {@code 9} (smallest output), or
+     *              {@link Deflater#DEFAULT_COMPRESSION}
+     * @return {@code level}
+     * @throws IllegalArgumentException if {@code level} is out of range
+     */
+    public static int checkLevel(int level)
+    {
+        if (level != Deflater.DEFAULT_COMPRESSION
+                && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION))
+        {
+            throw new IllegalArgumentException("Compression level must be between 0 and 9: " + level);
+        }
+        return level;
+    }
+
+    /**
+     * Wraps a ZLIB stream in a decompressing stream.
+     *
+     * @param in the ZLIB-compressed input; closed with the returned stream
+     * @return a stream yielding the decompressed bytes
+     */
+    public static InputStream zlibInput(InputStream in)
+    {
+        return new PooledInflaterInputStream(in, borrowInflater(ZLIB_INFLATERS, false), ZLIB_INFLATERS);
+    }
+
+    /**
+     * Wraps a GZIP stream in a decompressing stream, reading its header immediately.
+     *
+     * @param in the GZIP-compressed input; closed with the returned stream
+     * @return a stream yielding the decompressed bytes, which verifies the GZIP trailer at its end
+     * @throws IOException if the GZIP header is missing or malformed
+     */
+    public static InputStream gzipInput(InputStream in) throws IOException
+    {
+        readGzipHeader(in);
+        return new GzipInflaterInputStream(in, borrowInflater(RAW_INFLATERS, true));
+    }
+
+    /**
+     * Wraps an output stream so that data written to it is ZLIB-compressed at the default level.
+     *
+     * @param out the destination; closed with the returned stream
+     * @return a compressing stream that must be closed to finish the data
+     */
+    public static OutputStream zlibOutput(OutputStream out)
+    {
+        return zlibOutput(out, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Wraps an output stream so that data written to it is ZLIB-compressed.
+     *
+     * @param out   the destination; closed with the returned stream
+     * @param level the deflate level, as accepted by {@link #checkLevel(int)}
+     * @return a compressing stream that must be closed to finish the data
+     * @throws IllegalArgumentException if {@code level} is out of range
+     */
+    public static OutputStream zlibOutput(OutputStream out, int level)
+    {
+        return new PooledDeflaterOutputStream(out, borrowDeflater(ZLIB_DEFLATERS, false, level), ZLIB_DEFLATERS);
+    }
+
+    /**
+     * Wraps an output stream so that data written to it is GZIP-compressed at the default level.
+     *
+     * @param out the destination; closed with the returned stream
+     * @return a compressing stream that must be closed to finish the data
+     * @throws IOException if the GZIP header cannot be written
+     */
+    public static OutputStream gzipOutput(OutputStream out) throws IOException
+    {
+        return gzipOutput(out, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Wraps an output stream so that data written to it is GZIP-compressed.
+     *
+     * @param out   the destination; closed with the returned stream
+     * @param level the deflate level, as accepted by {@link #checkLevel(int)}
+     * @return a compressing stream that must be closed to finish the data
+     * @throws IOException              if the GZIP header cannot be written
+     * @throws IllegalArgumentException if {@code level} is out of range
+     */
+    public static OutputStream gzipOutput(OutputStream out, int level) throws IOException
+    {
+        Deflater deflater = borrowDeflater(RAW_DEFLATERS, true, level);
+        out.write(GZIP_HEADER);
+        return new GzipDeflaterOutputStream(out, deflater);
+    }
+
+    private static Inflater borrowInflater(BlockingQueue<Inflater> pool, boolean nowrap)
+    {
+        Inflater inflater = pool.poll();
+        return inflater != null ? inflater : new Inflater(nowrap);
+    }
+
+    private static void returnInflater(Inflater inflater, BlockingQueue<Inflater> pool)
+    {
+        inflater.reset();
+        if (!pool.offer(inflater))
+        {
+            inflater.end();
+        }
+    }
+
+    private static Deflater borrowDeflater(BlockingQueue<Deflater> pool, boolean nowrap, int level)
+    {
+        checkLevel(level);
+        Deflater deflater = pool.poll();
+        if (deflater == null)
+        {
+            return new Deflater(level, nowrap);
+        }
+        deflater.setLevel(level);
+        return deflater;
+    }
+
+    private static void returnDeflater(Deflater deflater, BlockingQueue<Deflater> pool)
+    {
+        deflater.reset();
+        if (!pool.offer(deflater))
+        {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Reads and validates a GZIP member header, skipping its optional fields.
+     */
+    private static void readGzipHeader(InputStream in) throws IOException
+    {
+        DataInputStream data = new DataInputStream(in);
+        if (Short.reverseBytes(data.readShort()) != (short) GZIP_MAGIC)
+        {
+            throw new ZipException("Not in GZIP format");
+        }
+        if (data.readUnsignedByte() != Deflater.DEFLATED)
+        {
+            throw new ZipException("Unsupported GZIP compression method");
+        }
+        int flags = data.readUnsignedByte();
+        data.skipNBytes(6);
+        if ((flags & GZIP_FEXTRA) != 0)
+        {
+            data.skipNBytes(Short.toUnsignedInt(Short.reverseBytes(data.readShort())));
+        }
+        if ((flags & GZIP_FNAME) != 0)
+        {
+            skipZeroTerminated(data);
+        }
+        if ((flags & GZIP_FCOMMENT) != 0)
+        {
+            skipZeroTerminated(data);
+        }
+        if ((flags & GZIP_FHCRC) != 0)
+        {
+            data.skipNBytes(2);
+        }
+    }
+
+    private static void skipZeroTerminated(DataInputStream in) throws IOException
+    {
+        while (in.readUnsignedByte() != 0)
+        {
+            // skip
+        }
+    }
+
+    /**
+     * Inflating stream that returns its inflater to the pool on close.
+     */
+    private static class PooledInflaterInputStream extends InflaterInputStream
+    {
+        private final BlockingQueue<Inflater> pool;
+        private boolean closed;
+
+        PooledInflaterInputStream(InputStream in, Inflater inflater, BlockingQueue<Inflater> pool)
+        {
+            super(in, inflater, BUFFER_SIZE);
+            this.pool = pool;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (closed)
+            {
+                return;
+            }
+            closed = true;
+            try
+            {
+                super.close();
+            } finally
+            {
+                returnInflater(inf, pool);
+            }
+        }
+    }
+
+    /**
+     * Inflates a raw deflate body and verifies the GZIP trailer that follows it.
+     */
+    private static final class GzipInflaterInputStream extends PooledInflaterInputStream
+    {
+        private final CRC32 crc = new CRC32();
+        private boolean trailerVerified;
+
+        GzipInflaterInputStream(InputStream in, Inflater inflater)
+        {
+            super(in, inflater, RAW_INFLATERS);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            int read = super.read(b, off, len);
+            if (read > 0)
+            {
+                crc.update(b, off, read);
+            } else if (read < 0 && !trailerVerified)
+            {
+                verifyTrailer();
+            }
+            return read;
+        }
+
+        /**
+         * Reads the CRC-32 and size trailer from the bytes the inflater left unconsumed,
+         * followed by the underlying stream.
+         */
+        private void verifyTrailer() throws IOException
+        {
+            trailerVerified = true;
+            int remaining = inf.getRemaining();
+            InputStream trailerIn = remaining > 0
+                    ? new SequenceInputStream(new ByteArrayInputStream(buf, len - remaining, remaining), in)
+                    : in;
+            byte[] trailer = trailerIn.readNBytes(8);
+            if (trailer.length < 8)
+            {
+                throw new EOFException("Unexpected end of GZIP trailer");
+            }
+            long expectedCrc = Integer.toUnsignedLong(littleEndianInt(trailer, 0));
+            long expectedSize = Integer.toUnsignedLong(littleEndianInt(trailer, 4));
+            if (expectedCrc != crc.getValue() || expectedSize != (inf.getBytesWritten() & 0xFFFFFFFFL))
+            {
+                throw new ZipException("Corrupt GZIP trailer");
+            }
+        }
+    }
+
+    /**
+     * Deflating stream that returns its deflater to the pool on close.
+     */
+    private static class PooledDeflaterOutputStream extends DeflaterOutputStream
+    {
+        private final BlockingQueue<Deflater> pool;
+        private boolean closed;
+
+        PooledDeflaterOutputStream(OutputStream out, Deflater deflater, BlockingQueue<Deflater> pool)
+        {
+            super(out, deflater, BUFFER_SIZE);
+            this.pool = pool;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (closed)
+            {
+                return;
+            }
+            closed = true;
+            try
+            {
+                super.close();
+            } finally
+            {
+                returnDeflater(def, pool);
+            }
+        }
+    }
+
+    /**
+     * Deflates into a raw deflate body and appends the GZIP trailer on finish.
+     */
+    private static final class GzipDeflaterOutputStream extends PooledDeflaterOutputStream
+    {
+        private final CRC32 crc = new CRC32();
+        private boolean finished;
+
+        GzipDeflaterOutputStream(OutputStream out, Deflater deflater)
+        {
+            super(out, deflater, RAW_DEFLATERS);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            super.write(b, off, len);
+            crc.update(b, off, len);
+        }
+
+        @Override
+        public void finish() throws IOException
+        {
+            if (finished)
+            {
+                return;
+            }
+            finished = true;
+            super.finish();
+            byte[] trailer = new byte[8];
+            putLittleEndianInt(trailer, 0, (int) crc.getValue());
+            putLittleEndianInt(trailer, 4, (int) def.getBytesRead());
+            out.write(trailer);
+        }
+    }
+
+    private static int littleEndianInt(byte[] bytes, int offset)
+    {
+        return (bytes[offset] & 0xFF)
+                | (bytes[offset + 1] & 0xFF) << 8
+                | (bytes[offset + 2] & 0xFF) << 16
+                | (bytes[offset + 3] & 0xFF) << 24;
+    }
+
+    private static void putLittleEndianInt(byte[] bytes, int offset, int value)
+    {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >> 8);
+        bytes[offset + 2] = (byte) (value >> 16);
+        bytes[offset + 3] = (byte) (value >> 24);
+    }
+}
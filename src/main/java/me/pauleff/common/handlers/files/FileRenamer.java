@@ -1,5 +1,7 @@
 package me.pauleff.common.handlers.files;
 
+import me.pauleff.common.metrics.Metric;
+import me.pauleff.common.metrics.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,6 +42,7 @@ public final class FileRenamer
         String resolvedName = preserveExtension(source.getFileName().toString(), newFileName);
         Path target = source.getParent().resolve(resolvedName);
         Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        Metrics.increment(Metric.FILES_RENAMED);
         LOGGER.debug("Renamed file\n\tFROM: '{}'\n\tTO: '{}'", source.normalize(), target.normalize());
         return target;
     }
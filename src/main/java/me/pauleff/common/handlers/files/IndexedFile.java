@@ -0,0 +1,75 @@
+package me.pauleff.common.handlers.files;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+
+/**
+ * A path paired with the attributes read when it was listed.
+ * <p>
+ * Carrying the attributes along lets callers classify a file without another metadata
+ * call. Symbolic links to regular files carry the target's attributes; links to
+ * directories carry the link's own attributes, so they are neither files nor directories
+ * and are never descended into, matching {@link java.nio.file.Files#walk}.
+ *
+ * @param path       the file's path
+ * @param attributes the file's basic attributes at listing time
+ * @see WorldIndex
+ */
+public record IndexedFile(Path path, BasicFileAttributes attributes)
+{
+    /**
+     * Validates that both components are present.
+     *
+     * @throws NullPointerException if {@code path} or {@code attributes} is {@code null}
+     */
+    public IndexedFile
+    {
+        Objects.requireNonNull(path, "path");
+        Objects.requireNonNull(attributes, "attributes");
+    }
+
+    /**
+     * Reads the attributes of a single path, following symbolic links.
+     *
+     * @param path the path to read
+     * @return the path paired with its current attributes
+     * @throws IOException if the attributes cannot be read
+     */
+    public static IndexedFile read(Path path) throws IOException
+    {
+        return new IndexedFile(path, Files.readAttributes(path, BasicFileAttributes.class));
+    }
+
+    /**
+     * Returns the file name of {@link #path()} as a string.
+     *
+     * @return the last path element
+     */
+    public String fileName()
+    {
+        return path.getFileName().toString();
+    }
+
+    /**
+     * Indicates whether the entry was a regular file when listed.
+     *
+     * @return {@code true} for regular files; {@code false} otherwise
+     */
+    public boolean isRegularFile()
+    {
+        return attributes.isRegularFile();
+    }
+
+    /**
+     * Indicates whether the entry was a directory when listed.
+     *
+     * @return {@code true} for directories; {@code false} otherwise
+     */
+    public boolean isDirectory()
+    {
+        return attributes.isDirectory();
+    }
+}
@@ -1,5 +1,7 @@
 package me.pauleff.common.handlers.files;
 
+import me.pauleff.common.metrics.Metric;
+import me.pauleff.common.metrics.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -7,6 +9,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 
 /**
  * Classifies files as text or binary using a bounded byte-sample heuristic.
@@ -37,12 +40,50 @@ public final class TextFileDetector
         {
             throw new IllegalArgumentException("Path must be a valid file.");
         }
+        return sampleIsText(path);
+    }
 
+    /**
+     * Determines whether a file appears to be text-based, using attributes that were already read.
+     * <p>
+     * Behaves like {@link #isTextBased(Path)} but takes the file type and size from
+     * {@code attributes} instead of querying the file system again. Empty files are
+     * classified without being opened.
+     *
+     * @param path       the path to the file to inspect
+     * @param attributes the file's attributes, e.g. from a directory walk
+     * @return {@code true} if the file is classified as text-based; {@code false} otherwise
+     * @throws IllegalArgumentException if {@code attributes} do not describe a regular file
+     * @throws IOException              if the file cannot be read
+     */
+    public static boolean isTextBased(Path path, BasicFileAttributes attributes) throws IOException
+    {
+        if (!attributes.isRegularFile())
+        {
+            throw new IllegalArgumentException("Path must be a valid file.");
+        }
+        if (attributes.size() == 0)
+        {
+            return true;
+        }
+        return sampleIsText(path);
+    }
+
+    /**
+     * Classifies a regular file by the bytes in its first 8 KiB.
+     *
+     * @param path the regular file to sample
+     * @return {@code true} if the sample looks like text; {@code false} otherwise
+     * @throws IOException if the file cannot be read
+     */
+    private static boolean sampleIsText(Path path) throws IOException
+    {
         byte[] sample;
         try (InputStream in = Files.newInputStream(path))
         {
             sample = in.readNBytes(SAMPLE_SIZE_BYTES);
         }
+        Metrics.add(Metric.BYTES_READ, sample.length);
 
         int nonTextCount = 0;
         for (byte value : sample)
@@ -1,19 +1,29 @@
 package me.pauleff.common.handlers.files;
 
 import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * Represents a Minecraft {@code usercache.json} file.
  * <p>
  * Prefer {@link #loadArray(Path)} for one-shot loads. Use {@link #of(Path)} when reusing a handle.
+ * <p>
+ * {@link #forEachPlayer(Consumer)} streams the cached players instead, parsing one entry at a
+ * time, so memory use does not grow with the file and callers can act on the first players
+ * before the rest of the file has been read.
  */
 public final class UsercacheFile
 {
@@ -81,4 +91,82 @@ public final class UsercacheFile
             return new JSONArray();
         }
     }
+
+    /**
+     * Reads the cached players of this usercache file one entry at a time.
+     * <p>
+     * Entries without a name or a valid UUID are skipped with a warning. On read or syntax
+     * failure, logs a warning and stops, keeping the players already passed to {@code action},
+     * so callers can continue with whatever could be read.
+     *
+     * @param action receives each player, in file order
+     * @return the number of players passed to {@code action}
+     */
+    public int forEachPlayer(Consumer<? super Player> action)
+    {
+        int players = 0;
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8))
+        {
+            JSONTokener tokener = new JSONTokener(reader);
+            if (tokener.nextClean() != '[')
+            {
+                throw tokener.syntaxError("A usercache must start with '['");
+            }
+            if (tokener.nextClean() == ']')
+            {
+                return 0;
+            }
+            tokener.back();
+            while (true)
+            {
+                Player player = toPlayer(tokener.nextValue());
+                if (player != null)
+                {
+                    action.accept(player);
+                    players++;
+                }
+                char next = tokener.nextClean();
+                if (next == ']')
+                {
+                    break;
+                }
+                if (next != ',')
+                {
+                    throw tokener.syntaxError("Expected ',' or ']' between usercache entries");
+                }
+            }
+            LOGGER.debug("Read {} player(s) from usercache.json at {}", players, path.normalize());
+        } catch (IOException | JSONException e)
+        {
+            LOGGER.warn("Could not read usercache.json from path: {} ({}). Continuing with {} player(s) read so far.",
+                    path.normalize(), e.getMessage(), players);
+        }
+        return players;
+    }
+
+    private static Player toPlayer(Object entry)
+    {
+        if (!(entry instanceof JSONObject json))
+        {
+            return null;
+        }
+        try
+        {
+            return new Player(json.getString("name"), UUID.fromString(json.getString("uuid")));
+        } catch (JSONException | IllegalArgumentException e)
+        {
+            LOGGER.warn("Skipping malformed usercache entry: {}", json);
+            return null;
+        }
+    }
+
+    /**
+     * A player name and UUID read from the usercache.
+     *
+     * @param name the player name
+     * @param uuid the player UUID as stored by the server
+     */
+    public record Player(String name, UUID uuid)
+    {
+    }
 }
@@ -0,0 +1,216 @@
+package me.pauleff.common.handlers.files;
+
+import me.pauleff.common.handlers.uuid.MinecraftUuids;
+import me.pauleff.common.handlers.uuid.UuidCodec;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Represents a file of UUID mappings, as exported after one conversion and imported into another.
+ * <p>
+ * Two formats are supported, chosen by file extension when writing and by content when reading:
+ * <ul>
+ *     <li>JSON (any file ending in {@code .json}): an object mapping each original UUID to its
+ *     converted UUID, or an array of {@code {"from": ..., "to": ...}} objects.</li>
+ *     <li>CSV (any other file): one {@code from,to} pair per line. Further columns, blank lines,
+ *     lines starting with {@code #} and a header line are ignored.</li>
+ * </ul>
+ * UUIDs may be written with or without dashes. Mappings are written sorted by original UUID.
+ * <p>
+ * Prefer {@link #read(Path)} and {@link #write(Path, Map)} for one-shot use. Use
+ * {@link #of(Path)} when reusing a handle.
+ */
+public final class UuidMappingFile
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(UuidMappingFile.class);
+
+    private final Path path;
+
+    private UuidMappingFile(Path path)
+    {
+        this.path = path;
+    }
+
+    /**
+     * Returns a handle for the given mapping file path.
+     *
+     * @param path the path to the mapping file
+     * @return a mapping file handle
+     * @throws NullPointerException if {@code path} is {@code null}
+     */
+    public static UuidMappingFile of(Path path)
+    {
+        return new UuidMappingFile(Objects.requireNonNull(path, "path"));
+    }
+
+    /**
+     * Reads all mappings from the given file.
+     *
+     * @param path the path to the mapping file
+     * @return the mappings from original to converted UUID, in file order
+     * @throws IOException if the file cannot be read or contains an invalid mapping
+     */
+    public static Map<UUID, UUID> read(Path path) throws IOException
+    {
+        return of(path).read();
+    }
+
+    /**
+     * Writes mappings to the given file, replacing it.
+     *
+     * @param path     the path to the mapping file
+     * @param mappings the mappings from original to converted UUID
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, Map<UUID, UUID> mappings) throws IOException
+    {
+        of(path).write(mappings);
+    }
+
+    /**
+     * Returns the path to this mapping file.
+     *
+     * @return the mapping file path
+     */
+    public Path path()
+    {
+        return path;
+    }
+
+    /**
+     * Reads all mappings from this file.
+     *
+     * @return the mappings from original to converted UUID, in file order
+     * @throws IOException if the file cannot be read or contains an invalid mapping
+     */
+    public Map<UUID, UUID> read() throws IOException
+    {
+        String content = Files.readString(path, StandardCharsets.UTF_8).strip();
+        Map<UUID, UUID> mappings = content.startsWith("{") || content.startsWith("[")
+                ? parseJson(content)
+                : parseCsv(content);
+        LOGGER.debug("Read {} UUID mapping(s) from {}", mappings.size(), path.normalize());
+        return mappings;
+    }
+
+    /**
+     * Writes mappings to this file, replacing it and creating missing parent folders.
+     *
+     * @param mappings the mappings from original to converted UUID
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Map<UUID, UUID> mappings) throws IOException
+    {
+        Map<UUID, UUID> sorted = new TreeMap<>(mappings);
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null)
+        {
+            Files.createDirectories(parent);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8))
+        {
+            if (isJson())
+            {
+                JSONObject json = new JSONObject();
+                sorted.forEach((from, to) -> json.put(from.toString(), to.toString()));
+                writer.write(json.toString(2));
+                writer.newLine();
+            } else
+            {
+                writer.write("from,to");
+                writer.newLine();
+                for (Map.Entry<UUID, UUID> mapping : sorted.entrySet())
+                {
+                    writer.write(mapping.getKey() + "," + mapping.getValue());
+                    writer.newLine();
+                }
+            }
+        }
+        LOGGER.debug("Wrote {} UUID mapping(s) to {}", sorted.size(), path.normalize());
+    }
+
+    private boolean isJson()
+    {
+        return path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json");
+    }
+
+    private Map<UUID, UUID> parseJson(String content) throws IOException
+    {
+        Map<UUID, UUID> mappings = new LinkedHashMap<>();
+        try
+        {
+            Object json = new JSONTokener(content).nextValue();
+            if (json instanceof JSONObject object)
+            {
+                for (String from : object.keySet())
+                {
+                    put(mappings, from, object.getString(from), "key " + from);
+                }
+            } else if (json instanceof JSONArray array)
+            {
+                for (int i = 0; i < array.length(); i++)
+                {
+                    JSONObject mapping = array.getJSONObject(i);
+                    put(mappings, mapping.getString("from"), mapping.getString("to"), "entry " + i);
+                }
+            }
+        } catch (JSONException e)
+        {
+            throw new IOException("Invalid UUID mapping JSON in " + path.normalize() + ": " + e.getMessage(), e);
+        }
+        return mappings;
+    }
+
+    private Map<UUID, UUID> parseCsv(String content) throws IOException
+    {
+        Map<UUID, UUID> mappings = new LinkedHashMap<>();
+        String[] lines = content.split("\\R");
+        for (int i = 0; i < lines.length; i++)
+        {
+            int lineNumber = i + 1;
+            String line = lines[i].strip();
+            if (line.isEmpty() || line.startsWith("#"))
+            {
+                continue;
+            }
+            String[] columns = line.split("[,;]", -1);
+            if (lineNumber == 1 && !UuidCodec.isUuid(columns[0].strip()))
+            {
+                continue;
+            }
+            if (columns.length < 2)
+            {
+                throw new IOException("Expected \"from,to\" on line " + lineNumber + " of " + path.normalize());
+            }
+            put(mappings, columns[0].strip(), columns[1].strip(), "line " + lineNumber);
+        }
+        return mappings;
+    }
+
+    private void put(Map<UUID, UUID> mappings, String from, String to, String location) throws IOException
+    {
+        try
+        {
+            mappings.put(MinecraftUuids.parse(from), MinecraftUuids.parse(to));
+        } catch (IllegalArgumentException e)
+        {
+            throw new IOException("Invalid UUID mapping at " + location + " of " + path.normalize() + ": " + from + " -> " + to);
+        }
+    }
+}
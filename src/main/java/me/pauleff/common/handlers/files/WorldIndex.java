@@ -0,0 +1,340 @@
+package me.pauleff.common.handlers.files;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Memoizes directory listings, with attributes, so each directory is read from disk once
+ * until the index is {@linkplain #clear() cleared}.
+ * <p>
+ * Listings are loaded on first use and shared by every plugin through the
+ * {@link me.pauleff.converter.api.PluginContext}. Concurrent requests for the same directory
+ * wait for a single read. Code that creates, renames or deletes a file must
+ * {@link #invalidate(Path) invalidate} the directory holding it so later queries see the
+ * change; code that moves or fills whole directories must {@link #invalidateTree(Path)
+ * invalidate the tree} below them.
+ * <p>
+ * A {@link #walk(Path) walk} visits each directory once, so it drops a directory's listing as
+ * soon as it has left that directory; memory then follows the walk's depth rather than the
+ * size of the tree. {@link #clear()} also stops any {@link #prefetch(Collection) prefetch}
+ * still running, so nothing refills the index afterwards.
+ * <p>
+ * Instances are safe to use from multiple threads.
+ */
+public final class WorldIndex
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorldIndex.class);
+
+    private final ConcurrentMap<Path, CompletableFuture<List<IndexedFile>>> listings = new ConcurrentHashMap<>();
+    private final Set<Thread> prefetchers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Returns the direct entries of a directory, sorted by path.
+     * <p>
+     * A missing path or a path that is not a directory yields an empty list.
+     *
+     * @param directory the directory to list
+     * @return the directory's entries with their attributes; never {@code null}
+     * @throws IOException if the directory or an entry's attributes cannot be read
+     */
+    public List<IndexedFile> list(Path directory) throws IOException
+    {
+        Path key = directory.toAbsolutePath().normalize();
+        CompletableFuture<List<IndexedFile>> listing = listings.get(key);
+        if (listing == null)
+        {
+            CompletableFuture<List<IndexedFile>> created = new CompletableFuture<>();
+            listing = listings.putIfAbsent(key, created);
+            if (listing == null)
+            {
+                listing = created;
+                try
+                {
+                    created.complete(read(key));
+                } catch (IOException | RuntimeException e)
+                {
+                    // Don't memoize failures; a later call retries the read.
+                    listings.remove(key, created);
+                    created.completeExceptionally(e);
+                }
+            }
+        }
+
+        try
+        {
+            return listing.join();
+        } catch (CompletionException e)
+        {
+            if (e.getCause() instanceof IOException ioException)
+            {
+                throw ioException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException)
+            {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Lazily streams every entry below {@code root}, depth-first, excluding {@code root} itself.
+     * <p>
+     * Each directory is listed only when the stream reaches it, from memory if it was listed or
+     * prefetched before, and its listing is dropped once the stream has moved past it. The
+     * stream doesn't buffer, even through its iterator. A missing root yields an empty stream.
+     *
+     * @param root the directory to walk
+     * @return a lazy stream of the entries below {@code root}
+     * @throws UncheckedIOException from the stream's terminal operation if a directory cannot be listed
+     */
+    public Stream<IndexedFile> walk(Path root)
+    {
+        return StreamSupport.stream(new TreeWalk(root), false);
+    }
+
+    /**
+     * Starts loading the full trees below the given roots in the background, one virtual thread per root.
+     * <p>
+     * Returns immediately. Later {@link #list(Path)} and {@link #walk(Path)} calls use the
+     * listings as they arrive, or wait for a directory that is being read. Failures are
+     * logged at debug and left for the foreground query to report. The threads run until
+     * their tree is read or {@link #clear()} stops them.
+     *
+     * @param roots the directories to prefetch
+     */
+    public void prefetch(Collection<Path> roots)
+    {
+        for (Path root : roots)
+        {
+            Thread prefetcher = Thread.ofVirtual().name("world-index-" + root.getFileName()).unstarted(() ->
+            {
+                try
+                {
+                    prefetchTree(root);
+                } finally
+                {
+                    prefetchers.remove(Thread.currentThread());
+                }
+            });
+            prefetchers.add(prefetcher);
+            prefetcher.start();
+        }
+    }
+
+    /**
+     * Drops the memoized listing of one directory, keeping those of its subdirectories.
+     *
+     * @param directory the directory whose direct entries changed
+     */
+    public void invalidate(Path directory)
+    {
+        listings.remove(directory.toAbsolutePath().normalize());
+    }
+
+    /**
+     * Drops the memoized listings of {@code root} and of every directory below it.
+     * <p>
+     * Checks every memoized listing, so prefer {@link #invalidate(Path)} when only the entries
+     * of one directory changed.
+     *
+     * @param root the directory whose tree is outdated
+     */
+    public void invalidateTree(Path root)
+    {
+        Path key = root.toAbsolutePath().normalize();
+        listings.keySet().removeIf(directory -> directory.startsWith(key));
+    }
+
+    /**
+     * Stops running prefetches, waits for them to end, and drops every memoized listing.
+     */
+    public void clear()
+    {
+        for (Thread prefetcher : prefetchers)
+        {
+            prefetcher.interrupt();
+        }
+        for (Thread prefetcher : prefetchers)
+        {
+            try
+            {
+                prefetcher.join();
+            } catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        listings.clear();
+    }
+
+    private void prefetchTree(Path directory)
+    {
+        if (Thread.currentThread().isInterrupted())
+        {
+            return;
+        }
+        try
+        {
+            for (IndexedFile entry : list(directory))
+            {
+                if (entry.isDirectory())
+                {
+                    prefetchTree(entry.path());
+                }
+            }
+        } catch (IOException | RuntimeException e)
+        {
+            LOGGER.debug("Could not prefetch {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private List<IndexedFile> listUnchecked(Path directory)
+    {
+        try
+        {
+            return list(directory);
+        } catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Depth-first walk that keeps one listing iterator per open directory.
+     * <p>
+     * Unlike nested {@code flatMap}s, it yields each entry as soon as it is reached.
+     */
+    private final class TreeWalk extends Spliterators.AbstractSpliterator<IndexedFile>
+    {
+        private final Deque<Path> directories = new ArrayDeque<>();
+        private final Deque<Iterator<IndexedFile>> entries = new ArrayDeque<>();
+        // Directory to list on the next advance, so a directory is listed only once it is needed.
+        private Path next;
+
+        TreeWalk(Path root)
+        {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.next = root;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super IndexedFile> action)
+        {
+            if (next != null)
+            {
+                Path directory = next;
+                next = null;
+                entries.push(listUnchecked(directory).iterator());
+                directories.push(directory);
+            }
+            while (!entries.isEmpty())
+            {
+                Iterator<IndexedFile> current = entries.peek();
+                if (!current.hasNext())
+                {
+                    entries.pop();
+                    listings.remove(directories.pop().toAbsolutePath().normalize());
+                    continue;
+                }
+                IndexedFile entry = current.next();
+                if (entry.isDirectory())
+                {
+                    next = entry.path();
+                }
+                action.accept(entry);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Reads a directory's entries and their attributes from disk.
+     * <p>
+     * Uses a depth-one {@link Files#walkFileTree} so each entry's attributes come from the
+     * walk itself: one metadata call per entry, or none where the platform returns them with
+     * the directory read. Beyond that, only the listed directory itself and symbolic links
+     * cost an extra call.
+     */
+    private static List<IndexedFile> read(Path directory) throws IOException
+    {
+        // The walk doesn't follow links, so start from the target of a linked directory.
+        Path start = Files.isSymbolicLink(directory) ? directory.toRealPath() : directory;
+        List<IndexedFile> entries = new ArrayList<>();
+        Files.walkFileTree(start, EnumSet.noneOf(FileVisitOption.class), 1, new SimpleFileVisitor<>()
+        {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes)
+            {
+                // A non-directory root is reported as a file at depth zero.
+                if (!file.equals(start))
+                {
+                    entries.add(new IndexedFile(directory.resolve(file.getFileName()), resolveLink(file, attributes)));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException
+            {
+                if (file.equals(start) && e instanceof NoSuchFileException)
+                {
+                    return FileVisitResult.TERMINATE;
+                }
+                throw e;
+            }
+        });
+        entries.sort(Comparator.comparing(IndexedFile::path));
+        return List.copyOf(entries);
+    }
+
+    /**
+     * Replaces a symbolic link's own attributes with its target's when the target is a regular file.
+     */
+    private static BasicFileAttributes resolveLink(Path entry, BasicFileAttributes attributes)
+    {
+        if (!attributes.isSymbolicLink())
+        {
+            return attributes;
+        }
+        try
+        {
+            BasicFileAttributes target = Files.readAttributes(entry, BasicFileAttributes.class);
+            return target.isRegularFile() ? target : attributes;
+        } catch (IOException e)
+        {
+            // Dangling link; keep the link's own attributes.
+            return attributes;
+        }
+    }
+}
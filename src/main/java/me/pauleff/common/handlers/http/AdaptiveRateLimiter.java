@@ -0,0 +1,184 @@
+package me.pauleff.common.handlers.http;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token-bucket rate limiter whose rate adapts to server feedback.
+ * <p>
+ * Each request {@link #acquire() takes} one token; tokens refill at the current rate up
+ * to a burst capacity. The rate follows an additive-increase / multiplicative-decrease
+ * scheme: every {@link #onSuccess() successful} request raises it by a fixed step up to a
+ * ceiling, and every {@link #onThrottled(Duration) throttled} request halves it down to a
+ * floor and pauses all callers until the server's {@code Retry-After} has passed. The rate
+ * thus settles just below what the server tolerates.
+ * <p>
+ * Instances are safe to share between threads, including virtual threads; waiting callers
+ * sleep outside the lock.
+ */
+public final class AdaptiveRateLimiter
+{
+    /**
+     * Shared limiter for the Mojang / Minecraft Services profile APIs, which rate-limit
+     * per client address across endpoints.
+     */
+    private static final AdaptiveRateLimiter PROFILE_API = new AdaptiveRateLimiter(10, 0.5, 50, 10);
+
+    private static final double INCREASE_STEP = 0.25;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final double minRate;
+    private final double maxRate;
+    private final double burst;
+    private double rate;
+    private double tokens;
+    private long lastRefill;
+    private long pausedUntil;
+
+    /**
+     * Creates a limiter starting with a full bucket.
+     *
+     * @param initialRate the starting rate in requests per second
+     * @param minRate     the lowest rate throttling may reduce to
+     * @param maxRate     the highest rate successes may raise to
+     * @param burst       the bucket capacity, i.e. the number of requests allowed back to back
+     * @throws IllegalArgumentException if the rates are not positive and ordered, or {@code burst < 1}
+     */
+    public AdaptiveRateLimiter(double initialRate, double minRate, double maxRate, double burst)
+    {
+        if (minRate <= 0 || minRate > initialRate || initialRate > maxRate || burst < 1)
+        {
+            throw new IllegalArgumentException("Invalid rate limiter settings");
+        }
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.burst = burst;
+        this.rate = initialRate;
+        this.tokens = burst;
+        this.lastRefill = System.nanoTime();
+        this.pausedUntil = lastRefill;
+    }
+
+    /**
+     * Returns the limiter shared by all profile API requests.
+     *
+     * @return the shared profile API limiter
+     */
+    public static AdaptiveRateLimiter profileApi()
+    {
+        return PROFILE_API;
+    }
+
+    /**
+     * Returns a limiter that never delays requests unless a server asks it to.
+     * <p>
+     * {@code Retry-After} pauses are still honoured.
+     *
+     * @return a new effectively unlimited limiter
+     */
+    public static AdaptiveRateLimiter unlimited()
+    {
+        return new AdaptiveRateLimiter(1e9, 1e9, 1e9, 1e9);
+    }
+
+    /**
+     * Blocks until a request may be sent, then takes a token.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire() throws InterruptedException
+    {
+        while (true)
+        {
+            long waitNanos;
+            lock.lock();
+            try
+            {
+                long now = System.nanoTime();
+                refill(now);
+                if (now - pausedUntil < 0)
+                {
+                    waitNanos = pausedUntil - now;
+                } else if (tokens >= 1)
+                {
+                    tokens -= 1;
+                    return;
+                } else
+                {
+                    waitNanos = (long) Math.ceil((1 - tokens) / rate * TimeUnit.SECONDS.toNanos(1));
+                }
+            } finally
+            {
+                lock.unlock();
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(1, waitNanos));
+        }
+    }
+
+    /**
+     * Records a request the server accepted, raising the rate by one step.
+     */
+    public void onSuccess()
+    {
+        lock.lock();
+        try
+        {
+            rate = Math.min(maxRate, rate + INCREASE_STEP);
+        } finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a request the server rejected as too frequent.
+     * <p>
+     * Halves the rate, empties the bucket and pauses every caller for {@code retryAfter}.
+     *
+     * @param retryAfter how long the server asked clients to wait
+     */
+    public void onThrottled(Duration retryAfter)
+    {
+        lock.lock();
+        try
+        {
+            long now = System.nanoTime();
+            refill(now);
+            rate = Math.max(minRate, rate / 2);
+            tokens = 0;
+            long resumeAt = now + retryAfter.toNanos();
+            if (resumeAt - pausedUntil > 0)
+            {
+                pausedUntil = resumeAt;
+            }
+        } finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the current rate.
+     *
+     * @return the number of requests per second currently allowed
+     */
+    public double rate()
+    {
+        lock.lock();
+        try
+        {
+            return rate;
+        } finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private void refill(long now)
+    {
+        double elapsedSeconds = (now - lastRefill) / (double) TimeUnit.SECONDS.toNanos(1);
+        tokens = Math.min(burst, tokens + elapsedSeconds * rate);
+        lastRefill = now;
+    }
+}
@@ -16,6 +16,10 @@ import java.util.Objects;
  * <p>
  * Prefer the static one-shot {@link #body(String)} for simple calls. Use {@link #of(HttpClient)}
  * when injecting a custom client (for example in tests).
+ * <p>
+ * Requests pass through an {@link AdaptiveRateLimiter} and are retried when the server
+ * answers HTTP 429. The default handle shares {@link AdaptiveRateLimiter#profileApi()} with
+ * {@link HttpPost#ofDefault()}. Handles are safe to use from many threads at once.
  */
 public final class HttpGet
 {
@@ -24,13 +28,15 @@ public final class HttpGet
     private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
     private static final HttpGet DEFAULT = new HttpGet(HttpClient.newBuilder()
             .connectTimeout(CONNECT_TIMEOUT)
-            .build());
+            .build(), AdaptiveRateLimiter.profileApi());
 
     private final HttpClient client;
+    private final AdaptiveRateLimiter limiter;
 
-    private HttpGet(HttpClient client)
+    private HttpGet(HttpClient client, AdaptiveRateLimiter limiter)
     {
         this.client = client;
+        this.limiter = limiter;
     }
 
     /**
@@ -44,7 +50,7 @@ public final class HttpGet
     }
 
     /**
-     * Returns a handle that uses the given {@link HttpClient}.
+     * Returns a handle that uses the given {@link HttpClient} without a request rate limit.
      *
      * @param client the HTTP client to send requests with
      * @return an HTTP GET handle
@@ -52,7 +58,20 @@ public final class HttpGet
      */
     public static HttpGet of(HttpClient client)
     {
-        return new HttpGet(Objects.requireNonNull(client, "client"));
+        return of(client, AdaptiveRateLimiter.unlimited());
+    }
+
+    /**
+     * Returns a handle that uses the given {@link HttpClient} and rate limiter.
+     *
+     * @param client  the HTTP client to send requests with
+     * @param limiter the limiter every request waits for
+     * @return an HTTP GET handle
+     * @throws NullPointerException if an argument is {@code null}
+     */
+    public static HttpGet of(HttpClient client, AdaptiveRateLimiter limiter)
+    {
+        return new HttpGet(Objects.requireNonNull(client, "client"), Objects.requireNonNull(limiter, "limiter"));
     }
 
     /**
@@ -69,6 +88,8 @@ public final class HttpGet
 
     /**
      * Sends an HTTP GET request to the given URL and returns the response body on success.
+     * <p>
+     * Blocks while the rate limiter or a {@code Retry-After} pause holds requests back.
      *
      * @param url the absolute URL to request
      * @return the response body if the status code is {@code 200}; {@code null} otherwise
@@ -76,6 +97,24 @@ public final class HttpGet
      * @throws IOException          if the request fails or is interrupted
      */
     public String getBody(String url) throws IOException
+    {
+        Response response = get(url);
+        return response.isOk() ? response.body() : null;
+    }
+
+    /**
+     * Sends an HTTP GET request to the given URL and returns its status and body.
+     * <p>
+     * Unlike {@link #getBody(String)}, this lets callers tell a missing resource apart from
+     * a failed request. Blocks while the rate limiter or a {@code Retry-After} pause holds
+     * requests back.
+     *
+     * @param url the absolute URL to request
+     * @return the response status code and body
+     * @throws NullPointerException if {@code url} is {@code null}
+     * @throws IOException          if the request fails or is interrupted
+     */
+    public Response get(String url) throws IOException
     {
         Objects.requireNonNull(url, "url");
 
@@ -86,18 +125,49 @@ public final class HttpGet
                 .build();
         try
         {
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = RateLimitedSender.send(client, request, limiter);
             if (response.statusCode() == 200)
             {
                 LOGGER.debug("HTTP GET successful ({}): {}", response.statusCode(), url);
-                return response.body();
+            } else
+            {
+                LOGGER.debug("HTTP GET failed ({}): {}", response.statusCode(), url);
             }
-            LOGGER.debug("HTTP GET failed ({}): {}", response.statusCode(), url);
-            return null;
+            return new Response(response.statusCode(), response.body());
         } catch (InterruptedException e)
         {
             Thread.currentThread().interrupt();
             throw new IOException("HTTP request interrupted: " + url, e);
         }
     }
+
+    /**
+     * Status code and body of a completed HTTP GET request.
+     *
+     * @param statusCode the HTTP status code
+     * @param body       the response body, possibly empty
+     */
+    public record Response(int statusCode, String body)
+    {
+        /**
+         * Returns whether the request succeeded with status {@code 200}.
+         *
+         * @return {@code true} for a successful response
+         */
+        public boolean isOk()
+        {
+            return statusCode == 200;
+        }
+
+        /**
+         * Returns whether the server reported that the resource does not exist, either
+         * with {@code 404} or, as the profile APIs do for unknown names, {@code 204}.
+         *
+         * @return {@code true} for a definitive "not found" answer
+         */
+        public boolean isNotFound()
+        {
+            return statusCode == 404 || statusCode == 204;
+        }
+    }
 }
@@ -0,0 +1,115 @@
+package me.pauleff.common.handlers.http;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Sends HTTP POST requests with JSON bodies and returns successful response bodies.
+ * <p>
+ * Use {@link #ofDefault()} for the shared client, or {@link #of(HttpClient)} when injecting a
+ * custom client (for example in tests).
+ * <p>
+ * Requests pass through an {@link AdaptiveRateLimiter} and are retried when the server
+ * answers HTTP 429. The default handle shares {@link AdaptiveRateLimiter#profileApi()} with
+ * {@link HttpGet#ofDefault()}. Handles are safe to use from many threads at once.
+ */
+public final class HttpPost
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpPost.class);
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final HttpPost DEFAULT = new HttpPost(HttpClient.newBuilder()
+            .connectTimeout(CONNECT_TIMEOUT)
+            .build(), AdaptiveRateLimiter.profileApi());
+
+    private final HttpClient client;
+    private final AdaptiveRateLimiter limiter;
+
+    private HttpPost(HttpClient client, AdaptiveRateLimiter limiter)
+    {
+        this.client = client;
+        this.limiter = limiter;
+    }
+
+    /**
+     * Returns a handle that uses the shared default {@link HttpClient}.
+     *
+     * @return the default HTTP POST client
+     */
+    public static HttpPost ofDefault()
+    {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns a handle that uses the given {@link HttpClient} without a request rate limit.
+     *
+     * @param client the HTTP client to send requests with
+     * @return an HTTP POST handle
+     * @throws NullPointerException if {@code client} is {@code null}
+     */
+    public static HttpPost of(HttpClient client)
+    {
+        return of(client, AdaptiveRateLimiter.unlimited());
+    }
+
+    /**
+     * Returns a handle that uses the given {@link HttpClient} and rate limiter.
+     *
+     * @param client  the HTTP client to send requests with
+     * @param limiter the limiter every request waits for
+     * @return an HTTP POST handle
+     * @throws NullPointerException if an argument is {@code null}
+     */
+    public static HttpPost of(HttpClient client, AdaptiveRateLimiter limiter)
+    {
+        return new HttpPost(Objects.requireNonNull(client, "client"), Objects.requireNonNull(limiter, "limiter"));
+    }
+
+    /**
+     * Sends a JSON body to the given URL and returns the response body on success.
+     * <p>
+     * Blocks while the rate limiter or a {@code Retry-After} pause holds requests back.
+     *
+     * @param url  the absolute URL to request
+     * @param json the JSON request body
+     * @return the response body if the status code is {@code 200}; {@code null} otherwise
+     * @throws NullPointerException if an argument is {@code null}
+     * @throws IOException          if the request fails or is interrupted
+     */
+    public String postJson(String url, String json) throws IOException
+    {
+        Objects.requireNonNull(url, "url");
+        Objects.requireNonNull(json, "json");
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        try
+        {
+            HttpResponse<String> response = RateLimitedSender.send(client, request, limiter);
+            if (response.statusCode() == 200)
+            {
+                LOGGER.debug("HTTP POST successful ({}): {}", response.statusCode(), url);
+                return response.body();
+            }
+            LOGGER.debug("HTTP POST failed ({}): {}", response.statusCode(), url);
+            return null;
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("HTTP request interrupted: " + url, e);
+        }
+    }
+}
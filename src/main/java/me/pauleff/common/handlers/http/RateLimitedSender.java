@@ -0,0 +1,101 @@
+package me.pauleff.common.handlers.http;
+
+import me.pauleff.common.metrics.Metric;
+import me.pauleff.common.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Sends requests through an {@link AdaptiveRateLimiter}, retrying those answered with
+ * HTTP 429 once the server's {@code Retry-After} has passed.
+ */
+final class RateLimitedSender
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(RateLimitedSender.class);
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int MAX_RETRIES = 5;
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
+    private static final Duration MAX_RETRY_AFTER = Duration.ofMinutes(1);
+
+    private RateLimitedSender()
+    {
+    }
+
+    /**
+     * Sends a request, waiting for the limiter before every attempt.
+     *
+     * @param client  the client to send with
+     * @param request the request to send
+     * @param limiter the limiter to acquire from and report to
+     * @return the first response that is not a 429, or the last 429 once retries are exhausted
+     * @throws IOException          if sending fails
+     * @throws InterruptedException if interrupted while waiting or sending
+     */
+    static HttpResponse<String> send(HttpClient client, HttpRequest request, AdaptiveRateLimiter limiter)
+            throws IOException, InterruptedException
+    {
+        for (int attempt = 0; ; attempt++)
+        {
+            limiter.acquire();
+            Metrics.increment(Metric.HTTP_CALLS);
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != TOO_MANY_REQUESTS)
+            {
+                limiter.onSuccess();
+                return response;
+            }
+
+            Duration retryAfter = retryAfter(response);
+            limiter.onThrottled(retryAfter);
+            LOGGER.debug("Rate limited ({}), retrying in {} ms at {} request(s)/s: {}",
+                    response.statusCode(), retryAfter.toMillis(), String.format("%.2f", limiter.rate()), request.uri());
+            if (attempt >= MAX_RETRIES)
+            {
+                return response;
+            }
+        }
+    }
+
+    /**
+     * Reads the {@code Retry-After} header as delay seconds or an HTTP date.
+     *
+     * @param response the throttled response
+     * @return the delay requested by the server, capped at one minute; one second if absent or invalid
+     */
+    static Duration retryAfter(HttpResponse<?> response)
+    {
+        String value = response.headers().firstValue("Retry-After").orElse("").trim();
+        if (value.isEmpty())
+        {
+            return DEFAULT_RETRY_AFTER;
+        }
+        Duration delay;
+        try
+        {
+            delay = Duration.ofSeconds(Long.parseLong(value));
+        } catch (NumberFormatException e)
+        {
+            try
+            {
+                delay = Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME));
+            } catch (DateTimeParseException ex)
+            {
+                return DEFAULT_RETRY_AFTER;
+            }
+        }
+        if (delay.isNegative())
+        {
+            return Duration.ZERO;
+        }
+        return delay.compareTo(MAX_RETRY_AFTER) > 0 ? MAX_RETRY_AFTER : delay;
+    }
+}
@@ -7,7 +7,6 @@ import org.slf4j.LoggerFactory;
 import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import java.util.UUID;
-import java.util.regex.Pattern;
 
 import static java.util.UUID.nameUUIDFromBytes;
 
@@ -17,8 +16,6 @@ import static java.util.UUID.nameUUIDFromBytes;
 public final class MinecraftUuids
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(MinecraftUuids.class);
-    private static final Pattern UNDASHED_UUID = Pattern.compile(
-            "(\\w{8})(\\w{4})(\\w{4})(\\w{4})(\\w{12})");
 
     private MinecraftUuids()
     {
@@ -52,13 +49,13 @@ public final class MinecraftUuids
      */
     public static String dashless(UUID uuid)
     {
-        return Objects.requireNonNull(uuid, "uuid").toString().replace("-", "");
+        return UuidCodec.dashless(Objects.requireNonNull(uuid, "uuid"));
     }
 
     /**
      * Parses a hyphenated or dashless UUID string.
      * <p>
-     * Accepts the standard 36-character form and the 32-character Mojang API form.
+     * Accepts the standard 36-character form and the 32-character Mojang API form, in either case.
      *
      * @param uuidString the UUID string to parse
      * @return the parsed UUID
@@ -67,12 +64,12 @@ public final class MinecraftUuids
      */
     public static UUID parse(String uuidString)
     {
-        Objects.requireNonNull(uuidString, "uuidString");
-        if (uuidString.length() == 32)
+        UUID uuid = UuidCodec.decode(Objects.requireNonNull(uuidString, "uuidString"));
+        if (uuid == null)
         {
-            return UUID.fromString(UNDASHED_UUID.matcher(uuidString).replaceAll("$1-$2-$3-$4-$5"));
+            throw new IllegalArgumentException("Invalid UUID string: " + uuidString);
         }
-        return UUID.fromString(uuidString);
+        return uuid;
     }
 
     /**
@@ -86,7 +83,19 @@ public final class MinecraftUuids
      */
     public static UUIDType typeOf(UUID uuid)
     {
-        return switch (uuid.version())
+        return typeOf(uuid.getMostSignificantBits());
+    }
+
+    /**
+     * Determines whether a UUID is an online, offline, or invalid Minecraft UUID by version.
+     *
+     * @param most the most significant bits of the UUID to classify
+     * @return the corresponding {@link UUIDType}
+     * @see #typeOf(UUID)
+     */
+    public static UUIDType typeOf(long most)
+    {
+        return switch (UuidCodec.version(most))
         {
             case 4 -> UUIDType.ONLINE;
             case 3 -> UUIDType.OFFLINE;
@@ -98,22 +107,36 @@ public final class MinecraftUuids
      * Checks whether the given string is a well-formed Minecraft online or offline UUID.
      * <p>
      * Requires the standard 36-character hyphenated form and a UUID version of {@code 3} or {@code 4}.
+     * Allocates only a two-element scratch array for the decoded halves.
      *
      * @param uuidString the UUID string to validate
      * @return {@code true} if the string is a valid online or offline UUID; {@code false} otherwise
      */
-    public static boolean isValid(String uuidString)
+    public static boolean isValid(CharSequence uuidString)
     {
-        if (uuidString == null || uuidString.length() != 36)
-        {
-            return false;
-        }
-        try
-        {
-            return typeOf(UUID.fromString(uuidString)) != UUIDType.INVALID;
-        } catch (IllegalArgumentException _)
-        {
-            return false;
-        }
+        return parseValid(uuidString, new long[2]);
+    }
+
+    /**
+     * Parses a hyphenated Minecraft online or offline UUID, or returns {@code null}.
+     * <p>
+     * Accepts exactly what {@link #isValid(CharSequence)} accepts, so a file name can be
+     * classified and parsed in one pass.
+     *
+     * @param uuidString the UUID string to parse; may be {@code null}
+     * @return the parsed UUID, or {@code null} if the string is not a valid online or offline UUID
+     */
+    public static UUID parseValid(CharSequence uuidString)
+    {
+        long[] bits = new long[2];
+        return parseValid(uuidString, bits) ? new UUID(bits[0], bits[1]) : null;
+    }
+
+    private static boolean parseValid(CharSequence uuidString, long[] bits)
+    {
+        return uuidString != null
+                && uuidString.length() == UuidCodec.HYPHENATED_LENGTH
+                && UuidCodec.decode(uuidString, 0, uuidString.length(), bits)
+                && typeOf(bits[0]) != UUIDType.INVALID;
     }
 }
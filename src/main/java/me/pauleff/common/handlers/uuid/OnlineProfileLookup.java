@@ -1,13 +1,29 @@
 package me.pauleff.common.handlers.uuid;
 
 import me.pauleff.common.handlers.http.HttpGet;
+import me.pauleff.common.handlers.http.HttpPost;
+import me.pauleff.common.metrics.Metrics;
+import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
 /**
  * Resolves online Minecraft player profiles via HTTP API lookups.
@@ -15,20 +31,59 @@ import java.util.UUID;
  * Prefer the static one-shot methods for single operations against the process-wide
  * configuration. Use {@link #of(ProfileApiConfig)} when supplying a custom config,
  * or {@link #configure(ProfileApiConfig)} once at startup (for example from CLI flags).
+ * <p>
+ * Many names can be resolved at once through the bulk endpoint, which accepts up to
+ * {@link #MAX_BULK_NAMES} names per request; see {@link #lookupOnlineUuids(Collection)}.
+ * Such lookups run concurrently on virtual threads, while the default HTTP clients share
+ * one {@link me.pauleff.common.handlers.http.AdaptiveRateLimiter} that paces every request
+ * and backs off when the API answers HTTP 429.
+ * <p>
+ * A lookup may be backed by a {@link ProfileCache}, which is consulted before every request
+ * and populated with every definitive answer, including that a name or UUID has no profile.
+ * Install one process-wide with {@link #useCache(ProfileCache)}.
+ * <p>
+ * Independently of that, each lookup remembers up to {@value #RECENT_LOOKUPS} recent answers
+ * per direction in memory, including names and UUIDs that could not be resolved, and runs at
+ * most one request per name or UUID at a time: concurrent callers asking for the same one
+ * share the result of a single request.
  */
 public final class OnlineProfileLookup
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(OnlineProfileLookup.class);
 
-    private static OnlineProfileLookup current = of(ProfileApiConfig.defaults());
+    /**
+     * Maximum number of names accepted by a single bulk lookup request.
+     */
+    public static final int MAX_BULK_NAMES = 10;
+
+    /**
+     * Maximum number of lookup requests in flight at once across all lookups.
+     */
+    public static final int MAX_CONCURRENT_REQUESTS = 16;
+
+    /**
+     * Maximum number of answers remembered in memory per lookup direction.
+     */
+    public static final int RECENT_LOOKUPS = 10_000;
+
+    private static final ExecutorService LOOKUP_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+    private static final Semaphore REQUEST_SLOTS = new Semaphore(MAX_CONCURRENT_REQUESTS);
+
+    private static volatile OnlineProfileLookup current = of(ProfileApiConfig.defaults());
 
     private final ProfileApiConfig config;
     private final HttpGet http;
+    private final HttpPost httpPost;
+    private final ProfileCache cache;
+    private final SingleFlightCache<String, UUID> recentUuids = new SingleFlightCache<>(RECENT_LOOKUPS);
+    private final SingleFlightCache<UUID, String> recentNames = new SingleFlightCache<>(RECENT_LOOKUPS);
 
-    private OnlineProfileLookup(ProfileApiConfig config, HttpGet http)
+    private OnlineProfileLookup(ProfileApiConfig config, HttpGet http, HttpPost httpPost, ProfileCache cache)
     {
         this.config = config;
         this.http = http;
+        this.httpPost = httpPost;
+        this.cache = cache;
     }
 
     /**
@@ -52,26 +107,68 @@ public final class OnlineProfileLookup
      * @throws NullPointerException if {@code config} or {@code http} is {@code null}
      */
     public static OnlineProfileLookup of(ProfileApiConfig config, HttpGet http)
+    {
+        return of(config, http, HttpPost.ofDefault());
+    }
+
+    /**
+     * Returns a lookup that uses the given API configuration and HTTP clients.
+     *
+     * @param config   the profile API endpoint configuration
+     * @param http     the HTTP GET client
+     * @param httpPost the HTTP POST client used for bulk lookups
+     * @return an online profile lookup
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    public static OnlineProfileLookup of(ProfileApiConfig config, HttpGet http, HttpPost httpPost)
     {
         return new OnlineProfileLookup(
                 Objects.requireNonNull(config, "config"),
-                Objects.requireNonNull(http, "http"));
+                Objects.requireNonNull(http, "http"),
+                Objects.requireNonNull(httpPost, "httpPost"),
+                ProfileCache.disabled());
+    }
+
+    /**
+     * Returns a copy of this lookup that answers from the given cache where it can.
+     *
+     * @param cache the profile cache to consult and populate
+     * @return an online profile lookup backed by {@code cache}
+     * @throws NullPointerException if {@code cache} is {@code null}
+     */
+    public OnlineProfileLookup withCache(ProfileCache cache)
+    {
+        return new OnlineProfileLookup(config, http, httpPost, Objects.requireNonNull(cache, "cache"));
     }
 
     /**
      * Replaces the process-wide lookup used by the static one-shot methods.
      * <p>
-     * Called once at startup when custom API URLs are provided on the command line.
+     * Called once at startup when custom API URLs are provided on the command line. A cache
+     * installed via {@link #useCache(ProfileCache)} is kept.
      *
      * @param config the profile API endpoint configuration
      * @throws NullPointerException if {@code config} is {@code null}
      */
     public static void configure(ProfileApiConfig config)
     {
-        current = of(config);
+        current = of(config).withCache(current.cache);
         logConfiguredEndpoints(config);
     }
 
+    /**
+     * Backs the process-wide lookup with the given cache.
+     * <p>
+     * Called once at startup unless profile caching is turned off on the command line.
+     *
+     * @param cache the profile cache to consult and populate
+     * @throws NullPointerException if {@code cache} is {@code null}
+     */
+    public static void useCache(ProfileCache cache)
+    {
+        current = current.withCache(cache);
+    }
+
     /**
      * Returns the process-wide lookup installed via {@link #configure(ProfileApiConfig)},
      * or the Mojang-default lookup when nothing custom was configured.
@@ -88,19 +185,46 @@ public final class OnlineProfileLookup
      *
      * @param name the Minecraft player name
      * @return the online UUID, or {@code null} if no profile or valid UUID was found
-     * @throws IOException if the HTTP request fails
+     * @throws IOException if the HTTP request fails or is answered with a status other than
+     *                     {@code 200}, {@code 204} or {@code 404}; such failures are not remembered
      */
     public static UUID nameToOnlineUuid(String name) throws IOException
     {
         return current().lookupOnlineUuid(name);
     }
 
+    /**
+     * Resolves player names to online UUIDs using the process-wide lookup.
+     *
+     * @param names the Minecraft player names
+     * @return the online UUID per requested name; names without a profile or whose lookup
+     * failed are absent
+     * @see #lookupOnlineUuids(Collection)
+     */
+    public static Map<String, UUID> namesToOnlineUuids(Collection<String> names)
+    {
+        return current().lookupOnlineUuids(names);
+    }
+
+    /**
+     * Starts resolving player names to online UUIDs using the process-wide lookup.
+     *
+     * @param names the Minecraft player names
+     * @return a future completing with the online UUID per requested name
+     * @see #lookupOnlineUuidsInBackground(Collection)
+     */
+    public static CompletableFuture<Map<String, UUID>> namesToOnlineUuidsInBackground(Collection<String> names)
+    {
+        return current().lookupOnlineUuidsInBackground(names);
+    }
+
     /**
      * Resolves an online UUID to a player name using the process-wide lookup.
      *
      * @param uuid the online Minecraft player UUID
      * @return the player name, or {@code null} if no profile or name was found
-     * @throws IOException if the HTTP request fails
+     * @throws IOException if the HTTP request fails or is answered with a status other than
+     *                     {@code 200}, {@code 204} or {@code 404}; such failures are not remembered
      */
     public static String onlineUuidToName(UUID uuid) throws IOException
     {
@@ -119,22 +243,43 @@ public final class OnlineProfileLookup
 
     /**
      * Resolves a player name to an online (Mojang) UUID via HTTP API lookup.
+     * <p>
+     * Answers, including the absence of one, are remembered; concurrent calls for the same
+     * name wait for a single request.
      *
      * @param name the Minecraft player name
      * @return the online UUID, or {@code null} if no profile or valid UUID was found
-     * @throws IOException if the HTTP request fails
+     * @throws IOException if the HTTP request fails or is answered with a status other than
+     *                     {@code 200}, {@code 204} or {@code 404}; such failures are not remembered
      */
     public UUID lookupOnlineUuid(String name) throws IOException
     {
-        String response = http.getBody(config.nameToUuidUrl(name));
+        return recentUuids.get(name.toLowerCase(Locale.ROOT), () -> fetchOnlineUuid(name));
+    }
 
-        if (response == null || response.isEmpty())
+    private UUID fetchOnlineUuid(String name) throws IOException
+    {
+        Optional<ProfileCache.Entry<UUID>> cached = cache.findUuid(name);
+        if (cached.isPresent())
+        {
+            return cached.get().value();
+        }
+
+        HttpGet.Response response = http.get(config.nameToUuidUrl(name));
+        if (response.isNotFound())
+        {
+            cache.putUuid(name, null);
+            LOGGER.warn("No UUID found for online player '{}'.", name);
+            return null;
+        }
+        requireOk(response, "name '" + name + "'");
+        if (response.body().isEmpty())
         {
             LOGGER.warn("No UUID found for online player '{}'.", name);
             return null;
         }
 
-        JSONObject json = new JSONObject(response);
+        JSONObject json = new JSONObject(response.body());
         String rawId = json.optString("id", "");
         if (rawId.isEmpty())
         {
@@ -146,6 +291,7 @@ public final class OnlineProfileLookup
         {
             UUID uuid = MinecraftUuids.parse(rawId);
             LOGGER.debug("Retrieved online UUID for player '{}': {}", name, uuid);
+            cache.putUuid(name, uuid);
             return uuid;
         } catch (IllegalArgumentException e)
         {
@@ -154,24 +300,253 @@ public final class OnlineProfileLookup
         }
     }
 
+    /**
+     * Resolves player names to online UUIDs, batching them when the bulk endpoint is available.
+     * <p>
+     * All requests are issued concurrently on virtual threads, at most
+     * {@value #MAX_CONCURRENT_REQUESTS} at a time, and paced by the HTTP clients' shared rate
+     * limiter. Falls back to one lookup per name when
+     * {@link ProfileApiConfig#supportsBulkLookup()} is {@code false}. A failed request is
+     * logged and its names are left out, so one bad batch does not discard the others.
+     * Names answered from memory or the profile cache are not requested at all.
+     *
+     * @param names the Minecraft player names
+     * @return the online UUID per requested name; names without a profile or whose lookup
+     * failed are absent
+     */
+    public Map<String, UUID> lookupOnlineUuids(Collection<String> names)
+    {
+        Map<String, UUID> uuids = new HashMap<>();
+        List<String> uncached = new ArrayList<>();
+        for (String name : names)
+        {
+            Optional<SingleFlightCache.Hit<UUID>> recent = recentUuids.find(name.toLowerCase(Locale.ROOT));
+            if (recent.isPresent())
+            {
+                if (recent.get().value() != null)
+                {
+                    uuids.put(name, recent.get().value());
+                }
+                continue;
+            }
+            Optional<ProfileCache.Entry<UUID>> cached = cache.findUuid(name);
+            if (cached.isEmpty())
+            {
+                uncached.add(name);
+            } else if (!cached.get().isNegative())
+            {
+                uuids.put(name, cached.get().value());
+            }
+        }
+        if (!uuids.isEmpty())
+        {
+            LOGGER.debug("Resolved {} online UUID(s) from cached lookups.", uuids.size());
+        }
+
+        List<String> all = List.copyOf(uncached);
+        List<CompletableFuture<Map<String, UUID>>> lookups = new ArrayList<>();
+        if (config.supportsBulkLookup())
+        {
+            for (int from = 0; from < all.size(); from += MAX_BULK_NAMES)
+            {
+                lookups.add(lookupOnlineUuidsAsync(all.subList(from, Math.min(all.size(), from + MAX_BULK_NAMES))));
+            }
+        } else
+        {
+            for (String name : all)
+            {
+                lookups.add(supplyAsync(() ->
+                {
+                    UUID uuid = lookupOnlineUuid(name);
+                    return uuid == null ? Map.of() : Map.of(name, uuid);
+                }));
+            }
+        }
+
+        for (CompletableFuture<Map<String, UUID>> lookup : lookups)
+        {
+            try
+            {
+                uuids.putAll(lookup.join());
+            } catch (CompletionException e)
+            {
+                LOGGER.warn("There was an error whilst fetching online UUIDs: {}", e.getCause().getMessage());
+            }
+        }
+        return uuids;
+    }
+
+    /**
+     * Starts resolving player names to online UUIDs on a virtual thread.
+     * <p>
+     * Behaves like {@link #lookupOnlineUuids(Collection)} but returns at once, so callers can
+     * keep reading names while earlier ones are being looked up.
+     *
+     * @param names the Minecraft player names
+     * @return a future completing with the online UUID per requested name; names without a
+     * profile or whose lookup failed are absent
+     */
+    public CompletableFuture<Map<String, UUID>> lookupOnlineUuidsInBackground(Collection<String> names)
+    {
+        List<String> all = List.copyOf(names);
+        return CompletableFuture.supplyAsync(Metrics.capture(() -> lookupOnlineUuids(all)), LOOKUP_EXECUTOR);
+    }
+
+    /**
+     * Resolves one batch of player names to online UUIDs through the bulk endpoint on a virtual thread.
+     * <p>
+     * The names are posted as a JSON array to {@link ProfileApiConfig#namesToUuidsUrl()}, and
+     * returned profiles are matched to the requested names case-insensitively, as the API
+     * answers with each player's canonical spelling. Several batches may be in flight at once.
+     * The answers, including which names have no profile, are added to the profile cache.
+     *
+     * @param names at most {@link #MAX_BULK_NAMES} Minecraft player names
+     * @return a future completing with the online UUID per requested name, where names without
+     * a profile are absent, or exceptionally with an {@link IOException} if the request fails
+     * @throws IllegalArgumentException if more than {@link #MAX_BULK_NAMES} names are given
+     */
+    public CompletableFuture<Map<String, UUID>> lookupOnlineUuidsAsync(List<String> names)
+    {
+        if (names.size() > MAX_BULK_NAMES)
+        {
+            throw new IllegalArgumentException("At most " + MAX_BULK_NAMES + " names per bulk lookup: " + names.size());
+        }
+        if (names.isEmpty())
+        {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        List<String> batch = List.copyOf(names);
+        return supplyAsync(() -> parseBulkResponse(batch,
+                httpPost.postJson(config.namesToUuidsUrl(), new JSONArray(batch).toString())));
+    }
+
+    /**
+     * Runs a blocking lookup on a virtual thread, holding one of the shared request slots.
+     */
+    private static <T> CompletableFuture<T> supplyAsync(SingleFlightCache.Lookup<T> lookup)
+    {
+        return CompletableFuture.supplyAsync(Metrics.capture(() ->
+        {
+            REQUEST_SLOTS.acquireUninterruptibly();
+            try
+            {
+                return lookup.run();
+            } catch (IOException e)
+            {
+                throw new CompletionException(e);
+            } finally
+            {
+                REQUEST_SLOTS.release();
+            }
+        }), LOOKUP_EXECUTOR);
+    }
+
+    /**
+     * Stores a bulk lookup answer in memory and in the profile cache.
+     */
+    private void rememberUuid(String name, UUID uuid)
+    {
+        recentUuids.put(name.toLowerCase(Locale.ROOT), uuid);
+        cache.putUuid(name, uuid);
+    }
+
+    /**
+     * Maps the profiles of a bulk response back to the requested names, caching the answers.
+     */
+    private Map<String, UUID> parseBulkResponse(List<String> names, String response)
+    {
+        if (response == null || response.isEmpty())
+        {
+            LOGGER.warn("No profiles returned for {} player name(s) {}.", names.size(), names);
+            return Map.of();
+        }
+
+        Map<String, String> requested = new HashMap<>();
+        for (String name : names)
+        {
+            requested.put(name.toLowerCase(Locale.ROOT), name);
+        }
+
+        Map<String, UUID> uuids = new HashMap<>();
+        List<String> invalid = new ArrayList<>();
+        try
+        {
+            JSONArray profiles = new JSONArray(response);
+            for (int i = 0; i < profiles.length(); i++)
+            {
+                JSONObject profile = profiles.optJSONObject(i);
+                String name = profile == null ? null : requested.get(profile.optString("name", "").toLowerCase(Locale.ROOT));
+                if (name == null)
+                {
+                    continue;
+                }
+                try
+                {
+                    uuids.put(name, MinecraftUuids.parse(profile.optString("id", "")));
+                } catch (IllegalArgumentException e)
+                {
+                    LOGGER.warn("Invalid UUID retrieved for name '{}'.", name);
+                    invalid.add(name);
+                }
+            }
+        } catch (JSONException e)
+        {
+            LOGGER.warn("Invalid bulk profile response for player name(s) {}.", names);
+            return Map.of();
+        }
+
+        uuids.forEach(this::rememberUuid);
+        List<String> missing = new ArrayList<>(names);
+        missing.removeAll(uuids.keySet());
+        missing.removeAll(invalid);
+        missing.forEach(name -> rememberUuid(name, null));
+        if (!missing.isEmpty())
+        {
+            LOGGER.warn("No UUID found for online player(s) {}.", missing);
+        }
+        LOGGER.debug("Retrieved {} online UUID(s) in bulk.", uuids.size());
+        return uuids;
+    }
+
     /**
      * Resolves an online UUID to a Minecraft player name via HTTP API lookup.
+     * <p>
+     * Answers, including the absence of one, are remembered; concurrent calls for the same
+     * UUID wait for a single request.
      *
      * @param uuid the online Minecraft player UUID
      * @return the player name, or {@code null} if no profile or name was found
-     * @throws IOException if the HTTP request fails
+     * @throws IOException if the HTTP request fails or is answered with a status other than
+     *                     {@code 200}, {@code 204} or {@code 404}; such failures are not remembered
      */
     public String lookupName(UUID uuid) throws IOException
     {
-        String response = http.getBody(config.uuidToNameUrl(uuid));
+        return recentNames.get(uuid, () -> fetchName(uuid));
+    }
 
-        if (response == null || response.isEmpty())
+    private String fetchName(UUID uuid) throws IOException
+    {
+        Optional<ProfileCache.Entry<String>> cached = cache.findName(uuid);
+        if (cached.isPresent())
+        {
+            return cached.get().value();
+        }
+
+        HttpGet.Response response = http.get(config.uuidToNameUrl(uuid));
+        if (response.isNotFound())
+        {
+            cache.putName(uuid, null);
+            LOGGER.warn("No profile found for UUID '{}'. This may be an offline/cracked UUID.", uuid);
+            return null;
+        }
+        requireOk(response, "UUID '" + uuid + "'");
+        if (response.body().isEmpty())
         {
             LOGGER.warn("No profile found for UUID '{}'. This may be an offline/cracked UUID.", uuid);
             return null;
         }
 
-        JSONObject json = new JSONObject(response);
+        JSONObject json = new JSONObject(response.body());
         String name = json.optString("name", "");
         if (name.isEmpty())
         {
@@ -180,9 +555,28 @@ public final class OnlineProfileLookup
         }
 
         LOGGER.debug("Successfully retrieved name: {} for UUID: {}", name, uuid);
+        cache.putName(uuid, name);
         return name;
     }
 
+    /**
+     * Fails a lookup whose response neither answered nor denied the profile.
+     * <p>
+     * Throttling that outlasted the retries and server errors must not be remembered as
+     * "no profile", so they surface as an exception that no cache stores.
+     *
+     * @param response the response, known not to be {@link HttpGet.Response#isNotFound()}
+     * @param subject  what was looked up, for the message
+     * @throws IOException if the response status is not {@code 200}
+     */
+    private static void requireOk(HttpGet.Response response, String subject) throws IOException
+    {
+        if (!response.isOk())
+        {
+            throw new IOException("Profile lookup for " + subject + " failed with HTTP " + response.statusCode());
+        }
+    }
+
     private static void logConfiguredEndpoints(ProfileApiConfig config)
     {
         if (config.customApiBaseUrl() != null)
@@ -198,5 +592,9 @@ public final class OnlineProfileLookup
         {
             LOGGER.info("Using custom URL for retrieving online player names: {}", config.retrieveNameUrl());
         }
+        if (config.retrieveUuidsBulkUrl() != null)
+        {
+            LOGGER.info("Using custom URL for retrieving online UUIDs in bulk: {}", config.retrieveUuidsBulkUrl());
+        }
     }
 }
@@ -11,7 +11,8 @@ import java.util.UUID;
 public record ProfileApiConfig(
         String customApiBaseUrl,
         String retrieveUuidUrl,
-        String retrieveNameUrl
+        String retrieveNameUrl,
+        String retrieveUuidsBulkUrl
 )
 {
     private static final String DEFAULT_NAME_API_BASE = "https://api.mojang.com/";
@@ -24,21 +25,23 @@ public record ProfileApiConfig(
      */
     public static ProfileApiConfig defaults()
     {
-        return new ProfileApiConfig(null, null, null);
+        return new ProfileApiConfig(null, null, null, null);
     }
 
     /**
      * Creates a config with normalized URL fields.
      *
-     * @param customApiBaseUrl shared custom API base URL, or {@code null}/blank to unset
-     * @param retrieveUuidUrl  name-to-UUID endpoint prefix, or {@code null}/blank to unset
-     * @param retrieveNameUrl  UUID-to-name endpoint prefix, or {@code null}/blank to unset
+     * @param customApiBaseUrl     shared custom API base URL, or {@code null}/blank to unset
+     * @param retrieveUuidUrl      name-to-UUID endpoint prefix, or {@code null}/blank to unset
+     * @param retrieveNameUrl      UUID-to-name endpoint prefix, or {@code null}/blank to unset
+     * @param retrieveUuidsBulkUrl names-to-profiles bulk endpoint, or {@code null}/blank to unset
      */
     public ProfileApiConfig
     {
         customApiBaseUrl = normalizeApiUrl(customApiBaseUrl);
         retrieveUuidUrl = normalizeApiUrl(retrieveUuidUrl);
         retrieveNameUrl = normalizeApiUrl(retrieveNameUrl);
+        retrieveUuidsBulkUrl = retrieveUuidsBulkUrl == null || retrieveUuidsBulkUrl.isBlank() ? null : retrieveUuidsBulkUrl;
     }
 
     /**
@@ -49,7 +52,7 @@ public record ProfileApiConfig(
      */
     public ProfileApiConfig withCustomApiBaseUrl(String url)
     {
-        return new ProfileApiConfig(url, retrieveUuidUrl, retrieveNameUrl);
+        return new ProfileApiConfig(url, retrieveUuidUrl, retrieveNameUrl, retrieveUuidsBulkUrl);
     }
 
     /**
@@ -63,7 +66,7 @@ public record ProfileApiConfig(
      */
     public ProfileApiConfig withRetrieveUuidUrl(String url)
     {
-        return new ProfileApiConfig(customApiBaseUrl, url, retrieveNameUrl);
+        return new ProfileApiConfig(customApiBaseUrl, url, retrieveNameUrl, retrieveUuidsBulkUrl);
     }
 
     /**
@@ -77,7 +80,49 @@ public record ProfileApiConfig(
      */
     public ProfileApiConfig withRetrieveNameUrl(String url)
     {
-        return new ProfileApiConfig(customApiBaseUrl, retrieveUuidUrl, url);
+        return new ProfileApiConfig(customApiBaseUrl, retrieveUuidUrl, url, retrieveUuidsBulkUrl);
+    }
+
+    /**
+     * Returns a copy with a different names-to-profiles bulk endpoint.
+     * <p>
+     * When set, this overrides {@link #customApiBaseUrl()} and the default Minecraft Services
+     * endpoint. Names are posted to the URL as given, so no trailing slash is added.
+     *
+     * @param url the custom bulk lookup URL, or {@code null}/blank to clear it
+     * @return a new config with the updated bulk lookup URL
+     */
+    public ProfileApiConfig withRetrieveUuidsBulkUrl(String url)
+    {
+        return new ProfileApiConfig(customApiBaseUrl, retrieveUuidUrl, retrieveNameUrl, url);
+    }
+
+    /**
+     * Indicates whether names can be resolved through the bulk endpoint.
+     * <p>
+     * A custom name-to-UUID URL without a matching bulk URL points at a server whose bulk
+     * support is unknown, so names are then resolved one at a time.
+     *
+     * @return {@code true} if {@link #namesToUuidsUrl()} should be used; {@code false} otherwise
+     */
+    public boolean supportsBulkLookup()
+    {
+        return retrieveUuidsBulkUrl != null || retrieveUuidUrl == null;
+    }
+
+    /**
+     * Builds the URL that player name batches are posted to for resolving online UUIDs.
+     *
+     * @return the bulk lookup URL
+     */
+    public String namesToUuidsUrl()
+    {
+        if (retrieveUuidsBulkUrl != null)
+        {
+            return retrieveUuidsBulkUrl;
+        }
+        String base = customApiBaseUrl != null ? customApiBaseUrl : DEFAULT_UUID_API_BASE;
+        return base + "minecraft/profile/lookup/bulk/byname";
     }
 
     /**
@@ -0,0 +1,552 @@
+package me.pauleff.common.handlers.uuid;
+
+import me.pauleff.common.metrics.Metric;
+import me.pauleff.common.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent name-to-UUID and UUID-to-name cache for {@link OnlineProfileLookup}, shared
+ * between runs and between the servers converted on the same machine.
+ * <p>
+ * The cache is a compact append-only file: a header followed by one small binary record per
+ * lookup answer. The file is read once and indexed in memory when opened, where later
+ * records win over earlier ones, and every new answer is appended while holding a file lock,
+ * so several conversions may share one file. A torn record left by a crash is cut off, and
+ * the file is compacted on open once expired or superseded records dominate it. Compaction
+ * writes the live records to a temporary sibling and moves it over the file, so a crash
+ * leaves either the old or the compacted file; answers another process appends to the old
+ * file while it is being replaced are lost, which only costs a later request.
+ * <p>
+ * A {@linkplain #deferred(Path) deferred} cache opens its file on first use, so runs that never
+ * look up a profile neither create nor lock it.
+ * <p>
+ * Every entry expires after a time-to-live. Besides found profiles, the cache also remembers
+ * that a name or UUID has no online profile ({@linkplain Entry#isNegative() negative entries}),
+ * with a shorter time-to-live, since offline players otherwise cost a request on every run.
+ * Failed requests are never cached. Names are matched case-insensitively.
+ * <p>
+ * Instances are safe to share between threads. Failing to append to the file, or to open a
+ * deferred cache's file, is logged and leaves answers cached in memory only.
+ */
+public final class ProfileCache implements Closeable
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProfileCache.class);
+
+    /**
+     * Time-to-live of entries holding a found profile.
+     */
+    public static final Duration POSITIVE_TTL = Duration.ofDays(7);
+
+    /**
+     * Time-to-live of entries recording that no profile exists.
+     */
+    public static final Duration NEGATIVE_TTL = Duration.ofDays(1);
+
+    private static final int MAGIC = 0x4D4F4F43;
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES + 1;
+    private static final byte NAME_TO_UUID = 1;
+    private static final byte UUID_TO_NAME = 2;
+    private static final int COMPACT_MIN_RECORDS = 1024;
+
+    private final Map<String, Entry<UUID>> uuidsByName = new ConcurrentHashMap<>();
+    private final Map<UUID, Entry<String>> namesByUuid = new ConcurrentHashMap<>();
+    private final Path file;
+    private final Clock clock;
+    private final boolean enabled;
+    private volatile boolean opened;
+    private FileChannel channel;
+
+    private ProfileCache(Path file, Clock clock, boolean enabled)
+    {
+        this.file = file;
+        this.clock = clock;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Opens the cache file, creating it and its parent folders if needed.
+     *
+     * @param file the cache file
+     * @return the opened cache, holding every unexpired entry of the file
+     * @throws IOException if the file cannot be opened or is not a profile cache
+     */
+    public static ProfileCache open(Path file) throws IOException
+    {
+        return open(file, Clock.systemUTC());
+    }
+
+    /**
+     * Opens the cache file, judging expiry by the given clock.
+     */
+    static ProfileCache open(Path file, Clock clock) throws IOException
+    {
+        ProfileCache cache = new ProfileCache(file, clock, true);
+        cache.channel = cache.openFile();
+        cache.opened = true;
+        return cache;
+    }
+
+    /**
+     * Returns a cache that opens the given file, creating it and its parent folders if
+     * needed, only when it is first used.
+     * <p>
+     * A file that cannot be opened then is logged and the cache keeps answers in memory only.
+     *
+     * @param file the cache file
+     * @return the unopened cache
+     * @throws NullPointerException if {@code file} is {@code null}
+     */
+    public static ProfileCache deferred(Path file)
+    {
+        return deferred(file, Clock.systemUTC());
+    }
+
+    /**
+     * Returns a deferred cache judging expiry by the given clock.
+     */
+    static ProfileCache deferred(Path file, Clock clock)
+    {
+        return new ProfileCache(Objects.requireNonNull(file, "file"), clock, true);
+    }
+
+    /**
+     * Returns a cache that remembers nothing, for runs with caching turned off.
+     *
+     * @return a cache whose lookups always miss
+     */
+    public static ProfileCache disabled()
+    {
+        return new ProfileCache(null, Clock.systemUTC(), false);
+    }
+
+    /**
+     * Looks up the cached online UUID of a player name.
+     *
+     * @param name the Minecraft player name, in any case
+     * @return the unexpired entry, whose value is {@code null} if the name has no profile;
+     * empty if the name is not cached
+     */
+    public Optional<Entry<UUID>> findUuid(String name)
+    {
+        ensureOpen();
+        return find(uuidsByName, nameKey(name));
+    }
+
+    /**
+     * Looks up the cached player name of an online UUID.
+     *
+     * @param uuid the online Minecraft player UUID
+     * @return the unexpired entry, whose value is {@code null} if the UUID has no profile;
+     * empty if the UUID is not cached
+     */
+    public Optional<Entry<String>> findName(UUID uuid)
+    {
+        ensureOpen();
+        return find(namesByUuid, uuid);
+    }
+
+    /**
+     * Caches the lookup answer for a player name.
+     *
+     * @param name the Minecraft player name, in any case
+     * @param uuid the online UUID, or {@code null} to record that the name has no profile
+     */
+    public void putUuid(String name, UUID uuid)
+    {
+        if (!enabled)
+        {
+            return;
+        }
+        ensureOpen();
+        Entry<UUID> entry = newEntry(uuid);
+        String key = nameKey(name);
+        uuidsByName.put(key, entry);
+        append(nameRecord(key, entry));
+    }
+
+    /**
+     * Caches the lookup answer for an online UUID.
+     *
+     * @param uuid the online Minecraft player UUID
+     * @param name the player name, or {@code null} to record that the UUID has no profile
+     */
+    public void putName(UUID uuid, String name)
+    {
+        if (!enabled)
+        {
+            return;
+        }
+        ensureOpen();
+        Entry<String> entry = newEntry(name);
+        namesByUuid.put(Objects.requireNonNull(uuid, "uuid"), entry);
+        append(uuidRecord(uuid, entry));
+    }
+
+    /**
+     * Returns the number of entries held in memory, including ones that expired since opening.
+     *
+     * @return the number of cached names plus cached UUIDs
+     */
+    public int size()
+    {
+        ensureOpen();
+        return liveEntries();
+    }
+
+    /**
+     * Closes the cache file and releases it for other processes. Entries cached so far are
+     * already on disk. A deferred cache that was never used has no file to close.
+     *
+     * @throws IOException if closing the file fails
+     */
+    @Override
+    public synchronized void close() throws IOException
+    {
+        // Later calls must not open the file again.
+        opened = true;
+        if (channel != null)
+        {
+            channel.close();
+        }
+    }
+
+    /**
+     * Opens and loads the file of a deferred cache on first use.
+     */
+    private void ensureOpen()
+    {
+        if (!enabled || opened)
+        {
+            return;
+        }
+        synchronized (this)
+        {
+            if (opened)
+            {
+                return;
+            }
+            try
+            {
+                channel = openFile();
+            } catch (IOException e)
+            {
+                LOGGER.warn("Could not open profile cache {}, continuing without it: {}", file, e.getMessage());
+            }
+            opened = true;
+        }
+    }
+
+    /**
+     * Opens the file, creating it and its parent folders if needed, and loads its records.
+     *
+     * @return the channel appends go to
+     */
+    private FileChannel openFile() throws IOException
+    {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null)
+        {
+            Files.createDirectories(parent);
+        }
+        FileChannel fileChannel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try
+        {
+            if (load(fileChannel))
+            {
+                // Compaction replaced the file, so appends must go to the new one.
+                fileChannel.close();
+                fileChannel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            return fileChannel;
+        } catch (IOException e)
+        {
+            fileChannel.close();
+            throw e;
+        }
+    }
+
+    private <K, V> Optional<Entry<V>> find(Map<K, Entry<V>> entries, K key)
+    {
+        Entry<V> entry = entries.get(key);
+        if (entry == null)
+        {
+            return Optional.empty();
+        }
+        if (entry.expiresAt() <= now())
+        {
+            entries.remove(key, entry);
+            return Optional.empty();
+        }
+        Metrics.increment(Metric.CACHE_HITS);
+        return Optional.of(entry);
+    }
+
+    private <V> Entry<V> newEntry(V value)
+    {
+        return new Entry<>(value, now() + (value == null ? NEGATIVE_TTL : POSITIVE_TTL).toSeconds());
+    }
+
+    private long now()
+    {
+        return clock.instant().getEpochSecond();
+    }
+
+    private static String nameKey(String name)
+    {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Indexes every record of the file, cutting off a torn tail and compacting the file
+     * when most of its records are no longer live.
+     *
+     * @return {@code true} if the file was compacted, which replaces it
+     */
+    private boolean load(FileChannel channel) throws IOException
+    {
+        try (FileLock _ = channel.lock())
+        {
+            long size = channel.size();
+            if (size == 0)
+            {
+                writeFully(channel, ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).put(VERSION).flip(), 0);
+                return false;
+            }
+
+            ByteBuffer contents = readFully(channel, size);
+            if (size < HEADER_SIZE || contents.getInt() != MAGIC || contents.get() != VERSION)
+            {
+                throw new IOException("Not a profile cache file: " + file);
+            }
+
+            long now = now();
+            int records = 0;
+            int valid = contents.position();
+            while (contents.hasRemaining())
+            {
+                try
+                {
+                    readRecord(contents, now);
+                } catch (BufferUnderflowException | IllegalArgumentException e)
+                {
+                    break;
+                }
+                valid = contents.position();
+                records++;
+            }
+
+            if (valid < size)
+            {
+                LOGGER.warn("Discarding {} byte(s) of incomplete records at the end of profile cache {}.",
+                        size - valid, file);
+                channel.truncate(valid);
+            }
+            LOGGER.debug("Loaded {} cached profile lookup(s) from {}.", liveEntries(), file);
+            if (records >= COMPACT_MIN_RECORDS && records > 2 * liveEntries())
+            {
+                compact(valid);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private int liveEntries()
+    {
+        return uuidsByName.size() + namesByUuid.size();
+    }
+
+    private void readRecord(ByteBuffer buffer, long now)
+    {
+        byte kind = buffer.get();
+        long expiresAt = buffer.getLong();
+        switch (kind)
+        {
+            case NAME_TO_UUID ->
+            {
+                String key = readString(buffer);
+                UUID uuid = buffer.get() != 0 ? new UUID(buffer.getLong(), buffer.getLong()) : null;
+                index(uuidsByName, key, new Entry<>(uuid, expiresAt), now);
+            }
+            case UUID_TO_NAME ->
+            {
+                UUID key = new UUID(buffer.getLong(), buffer.getLong());
+                String name = buffer.get() != 0 ? readString(buffer) : null;
+                index(namesByUuid, key, new Entry<>(name, expiresAt), now);
+            }
+            default -> throw new IllegalArgumentException("Unknown profile cache record: " + kind);
+        }
+    }
+
+    private static <K, V> void index(Map<K, Entry<V>> entries, K key, Entry<V> entry, long now)
+    {
+        if (entry.expiresAt() > now)
+        {
+            entries.put(key, entry);
+        } else
+        {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Replaces the file with one holding only the live entries. Called with the file lock held.
+     * <p>
+     * The entries are written to a temporary sibling, forced to disk and moved over the file.
+     *
+     * @param before the size of the file's valid records
+     */
+    private void compact(int before) throws IOException
+    {
+        ByteBuffer compacted = ByteBuffer.allocate(before);
+        compacted.putInt(MAGIC).put(VERSION);
+        uuidsByName.forEach((key, entry) -> compacted.put(nameRecord(key, entry)));
+        namesByUuid.forEach((key, entry) -> compacted.put(uuidRecord(key, entry)));
+        compacted.flip();
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            writeFully(out, compacted, 0);
+            out.force(true);
+        }
+        try
+        {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e)
+        {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        LOGGER.debug("Compacted profile cache {} from {} to {} bytes.", file, before, compacted.limit());
+    }
+
+    private void append(ByteBuffer record)
+    {
+        FileChannel channel = this.channel;
+        if (channel == null)
+        {
+            return;
+        }
+        try
+        {
+            synchronized (channel)
+            {
+                try (FileLock _ = channel.lock())
+                {
+                    writeFully(channel, record, channel.size());
+                }
+            }
+        } catch (IOException e)
+        {
+            LOGGER.warn("Could not write to profile cache {}: {}", file, e.getMessage());
+        }
+    }
+
+    private ByteBuffer readFully(FileChannel channel, long size) throws IOException
+    {
+        if (size > Integer.MAX_VALUE)
+        {
+            throw new IOException("Profile cache file too large: " + file);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0)
+        {
+            // keep reading
+        }
+        return buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static ByteBuffer nameRecord(String key, Entry<UUID> entry)
+    {
+        byte[] name = key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(1 + Long.BYTES + Short.BYTES + name.length + 1 + 2 * Long.BYTES);
+        record.put(NAME_TO_UUID).putLong(entry.expiresAt()).putShort((short) name.length).put(name);
+        if (entry.isNegative())
+        {
+            record.put((byte) 0);
+        } else
+        {
+            record.put((byte) 1)
+                    .putLong(entry.value().getMostSignificantBits())
+                    .putLong(entry.value().getLeastSignificantBits());
+        }
+        return record.flip();
+    }
+
+    private static ByteBuffer uuidRecord(UUID key, Entry<String> entry)
+    {
+        byte[] name = entry.isNegative() ? new byte[0] : entry.value().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(1 + Long.BYTES + 2 * Long.BYTES + 1 + Short.BYTES + name.length);
+        record.put(UUID_TO_NAME).putLong(entry.expiresAt())
+                .putLong(key.getMostSignificantBits())
+                .putLong(key.getLeastSignificantBits());
+        if (entry.isNegative())
+        {
+            record.put((byte) 0);
+        } else
+        {
+            record.put((byte) 1).putShort((short) name.length).put(name);
+        }
+        return record.flip();
+    }
+
+    private static String readString(ByteBuffer buffer)
+    {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A cached lookup answer.
+     *
+     * @param value     the UUID or name found, or {@code null} if no profile exists
+     * @param expiresAt when the entry expires, in epoch seconds
+     * @param <T>       the type of the cached value
+     */
+    public record Entry<T>(T value, long expiresAt)
+    {
+        /**
+         * Returns whether this entry records that no profile exists.
+         *
+         * @return {@code true} if {@link #value()} is {@code null}
+         */
+        public boolean isNegative()
+        {
+            return value == null;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package me.pauleff.common.handlers.uuid;
+
+import me.pauleff.common.metrics.Metric;
+import me.pauleff.common.metrics.Metrics;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded in-memory cache of lookup results that lets only one lookup per key run at a time.
+ * <p>
+ * Results are kept in least-recently-used order up to a fixed capacity. A {@code null} result
+ * is cached like any other, so a key without an answer is not looked up again. When several
+ * threads ask for the same uncached key at once, the first one runs the lookup and the others
+ * wait for its result; a failure, including an {@link Error}, is passed to all of them and is
+ * not cached. Every call answered from the cache counts one {@link Metric#CACHE_HITS cache hit}.
+ *
+ * @param <K> the key type
+ * @param <V> the result type
+ */
+final class SingleFlightCache<K, V>
+{
+    private final Map<K, Hit<V>> results;
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a cache holding at most {@code capacity} results.
+     *
+     * @param capacity the maximum number of cached results
+     */
+    SingleFlightCache(int capacity)
+    {
+        this.results = new LinkedHashMap<>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Hit<V>> eldest)
+            {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached result for a key, running the lookup if there is none.
+     *
+     * @param key    the key to look up
+     * @param lookup computes the result when neither cached nor already in flight
+     * @return the result, possibly {@code null}
+     * @throws IOException if the lookup, or the concurrent lookup this call waited for, failed
+     */
+    V get(K key, Lookup<V> lookup) throws IOException
+    {
+        Optional<Hit<V>> cached = find(key);
+        if (cached.isPresent())
+        {
+            return cached.get().value();
+        }
+
+        CompletableFuture<V> pending = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, pending);
+        if (running != null)
+        {
+            return await(running);
+        }
+        try
+        {
+            // A lookup finishing between find() and putIfAbsent() has stored its result already.
+            Hit<V> hit = cachedHit(key);
+            V value;
+            if (hit != null)
+            {
+                Metrics.increment(Metric.CACHE_HITS);
+                value = hit.value();
+            } else
+            {
+                value = lookup.run();
+                put(key, value);
+            }
+            pending.complete(value);
+            return value;
+        } catch (Throwable t)
+        {
+            // Waiters must not block forever, whatever the lookup threw.
+            pending.completeExceptionally(t);
+            throw t;
+        } finally
+        {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    /**
+     * Returns the cached result for a key without looking it up.
+     *
+     * @param key the key
+     * @return the cached result, or empty if the key is not cached
+     */
+    Optional<Hit<V>> find(K key)
+    {
+        Hit<V> hit = cachedHit(key);
+        if (hit != null)
+        {
+            Metrics.increment(Metric.CACHE_HITS);
+        }
+        return Optional.ofNullable(hit);
+    }
+
+    private Hit<V> cachedHit(K key)
+    {
+        synchronized (results)
+        {
+            return results.get(key);
+        }
+    }
+
+    /**
+     * Caches a result obtained elsewhere, for example from a bulk lookup.
+     *
+     * @param key   the key
+     * @param value the result, possibly {@code null}
+     */
+    void put(K key, V value)
+    {
+        synchronized (results)
+        {
+            results.put(key, new Hit<>(value));
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> running) throws IOException
+    {
+        try
+        {
+            return running.join();
+        } catch (CompletionException e)
+        {
+            if (e.getCause() instanceof IOException io)
+            {
+                throw new IOException(io.getMessage(), io);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * A cached result.
+     *
+     * @param value the result, or {@code null} if the lookup found nothing
+     * @param <V>   the result type
+     */
+    record Hit<V>(V value)
+    {
+    }
+
+    /**
+     * A blocking lookup that may fail with an {@link IOException}.
+     *
+     * @param <V> the result type
+     */
+    @FunctionalInterface
+    interface Lookup<V>
+    {
+        V run() throws IOException;
+    }
+}
@@ -0,0 +1,206 @@
+package me.pauleff.common.handlers.uuid;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Validates, decodes and encodes textual UUIDs through lookup tables.
+ * <p>
+ * Accepts the hyphenated ({@code 8-4-4-4-12}) and the dashless (32 hex digits) form in either
+ * case, from any {@link CharSequence} range. Decoding writes the two
+ * {@code long} halves into a caller-supplied array and reports failure through its return
+ * value, so classifying a name that is not a UUID costs neither an exception nor an
+ * allocation. Unlike {@link UUID#fromString(String)}, groups must have their exact lengths.
+ */
+public final class UuidCodec
+{
+    /**
+     * Length of the hyphenated form, e.g. {@code 069a79f4-44e9-4726-a5be-fca90e38aaf5}.
+     */
+    public static final int HYPHENATED_LENGTH = 36;
+
+    /**
+     * Length of the dashless form, e.g. {@code 069a79f444e94726a5befca90e38aaf5}.
+     */
+    public static final int DASHLESS_LENGTH = 32;
+
+    // Bit i is set when index i of the hyphenated form holds a dash.
+    private static final long DASH_POSITIONS = 1L << 8 | 1L << 13 | 1L << 18 | 1L << 23;
+    private static final byte[] HEX_VALUES = new byte[128];
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final char[] UPPER_HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    static
+    {
+        Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < 16; i++)
+        {
+            HEX_VALUES[HEX_DIGITS[i]] = (byte) i;
+            HEX_VALUES[UPPER_HEX_DIGITS[i]] = (byte) i;
+        }
+    }
+
+    private UuidCodec()
+    {
+    }
+
+    /**
+     * Decodes a UUID spanning a whole character sequence.
+     *
+     * @param s the text to decode
+     * @return the UUID, or {@code null} if {@code s} is not a hyphenated or dashless UUID
+     * @throws NullPointerException if {@code s} is {@code null}
+     */
+    public static UUID decode(CharSequence s)
+    {
+        long[] bits = new long[2];
+        return decode(s, 0, s.length(), bits) ? new UUID(bits[0], bits[1]) : null;
+    }
+
+    /**
+     * Checks whether a character sequence is exactly one hyphenated or dashless UUID.
+     *
+     * @param s the text to check; may be {@code null}
+     * @return {@code true} if {@code s} decodes as a UUID
+     */
+    public static boolean isUuid(CharSequence s)
+    {
+        return s != null && decode(s, 0, s.length(), new long[2]);
+    }
+
+    /**
+     * Decodes the UUID spanning {@code s[start, end)} into its two halves.
+     *
+     * @param s     the text to decode
+     * @param start the index of the first character
+     * @param end   the index after the last character
+     * @param bits  receives the most and least significant bits at indices {@code 0} and
+     *              {@code 1}; contents are unspecified when decoding fails
+     * @return {@code true} if the range is a hyphenated or dashless UUID
+     * @throws IndexOutOfBoundsException if the range lies outside {@code s}
+     */
+    public static boolean decode(CharSequence s, int start, int end, long[] bits)
+    {
+        Objects.checkFromToIndex(start, end, s.length());
+        int length = end - start;
+        boolean hyphenated = length == HYPHENATED_LENGTH;
+        if (!hyphenated && length != DASHLESS_LENGTH)
+        {
+            return false;
+        }
+        long most = 0;
+        long least = 0;
+        int digits = 0;
+        for (int i = 0; i < length; i++)
+        {
+            char c = s.charAt(start + i);
+            if (hyphenated && (DASH_POSITIONS >>> i & 1) != 0)
+            {
+                if (c != '-')
+                {
+                    return false;
+                }
+                continue;
+            }
+            int value = hexValue(c);
+            if (value < 0)
+            {
+                return false;
+            }
+            if (digits++ < 16)
+            {
+                most = most << 4 | value;
+            } else
+            {
+                least = least << 4 | value;
+            }
+        }
+        bits[0] = most;
+        bits[1] = least;
+        return true;
+    }
+
+    /**
+     * Returns the version field of a UUID given its most significant bits.
+     *
+     * @param most the most significant bits
+     * @return the version, e.g. {@code 4} for random and {@code 3} for name-based UUIDs
+     * @see UUID#version()
+     */
+    public static int version(long most)
+    {
+        return (int) (most >>> 12) & 0xF;
+    }
+
+    /**
+     * Encodes a UUID in the hyphenated form.
+     *
+     * @param uuid      the UUID to encode
+     * @param upperCase whether to use upper-case hex digits
+     * @return the 36-character hyphenated form
+     * @throws NullPointerException if {@code uuid} is {@code null}
+     */
+    public static String hyphenated(UUID uuid, boolean upperCase)
+    {
+        char[] digits = upperCase ? UPPER_HEX_DIGITS : HEX_DIGITS;
+        long most = uuid.getMostSignificantBits();
+        long least = uuid.getLeastSignificantBits();
+        char[] out = new char[HYPHENATED_LENGTH];
+        writeHex(out, 0, most >>> 32, 8, digits);
+        out[8] = '-';
+        writeHex(out, 9, most >>> 16, 4, digits);
+        out[13] = '-';
+        writeHex(out, 14, most, 4, digits);
+        out[18] = '-';
+        writeHex(out, 19, least >>> 48, 4, digits);
+        out[23] = '-';
+        writeHex(out, 24, least, 12, digits);
+        return new String(out);
+    }
+
+    /**
+     * Encodes a UUID in lower case without dashes.
+     *
+     * @param uuid the UUID to encode
+     * @return the 32-character dashless form
+     * @throws NullPointerException if {@code uuid} is {@code null}
+     */
+    public static String dashless(UUID uuid)
+    {
+        char[] out = new char[DASHLESS_LENGTH];
+        writeHex(out, 0, uuid.getMostSignificantBits(), 16, HEX_DIGITS);
+        writeHex(out, 16, uuid.getLeastSignificantBits(), 16, HEX_DIGITS);
+        return new String(out);
+    }
+
+    /**
+     * Encodes a UUID as an SNBT int array, e.g. {@code [I;110787060,1156138790,-1514210135,238594805]}.
+     * <p>
+     * The four ints are the UUID's bits from most to least significant, as Minecraft has
+     * stored UUIDs since 1.16.
+     *
+     * @param uuid the UUID to encode
+     * @return the compact SNBT int array form
+     * @throws NullPointerException if {@code uuid} is {@code null}
+     */
+    public static String intArray(UUID uuid)
+    {
+        long most = uuid.getMostSignificantBits();
+        long least = uuid.getLeastSignificantBits();
+        return "[I;" + (int) (most >>> 32) + ',' + (int) most + ',' + (int) (least >>> 32) + ',' + (int) least + ']';
+    }
+
+    private static int hexValue(int c)
+    {
+        return c < HEX_VALUES.length ? HEX_VALUES[c] : -1;
+    }
+
+    private static void writeHex(char[] out, int position, long value, int count, char[] digits)
+    {
+        for (int shift = (count - 1) * 4; shift >= 0; shift -= 4)
+        {
+            out[position++] = digits[(int) (value >>> shift) & 0xF];
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package me.pauleff.common.handlers.uuid;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Holds a UUID together with its encoding in every {@link UuidForm}, computed once.
+ * <p>
+ * Compiling a {@link UuidPatternMatcher} needs every mapped UUID as a string in each requested
+ * form, and the matcher is recompiled whenever a mapping is added. Keeping the encodings per
+ * UUID means each one is formatted a single time per run, however often the matcher is rebuilt.
+ * <p>
+ * Instances are immutable and safe to share between threads.
+ */
+public final class UuidEncodings
+{
+    private static final UuidForm[] FORMS = UuidForm.values();
+
+    private final UUID uuid;
+    private final String[] encoded;
+
+    private UuidEncodings(UUID uuid)
+    {
+        this.uuid = uuid;
+        this.encoded = new String[FORMS.length];
+        for (UuidForm form : FORMS)
+        {
+            encoded[form.ordinal()] = form.format(uuid);
+        }
+    }
+
+    /**
+     * Encodes a UUID in every form.
+     *
+     * @param uuid the UUID to encode
+     * @return the encodings of {@code uuid}
+     * @throws NullPointerException if {@code uuid} is {@code null}
+     */
+    public static UuidEncodings of(UUID uuid)
+    {
+        return new UuidEncodings(Objects.requireNonNull(uuid, "uuid"));
+    }
+
+    /**
+     * Returns the encoded UUID.
+     *
+     * @return the UUID
+     */
+    public UUID uuid()
+    {
+        return uuid;
+    }
+
+    /**
+     * Returns the UUID in the given form.
+     *
+     * @param form the encoding
+     * @return the same string as {@code form.format(uuid())}
+     * @throws NullPointerException if {@code form} is {@code null}
+     */
+    public String get(UuidForm form)
+    {
+        return encoded[form.ordinal()];
+    }
+}
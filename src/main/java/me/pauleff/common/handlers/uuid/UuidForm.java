@@ -0,0 +1,52 @@
+package me.pauleff.common.handlers.uuid;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Identifies a textual encoding in which Minecraft files store player UUIDs.
+ */
+public enum UuidForm
+{
+    /**
+     * The standard 36-character lower-case form, e.g. {@code 069a79f4-44e9-4726-a5be-fca90e38aaf5}.
+     */
+    HYPHENATED,
+
+    /**
+     * The 32-character lower-case form without dashes used by Mojang APIs and some mods.
+     */
+    DASHLESS,
+
+    /**
+     * The standard 36-character form in upper case, e.g. {@code 069A79F4-44E9-4726-A5BE-FCA90E38AAF5}.
+     */
+    UPPER_CASE,
+
+    /**
+     * The compact SNBT int array, e.g. {@code [I;110787060,1156138790,-1514210135,238594805]}.
+     * <p>
+     * Its length depends on the UUID, so rewriters matching it support only
+     * {@link UuidRewriter#rewrite(String)}, not in-place rewriting.
+     */
+    INT_ARRAY;
+
+    /**
+     * Formats the given UUID in this encoding.
+     *
+     * @param uuid the UUID to format
+     * @return the encoded UUID string
+     * @throws NullPointerException if {@code uuid} is {@code null}
+     */
+    public String format(UUID uuid)
+    {
+        Objects.requireNonNull(uuid, "uuid");
+        return switch (this)
+        {
+            case HYPHENATED -> uuid.toString();
+            case DASHLESS -> UuidCodec.dashless(uuid);
+            case UPPER_CASE -> UuidCodec.hyphenated(uuid, true);
+            case INT_ARRAY -> UuidCodec.intArray(uuid);
+        };
+    }
+}
@@ -0,0 +1,629 @@
+package me.pauleff.common.handlers.uuid;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Map from UUID to UUID that stores both as primitive {@code long} pairs.
+ * <p>
+ * Entries live in one open-addressing table with linear probing, four {@code long}s per slot
+ * (key and value, most then least significant bits), kept between a quarter and half full. That
+ * costs 64 to 128 bytes per mapping with no per-entry objects, compared to roughly 150 bytes for a
+ * {@link java.util.HashMap} of boxed UUIDs, and a lookup touches one contiguous slot instead
+ * of chasing node, key and value pointers. {@link #findTarget(long, long, long[])} looks up raw
+ * bits without allocating at all. The table can be kept on the Java heap or
+ * {@linkplain Storage#OFF_HEAP off-heap} in a direct buffer, which keeps very large mappings
+ * out of garbage collection entirely.
+ * <p>
+ * Maps from {@link #create(Storage)} are not thread-safe. Maps from {@link #concurrent(Storage)}
+ * guard writes with a lock and let lookups proceed optimistically without locking; their
+ * iterators work on a snapshot taken when iteration starts.
+ */
+public final class UuidMap extends AbstractMap<UUID, UUID>
+{
+    private static final int SLOT_LONGS = 4;
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 28;
+
+    /**
+     * Where the table of a {@link UuidMap} is stored.
+     */
+    public enum Storage
+    {
+        /**
+         * In a {@code long[]} on the Java heap.
+         */
+        HEAP,
+
+        /**
+         * In a direct buffer outside the Java heap, released when the map is garbage collected.
+         */
+        OFF_HEAP
+    }
+
+    private final Storage storage;
+    private final StampedLock lock;
+    private Table table;
+
+    private UuidMap(Storage storage, boolean concurrent)
+    {
+        this.storage = Objects.requireNonNull(storage, "storage");
+        this.lock = concurrent ? new StampedLock() : null;
+        this.table = new Table(storage, MIN_CAPACITY);
+    }
+
+    /**
+     * Creates an empty map for use by a single thread, stored on the heap.
+     *
+     * @return a new map
+     */
+    public static UuidMap create()
+    {
+        return create(Storage.HEAP);
+    }
+
+    /**
+     * Creates an empty map for use by a single thread.
+     *
+     * @param storage where to keep the table
+     * @return a new map
+     */
+    public static UuidMap create(Storage storage)
+    {
+        return new UuidMap(storage, false);
+    }
+
+    /**
+     * Creates an empty map that is safe to use from many threads at once, stored on the heap.
+     *
+     * @return a new concurrent map
+     */
+    public static UuidMap concurrent()
+    {
+        return concurrent(Storage.HEAP);
+    }
+
+    /**
+     * Creates an empty map that is safe to use from many threads at once.
+     *
+     * @param storage where to keep the table
+     * @return a new concurrent map
+     */
+    public static UuidMap concurrent(Storage storage)
+    {
+        return new UuidMap(storage, true);
+    }
+
+    /**
+     * Returns a single-threaded heap map holding the given mappings, or the map itself if it
+     * already is a {@link UuidMap}.
+     *
+     * @param mappings the mappings to copy
+     * @return a map with the same mappings
+     * @throws NullPointerException if {@code mappings} or any key or value is {@code null}
+     */
+    public static UuidMap copyOf(Map<UUID, UUID> mappings)
+    {
+        if (mappings instanceof UuidMap uuidMap)
+        {
+            return uuidMap;
+        }
+        UuidMap copy = create();
+        copy.putAll(mappings);
+        return copy;
+    }
+
+    /**
+     * Looks up the target of a UUID given as raw bits, without allocating.
+     *
+     * @param most   the most significant bits of the key
+     * @param least  the least significant bits of the key
+     * @param target receives the most and least significant bits of the mapped UUID at
+     *               indices {@code 0} and {@code 1}; left unchanged if there is no mapping
+     * @return {@code true} if the UUID is mapped
+     */
+    public boolean findTarget(long most, long least, long[] target)
+    {
+        if (lock == null)
+        {
+            return table.find(most, least, target);
+        }
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0)
+        {
+            long targetMost = target[0];
+            long targetLeast = target[1];
+            boolean found = table.find(most, least, target);
+            if (lock.validate(stamp))
+            {
+                return found;
+            }
+            target[0] = targetMost;
+            target[1] = targetLeast;
+        }
+        stamp = lock.readLock();
+        try
+        {
+            return table.find(most, least, target);
+        } finally
+        {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public UUID get(Object key)
+    {
+        if (!(key instanceof UUID uuid))
+        {
+            return null;
+        }
+        long[] target = new long[2];
+        return findTarget(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), target)
+                ? new UUID(target[0], target[1])
+                : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return get(key) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if {@code key} or {@code value} is {@code null}
+     */
+    @Override
+    public UUID put(UUID key, UUID value)
+    {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        long most = key.getMostSignificantBits();
+        long least = key.getLeastSignificantBits();
+        long stamp = lock == null ? 0 : lock.writeLock();
+        try
+        {
+            if (table.size >= table.capacity() / 2)
+            {
+                table = table.resized(storage, table.capacity() * 2);
+            }
+            return table.put(most, least, value.getMostSignificantBits(), value.getLeastSignificantBits());
+        } finally
+        {
+            if (lock != null)
+            {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public UUID remove(Object key)
+    {
+        if (!(key instanceof UUID uuid))
+        {
+            return null;
+        }
+        long stamp = lock == null ? 0 : lock.writeLock();
+        try
+        {
+            return table.remove(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        } finally
+        {
+            if (lock != null)
+            {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear()
+    {
+        long stamp = lock == null ? 0 : lock.writeLock();
+        try
+        {
+            table = new Table(storage, MIN_CAPACITY);
+        } finally
+        {
+            if (lock != null)
+            {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size()
+    {
+        if (lock == null)
+        {
+            return table.size;
+        }
+        long stamp = lock.readLock();
+        try
+        {
+            return table.size;
+        } finally
+        {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * For concurrent maps, the returned set iterates over a snapshot of the mappings.
+     * Removing through the iterator removes the mapping from this map.
+     */
+    @Override
+    public Set<Entry<UUID, UUID>> entrySet()
+    {
+        return new AbstractSet<>()
+        {
+            @Override
+            public Iterator<Entry<UUID, UUID>> iterator()
+            {
+                Iterator<Entry<UUID, UUID>> snapshot = snapshot().iterator();
+                return new Iterator<>()
+                {
+                    private Entry<UUID, UUID> last;
+
+                    @Override
+                    public boolean hasNext()
+                    {
+                        return snapshot.hasNext();
+                    }
+
+                    @Override
+                    public Entry<UUID, UUID> next()
+                    {
+                        last = snapshot.next();
+                        return last;
+                    }
+
+                    @Override
+                    public void remove()
+                    {
+                        if (last == null)
+                        {
+                            throw new IllegalStateException();
+                        }
+                        UuidMap.this.remove(last.getKey());
+                        last = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size()
+            {
+                return UuidMap.this.size();
+            }
+        };
+    }
+
+    private List<Entry<UUID, UUID>> snapshot()
+    {
+        long stamp = lock == null ? 0 : lock.readLock();
+        try
+        {
+            return table.entries();
+        } finally
+        {
+            if (lock != null)
+            {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    private static int hash(long most, long least)
+    {
+        long h = most * 0x9E3779B97F4A7C15L ^ least;
+        h ^= h >>> 32;
+        return (int) (h ^ h >>> 16);
+    }
+
+    /**
+     * Open-addressing table of {@code (keyMost, keyLeast, valueMost, valueLeast)} slots.
+     * <p>
+     * An all-zero key marks an empty slot, so the nil UUID is mapped in fields of its own.
+     * <p>
+     * Replaced as a whole on resize, so an optimistic reader always sees a consistent
+     * capacity and mask. Probing is bounded by the capacity, so a reader racing a writer
+     * terminates even when it observes a half-written table.
+     */
+    private static final class Table
+    {
+        private final Slots slots;
+        private final int mask;
+        private int size;
+        private boolean nilMapped;
+        private long nilTargetMost;
+        private long nilTargetLeast;
+
+        Table(Storage storage, int capacity)
+        {
+            if (capacity > MAX_CAPACITY)
+            {
+                throw new IllegalStateException("UUID map is full.");
+            }
+            this.slots = storage == Storage.HEAP
+                    ? new HeapSlots(capacity * SLOT_LONGS)
+                    : new DirectSlots(capacity * SLOT_LONGS);
+            this.mask = capacity - 1;
+        }
+
+        int capacity()
+        {
+            return mask + 1;
+        }
+
+        boolean find(long most, long least, long[] target)
+        {
+            if (most == 0 && least == 0)
+            {
+                if (nilMapped)
+                {
+                    target[0] = nilTargetMost;
+                    target[1] = nilTargetLeast;
+                }
+                return nilMapped;
+            }
+            int slot = slotOf(most, least);
+            if (slot < 0)
+            {
+                return false;
+            }
+            target[0] = slots.get(slot * SLOT_LONGS + 2);
+            target[1] = slots.get(slot * SLOT_LONGS + 3);
+            return true;
+        }
+
+        UUID put(long most, long least, long valueMost, long valueLeast)
+        {
+            if (most == 0 && least == 0)
+            {
+                UUID previous = nilMapped ? new UUID(nilTargetMost, nilTargetLeast) : null;
+                nilTargetMost = valueMost;
+                nilTargetLeast = valueLeast;
+                if (!nilMapped)
+                {
+                    nilMapped = true;
+                    size++;
+                }
+                return previous;
+            }
+            int slot = hash(most, least) & mask;
+            while (!isEmpty(slot))
+            {
+                if (keyMost(slot) == most && keyLeast(slot) == least)
+                {
+                    UUID previous = new UUID(slots.get(slot * SLOT_LONGS + 2), slots.get(slot * SLOT_LONGS + 3));
+                    slots.set(slot * SLOT_LONGS + 2, valueMost);
+                    slots.set(slot * SLOT_LONGS + 3, valueLeast);
+                    return previous;
+                }
+                slot = (slot + 1) & mask;
+            }
+            // Write the value first, so an optimistic reader never matches a key without its value.
+            slots.set(slot * SLOT_LONGS + 2, valueMost);
+            slots.set(slot * SLOT_LONGS + 3, valueLeast);
+            slots.set(slot * SLOT_LONGS + 1, least);
+            slots.set(slot * SLOT_LONGS, most);
+            size++;
+            return null;
+        }
+
+        UUID remove(long most, long least)
+        {
+            if (most == 0 && least == 0)
+            {
+                if (!nilMapped)
+                {
+                    return null;
+                }
+                nilMapped = false;
+                size--;
+                return new UUID(nilTargetMost, nilTargetLeast);
+            }
+            int slot = slotOf(most, least);
+            if (slot < 0)
+            {
+                return null;
+            }
+            UUID previous = new UUID(slots.get(slot * SLOT_LONGS + 2), slots.get(slot * SLOT_LONGS + 3));
+            // Backward-shift deletion: pull later entries of the probe run into the gap.
+            int gap = slot;
+            int next = slot;
+            while (true)
+            {
+                next = (next + 1) & mask;
+                if (isEmpty(next))
+                {
+                    break;
+                }
+                int home = hash(keyMost(next), keyLeast(next)) & mask;
+                if (((next - home) & mask) >= ((next - gap) & mask))
+                {
+                    for (int i = 0; i < SLOT_LONGS; i++)
+                    {
+                        slots.set(gap * SLOT_LONGS + i, slots.get(next * SLOT_LONGS + i));
+                    }
+                    gap = next;
+                }
+            }
+            for (int i = 0; i < SLOT_LONGS; i++)
+            {
+                slots.set(gap * SLOT_LONGS + i, 0);
+            }
+            size--;
+            return previous;
+        }
+
+        Table resized(Storage storage, int capacity)
+        {
+            Table resized = new Table(storage, capacity);
+            if (nilMapped)
+            {
+                resized.put(0, 0, nilTargetMost, nilTargetLeast);
+            }
+            for (int slot = 0; slot <= mask; slot++)
+            {
+                if (!isEmpty(slot))
+                {
+                    resized.put(keyMost(slot), keyLeast(slot),
+                            slots.get(slot * SLOT_LONGS + 2), slots.get(slot * SLOT_LONGS + 3));
+                }
+            }
+            return resized;
+        }
+
+        List<Entry<UUID, UUID>> entries()
+        {
+            List<Entry<UUID, UUID>> entries = new ArrayList<>(size);
+            if (nilMapped)
+            {
+                entries.add(new SimpleImmutableEntry<>(new UUID(0, 0), new UUID(nilTargetMost, nilTargetLeast)));
+            }
+            for (int slot = 0; slot <= mask; slot++)
+            {
+                if (!isEmpty(slot))
+                {
+                    entries.add(new SimpleImmutableEntry<>(
+                            new UUID(keyMost(slot), keyLeast(slot)),
+                            new UUID(slots.get(slot * SLOT_LONGS + 2), slots.get(slot * SLOT_LONGS + 3))));
+                }
+            }
+            return entries;
+        }
+
+        private int slotOf(long most, long least)
+        {
+            int slot = hash(most, least) & mask;
+            for (int probes = 0; probes <= mask && !isEmpty(slot); probes++)
+            {
+                if (keyMost(slot) == most && keyLeast(slot) == least)
+                {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private boolean isEmpty(int slot)
+        {
+            return keyMost(slot) == 0 && keyLeast(slot) == 0;
+        }
+
+        private long keyMost(int slot)
+        {
+            return slots.get(slot * SLOT_LONGS);
+        }
+
+        private long keyLeast(int slot)
+        {
+            return slots.get(slot * SLOT_LONGS + 1);
+        }
+    }
+
+    /**
+     * Fixed-size array of {@code long}s backing a {@link Table}.
+     */
+    private sealed interface Slots permits HeapSlots, DirectSlots
+    {
+        long get(int index);
+
+        void set(int index, long value);
+    }
+
+    private record HeapSlots(long[] longs) implements Slots
+    {
+        HeapSlots(int length)
+        {
+            this(new long[length]);
+        }
+
+        @Override
+        public long get(int index)
+        {
+            return longs[index];
+        }
+
+        @Override
+        public void set(int index, long value)
+        {
+            longs[index] = value;
+        }
+    }
+
+    /**
+     * Direct buffers of at most {@code 2^27} longs each, since a direct buffer holds at most
+     * {@link Integer#MAX_VALUE} bytes and the largest table needs 8 GiB.
+     */
+    private record DirectSlots(LongBuffer[] chunks) implements Slots
+    {
+        private static final int CHUNK_SHIFT = 27;
+        private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+        DirectSlots(int length)
+        {
+            this(allocate(length));
+        }
+
+        private static LongBuffer[] allocate(int length)
+        {
+            LongBuffer[] chunks = new LongBuffer[(int) (((long) length + CHUNK_MASK) >>> CHUNK_SHIFT)];
+            for (int i = 0; i < chunks.length; i++)
+            {
+                long chunkLength = Math.min(1L << CHUNK_SHIFT, length - ((long) i << CHUNK_SHIFT));
+                chunks[i] = ByteBuffer.allocateDirect(Math.toIntExact(chunkLength * Long.BYTES))
+                        .order(ByteOrder.nativeOrder())
+                        .asLongBuffer();
+            }
+            return chunks;
+        }
+
+        @Override
+        public long get(int index)
+        {
+            return chunks[index >>> CHUNK_SHIFT].get(index & CHUNK_MASK);
+        }
+
+        @Override
+        public void set(int index, long value)
+        {
+            chunks[index >>> CHUNK_SHIFT].put(index & CHUNK_MASK, value);
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package me.pauleff.common.handlers.uuid;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Replaces many fixed string patterns in a single left-to-right pass (Aho-Corasick).
+ * <p>
+ * The automaton is compiled once from a pattern-to-replacement map and can then be applied
+ * to any number of inputs, so the cost per input depends on its length rather than on the
+ * number of patterns. Patterns must be non-empty ASCII strings. When several patterns match,
+ * the one that ends first wins (the longest one on ties); scanning resumes directly after
+ * each replacement. {@link #rewriteInPlace(byte[], int, int)} requires every replacement to be
+ * ASCII and as long as its pattern, which always holds for {@link #forMappings(Map, Set)}.
+ * <p>
+ * Instances are immutable and safe to share between threads.
+ */
+public final class UuidPatternMatcher implements UuidRewriter
+{
+    private static final int ROOT = 0;
+    private static final int NO_PATTERN = -1;
+
+    private final int[] symbolOf;
+    private final int[] edgeStart;
+    private final byte[] edgeSymbol;
+    private final int[] edgeTarget;
+    private final int[] failure;
+    private final int[] output;
+    private final int[] patternLength;
+    private final String[] replacements;
+    private final byte[][] replacementBytes;
+    private final boolean inPlaceCapable;
+
+    private UuidPatternMatcher(int[] symbolOf, int[] edgeStart, byte[] edgeSymbol, int[] edgeTarget,
+                               int[] failure, int[] output, int[] patternLength, String[] replacements)
+    {
+        this.symbolOf = symbolOf;
+        this.edgeStart = edgeStart;
+        this.edgeSymbol = edgeSymbol;
+        this.edgeTarget = edgeTarget;
+        this.failure = failure;
+        this.output = output;
+        this.patternLength = patternLength;
+        this.replacements = replacements;
+        this.replacementBytes = new byte[replacements.length][];
+        boolean inPlace = true;
+        for (int i = 0; i < replacements.length; i++)
+        {
+            replacementBytes[i] = replacements[i].getBytes(StandardCharsets.US_ASCII);
+            inPlace &= replacements[i].length() == patternLength[i] && replacements[i].chars().allMatch(c -> c < 128);
+        }
+        this.inPlaceCapable = inPlace;
+    }
+
+    /**
+     * Compiles a matcher that rewrites every mapped UUID in each of the given encodings.
+     * <p>
+     * Identity mappings are skipped, as they would never change the input.
+     *
+     * @param mappings the original-to-remapped UUIDs
+     * @param forms    the encodings to match and replace; each is replaced in its own form
+     * @return the compiled matcher
+     * @throws NullPointerException if {@code mappings}, {@code forms}, or any entry is {@code null}
+     */
+    public static UuidPatternMatcher forMappings(Map<UUID, UUID> mappings, Set<UuidForm> forms)
+    {
+        return forMappings(mappings, UuidEncodings::of, forms);
+    }
+
+    /**
+     * Compiles a matcher like {@link #forMappings(Map, Set)}, taking each UUID's string forms
+     * from {@code encodings} instead of formatting them.
+     * <p>
+     * Passing a cache lets a matcher be recompiled for a growing map without encoding the
+     * same UUIDs again.
+     *
+     * @param mappings  the original-to-remapped UUIDs
+     * @param encodings returns the encodings of a mapped UUID
+     * @param forms     the encodings to match and replace; each is replaced in its own form
+     * @return the compiled matcher
+     * @throws NullPointerException if an argument or any entry is {@code null}
+     */
+    public static UuidPatternMatcher forMappings(Map<UUID, UUID> mappings,
+                                                 Function<UUID, UuidEncodings> encodings,
+                                                 Set<UuidForm> forms)
+    {
+        Objects.requireNonNull(mappings, "mappings");
+        Objects.requireNonNull(encodings, "encodings");
+        Objects.requireNonNull(forms, "forms");
+        Map<String, String> patterns = new TreeMap<>();
+        for (Map.Entry<UUID, UUID> entry : mappings.entrySet())
+        {
+            if (entry.getKey().equals(entry.getValue()))
+            {
+                continue;
+            }
+            UuidEncodings from = encodings.apply(entry.getKey());
+            UuidEncodings to = encodings.apply(entry.getValue());
+            for (UuidForm form : forms)
+            {
+                patterns.put(from.get(form), to.get(form));
+            }
+        }
+        return compile(patterns);
+    }
+
+    /**
+     * Compiles a matcher from the given pattern-to-replacement map.
+     *
+     * @param patterns the patterns to look for, each mapped to its replacement
+     * @return the compiled matcher
+     * @throws NullPointerException     if {@code patterns} or any key or value is {@code null}
+     * @throws IllegalArgumentException if a pattern is empty or contains non-ASCII characters
+     */
+    public static UuidPatternMatcher compile(Map<String, String> patterns)
+    {
+        Objects.requireNonNull(patterns, "patterns");
+        // Sorting lets the trie be laid out breadth-first in one pass over contiguous ranges.
+        String[] keys = new TreeMap<>(patterns).keySet().toArray(String[]::new);
+        String[] replacements = new String[keys.length];
+        int[] patternLength = new int[keys.length];
+
+        int[] symbolOf = new int[128];
+        Arrays.fill(symbolOf, -1);
+        int symbols = 0;
+        for (int i = 0; i < keys.length; i++)
+        {
+            String key = keys[i];
+            if (key.isEmpty())
+            {
+                throw new IllegalArgumentException("Patterns must not be empty.");
+            }
+            replacements[i] = Objects.requireNonNull(patterns.get(key), "replacement");
+            patternLength[i] = key.length();
+            for (int j = 0; j < key.length(); j++)
+            {
+                char c = key.charAt(j);
+                if (c >= 128)
+                {
+                    throw new IllegalArgumentException("Patterns must be ASCII: " + key);
+                }
+                if (symbolOf[c] < 0)
+                {
+                    symbolOf[c] = symbols++;
+                }
+            }
+        }
+
+        // Every node but the root is entered through exactly one edge, so nodes == edges + 1.
+        int capacity = 1;
+        for (String key : keys)
+        {
+            capacity += key.length();
+        }
+        int[] rangeLow = new int[capacity];
+        int[] rangeHigh = new int[capacity];
+        int[] depth = new int[capacity];
+        int[] edgeStart = new int[capacity + 1];
+        byte[] edgeSymbol = new byte[capacity];
+        int[] edgeTarget = new int[capacity];
+        int[] output = new int[capacity];
+        Arrays.fill(output, NO_PATTERN);
+
+        rangeHigh[ROOT] = keys.length;
+        int nodes = 1;
+        int edges = 0;
+        for (int node = 0; node < nodes; node++)
+        {
+            edgeStart[node] = edges;
+            int d = depth[node];
+            int i = rangeLow[node];
+            int high = rangeHigh[node];
+            if (i < high && keys[i].length() == d)
+            {
+                output[node] = i++;
+            }
+            while (i < high)
+            {
+                char c = keys[i].charAt(d);
+                int groupEnd = i + 1;
+                while (groupEnd < high && keys[groupEnd].charAt(d) == c)
+                {
+                    groupEnd++;
+                }
+                rangeLow[nodes] = i;
+                rangeHigh[nodes] = groupEnd;
+                depth[nodes] = d + 1;
+                edgeSymbol[edges] = (byte) symbolOf[c];
+                edgeTarget[edges] = nodes;
+                edges++;
+                nodes++;
+                i = groupEnd;
+            }
+        }
+        edgeStart[nodes] = edges;
+
+        UuidPatternMatcher matcher = new UuidPatternMatcher(
+                symbolOf,
+                Arrays.copyOf(edgeStart, nodes + 1),
+                Arrays.copyOf(edgeSymbol, edges),
+                Arrays.copyOf(edgeTarget, edges),
+                new int[nodes],
+                Arrays.copyOf(output, nodes),
+                patternLength,
+                replacements);
+        matcher.linkFailures();
+        return matcher;
+    }
+
+    /**
+     * Returns the number of compiled patterns.
+     *
+     * @return the pattern count
+     */
+    public int patternCount()
+    {
+        return replacements.length;
+    }
+
+    /**
+     * Replaces every pattern occurrence in {@code input} with its replacement.
+     *
+     * @param input the text to rewrite
+     * @return the rewritten text, or {@code input} itself when nothing matched
+     * @throws NullPointerException if {@code input} is {@code null}
+     */
+    @Override
+    public String rewrite(String input)
+    {
+        Objects.requireNonNull(input, "input");
+        if (replacements.length == 0)
+        {
+            return input;
+        }
+
+        StringBuilder result = null;
+        int copiedUpTo = 0;
+        int state = ROOT;
+        for (int i = 0; i < input.length(); i++)
+        {
+            char c = input.charAt(i);
+            int symbol = c < 128 ? symbolOf[c] : -1;
+            if (symbol < 0)
+            {
+                state = ROOT;
+                continue;
+            }
+            state = step(state, symbol);
+            int pattern = output[state];
+            if (pattern == NO_PATTERN)
+            {
+                continue;
+            }
+
+            if (result == null)
+            {
+                result = new StringBuilder(input.length());
+            }
+            result.append(input, copiedUpTo, i + 1 - patternLength[pattern]).append(replacements[pattern]);
+            copiedUpTo = i + 1;
+            state = ROOT;
+        }
+
+        if (result == null)
+        {
+            return input;
+        }
+        return result.append(input, copiedUpTo, input.length()).toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return {@code false} if a replacement is not ASCII or differs in length from its pattern;
+     * {@code true} otherwise
+     */
+    @Override
+    public boolean supportsInPlace()
+    {
+        return inPlaceCapable;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int rewriteInPlace(byte[] content, int offset, int length)
+    {
+        Objects.checkFromIndexSize(offset, length, content.length);
+        if (!inPlaceCapable)
+        {
+            throw new UnsupportedOperationException("In-place rewriting requires same-length ASCII replacements.");
+        }
+
+        int replaced = 0;
+        int state = ROOT;
+        for (int i = offset; i < offset + length; i++)
+        {
+            int b = content[i];
+            int symbol = b >= 0 ? symbolOf[b] : -1;
+            if (symbol < 0)
+            {
+                state = ROOT;
+                continue;
+            }
+            state = step(state, symbol);
+            int pattern = output[state];
+            if (pattern == NO_PATTERN)
+            {
+                continue;
+            }
+
+            byte[] replacement = replacementBytes[pattern];
+            System.arraycopy(replacement, 0, content, i + 1 - replacement.length, replacement.length);
+            replaced++;
+            state = ROOT;
+        }
+        return replaced;
+    }
+
+    /**
+     * Follows the goto function from {@code state}, falling back along failure links.
+     *
+     * @param state  the current automaton state
+     * @param symbol the next input symbol
+     * @return the next automaton state
+     */
+    private int step(int state, int symbol)
+    {
+        while (true)
+        {
+            int next = child(state, symbol);
+            if (next >= 0)
+            {
+                return next;
+            }
+            if (state == ROOT)
+            {
+                return ROOT;
+            }
+            state = failure[state];
+        }
+    }
+
+    /**
+     * Returns the child of {@code node} reached via {@code symbol}.
+     *
+     * @param node   the parent node
+     * @param symbol the edge symbol
+     * @return the child node, or {@code -1} if there is no such edge
+     */
+    private int child(int node, int symbol)
+    {
+        for (int e = edgeStart[node]; e < edgeStart[node + 1]; e++)
+        {
+            if (edgeSymbol[e] == symbol)
+            {
+                return edgeTarget[e];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Computes failure links breadth-first and propagates outputs along them, so every
+     * state reports the longest pattern that ends at it.
+     */
+    private void linkFailures()
+    {
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int e = edgeStart[ROOT]; e < edgeStart[ROOT + 1]; e++)
+        {
+            failure[edgeTarget[e]] = ROOT;
+            queue.add(edgeTarget[e]);
+        }
+        while (!queue.isEmpty())
+        {
+            int node = queue.poll();
+            for (int e = edgeStart[node]; e < edgeStart[node + 1]; e++)
+            {
+                int target = edgeTarget[e];
+                failure[target] = step(failure[node], edgeSymbol[e]);
+                if (output[target] == NO_PATTERN)
+                {
+                    output[target] = output[failure[target]];
+                }
+                queue.add(target);
+            }
+        }
+    }
+}
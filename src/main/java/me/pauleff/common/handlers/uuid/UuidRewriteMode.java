@@ -0,0 +1,87 @@
+package me.pauleff.common.handlers.uuid;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Selects the engine used to rewrite mapped UUIDs inside file content.
+ */
+public enum UuidRewriteMode
+{
+    /**
+     * Scans for UUID-shaped tokens and looks each one up by value ({@link UuidTokenScanner}).
+     * Cost per file depends only on its length, and a rewriter compiled from a {@link UuidMap}
+     * sees mappings added to it later.
+     */
+    TOKEN,
+
+    /**
+     * Matches every mapped UUID string with a compiled automaton ({@link UuidPatternMatcher}).
+     * An automaton does not see mappings added after it was compiled, so while mappings are
+     * still being added, {@link me.pauleff.converter.api.PluginContext#uuidRewriter
+     * PluginContext.uuidRewriter} returns a {@link #TOKEN} rewriter between recompilations.
+     */
+    PATTERN;
+
+    /**
+     * Compiles a rewriter of this mode for the given mappings and encodings.
+     *
+     * @param mappings the original-to-remapped UUIDs
+     * @param forms    the encodings to match and replace
+     * @return the compiled rewriter
+     * @throws NullPointerException if {@code mappings} or {@code forms} is {@code null}
+     */
+    public UuidRewriter compile(Map<UUID, UUID> mappings, Set<UuidForm> forms)
+    {
+        return compile(mappings, UuidEncodings::of, forms);
+    }
+
+    /**
+     * Compiles a rewriter of this mode, taking string forms of mapped UUIDs from a cache when
+     * the mode {@linkplain #matchesEncodings() matches encoded strings}.
+     *
+     * @param mappings  the original-to-remapped UUIDs
+     * @param encodings returns the encodings of a mapped UUID
+     * @param forms     the encodings to match and replace
+     * @return the compiled rewriter
+     * @throws NullPointerException if an argument is {@code null}
+     */
+    public UuidRewriter compile(Map<UUID, UUID> mappings, Function<UUID, UuidEncodings> encodings, Set<UuidForm> forms)
+    {
+        return switch (this)
+        {
+            case TOKEN -> UuidTokenScanner.forMappings(mappings, forms);
+            case PATTERN -> UuidPatternMatcher.forMappings(mappings, encodings, forms);
+        };
+    }
+
+    /**
+     * Indicates whether rewriters of this mode compare content against the string forms of
+     * mapped UUIDs, so caching {@link UuidEncodings} pays off.
+     * <p>
+     * {@link #TOKEN} decodes UUID-shaped tokens to numbers instead and never needs them.
+     *
+     * @return {@code true} for {@link #PATTERN}
+     */
+    public boolean matchesEncodings()
+    {
+        return this == PATTERN;
+    }
+
+    /**
+     * Parses a mode from its case-insensitive name.
+     *
+     * @param name the mode name, e.g. {@code token}
+     * @return the matching mode
+     * @throws NullPointerException     if {@code name} is {@code null}
+     * @throws IllegalArgumentException if no mode has the given name
+     */
+    public static UuidRewriteMode fromName(String name)
+    {
+        return valueOf(Objects.requireNonNull(name, "name").trim().toUpperCase(Locale.ROOT));
+    }
+}
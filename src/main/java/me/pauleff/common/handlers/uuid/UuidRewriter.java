@@ -0,0 +1,64 @@
+package me.pauleff.common.handlers.uuid;
+
+/**
+ * Rewrites mapped player UUIDs inside file content.
+ * <p>
+ * Implementations are compiled once from a UUID map and are immutable, so a single
+ * instance can be applied to every file of a conversion run.
+ *
+ * @see UuidRewriteMode
+ */
+public interface UuidRewriter
+{
+    /**
+     * Replaces every mapped UUID occurrence in {@code input} with its remapped counterpart.
+     *
+     * @param input the text to rewrite
+     * @return the rewritten text, or {@code input} itself when nothing was replaced
+     * @throws NullPointerException if {@code input} is {@code null}
+     */
+    String rewrite(String input);
+
+    /**
+     * Indicates whether {@link #rewriteInPlace(byte[], int, int)} is supported.
+     * <p>
+     * In-place rewriting needs every replacement to be ASCII and as long as what it replaces.
+     * Callers holding a rewriter they did not configure themselves should check this and fall
+     * back to {@link #rewrite(String)} otherwise.
+     *
+     * @return {@code true} if bytes can be rewritten in place
+     */
+    boolean supportsInPlace();
+
+    /**
+     * Replaces every mapped UUID occurrence in a byte range without decoding it.
+     * <p>
+     * UUIDs are pure ASCII and a remapped UUID has the same length as the original, so
+     * matches are overwritten in place and every other byte is left untouched. This is safe
+     * for ASCII-compatible encodings such as UTF-8 and Latin-1, whose non-ASCII bytes are
+     * never mistaken for hex digits.
+     *
+     * @param content the bytes to rewrite in place
+     * @param offset  the start of the range
+     * @param length  the length of the range
+     * @return the number of replaced UUIDs
+     * @throws NullPointerException          if {@code content} is {@code null}
+     * @throws IndexOutOfBoundsException     if the range is outside {@code content}
+     * @throws UnsupportedOperationException if {@link #supportsInPlace()} is {@code false}
+     */
+    int rewriteInPlace(byte[] content, int offset, int length);
+
+    /**
+     * Replaces every mapped UUID occurrence in {@code content} without decoding it.
+     *
+     * @param content the bytes to rewrite in place
+     * @return the number of replaced UUIDs
+     * @throws NullPointerException          if {@code content} is {@code null}
+     * @throws UnsupportedOperationException if {@link #supportsInPlace()} is {@code false}
+     * @see #rewriteInPlace(byte[], int, int)
+     */
+    default int rewriteInPlace(byte[] content)
+    {
+        return rewriteInPlace(content, 0, content.length);
+    }
+}
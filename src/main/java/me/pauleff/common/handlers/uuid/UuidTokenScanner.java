@@ -0,0 +1,442 @@
+package me.pauleff.common.handlers.uuid;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Rewrites mapped UUIDs by scanning content for UUID-shaped tokens.
+ * <p>
+ * Every candidate in a requested {@link UuidForm} (lower-case hyphenated {@code 8-4-4-4-12},
+ * dashless 32 hex digits, upper-case hyphenated, or compact SNBT {@code [I;a,b,c,d]}) is parsed
+ * straight into its two {@code long} halves and looked up in a {@link UuidMap}, so the cost per
+ * file depends on its length, not on how many mappings exist. Matches are replaced in the
+ * encoding they were found in.
+ * <p>
+ * A scanner built over a {@link UuidMap} reads that map directly instead of copying it, so
+ * mappings added later are matched without building a new scanner. It is as safe to share
+ * between threads as the map it reads.
+ */
+public final class UuidTokenScanner implements UuidRewriter
+{
+    private static final int HYPHENATED_LENGTH = 36;
+    private static final int DASHLESS_LENGTH = 32;
+    private static final int INT_ARRAY_MIN_LENGTH = "[I;0,0,0,0]".length();
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final char[] UPPER_HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private final boolean hyphenated;
+    private final boolean dashless;
+    private final boolean upperCase;
+    private final boolean intArray;
+    private final int minTokenLength;
+    private final UuidMap mappings;
+
+    private UuidTokenScanner(UuidMap mappings, Set<UuidForm> forms)
+    {
+        this.mappings = mappings;
+        this.hyphenated = forms.contains(UuidForm.HYPHENATED);
+        this.dashless = forms.contains(UuidForm.DASHLESS);
+        this.upperCase = forms.contains(UuidForm.UPPER_CASE);
+        this.intArray = forms.contains(UuidForm.INT_ARRAY);
+        this.minTokenLength = intArray ? INT_ARRAY_MIN_LENGTH : DASHLESS_LENGTH;
+    }
+
+    /**
+     * Creates a scanner that rewrites every mapped UUID in the given encodings.
+     * <p>
+     * A {@link UuidMap} is read as it changes; any other map is copied once. Identity mappings
+     * are skipped, as they would never change the input.
+     *
+     * @param mappings the original-to-remapped UUIDs
+     * @param forms    the encodings to match and replace
+     * @return the scanner
+     * @throws NullPointerException if {@code mappings}, {@code forms}, or any entry is {@code null}
+     */
+    public static UuidTokenScanner forMappings(Map<UUID, UUID> mappings, Set<UuidForm> forms)
+    {
+        Objects.requireNonNull(mappings, "mappings");
+        Objects.requireNonNull(forms, "forms");
+        return new UuidTokenScanner(UuidMap.copyOf(mappings), forms);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String rewrite(String input)
+    {
+        Objects.requireNonNull(input, "input");
+        int length = input.length();
+        Cursor cursor = new Cursor();
+        StringBuilder result = null;
+        int copiedUpTo = 0;
+
+        int i = 0;
+        while (i + minTokenLength <= length)
+        {
+            if (!matchAt(input, i, cursor))
+            {
+                i++;
+                continue;
+            }
+            if (result == null)
+            {
+                result = new StringBuilder(length);
+            }
+            result.append(input, copiedUpTo, i);
+            appendUuid(result, cursor.target[0], cursor.target[1], cursor.tokenForm);
+            i += cursor.tokenLength;
+            copiedUpTo = i;
+        }
+
+        if (result == null)
+        {
+            return input;
+        }
+        return result.append(input, copiedUpTo, length).toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return {@code false} if this scanner matches {@link UuidForm#INT_ARRAY}, whose
+     * replacements can change length; {@code true} otherwise
+     */
+    @Override
+    public boolean supportsInPlace()
+    {
+        return !intArray;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int rewriteInPlace(byte[] content, int offset, int length)
+    {
+        Objects.checkFromIndexSize(offset, length, content.length);
+        if (!supportsInPlace())
+        {
+            throw new UnsupportedOperationException("In-place rewriting can't replace SNBT int arrays.");
+        }
+        AsciiView view = new AsciiView(content, offset, length);
+        Cursor cursor = new Cursor();
+        int replaced = 0;
+
+        int i = 0;
+        while (i + minTokenLength <= length)
+        {
+            if (!matchAt(view, i, cursor))
+            {
+                i++;
+                continue;
+            }
+            writeUuid(content, offset + i, cursor.target[0], cursor.target[1], cursor.tokenForm);
+            i += cursor.tokenLength;
+            replaced++;
+        }
+        return replaced;
+    }
+
+    /**
+     * Looks for a mapped UUID token starting exactly at index {@code i}.
+     * <p>
+     * On a hit, {@link Cursor#tokenLength} and {@link Cursor#tokenForm} describe the matched token
+     * and {@link Cursor#target} holds the UUID to replace it with.
+     *
+     * @param s      the content to scan
+     * @param i      the candidate start index
+     * @param cursor per-scan state carried between calls
+     * @return {@code true} if a mapped UUID starts at {@code i}
+     */
+    private boolean matchAt(CharSequence s, int i, Cursor cursor)
+    {
+        if (intArray && s.charAt(i) == '[')
+        {
+            return matchIntArrayAt(s, i, cursor);
+        }
+        if ((hyphenated || upperCase) && i + HYPHENATED_LENGTH <= s.length())
+        {
+            boolean found = false;
+            if (hyphenated && isHyphenatedUuid(s, i, false))
+            {
+                found = findHyphenated(s, i, cursor);
+                cursor.tokenForm = UuidForm.HYPHENATED;
+            } else if (upperCase && isHyphenatedUuid(s, i, true))
+            {
+                found = findHyphenated(s, i, cursor);
+                cursor.tokenForm = UuidForm.UPPER_CASE;
+            }
+            if (found)
+            {
+                cursor.tokenLength = HYPHENATED_LENGTH;
+                return true;
+            }
+        }
+        // With INT_ARRAY enabled, scanning continues closer to the end than a dashless token needs.
+        if (dashless && i >= cursor.nextDashlessStart && i + DASHLESS_LENGTH <= s.length())
+        {
+            int hexRun = hexRun(s, i, DASHLESS_LENGTH, false);
+            if (hexRun == DASHLESS_LENGTH)
+            {
+                cursor.tokenLength = DASHLESS_LENGTH;
+                cursor.tokenForm = UuidForm.DASHLESS;
+                return find(parseHex(s, i, 16), parseHex(s, i + 16, 16), cursor);
+            }
+            // No 32-digit run can start before the non-hex character just found.
+            cursor.nextDashlessStart = i + hexRun + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Looks up a hyphenated token already verified with {@link #isHyphenatedUuid}.
+     */
+    private boolean findHyphenated(CharSequence s, int i, Cursor cursor)
+    {
+        long most = parseHex(s, i, 8) << 32 | parseHex(s, i + 9, 4) << 16 | parseHex(s, i + 14, 4);
+        long least = parseHex(s, i + 19, 4) << 48 | parseHex(s, i + 24, 12);
+        return find(most, least, cursor);
+    }
+
+    /**
+     * Looks for a mapped UUID written as a compact SNBT int array starting at index {@code i}.
+     *
+     * @return {@code true} if a mapped int array starts at {@code i}
+     */
+    private boolean matchIntArrayAt(CharSequence s, int i, Cursor cursor)
+    {
+        int length = s.length();
+        if (i + INT_ARRAY_MIN_LENGTH > length || s.charAt(i + 1) != 'I' || s.charAt(i + 2) != ';')
+        {
+            return false;
+        }
+        long[] ints = new long[4];
+        int p = i + 3;
+        for (int n = 0; n < ints.length; n++)
+        {
+            boolean negative = p < length && s.charAt(p) == '-';
+            if (negative)
+            {
+                p++;
+            }
+            int digitsStart = p;
+            long value = 0;
+            // Eleven digits can't overflow a long, and anything longer is out of int range anyway.
+            while (p < length && p - digitsStart < 11 && s.charAt(p) >= '0' && s.charAt(p) <= '9')
+            {
+                value = value * 10 + (s.charAt(p++) - '0');
+            }
+            value = negative ? -value : value;
+            char separator = n < ints.length - 1 ? ',' : ']';
+            if (p == digitsStart || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE
+                    || p >= length || s.charAt(p) != separator)
+            {
+                return false;
+            }
+            ints[n] = value & 0xFFFFFFFFL;
+            p++;
+        }
+        if (!find(ints[0] << 32 | ints[1], ints[2] << 32 | ints[3], cursor))
+        {
+            return false;
+        }
+        cursor.tokenLength = p - i;
+        cursor.tokenForm = UuidForm.INT_ARRAY;
+        return true;
+    }
+
+    /**
+     * Looks up the target of a UUID into {@link Cursor#target}.
+     *
+     * @return {@code true} if the UUID is mapped to a different UUID
+     */
+    private boolean find(long most, long least, Cursor cursor)
+    {
+        long[] target = cursor.target;
+        return mappings.findTarget(most, least, target) && (target[0] != most || target[1] != least);
+    }
+
+    /**
+     * Checks whether a hyphenated UUID in the given case starts at {@code offset}.
+     * <p>
+     * Dash positions are checked first, which rejects almost every other position cheaply.
+     */
+    private static boolean isHyphenatedUuid(CharSequence s, int offset, boolean upper)
+    {
+        return s.charAt(offset + 8) == '-'
+                && s.charAt(offset + 13) == '-'
+                && s.charAt(offset + 18) == '-'
+                && s.charAt(offset + 23) == '-'
+                && hexRun(s, offset, 8, upper) == 8
+                && hexRun(s, offset + 9, 4, upper) == 4
+                && hexRun(s, offset + 14, 4, upper) == 4
+                && hexRun(s, offset + 19, 4, upper) == 4
+                && hexRun(s, offset + 24, 12, upper) == 12;
+    }
+
+    /**
+     * Counts consecutive hex digits of one case starting at {@code offset}, up to {@code limit}.
+     */
+    private static int hexRun(CharSequence s, int offset, int limit, boolean upper)
+    {
+        char letterA = upper ? 'A' : 'a';
+        int run = 0;
+        while (run < limit)
+        {
+            char c = s.charAt(offset + run);
+            if (!(c >= '0' && c <= '9') && !(c >= letterA && c < letterA + 6))
+            {
+                break;
+            }
+            run++;
+        }
+        return run;
+    }
+
+    /**
+     * Parses {@code digits} (at most 16) hex digits starting at {@code offset}.
+     * <p>
+     * Callers must have verified the range with {@link #hexRun}.
+     */
+    private static long parseHex(CharSequence s, int offset, int digits)
+    {
+        long value = 0;
+        for (int i = 0; i < digits; i++)
+        {
+            value = value << 4 | hexValue(s.charAt(offset + i));
+        }
+        return value;
+    }
+
+    /**
+     * Returns the value of a hex digit of either case; callers must have verified the digit.
+     */
+    private static int hexValue(char c)
+    {
+        if (c >= '0' && c <= '9')
+        {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f')
+        {
+            return c - 'a' + 10;
+        }
+        return c - 'A' + 10;
+    }
+
+    /**
+     * Appends the encoding of a UUID in the given form.
+     */
+    private static void appendUuid(StringBuilder out, long most, long least, UuidForm form)
+    {
+        if (form == UuidForm.INT_ARRAY)
+        {
+            out.append("[I;").append((int) (most >>> 32)).append(',').append((int) most).append(',')
+                    .append((int) (least >>> 32)).append(',').append((int) least).append(']');
+            return;
+        }
+        char[] digits = form == UuidForm.UPPER_CASE ? UPPER_HEX_DIGITS : HEX_DIGITS;
+        boolean withDashes = form != UuidForm.DASHLESS;
+        appendHex(out, most >>> 32, 8, digits);
+        if (withDashes)
+        {
+            out.append('-');
+        }
+        appendHex(out, most >>> 16, 4, digits);
+        if (withDashes)
+        {
+            out.append('-');
+        }
+        appendHex(out, most, 4, digits);
+        if (withDashes)
+        {
+            out.append('-');
+        }
+        appendHex(out, least >>> 48, 4, digits);
+        if (withDashes)
+        {
+            out.append('-');
+        }
+        appendHex(out, least, 12, digits);
+    }
+
+    private static void appendHex(StringBuilder out, long value, int count, char[] digits)
+    {
+        for (int shift = (count - 1) * 4; shift >= 0; shift -= 4)
+        {
+            out.append(digits[(int) (value >>> shift) & 0xF]);
+        }
+    }
+
+    /**
+     * Overwrites the bytes at {@code position} with the encoding of a UUID in a fixed-length form.
+     */
+    private static void writeUuid(byte[] out, int position, long most, long least, UuidForm form)
+    {
+        char[] digits = form == UuidForm.UPPER_CASE ? UPPER_HEX_DIGITS : HEX_DIGITS;
+        boolean withDashes = form != UuidForm.DASHLESS;
+        int p = writeHex(out, position, most >>> 32, 8, digits);
+        if (withDashes)
+        {
+            out[p++] = '-';
+        }
+        p = writeHex(out, p, most >>> 16, 4, digits);
+        if (withDashes)
+        {
+            out[p++] = '-';
+        }
+        p = writeHex(out, p, most, 4, digits);
+        if (withDashes)
+        {
+            out[p++] = '-';
+        }
+        p = writeHex(out, p, least >>> 48, 4, digits);
+        if (withDashes)
+        {
+            out[p++] = '-';
+        }
+        writeHex(out, p, least, 12, digits);
+    }
+
+    private static int writeHex(byte[] out, int position, long value, int count, char[] digits)
+    {
+        for (int shift = (count - 1) * 4; shift >= 0; shift -= 4)
+        {
+            out[position++] = (byte) digits[(int) (value >>> shift) & 0xF];
+        }
+        return position;
+    }
+
+    /**
+     * Mutable scan state for one {@link #rewrite} or {@link #rewriteInPlace} call.
+     */
+    private static final class Cursor
+    {
+        // First index at which a dashless candidate can start.
+        private int nextDashlessStart;
+        private int tokenLength;
+        private UuidForm tokenForm;
+        private final long[] target = new long[2];
+    }
+
+    /**
+     * Exposes a byte range as characters, one byte per character, without decoding it.
+     */
+    private record AsciiView(byte[] bytes, int offset, int length) implements CharSequence
+    {
+        @Override
+        public char charAt(int index)
+        {
+            return (char) (bytes[offset + index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end)
+        {
+            return new AsciiView(bytes, offset + start, end - start);
+        }
+    }
+}
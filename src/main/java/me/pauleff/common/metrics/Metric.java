@@ -0,0 +1,69 @@
+package me.pauleff.common.metrics;
+
+/**
+ * Names the counters recorded for every plugin run.
+ * <p>
+ * Each metric has a snake-case {@link #key()} used in both the JSON report and the Prometheus
+ * textfile, so the two exports can be compared directly.
+ */
+public enum Metric
+{
+    /**
+     * Files a plugin looked at, whether or not it changed them.
+     */
+    FILES_VISITED("files_visited", "Files examined"),
+
+    /**
+     * Bytes read from files on disk, before decompression.
+     */
+    BYTES_READ("read_bytes", "Bytes read from disk"),
+
+    /**
+     * Bytes written to files on disk, after compression.
+     */
+    BYTES_WRITTEN("written_bytes", "Bytes written to disk"),
+
+    /**
+     * Files renamed to their converted UUID.
+     */
+    FILES_RENAMED("files_renamed", "Files renamed"),
+
+    /**
+     * HTTP requests sent, counting every retry.
+     */
+    HTTP_CALLS("http_requests", "HTTP requests sent"),
+
+    /**
+     * Profile lookups answered from memory or the profile cache instead of the network.
+     */
+    CACHE_HITS("cache_hits", "Profile lookups answered from a cache");
+
+    private final String key;
+    private final String help;
+
+    Metric(String key, String help)
+    {
+        this.key = key;
+        this.help = help;
+    }
+
+    /**
+     * Returns the name of this metric in exported reports.
+     *
+     * @return the snake-case key, e.g. {@code read_bytes}
+     */
+    public String key()
+    {
+        return key;
+    }
+
+    /**
+     * Returns a short human-readable description of this metric.
+     *
+     * @return the description, used as Prometheus {@code HELP} text
+     */
+    public String help()
+    {
+        return help;
+    }
+}
@@ -0,0 +1,184 @@
+package me.pauleff.common.metrics;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Counts {@link Metric}s for one unit of work, such as a single plugin run.
+ * <p>
+ * Code doing I/O records through the static methods ({@link #add}, {@link #increment}), which
+ * update the instance bound to the current thread with {@link #run(Runnable)} and do nothing
+ * when none is bound. Binding uses a {@link ScopedValue}, so work handed to an executor must be
+ * wrapped with {@link #capture(Runnable)} or {@link #capture(Supplier)} at submission to be
+ * counted for the submitting plugin.
+ * <p>
+ * Counters are {@link LongAdder}s and may be updated from any number of threads.
+ */
+public final class Metrics
+{
+    private static final ScopedValue<Metrics> CURRENT = ScopedValue.newInstance();
+    private static final Metric[] METRICS = Metric.values();
+
+    private final LongAdder[] counters = new LongAdder[METRICS.length];
+
+    /**
+     * Creates a set of counters, all at zero.
+     */
+    public Metrics()
+    {
+        Arrays.setAll(counters, _ -> new LongAdder());
+    }
+
+    /**
+     * Adds to a metric of the metrics bound to the current thread.
+     *
+     * @param metric the metric to add to
+     * @param amount the amount to add
+     */
+    public static void add(Metric metric, long amount)
+    {
+        if (CURRENT.isBound())
+        {
+            CURRENT.get().counters[metric.ordinal()].add(amount);
+        }
+    }
+
+    /**
+     * Adds one to a metric of the metrics bound to the current thread.
+     *
+     * @param metric the metric to increment
+     */
+    public static void increment(Metric metric)
+    {
+        add(metric, 1);
+    }
+
+    /**
+     * Wraps a task so that it records into the metrics bound to the calling thread.
+     *
+     * @param task the task to run later, possibly on another thread
+     * @return a task running {@code task} with the current metrics bound, or {@code task} itself
+     * when none are bound
+     */
+    public static Runnable capture(Runnable task)
+    {
+        if (!CURRENT.isBound())
+        {
+            return task;
+        }
+        Metrics metrics = CURRENT.get();
+        return () -> metrics.run(task);
+    }
+
+    /**
+     * Wraps a computation so that it records into the metrics bound to the calling thread.
+     *
+     * @param task the computation to run later, possibly on another thread
+     * @param <T>  the result type
+     * @return a computation running {@code task} with the current metrics bound, or {@code task}
+     * itself when none are bound
+     */
+    public static <T> Supplier<T> capture(Supplier<T> task)
+    {
+        if (!CURRENT.isBound())
+        {
+            return task;
+        }
+        Metrics metrics = CURRENT.get();
+        return () ->
+        {
+            Object[] result = new Object[1];
+            metrics.run(() -> result[0] = task.get());
+            @SuppressWarnings("unchecked")
+            T value = (T) result[0];
+            return value;
+        };
+    }
+
+    /**
+     * Wraps a stream so that every byte read from it counts as {@link Metric#BYTES_READ}.
+     *
+     * @param in the stream to read from, typically a file
+     * @return a stream recording into the metrics bound to the calling thread
+     */
+    public static InputStream countReads(InputStream in)
+    {
+        return new FilterInputStream(in)
+        {
+            @Override
+            public int read() throws IOException
+            {
+                int b = super.read();
+                if (b >= 0)
+                {
+                    increment(Metric.BYTES_READ);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException
+            {
+                int n = super.read(b, off, len);
+                if (n > 0)
+                {
+                    add(Metric.BYTES_READ, n);
+                }
+                return n;
+            }
+        };
+    }
+
+    /**
+     * Wraps a stream so that every byte written to it counts as {@link Metric#BYTES_WRITTEN}.
+     *
+     * @param out the stream to write to, typically a file
+     * @return a stream recording into the metrics bound to the calling thread
+     */
+    public static OutputStream countWrites(OutputStream out)
+    {
+        return new FilterOutputStream(out)
+        {
+            @Override
+            public void write(int b) throws IOException
+            {
+                out.write(b);
+                increment(Metric.BYTES_WRITTEN);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException
+            {
+                out.write(b, off, len);
+                add(Metric.BYTES_WRITTEN, len);
+            }
+        };
+    }
+
+    /**
+     * Runs a task with these metrics bound to the current thread.
+     *
+     * @param task the task whose recordings count here
+     */
+    public void run(Runnable task)
+    {
+        ScopedValue.where(CURRENT, this).run(task);
+    }
+
+    /**
+     * Returns the current value of a metric.
+     *
+     * @param metric the metric to read
+     * @return the sum of everything recorded for {@code metric} so far
+     */
+    public long get(Metric metric)
+    {
+        return counters[metric.ordinal()].sum();
+    }
+}
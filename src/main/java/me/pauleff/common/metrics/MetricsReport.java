@@ -0,0 +1,471 @@
+package me.pauleff.common.metrics;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Collects wall time and {@link Metric}s per plugin and per phase of one conversion run.
+ * <p>
+ * The orchestrator opens a {@link Phase} for each phase and a {@link PluginRun} for each plugin
+ * in it; a phase's metrics are the sums over its plugins and its wall time spans from
+ * {@link #startPhase(String)} to {@link Phase#finish()}, so plugins running side by side are
+ * not counted twice. The report can be exported as JSON ({@link #writeJson(Path)}) and as a
+ * Prometheus textfile ({@link #writePrometheus(Path)}), using the same {@link Metric#key() keys}.
+ * <p>
+ * Plugins may finish on other threads than the one that started them; all state is safe to
+ * read and update concurrently.
+ */
+public final class MetricsReport
+{
+    private static final String PROMETHEUS_PREFIX = "mooc_";
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final List<Phase> phases = new CopyOnWriteArrayList<>();
+    private volatile long wallNanos = -1;
+
+    /**
+     * Starts timing a new phase.
+     *
+     * @param name the phase name, e.g. {@code discovery}
+     * @return the phase to register its plugins with
+     * @throws NullPointerException if {@code name} is {@code null}
+     */
+    public Phase startPhase(String name)
+    {
+        Phase phase = new Phase(Objects.requireNonNull(name, "name"));
+        phases.add(phase);
+        return phase;
+    }
+
+    /**
+     * Stops the run's clock. Metrics recorded afterwards are still included in exports.
+     */
+    public void finish()
+    {
+        wallNanos = System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Returns the phases started so far, in start order.
+     *
+     * @return an unmodifiable snapshot of the phases
+     */
+    public List<Phase> phases()
+    {
+        return List.copyOf(phases);
+    }
+
+    /**
+     * Returns the total of a metric over all phases.
+     *
+     * @param metric the metric to sum
+     * @return the sum of {@code metric} over every plugin of the run
+     */
+    public long total(Metric metric)
+    {
+        return phases.stream().mapToLong(phase -> phase.total(metric)).sum();
+    }
+
+    /**
+     * Returns the run's wall time, measured up to {@link #finish()} or up to now if unfinished.
+     *
+     * @return the elapsed seconds
+     */
+    public double wallSeconds()
+    {
+        return seconds(wallNanos >= 0 ? wallNanos : System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Builds the JSON form of this report.
+     * <p>
+     * The object holds {@code startedAt}, {@code wallSeconds}, the run's {@code metrics} and
+     * a {@code phases} array; each phase holds its {@code name}, {@code wallSeconds},
+     * {@code metrics} and a {@code plugins} array of {@code id}, {@code outcome},
+     * {@code wallSeconds} and {@code metrics}.
+     *
+     * @return a new JSON object
+     */
+    public JSONObject toJson()
+    {
+        JSONArray phaseArray = new JSONArray();
+        for (Phase phase : phases)
+        {
+            JSONArray pluginArray = new JSONArray();
+            for (PluginRun plugin : phase.plugins)
+            {
+                pluginArray.put(new JSONObject()
+                        .put("id", plugin.id)
+                        .put("outcome", plugin.outcome().key())
+                        .put("wallSeconds", plugin.wallSeconds())
+                        .put("metrics", metricsJson(plugin.metrics::get)));
+            }
+            phaseArray.put(new JSONObject()
+                    .put("name", phase.name)
+                    .put("wallSeconds", phase.wallSeconds())
+                    .put("metrics", metricsJson(phase::total))
+                    .put("plugins", pluginArray));
+        }
+        return new JSONObject()
+                .put("startedAt", startedAt.toString())
+                .put("wallSeconds", wallSeconds())
+                .put("metrics", metricsJson(this::total))
+                .put("phases", phaseArray);
+    }
+
+    /**
+     * Builds the Prometheus text exposition form of this report.
+     * <p>
+     * Every value is a gauge prefixed with {@code mooc_}. Phase samples carry a {@code phase}
+     * label and plugin samples additionally a {@code plugin} label; {@code mooc_plugin_info}
+     * reports each plugin's {@code outcome}.
+     *
+     * @return the textfile content, ending with a newline
+     */
+    public String toPrometheus()
+    {
+        StringBuilder out = new StringBuilder();
+        family(out, "run_start_timestamp_seconds", "Time the run started, in seconds since the epoch");
+        sample(out, "run_start_timestamp_seconds", "", startedAt.toEpochMilli() / 1000d);
+        family(out, "run_wall_seconds", "Wall-clock time of the whole run");
+        sample(out, "run_wall_seconds", "", wallSeconds());
+
+        family(out, "phase_wall_seconds", "Wall-clock time of a plugin phase");
+        for (Phase phase : phases)
+        {
+            sample(out, "phase_wall_seconds", phaseLabels(phase), phase.wallSeconds());
+        }
+        for (Metric metric : Metric.values())
+        {
+            String name = "phase_" + metric.key();
+            family(out, name, metric.help() + " by a plugin phase");
+            for (Phase phase : phases)
+            {
+                sample(out, name, phaseLabels(phase), phase.total(metric));
+            }
+        }
+
+        family(out, "plugin_info", "Outcome of a plugin run");
+        forEachPlugin(out, "plugin_info", plugin -> 1, plugin -> ",outcome=\"" + plugin.outcome().key() + "\"");
+        family(out, "plugin_wall_seconds", "Wall-clock time of a plugin run");
+        forEachPlugin(out, "plugin_wall_seconds", PluginRun::wallSeconds, _ -> "");
+        for (Metric metric : Metric.values())
+        {
+            String name = "plugin_" + metric.key();
+            family(out, name, metric.help() + " by a plugin");
+            forEachPlugin(out, name, plugin -> plugin.metrics.get(metric), _ -> "");
+        }
+        return out.toString();
+    }
+
+    /**
+     * Writes {@link #toJson()} to a file, replacing it.
+     *
+     * @param path the report file
+     * @throws IOException if the file cannot be written
+     */
+    public void writeJson(Path path) throws IOException
+    {
+        writeAtomically(path, toJson().toString(2) + System.lineSeparator());
+    }
+
+    /**
+     * Writes {@link #toPrometheus()} to a file, replacing it.
+     * <p>
+     * The content is written to a temporary sibling and moved into place, so a textfile
+     * collector never reads a partial file.
+     *
+     * @param path the textfile, typically ending in {@code .prom}
+     * @throws IOException if the file cannot be written
+     */
+    public void writePrometheus(Path path) throws IOException
+    {
+        writeAtomically(path, toPrometheus());
+    }
+
+    private void forEachPlugin(StringBuilder out, String name, ToDoubleFunction<PluginRun> value,
+                               Function<PluginRun, String> extraLabels)
+    {
+        for (Phase phase : phases)
+        {
+            for (PluginRun plugin : phase.plugins)
+            {
+                String labels = phaseLabels(phase) + ",plugin=\"" + escape(plugin.id) + "\"" + extraLabels.apply(plugin);
+                sample(out, name, labels, value.applyAsDouble(plugin));
+            }
+        }
+    }
+
+    private static JSONObject metricsJson(ToLongFunction<Metric> value)
+    {
+        JSONObject json = new JSONObject();
+        for (Metric metric : Metric.values())
+        {
+            json.put(metric.key(), value.applyAsLong(metric));
+        }
+        return json;
+    }
+
+    private static String phaseLabels(Phase phase)
+    {
+        return "phase=\"" + escape(phase.name) + "\"";
+    }
+
+    private static void family(StringBuilder out, String name, String help)
+    {
+        out.append("# HELP ").append(PROMETHEUS_PREFIX).append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(PROMETHEUS_PREFIX).append(name).append(" gauge\n");
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value)
+    {
+        out.append(PROMETHEUS_PREFIX).append(name);
+        if (!labels.isEmpty())
+        {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15)
+        {
+            out.append((long) value);
+        } else
+        {
+            out.append(String.format(Locale.ROOT, "%.6f", value));
+        }
+        out.append('\n');
+    }
+
+    private static String escape(String labelValue)
+    {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static double seconds(long nanos)
+    {
+        return nanos / NANOS_PER_SECOND;
+    }
+
+    private static void writeAtomically(Path path, String content) throws IOException
+    {
+        Path target = path.toAbsolutePath();
+        Path parent = target.getParent();
+        if (parent != null)
+        {
+            Files.createDirectories(parent);
+        }
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.writeString(temp, content, StandardCharsets.UTF_8);
+        try
+        {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e)
+        {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * How a plugin run ended.
+     */
+    public enum Outcome
+    {
+        /**
+         * The plugin ran to the end.
+         */
+        COMPLETED,
+
+        /**
+         * The plugin was disabled, had no targets, or never started because an earlier plugin failed.
+         */
+        SKIPPED,
+
+        /**
+         * The plugin threw an exception.
+         */
+        FAILED;
+
+        /**
+         * Returns the name of this outcome in exported reports.
+         *
+         * @return the lower-case name, e.g. {@code completed}
+         */
+        public String key()
+        {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * One phase of the run, such as discovery or conversion.
+     */
+    public static final class Phase
+    {
+        private final String name;
+        private final long startNanos = System.nanoTime();
+        private final List<PluginRun> plugins = new CopyOnWriteArrayList<>();
+        private volatile long wallNanos = -1;
+
+        private Phase(String name)
+        {
+            this.name = name;
+        }
+
+        /**
+         * Registers a plugin of this phase. Plugins are reported in registration order.
+         *
+         * @param id the plugin's unique id
+         * @return the plugin's run, to {@linkplain PluginRun#measure measure} once it starts
+         * @throws NullPointerException if {@code id} is {@code null}
+         */
+        public PluginRun plugin(String id)
+        {
+            PluginRun plugin = new PluginRun(Objects.requireNonNull(id, "id"));
+            plugins.add(plugin);
+            return plugin;
+        }
+
+        /**
+         * Stops the phase's clock.
+         */
+        public void finish()
+        {
+            wallNanos = System.nanoTime() - startNanos;
+        }
+
+        /**
+         * Returns the phase name.
+         *
+         * @return the name given to {@link MetricsReport#startPhase(String)}
+         */
+        public String name()
+        {
+            return name;
+        }
+
+        /**
+         * Returns the plugins registered so far, in registration order.
+         *
+         * @return an unmodifiable snapshot of the plugin runs
+         */
+        public List<PluginRun> plugins()
+        {
+            return List.copyOf(plugins);
+        }
+
+        /**
+         * Returns the total of a metric over the phase's plugins.
+         *
+         * @param metric the metric to sum
+         * @return the sum of {@code metric} over every plugin of this phase
+         */
+        public long total(Metric metric)
+        {
+            return plugins.stream().mapToLong(plugin -> plugin.metrics.get(metric)).sum();
+        }
+
+        /**
+         * Returns the phase's wall time, measured up to {@link #finish()} or up to now if unfinished.
+         *
+         * @return the elapsed seconds
+         */
+        public double wallSeconds()
+        {
+            return seconds(wallNanos >= 0 ? wallNanos : System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * One plugin's run within a phase.
+     */
+    public static final class PluginRun
+    {
+        private final String id;
+        private final Metrics metrics = new Metrics();
+        private volatile long wallNanos;
+        private volatile Outcome outcome = Outcome.SKIPPED;
+
+        private PluginRun(String id)
+        {
+            this.id = id;
+        }
+
+        /**
+         * Runs the plugin with its {@link Metrics} bound, timing it and keeping its outcome.
+         * <p>
+         * If {@code task} throws, the outcome is {@link Outcome#FAILED} and the exception propagates.
+         *
+         * @param task runs the plugin and reports how it ended
+         */
+        public void measure(Supplier<Outcome> task)
+        {
+            long start = System.nanoTime();
+            Outcome[] result = {Outcome.FAILED};
+            try
+            {
+                metrics.run(() -> result[0] = task.get());
+            } finally
+            {
+                wallNanos = System.nanoTime() - start;
+                outcome = result[0];
+            }
+        }
+
+        /**
+         * Returns the plugin id.
+         *
+         * @return the id given to {@link Phase#plugin(String)}
+         */
+        public String id()
+        {
+            return id;
+        }
+
+        /**
+         * Returns how the plugin run ended.
+         *
+         * @return the outcome; {@link Outcome#SKIPPED} until {@link #measure} has returned
+         */
+        public Outcome outcome()
+        {
+            return outcome;
+        }
+
+        /**
+         * Returns the plugin's counters.
+         *
+         * @return the metrics recorded while the plugin ran, including work it handed to other threads
+         */
+        public Metrics metrics()
+        {
+            return metrics;
+        }
+
+        /**
+         * Returns the plugin's wall time.
+         *
+         * @return the elapsed seconds of {@link #measure}, or {@code 0} if it never ran
+         */
+        public double wallSeconds()
+        {
+            return seconds(wallNanos);
+        }
+    }
+}
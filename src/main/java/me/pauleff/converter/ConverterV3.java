@@ -1,8 +1,15 @@
 package me.pauleff.converter;
 
+import me.pauleff.common.handlers.MemoryBudget;
+import me.pauleff.common.handlers.NBTUuidRewriter;
+import me.pauleff.common.handlers.RegionFileRewriter;
 import me.pauleff.common.handlers.files.FileNames;
 import me.pauleff.common.handlers.files.FileRenamer;
+import me.pauleff.common.handlers.files.IndexedFile;
 import me.pauleff.common.handlers.files.TextFileDetector;
+import me.pauleff.common.handlers.uuid.UuidForm;
+import me.pauleff.common.metrics.Metric;
+import me.pauleff.common.metrics.Metrics;
 import me.pauleff.converter.api.PluginContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,11 +18,15 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
 
-import static java.nio.file.Files.isRegularFile;
 import static java.util.Objects.requireNonNull;
 import static me.pauleff.common.handlers.uuid.MinecraftUuids.*;
 import static me.pauleff.common.handlers.uuid.OnlineProfileLookup.onlineUuidToName;
@@ -23,8 +34,15 @@ import static me.pauleff.common.handlers.uuid.OnlineProfileLookup.onlineUuidToNa
 /**
  * Converts Minecraft world and player files between online and offline UUID modes.
  * <p>
- * Renames files whose base name is a convertible UUID and rewrites UUID string
- * references inside text-based files, using mappings from the shared {@link PluginContext}.
+ * Renames files whose base name is a convertible UUID and rewrites UUID references inside
+ * NBT ({@code .dat}, {@code .nbt}), Anvil region ({@code .mca}) and text-based files, using
+ * mappings from the shared {@link PluginContext}.
+ * Files are consumed from a stream as it produces them and processed on virtual threads,
+ * at most {@code -threads} at a time; with a single thread they are processed in order on
+ * the calling thread. Region files additionally draw from the run's
+ * {@link PluginContext#regionMemoryBudget() MemoryBudget} of {@code -regionMemoryBudget}
+ * bytes, shared with every other converter, which caps the chunk data decompressed at once.
+ * Work done on those threads is recorded in the calling plugin's {@link Metrics}.
  *
  * @see PluginContext
  * @see ConversionTarget
@@ -33,11 +51,14 @@ public final class ConverterV3
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(ConverterV3.class);
     private static final Set<String> IGNORED_FILE_EXTENSIONS = Set.of(
-            "mcr", "mca", "jar", "gz", "lock", "sh", "bat", "log", "mcmeta",
-            "md", "snbt", "nbt", "zip", "cache", "png", "jpeg", "js", "DS_Store"
+            "mcr", "jar", "gz", "lock", "sh", "bat", "log", "mcmeta",
+            "md", "snbt", "zip", "cache", "png", "jpeg", "js", "DS_Store"
     );
+    private static final Set<String> NBT_FILE_EXTENSIONS = Set.of(".dat", ".nbt");
+    private static final String REGION_FILE_EXTENSION = ".mca";
 
     private final PluginContext ctx;
+    private final MemoryBudget regionMemoryBudget;
 
     /**
      * Creates a converter bound to the given plugin context.
@@ -48,6 +69,7 @@ public final class ConverterV3
     public ConverterV3(PluginContext ctx)
     {
         this.ctx = requireNonNull(ctx, "PluginContext cannot be null");
+        this.regionMemoryBudget = ctx.regionMemoryBudget();
     }
 
     /**
@@ -55,70 +77,198 @@ public final class ConverterV3
      * <p>
      * Skips non-regular files and paths with ignored extensions. For each remaining file,
      * renames UUID-named files when a mapping exists and the UUID version matches the
-     * conversion direction, then replaces mapped UUID strings in text-based content.
+     * conversion direction, then replaces mapped UUIDs in NBT or text-based content.
      * Per-file errors are logged and processing continues.
      *
      * @param toConvert the candidate file paths to process
+     * @see #convert(Stream)
      */
     public void convert(List<Path> toConvert)
     {
-        LOGGER.info("Starting world conversion ({} --> {}) on {} files...",
+        convert(toConvert.stream().flatMap(path ->
+        {
+            try
+            {
+                return Stream.of(IndexedFile.read(path));
+            } catch (IOException e)
+            {
+                LOGGER.debug("Skipping unreadable path {}: {}", path.normalize(), e.getMessage());
+                return Stream.empty();
+            }
+        }));
+    }
+
+    /**
+     * Converts files as the given stream produces them.
+     * <p>
+     * Behaves like {@link #convert(List)}, but conversion starts with the first emitted file
+     * and at most {@code -threads} files are held at any time, so file contents in memory do
+     * not grow with the number of files. A walk of the context's
+     * {@link me.pauleff.common.handlers.files.WorldIndex} likewise drops each directory listing
+     * once it has moved past it. The stream is consumed on the calling thread and is not closed
+     * by this method.
+     * <p>
+     * Each file is classified from the attributes it carries, so the converter itself
+     * issues no further metadata calls for it.
+     * <p>
+     * Renames invalidate the parent folder in the context's
+     * {@link me.pauleff.common.handlers.files.WorldIndex}. A live directory walk may emit a
+     * file renamed during the walk a second time under its new name. That is harmless: the
+     * new name is already a target UUID and its content was already rewritten.
+     *
+     * @param toConvert the candidate files with their attributes, typically a lazy directory walk
+     */
+    public void convert(Stream<IndexedFile> toConvert)
+    {
+        int threads = ctx.parsedArguments().threads();
+        LOGGER.info("Starting world conversion ({} --> {}) using {} thread(s)...",
                 ctx.conversionTarget() == ConversionTarget.ONLINE ? ConversionTarget.OFFLINE.name() : ConversionTarget.ONLINE.name(),
                 ctx.conversionTarget().name(),
-                toConvert.size());
-        int discoveredValidFiles = 0;
-        int renamedFiles = 0;
-        int updatedTextFiles = 0;
+                threads);
+        Counters counters = new Counters();
 
-        for (Path originalPath : toConvert)
+        if (threads <= 1)
         {
-            if (!isRegularFile(originalPath) || hasIgnoredExtension(originalPath))
+            toConvert.forEachOrdered(file -> convertFile(file, counters));
+        } else
+        {
+            convertInParallel(toConvert, threads, counters);
+        }
+
+        LOGGER.info("Renamed {} UUID file(s) & updated {} file's content(s). Processed {} relevant file(s).",
+                counters.renamedFiles.sum(), counters.updatedFiles.sum(), counters.discoveredValidFiles.sum());
+    }
+
+    /**
+     * Converts the given files on virtual threads, running at most {@code threads} at once.
+     * <p>
+     * Each file the stream pushes to {@link Stream#forEach} waits for a free permit before it is
+     * handed to a worker, so the producer never runs more than {@code threads} files ahead of
+     * the workers. The stream's iterator is not used: over a {@code flatMap}, as in a directory
+     * walk, it buffers each inner stream completely before returning its first element.
+     * Returns once every file has been processed. The first unexpected failure of any file,
+     * runtime exception or error, is rethrown after the remaining files have finished.
+     *
+     * @param toConvert the candidate file paths to process
+     * @param threads   the maximum number of files processed concurrently
+     * @param counters  the shared result counters
+     */
+    private void convertInParallel(Stream<IndexedFile> toConvert, int threads, Counters counters)
+    {
+        Semaphore permits = new Semaphore(threads);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+        {
+            toConvert.forEach(file ->
             {
-                continue;
-            }
+                permits.acquireUninterruptibly();
+                executor.execute(Metrics.capture(() ->
+                {
+                    try
+                    {
+                        convertFile(file, counters);
+                    } catch (Throwable t)
+                    {
+                        // Errors too, or the virtual thread would swallow them.
+                        failure.compareAndSet(null, t);
+                    } finally
+                    {
+                        permits.release();
+                    }
+                }));
+            });
+        }
 
-            LOGGER.debug("Processing file: {}", originalPath.normalize());
-            Path currentPath = originalPath;
-            try
+        Throwable thrown = failure.get();
+        if (thrown instanceof RuntimeException e)
+        {
+            throw e;
+        } else if (thrown instanceof Error e)
+        {
+            throw e;
+        } else if (thrown != null)
+        {
+            throw new IllegalStateException("File conversion failed", thrown);
+        }
+    }
+
+    /**
+     * Renames and rewrites a single file, logging and skipping it on per-file errors.
+     * <p>
+     * Safe to call concurrently for distinct paths.
+     *
+     * @param file     the candidate file and its attributes
+     * @param counters the shared result counters
+     */
+    private void convertFile(IndexedFile file, Counters counters)
+    {
+        Path originalPath = file.path();
+        if (!file.isRegularFile() || hasIgnoredExtension(originalPath))
+        {
+            return;
+        }
+
+        Metrics.increment(Metric.FILES_VISITED);
+        LOGGER.debug("Processing file: {}", originalPath.normalize());
+        Path currentPath = originalPath;
+        try
+        {
+            String fileName = FileNames.stripExtension(currentPath.getFileName().toString());
+            UUID sourceUuid = parseValid(fileName);
+            if (sourceUuid != null)
             {
-                String fileName = FileNames.stripExtension(currentPath.getFileName().toString());
-                if (isValid(fileName))
+                counters.discoveredValidFiles.increment();
+                UUIDType sourceUuidType = typeOf(sourceUuid);
+                if (validConversionDirection(sourceUuidType))
                 {
-                    discoveredValidFiles++;
-                    UUID sourceUuid = UUID.fromString(fileName);
-                    UUIDType sourceUuidType = typeOf(sourceUuid);
-                    if (validConversionDirection(sourceUuidType))
+                    UUID targetUuid = null;
+                    try
                     {
-                        UUID targetUuid = resolveTargetUuid(sourceUuid);
+                        targetUuid = resolveTargetUuid(sourceUuid);
                         if (targetUuid == null)
                         {
                             LOGGER.warn("No mapping available for UUID {} in file {}. Skipping rename.",
                                     sourceUuid, currentPath.normalize());
-                        } else
-                        {
-                            currentPath = FileRenamer.renamePreservingExtension(currentPath, targetUuid.toString());
-                            renamedFiles++;
-                            LOGGER.debug("Renamed file UUID {} -> {}", sourceUuid, targetUuid);
                         }
+                    } catch (IOException e)
+                    {
+                        // Mappings already known still apply to the content, so only the rename is skipped.
+                        LOGGER.warn("Could not look up UUID {} in file {}: {}. Skipping rename.",
+                                sourceUuid, currentPath.normalize(), e.getMessage());
                     }
-                }
-
-                if (isRegularFile(currentPath) && TextFileDetector.isTextBased(currentPath))
-                {
-                    if (replaceUuidReferencesInTextFile(currentPath))
+                    if (targetUuid != null)
                     {
-                        discoveredValidFiles++;
-                        updatedTextFiles++;
+                        currentPath = FileRenamer.renamePreservingExtension(currentPath, targetUuid.toString());
+                        ctx.worldIndex().invalidate(currentPath.getParent());
+                        counters.renamedFiles.increment();
+                        LOGGER.debug("Renamed file UUID {} -> {}", sourceUuid, targetUuid);
                     }
                 }
-            } catch (IllegalArgumentException | IOException e)
+            }
+
+            boolean updated;
+            if (isNbtFile(currentPath))
+            {
+                updated = replaceUuidReferencesInNbtFile(currentPath);
+            } else if (isRegionFile(currentPath))
+            {
+                updated = replaceUuidReferencesInRegionFile(currentPath);
+            } else
             {
-                LOGGER.error("Skipping file {} due to an error: {}",
-                        currentPath.normalize(), e.getMessage());
+                // A rename keeps the file's type and size, so the listed attributes still apply.
+                updated = TextFileDetector.isTextBased(currentPath, file.attributes())
+                        && replaceUuidReferencesInTextFile(currentPath);
             }
+            if (updated)
+            {
+                counters.discoveredValidFiles.increment();
+                counters.updatedFiles.increment();
+            }
+        } catch (IllegalArgumentException | IOException e)
+        {
+            LOGGER.error("Skipping file {} due to an error: {}",
+                    currentPath.normalize(), e.getMessage());
         }
-
-        LOGGER.info("Renamed {} UUID file(s) & updated {} file's content(s). Processed {} relevant file(s).", renamedFiles, updatedTextFiles, discoveredValidFiles);
     }
 
     /**
@@ -181,6 +331,10 @@ public final class ConverterV3
 
     /**
      * Replaces mapped UUID string occurrences in a text file's content.
+     * <p>
+     * Uses the context's compiled UUID rewriter, so the file is scanned once regardless of
+     * how many mappings exist. The raw bytes are rewritten in place without decoding, so
+     * files in any ASCII-compatible charset keep every non-UUID byte unchanged.
      *
      * @param textFile the text-based file to update
      * @return {@code true} if the file content changed; {@code false} otherwise
@@ -188,29 +342,91 @@ public final class ConverterV3
      */
     private boolean replaceUuidReferencesInTextFile(Path textFile) throws IOException
     {
-        String content = Files.readString(textFile);
-        String updated = content;
-
-        for (Map.Entry<UUID, UUID> entry : ctx.uuidMap().entrySet())
+        byte[] content = Files.readAllBytes(textFile);
+        Metrics.add(Metric.BYTES_READ, content.length);
+        if (ctx.uuidRewriter(UuidForm.HYPHENATED).rewriteInPlace(content) == 0)
         {
-            UUID targetUuid = ctx.getTargetUuid(entry.getKey());
-            if (targetUuid == null)
-            {
-                continue;
-            }
-            updated = updated.replace(entry.getKey().toString(), targetUuid.toString());
+            return false;
         }
 
-        if (updated.equals(content))
+        Files.write(textFile, content);
+        Metrics.add(Metric.BYTES_WRITTEN, content.length);
+        LOGGER.debug("Updated UUID references in text file: {}", textFile.normalize());
+        return true;
+    }
+
+    /**
+     * Replaces mapped UUIDs inside an NBT file, streaming through its tags.
+     * <p>
+     * Binary UUIDs (int arrays and {@code Most}/{@code Least} long pairs) are looked up in the
+     * context's UUID map; string tags go through the context's UUID rewriter. Files that turn
+     * out not to be NBT are left untouched.
+     *
+     * @param nbtFile the NBT file to update
+     * @return {@code true} if the file content changed; {@code false} otherwise
+     * @throws IOException if reading or writing the file fails, or its NBT is malformed
+     */
+    private boolean replaceUuidReferencesInNbtFile(Path nbtFile) throws IOException
+    {
+        NBTUuidRewriter rewriter = new NBTUuidRewriter(ctx.uuidMap(), ctx.uuidRewriter(UuidForm.HYPHENATED),
+                ctx.parsedArguments().compressionLevel());
+        int replaced = rewriter.rewriteFile(nbtFile);
+        if (replaced == 0)
         {
             return false;
         }
+        LOGGER.debug("Updated {} UUID reference(s) in NBT file: {}", replaced, nbtFile.normalize());
+        return true;
+    }
 
-        Files.writeString(textFile, updated);
-        LOGGER.debug("Updated UUID references in text file: {}", textFile.normalize());
+    /**
+     * Replaces mapped UUIDs inside the chunks of an Anvil region file.
+     * <p>
+     * Only chunks that contain a mapped UUID are recompressed and rewritten; every other
+     * sector of the file stays untouched. Chunks are held within the run's region
+     * memory budget, so parallel workers wait rather than exhaust the heap.
+     *
+     * @param regionFile the region file to update
+     * @return {@code true} if at least one chunk changed; {@code false} otherwise
+     * @throws IOException if the region file header cannot be read or written
+     * @see RegionFileRewriter
+     */
+    private boolean replaceUuidReferencesInRegionFile(Path regionFile) throws IOException
+    {
+        NBTUuidRewriter nbtRewriter = new NBTUuidRewriter(ctx.uuidMap(), ctx.uuidRewriter(UuidForm.HYPHENATED),
+                ctx.parsedArguments().compressionLevel());
+        int changedChunks = new RegionFileRewriter(nbtRewriter, regionMemoryBudget).rewrite(regionFile);
+        if (changedChunks == 0)
+        {
+            return false;
+        }
+        LOGGER.debug("Updated UUID references in {} chunk(s) of region file: {}", changedChunks, regionFile.normalize());
         return true;
     }
 
+    /**
+     * Indicates whether the path's file name has the Anvil region extension.
+     *
+     * @param path the path to check
+     * @return {@code true} if the file should be treated as a region file; {@code false} otherwise
+     */
+    private boolean isRegionFile(Path path)
+    {
+        return path.getFileName().toString().endsWith(REGION_FILE_EXTENSION);
+    }
+
+    /**
+     * Indicates whether the path's file name has an NBT extension.
+     *
+     * @param path the path to check
+     * @return {@code true} if the file should be treated as NBT; {@code false} otherwise
+     */
+    private boolean isNbtFile(Path path)
+    {
+        String name = path.getFileName().toString();
+        return NBT_FILE_EXTENSIONS.stream().anyMatch(name::endsWith);
+    }
+
     /**
      * Indicates whether the path's file name ends with an ignored extension.
      *
@@ -222,4 +438,14 @@ public final class ConverterV3
         String name = path.getFileName().toString();
         return IGNORED_FILE_EXTENSIONS.stream().anyMatch(name::endsWith);
     }
+
+    /**
+     * Result counters shared by every file of a {@link #convert(Stream)} call.
+     */
+    private static final class Counters
+    {
+        private final LongAdder discoveredValidFiles = new LongAdder();
+        private final LongAdder renamedFiles = new LongAdder();
+        private final LongAdder updatedFiles = new LongAdder();
+    }
 }
@@ -1,9 +1,11 @@
 package me.pauleff.converter;
 
 import me.pauleff.common.exceptions.UnknownWorldFolderStructureException;
+import me.pauleff.common.metrics.MetricsReport;
 import me.pauleff.converter.api.MOOCPlugin;
 import me.pauleff.converter.api.PluginContext;
 import me.pauleff.converter.api.PluginMetadata;
+import me.pauleff.converter.plugins.ExportUuidMappings;
 import me.pauleff.converter.plugins.UpdateDefaultServerFiles;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +19,11 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Runs registered {@link MOOCPlugin}s against a {@link PluginContext} in phased order.
@@ -24,6 +31,17 @@ import java.util.Objects;
  * Discovery plugins always run first. For conversion operations, the user must confirm
  * before misc and conversion plugins execute. Paths declared by each plugin are resolved
  * relative to the server root; only existing targets are passed to {@link MOOCPlugin#run}.
+ * <p>
+ * Within a phase, plugins run on a thread pool as a dependency graph: each plugin starts once
+ * every higher-priority plugin it {@linkplain PluginMetadata#conflictsWith conflicts with} has
+ * finished. Plugins without resource tags conflict with all others, so a phase of untagged
+ * plugins runs strictly in priority order. Phases themselves never overlap. The context's
+ * {@link me.pauleff.common.handlers.files.WorldIndex} is cleared after each phase, so directory
+ * listings are held for one phase rather than the whole run.
+ * <p>
+ * Each run is measured in a {@link MetricsReport}: wall time per phase and per plugin, plus the
+ * {@link me.pauleff.common.metrics.Metric}s each plugin records. The report is written when
+ * {@code -metricsReport} or {@code -metricsPrometheus} is given, also for runs that abort.
  *
  * @see PluginRegistry
  * @see PluginContext
@@ -75,6 +93,8 @@ public final class PluginOrchestrator
      * conversion has an empty UUID map or when the user declines confirmation. Misc plugins
      * then run; conversion plugins run only when a conversion was requested. If conversion
      * discovers additional UUID mappings, {@link UpdateDefaultServerFiles} is reapplied.
+     * Finally, {@link ExportUuidMappings} writes the UUID map if an export was requested.
+     * Requested metrics reports are written afterwards, however the run ended.
      *
      * @param ctx the shared conversion context
      * @throws NullPointerException                 if {@code ctx} is {@code null}, or if the
@@ -84,7 +104,26 @@ public final class PluginOrchestrator
     public void run(PluginContext ctx)
     {
         Objects.requireNonNull(ctx, "Context can't be null.");
-        runPhase(ctx, registry.discoveryPlugins());
+        MetricsReport report = new MetricsReport();
+        try
+        {
+            runPhases(ctx, report);
+        } finally
+        {
+            report.finish();
+            exportMetrics(ctx, report);
+        }
+    }
+
+    /**
+     * Runs the plugin phases described in {@link #run(PluginContext)}, recording them in the report.
+     *
+     * @param ctx    the shared conversion context
+     * @param report the run's metrics report
+     */
+    private void runPhases(PluginContext ctx, MetricsReport report)
+    {
+        runPhase(ctx, report.startPhase("discovery"), registry.discoveryPlugins());
 
         if (ctx.isConversionOperation())
         {
@@ -101,7 +140,7 @@ public final class PluginOrchestrator
             LOGGER.info("Conversion confirmed. Proceeding...");
         }
 
-        runPhase(ctx, registry.miscPlugins());
+        runPhase(ctx, report.startPhase("misc"), registry.miscPlugins());
 
         if (!ctx.isConversionOperation())
         {
@@ -118,15 +157,48 @@ public final class PluginOrchestrator
         }
 
         int uuidMapSizeBeforeConversion = ctx.uuidMap().size();
-        runPhase(ctx, registry.conversionPlugins());
+        runPhase(ctx, report.startPhase("conversion"), registry.conversionPlugins());
         /*
          * If conversion discovered additional UUID mappings (e.g. empty usercache.json),
          * re-run default server file updates with the newly found mappings.
          */
+        List<MOOCPlugin> finishing = new ArrayList<>();
         if (ctx.uuidMap().size() > uuidMapSizeBeforeConversion)
         {
             LOGGER.info("The number of detected profiles has increased during the conversion run. Reapplying to the server's default files.");
-            runPlugin(ctx, new UpdateDefaultServerFiles());
+            finishing.add(new UpdateDefaultServerFiles());
+        }
+        finishing.add(new ExportUuidMappings());
+        runPhase(ctx, report.startPhase("finish"), finishing);
+    }
+
+    /**
+     * Writes the metrics report to the files requested on the command line.
+     * <p>
+     * A report that cannot be written is logged; the run's result is unaffected.
+     *
+     * @param ctx    the shared conversion context
+     * @param report the finished metrics report
+     */
+    private void exportMetrics(PluginContext ctx, MetricsReport report)
+    {
+        Optional<Path> json = ctx.parsedArguments().metricsReport();
+        Optional<Path> prometheus = ctx.parsedArguments().metricsPrometheus();
+        try
+        {
+            if (json.isPresent())
+            {
+                report.writeJson(json.get());
+                LOGGER.info("Wrote metrics report to {}.", json.get().toAbsolutePath().normalize());
+            }
+            if (prometheus.isPresent())
+            {
+                report.writePrometheus(prometheus.get());
+                LOGGER.info("Wrote Prometheus metrics to {}.", prometheus.get().toAbsolutePath().normalize());
+            }
+        } catch (IOException e)
+        {
+            LOGGER.error("Failed to write metrics: {}", e.getMessage());
         }
     }
 
@@ -164,16 +236,66 @@ public final class PluginOrchestrator
     }
 
     /**
-     * Runs each plugin in the given list against the context.
+     * Runs the plugins of a phase, overlapping those whose resource tags do not conflict.
+     * <p>
+     * Each plugin depends on every earlier plugin in the list that it conflicts with, so
+     * conflicting plugins keep their priority order. At most {@link
+     * me.pauleff.common.argparse.ParsedArguments#threads()} plugins run at once. Returns once
+     * every plugin has finished; a plugin whose dependency failed is not started.
      *
      * @param ctx     the shared conversion context
-     * @param plugins the plugins to run in order
+     * @param phase   the phase's metrics, finished once every plugin has ended
+     * @param plugins the plugins to run, sorted by priority
+     * @throws UnknownWorldFolderStructureException if a plugin reports an unsupported world layout
      */
-    private void runPhase(PluginContext ctx, List<MOOCPlugin> plugins)
+    private void runPhase(PluginContext ctx, MetricsReport.Phase phase, List<MOOCPlugin> plugins)
     {
-        for (MOOCPlugin plugin : plugins)
+        if (plugins.isEmpty())
+        {
+            phase.finish();
+            return;
+        }
+        List<PluginMetadata> metadata = plugins.stream()
+                .map(plugin -> Objects.requireNonNull(plugin.metadata(), "Plugin metadata can't be null."))
+                .toList();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(plugins.size());
+        int threads = Math.min(ctx.parsedArguments().threads(), plugins.size());
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads))
+        {
+            for (int i = 0; i < plugins.size(); i++)
+            {
+                List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+                for (int j = 0; j < i; j++)
+                {
+                    if (metadata.get(j).conflictsWith(metadata.get(i)))
+                    {
+                        dependencies.add(tasks.get(j));
+                    }
+                }
+                MOOCPlugin plugin = plugins.get(i);
+                MetricsReport.PluginRun run = phase.plugin(metadata.get(i).id());
+                tasks.add(CompletableFuture.allOf(dependencies.toArray(CompletableFuture[]::new))
+                        .thenRunAsync(() -> run.measure(() -> runPlugin(ctx, plugin)), executor));
+            }
+            // Dependent plugins are submitted only as their dependencies finish, so wait before shutting down.
+            CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+        }
+        ctx.worldIndex().clear();
+        phase.finish();
+        LOGGER.debug("Phase {} finished in {} ms.", phase.name(), Math.round(phase.wallSeconds() * 1000));
+        for (CompletableFuture<Void> task : tasks)
         {
-            runPlugin(ctx, plugin);
+            try
+            {
+                task.join();
+            } catch (CompletionException e)
+            {
+                if (e.getCause() instanceof RuntimeException cause)
+                {
+                    throw cause;
+                }
+                throw e;
+            }
         }
     }
 
@@ -186,11 +308,12 @@ public final class PluginOrchestrator
      *
      * @param ctx    the shared conversion context
      * @param plugin the plugin to evaluate and possibly run
+     * @return whether the plugin completed, was skipped, or failed
      * @throws UnknownWorldFolderStructureException if the plugin reports an unsupported world layout
      * @throws NullPointerException                 if the plugin's metadata is {@code null}, or if
      *                                              {@link MOOCPlugin#setTargets} returns {@code null}
      */
-    private void runPlugin(PluginContext ctx, MOOCPlugin plugin)
+    private MetricsReport.Outcome runPlugin(PluginContext ctx, MOOCPlugin plugin)
     {
         Path serverRoot = ctx.serverFolder();
         PluginMetadata meta = Objects.requireNonNull(plugin.metadata(), "Plugin metadata can't be null.");
@@ -201,7 +324,7 @@ public final class PluginOrchestrator
             if (!plugin.isEnabled(ctx))
             {
                 pluginLog.debug("Skipped: disabled for this context.");
-                return;
+                return MetricsReport.Outcome.SKIPPED;
             }
             List<Path> declared = plugin.setTargets(ctx);
             Objects.requireNonNull(declared, () -> "setTargets() returned null for plugin " + pluginId);
@@ -226,7 +349,7 @@ public final class PluginOrchestrator
             if (resolvedExisting.isEmpty())
             {
                 pluginLog.warn("No existing targets; skipping operate.");
-                return;
+                return MetricsReport.Outcome.SKIPPED;
             }
             pluginLog.debug("Running plugin: {} ({})", meta.displayName(), pluginId);
             if (!meta.description().isBlank())
@@ -235,12 +358,14 @@ public final class PluginOrchestrator
             }
             pluginLog.debug("Targets: {}", resolvedExisting);
             plugin.run(ctx, List.copyOf(resolvedExisting));
+            return MetricsReport.Outcome.COMPLETED;
         } catch (UnknownWorldFolderStructureException e)
         {
             throw e;
         } catch (IOException | RuntimeException e)
         {
             pluginLog.error("Plugin failed: {}", e.getMessage(), e);
+            return MetricsReport.Outcome.FAILED;
         }
     }
 }
@@ -30,6 +30,7 @@ public record PluginRegistry(
             new DetectServerType(),
             new DetectWorldFolderStructure(),
             new DetectSaveFileFormat(),
+            new ImportUuidMappings(),
             new PrefetchUsercache()
     );
 
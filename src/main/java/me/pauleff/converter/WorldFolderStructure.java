@@ -1,14 +1,22 @@
 package me.pauleff.converter;
 
+import me.pauleff.common.handlers.files.IndexedFile;
+import me.pauleff.common.handlers.files.WorldIndex;
+
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Describes how a Minecraft world's dimensions are laid out under the server folder.
  * <p>
  * Each constant carries a human-readable description returned by {@link #toString()}.
  * {@link #dimensionRootFolders(Path, Path)} resolves the concrete dimension roots for a
- * given server and world folder.
+ * given server and world folder, {@link #uuidBearingFolders(WorldIndex, Path, Path)} only the subtrees
+ * that can hold player-keyed data, and {@link #worldFolders(Path, Path)} the folders whose
+ * top-level files, such as {@code level.dat}, are converted as well.
  */
 public enum WorldFolderStructure
 {
@@ -29,6 +37,15 @@ public enum WorldFolderStructure
      */
     SINGLE_2026("New Vanilla structure introduced in 2026.1 with world data saved to the dimensions subdirectory");
 
+    /**
+     * Top-level world entries written by Vanilla. Every other directory in a world folder
+     * is treated as a mod folder that may store player-keyed data.
+     */
+    private static final Set<String> VANILLA_WORLD_ENTRIES = Set.of(
+            "region", "entities", "poi", "DIM1", "DIM-1", "dimensions", "datapacks", "generated",
+            "playerdata", "players", "advancements", "stats", "data"
+    );
+
     private final String description;
 
     /**
@@ -52,8 +69,6 @@ public enum WorldFolderStructure
         return description;
     }
 
-    // TODO 27.05.2026 - For now the method returns mostly the full world folders. This works fine but should be optimized later.
-
     /**
      * Resolves the dimension root folders for this structure under the given server and world paths.
      * <p>
@@ -66,6 +81,7 @@ public enum WorldFolderStructure
      * @param worldFolder  the primary world folder from {@code server.properties}
      * @return the dimension (and related) root folders to process; never {@code null}
      */
+    // TODO 27.05.2026 - For now the method returns mostly the full world folders. This works fine but should be optimized later.
     public List<Path> dimensionRootFolders(Path serverFolder, Path worldFolder)
     {
         return switch (this)
@@ -84,4 +100,154 @@ public enum WorldFolderStructure
             );
         };
     }
+
+    /**
+     * Resolves the world folders of this structure, whose top-level files are converted
+     * besides the {@link #uuidBearingFolders(WorldIndex, Path, Path) UUID-bearing folders}.
+     * <p>
+     * These hold {@code level.dat} and any files mods keep beside it. For
+     * {@link #PER_DIMENSION}, they include the sibling nether and end folders. Returned
+     * folders need not exist.
+     *
+     * @param serverFolder the server root folder
+     * @param worldFolder  the primary world folder from {@code server.properties}
+     * @return the folders whose direct files to convert; never {@code null}
+     */
+    public List<Path> worldFolders(Path serverFolder, Path worldFolder)
+    {
+        return switch (this)
+        {
+            case SINGLE, SINGLE_2026 -> List.of(worldFolder);
+            case PER_DIMENSION -> List.of(
+                    worldFolder,
+                    serverFolder.resolve(worldFolder.getFileName() + "_nether"),
+                    serverFolder.resolve(worldFolder.getFileName() + "_the_end")
+            );
+        };
+    }
+
+    /**
+     * Resolves the folders that can contain player-keyed data for this structure.
+     * <p>
+     * These are the player data, advancement and statistics folders, the global and
+     * per-dimension {@code data}, {@code region} and {@code entities} folders (including
+     * those of datapack and mod dimensions under {@code dimensions/<namespace>/<name>}), and
+     * every non-Vanilla top-level directory of the world folders, which mods use for their
+     * own saves. Region and entity files hold pet owners, trusted players and villager gossip
+     * targets. POI and datapack trees are left out. Returned folders need not exist.
+     *
+     * @param index        the index used to list the world and dimensions folders
+     * @param serverFolder the server root folder
+     * @param worldFolder  the primary world folder from {@code server.properties}
+     * @return the folders to walk for UUID conversion; never {@code null}
+     * @throws IOException if listing a world or dimensions folder fails
+     */
+    public List<Path> uuidBearingFolders(WorldIndex index, Path serverFolder, Path worldFolder) throws IOException
+    {
+        List<Path> folders = new ArrayList<>();
+        switch (this)
+        {
+            case SINGLE ->
+            {
+                addPlayerFolders(folders, worldFolder);
+                folders.add(worldFolder.resolve("data"));
+                addChunkFolders(folders, worldFolder);
+                addChunkFolders(folders, worldFolder.resolve("DIM-1"));
+                addChunkFolders(folders, worldFolder.resolve("DIM1"));
+                folders.add(worldFolder.resolve("DIM-1/data"));
+                folders.add(worldFolder.resolve("DIM1/data"));
+                addDimensionFolders(index, folders, worldFolder.resolve("dimensions"));
+                addModFolders(index, folders, worldFolder);
+            }
+            case PER_DIMENSION ->
+            {
+                Path netherFolder = serverFolder.resolve(worldFolder.getFileName() + "_nether");
+                Path endFolder = serverFolder.resolve(worldFolder.getFileName() + "_the_end");
+                addPlayerFolders(folders, worldFolder);
+                folders.add(worldFolder.resolve("data"));
+                folders.add(netherFolder.resolve("data"));
+                folders.add(netherFolder.resolve("DIM-1/data"));
+                folders.add(endFolder.resolve("data"));
+                folders.add(endFolder.resolve("DIM1/data"));
+                addChunkFolders(folders, worldFolder);
+                addChunkFolders(folders, netherFolder.resolve("DIM-1"));
+                addChunkFolders(folders, endFolder.resolve("DIM1"));
+                addDimensionFolders(index, folders, worldFolder.resolve("dimensions"));
+                addModFolders(index, folders, worldFolder);
+                addModFolders(index, folders, netherFolder);
+                addModFolders(index, folders, endFolder);
+            }
+            case SINGLE_2026 ->
+            {
+                addPlayerFolders(folders, worldFolder.resolve("players"));
+                folders.add(worldFolder.resolve("data"));
+                addDimensionFolders(index, folders, worldFolder.resolve("dimensions"));
+                addModFolders(index, folders, worldFolder);
+            }
+        }
+        return List.copyOf(folders);
+    }
+
+    /**
+     * Adds the player data, advancement and statistics folders under {@code parent}.
+     * <p>
+     * Player data lives in {@code playerdata} up to 2025 and in {@code data} below the
+     * 2026 {@code players} folder.
+     */
+    private void addPlayerFolders(List<Path> folders, Path parent)
+    {
+        folders.add(parent.resolve(this == SINGLE_2026 ? "data" : "playerdata"));
+        folders.add(parent.resolve("advancements"));
+        folders.add(parent.resolve("stats"));
+    }
+
+    /**
+     * Adds the {@code region} and {@code entities} folders of a dimension.
+     */
+    private static void addChunkFolders(List<Path> folders, Path dimensionFolder)
+    {
+        folders.add(dimensionFolder.resolve("region"));
+        folders.add(dimensionFolder.resolve("entities"));
+    }
+
+    /**
+     * Adds the {@code data}, {@code region} and {@code entities} folders of every
+     * {@code <namespace>/<name>} dimension below {@code dimensionsFolder}.
+     */
+    private static void addDimensionFolders(WorldIndex index, List<Path> folders, Path dimensionsFolder) throws IOException
+    {
+        for (Path namespace : subdirectories(index, dimensionsFolder))
+        {
+            for (Path dimension : subdirectories(index, namespace))
+            {
+                folders.add(dimension.resolve("data"));
+                addChunkFolders(folders, dimension);
+            }
+        }
+    }
+
+    /**
+     * Adds every top-level directory of {@code worldFolder} that Vanilla does not create.
+     */
+    private static void addModFolders(WorldIndex index, List<Path> folders, Path worldFolder) throws IOException
+    {
+        for (Path entry : subdirectories(index, worldFolder))
+        {
+            if (!VANILLA_WORLD_ENTRIES.contains(entry.getFileName().toString()))
+            {
+                folders.add(entry);
+            }
+        }
+    }
+
+    /**
+     * Lists the direct subdirectories of {@code folder}, or none if it does not exist.
+     */
+    private static List<Path> subdirectories(WorldIndex index, Path folder) throws IOException
+    {
+        return index.list(folder).stream()
+                .filter(IndexedFile::isDirectory)
+                .map(IndexedFile::path)
+                .toList();
+    }
 }
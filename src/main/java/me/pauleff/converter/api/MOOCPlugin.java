@@ -6,7 +6,6 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -76,34 +75,54 @@ public sealed interface MOOCPlugin permits DefaultPlugin, MultiServerPlugin, Ser
     /**
      * Collects all regular files under the given world dimension root folders.
      * <p>
-     * Missing roots are skipped with a debug log. Walk failures for a root are logged
-     * as warnings and do not abort collection from other roots. The root directories
-     * themselves are excluded from the result.
+     * Materializes {@link #streamAllFilesInFolders(List)}; prefer the stream when the
+     * files can be processed one at a time.
      *
      * @param worldDimensionRootFolders the world or dimension root directories to walk
      * @return all regular files found beneath the existing roots; never {@code null}
      */
     default List<Path> returnAllFilesInFolders(List<Path> worldDimensionRootFolders)
     {
-        List<Path> targets = new ArrayList<>();
-        for (Path rootFolder : worldDimensionRootFolders)
+        try (Stream<Path> files = streamAllFilesInFolders(worldDimensionRootFolders))
         {
-            if (!Files.exists(rootFolder))
-            {
-                logger().debug("Skipping missing world folder: {}", rootFolder.normalize());
-                continue;
-            }
-            try (Stream<Path> worldFolderStream = Files.walk(rootFolder))
-            {
-                worldFolderStream
-                        .filter(path -> !path.equals(rootFolder))
-                        .filter(Files::isRegularFile)
-                        .forEach(targets::add);
-            } catch (IOException e)
-            {
-                logger().warn("Could not collect world targets from {}", rootFolder.normalize(), e);
-            }
+            return files.toList();
         }
-        return targets;
+    }
+
+    /**
+     * Lazily streams all regular files under the given world dimension root folders.
+     * <p>
+     * Roots are walked one after another while the stream is consumed, so the first file
+     * is available immediately and no full listing is held in memory. Missing roots are
+     * skipped with a debug log. A root that cannot be opened is logged as a warning and does
+     * not abort the other roots. The root directories themselves are excluded from the result.
+     * <p>
+     * The returned stream holds open directory handles and must be closed, e.g. with
+     * try-with-resources.
+     *
+     * @param worldDimensionRootFolders the world or dimension root directories to walk
+     * @return a lazy stream of the regular files beneath the existing roots; never {@code null}
+     */
+    default Stream<Path> streamAllFilesInFolders(List<Path> worldDimensionRootFolders)
+    {
+        return worldDimensionRootFolders.stream()
+                .flatMap(rootFolder ->
+                {
+                    if (!Files.exists(rootFolder))
+                    {
+                        logger().debug("Skipping missing world folder: {}", rootFolder.normalize());
+                        return Stream.empty();
+                    }
+                    try
+                    {
+                        return Files.walk(rootFolder)
+                                .filter(path -> !path.equals(rootFolder))
+                                .filter(Files::isRegularFile);
+                    } catch (IOException e)
+                    {
+                        logger().warn("Could not collect world targets from {}", rootFolder.normalize(), e);
+                        return Stream.empty();
+                    }
+                });
     }
 }
@@ -2,7 +2,15 @@ package me.pauleff.converter.api;
 
 import me.pauleff.common.argparse.ParsedArguments;
 import me.pauleff.common.exceptions.PathNotValidException;
+import me.pauleff.common.handlers.MemoryBudget;
 import me.pauleff.common.handlers.files.ServerPropertiesFile;
+import me.pauleff.common.handlers.files.WorldIndex;
+import me.pauleff.common.handlers.uuid.UuidEncodings;
+import me.pauleff.common.handlers.uuid.UuidForm;
+import me.pauleff.common.handlers.uuid.UuidMap;
+import me.pauleff.common.handlers.uuid.UuidRewriteMode;
+import me.pauleff.common.handlers.uuid.UuidRewriter;
+import me.pauleff.common.handlers.uuid.UuidTokenScanner;
 import me.pauleff.converter.ConversionTarget;
 import me.pauleff.converter.SaveFileFormat;
 import me.pauleff.converter.ServerType;
@@ -12,10 +20,13 @@ import org.slf4j.LoggerFactory;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
+import java.util.EnumSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Holds shared state for a conversion run and is passed to each {@link MOOCPlugin}.
@@ -23,16 +34,27 @@ import java.util.UUID;
  * Created from {@link ParsedArguments}, it resolves the server and world folders and
  * accumulates detection results (server type, folder structure, save format) plus
  * UUID remappings produced during conversion.
+ * <p>
+ * The UUID map and the rewriters derived from it may be used concurrently by conversion
+ * workers; detection fields are set before conversion starts and are not synchronized.
  */
 public final class PluginContext
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(PluginContext.class);
+    // Fewest new mappings that justify recompiling pattern rewriters.
+    private static final int MIN_RECOMPILE_BATCH = 1024;
 
     private final Path serverFolder;
     private final Path worldFolder;
     private final ConversionTarget conversionTarget;
-    private final Map<UUID, UUID> uuidMap;
+    private final UuidMap uuidMap;
+    private final Map<UUID, UuidEncodings> uuidEncodings;
+    private final Map<Set<UuidForm>, UuidRewriter> tokenRewriters;
+    private final AtomicLong uuidMappingVersion;
+    private volatile CompiledRewriters patternRewriters;
     private final ParsedArguments parsedArguments;
+    private final WorldIndex worldIndex;
+    private final MemoryBudget regionMemoryBudget;
     private ServerType serverType;
     private WorldFolderStructure worldFolderStructure;
     private SaveFileFormat saveFileFormat;
@@ -57,7 +79,13 @@ public final class PluginContext
         this.worldFolder = Objects.requireNonNull(worldFolder, "World folder path can't be null.");
         this.conversionTarget = Objects.requireNonNull(conversionTarget, "Target to convert to must be set.");
         this.parsedArguments = Objects.requireNonNull(parsedArguments, "Parsed arguments can't be null.");
-        this.uuidMap = new HashMap<>();
+        this.uuidMap = UuidMap.concurrent(parsedArguments.mappingStorage());
+        this.uuidEncodings = new ConcurrentHashMap<>();
+        this.tokenRewriters = new ConcurrentHashMap<>();
+        this.uuidMappingVersion = new AtomicLong();
+        this.patternRewriters = new CompiledRewriters(0, 0, new ConcurrentHashMap<>());
+        this.worldIndex = new WorldIndex();
+        this.regionMemoryBudget = new MemoryBudget(parsedArguments.regionMemoryBudget());
     }
 
     /**
@@ -111,6 +139,12 @@ public final class PluginContext
 
     /**
      * Records a UUID remapping from an original player UUID to its converted counterpart.
+     * <p>
+     * Safe to call concurrently, and cheap: token rewriters see the new mapping right away, and
+     * pattern rewriters are only recompiled once enough mappings have piled up (see
+     * {@link #uuidRewriter(UuidForm, UuidForm...)}). When the rewrite mode matches encoded
+     * strings, both UUIDs are encoded in every {@link UuidForm} here, once, so recompiling the
+     * rewriters does not format them again.
      *
      * @param from the original UUID
      * @param to   the remapped UUID
@@ -121,6 +155,13 @@ public final class PluginContext
         uuidMap.put(
                 Objects.requireNonNull(from, "Original UUID to put into map can't be null."),
                 Objects.requireNonNull(to, "New UUID to put into map can't be null."));
+        if (parsedArguments.uuidRewriteMode().matchesEncodings())
+        {
+            encodings(from);
+            encodings(to);
+        }
+        // Count after the put, so a rewriter compiled at this version already contains the mapping.
+        uuidMappingVersion.incrementAndGet();
     }
 
     /**
@@ -135,6 +176,58 @@ public final class PluginContext
         return uuidMap.get(Objects.requireNonNull(from, "Original UUID to put into map can't be null."));
     }
 
+    /**
+     * Returns a rewriter that replaces every mapped UUID in the given encodings in a single pass.
+     * <p>
+     * The rewriter uses the engine selected by {@link ParsedArguments#uuidRewriteMode()}, so
+     * callers can request it per file. A {@link UuidRewriteMode#TOKEN} rewriter looks mappings
+     * up in {@link #uuidMap()} as it scans and is never rebuilt. A {@link UuidRewriteMode#PATTERN}
+     * rewriter is compiled from the mappings at that time and returned for as long as no mapping
+     * has been added since. Once mappings have been added, a token rewriter is returned instead,
+     * so the new mappings are never missed, until at least 1024 of them, and at least as many
+     * as the last compilation held, have built up; only then is the pattern rewriter compiled
+     * again. Each mapping is therefore compiled a bounded number of times however often
+     * mappings are added, at the cost of running in token mode between compilations. Safe to
+     * call concurrently.
+     *
+     * @param first the first encoding to rewrite
+     * @param rest  further encodings to rewrite
+     * @return a rewriter for the current UUID map
+     * @throws NullPointerException if any encoding is {@code null}
+     */
+    public UuidRewriter uuidRewriter(UuidForm first, UuidForm... rest)
+    {
+        Set<UuidForm> forms = EnumSet.of(first, rest);
+        UuidRewriter tokenRewriter = tokenRewriters.computeIfAbsent(forms,
+                f -> UuidTokenScanner.forMappings(uuidMap, f));
+        UuidRewriteMode mode = parsedArguments.uuidRewriteMode();
+        if (mode == UuidRewriteMode.TOKEN)
+        {
+            return tokenRewriter;
+        }
+        long version = uuidMappingVersion.get();
+        CompiledRewriters compiled = patternRewriters;
+        if (version - compiled.version() >= Math.max(MIN_RECOMPILE_BATCH, compiled.mappings()))
+        {
+            // Racing threads may both start a batch; the loser's rewriters are simply dropped.
+            compiled = new CompiledRewriters(version, uuidMap.size(), new ConcurrentHashMap<>());
+            patternRewriters = compiled;
+        }
+        if (compiled.version() != version)
+        {
+            return tokenRewriter;
+        }
+        return compiled.rewriters().computeIfAbsent(forms, f -> mode.compile(uuidMap, this::encodings, f));
+    }
+
+    /**
+     * Returns the cached encodings of a UUID, computing them on first use.
+     */
+    private UuidEncodings encodings(UUID uuid)
+    {
+        return uuidEncodings.computeIfAbsent(uuid, UuidEncodings::of);
+    }
+
     /**
      * Returns the absolute, normalized path to the server root folder.
      *
@@ -155,6 +248,34 @@ public final class PluginContext
         return worldFolder;
     }
 
+    /**
+     * Returns the shared, memoized directory index for this run.
+     * <p>
+     * Plugins should list and walk server and world folders through it rather than
+     * through {@link Files}, so each directory is read from disk only once per phase. The
+     * orchestrator clears it after every phase.
+     *
+     * @return the world index; never {@code null}
+     */
+    public WorldIndex worldIndex()
+    {
+        return worldIndex;
+    }
+
+    /**
+     * Returns the memory budget shared by every region file rewrite of this run.
+     * <p>
+     * Plugins converting region files in parallel all reserve from this one budget, so the
+     * chunk data held at once stays within {@code -regionMemoryBudget} however many of them
+     * run side by side.
+     *
+     * @return the region memory budget; never {@code null}
+     */
+    public MemoryBudget regionMemoryBudget()
+    {
+        return regionMemoryBudget;
+    }
+
     /**
      * Returns whether this run converts toward online or offline mode.
      *
@@ -198,11 +319,13 @@ public final class PluginContext
     /**
      * Returns the live map of original-to-remapped player UUIDs.
      * <p>
-     * Mutations via {@link #putUuidMapping(UUID, UUID)} are visible through this map.
+     * Mutations via {@link #putUuidMapping(UUID, UUID)} are visible through this map. It is safe
+     * to read concurrently, and {@link UuidMap#findTarget(long, long, long[])} looks up raw UUID
+     * bits without allocating.
      *
      * @return the UUID remapping map; never {@code null}
      */
-    public Map<UUID, UUID> uuidMap()
+    public UuidMap uuidMap()
     {
         return uuidMap;
     }
@@ -275,4 +398,15 @@ public final class PluginContext
                 ", uuidMap=" + uuidMap +
                 '}';
     }
+
+    /**
+     * Pattern rewriters compiled from the UUID map once it had seen {@code version} puts.
+     *
+     * @param version   the number of {@link #putUuidMapping(UUID, UUID)} calls compiled in
+     * @param mappings  the size of the UUID map when the batch started
+     * @param rewriters the rewriters compiled so far, by encodings
+     */
+    private record CompiledRewriters(long version, int mappings, Map<Set<UuidForm>, UuidRewriter> rewriters)
+    {
+    }
 }
@@ -1,29 +1,45 @@
 package me.pauleff.converter.api;
 
+import java.util.Collections;
 import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Holds identifying and scheduling information for a {@link MOOCPlugin}.
  * <p>
  * Priority is clamped to the inclusive range {@link #MIN_PRIORITY}–{@link #MAX_PRIORITY}
  * when the record is constructed. Factory methods supply a default priority when omitted.
+ * <p>
+ * Resource tags (see {@link PluginResources}) let the orchestrator run plugins of a phase
+ * side by side: a plugin waits only for higher-priority plugins it {@linkplain
+ * #conflictsWith(PluginMetadata) conflicts with}. Plugins without tags conflict with every
+ * other plugin, so they run alone, in priority order.
  *
  * @param id          a non-blank unique plugin identifier
  * @param displayName a human-readable name shown in logs or UI
  * @param description a short description of what the plugin does
  * @param priority    the execution priority; lower values run earlier after clamping
+ * @param reads       the resources the plugin reads and needs unchanged while it runs
+ * @param writes      the resources the plugin modifies
  */
-public record PluginMetadata(String id, String displayName, String description, int priority)
+public record PluginMetadata(
+        String id,
+        String displayName,
+        String description,
+        int priority,
+        Set<String> reads,
+        Set<String> writes)
 {
     public static final int MIN_PRIORITY = 0;
     public static final int MAX_PRIORITY = 100;
     public static final int DEFAULT_PRIORITY = 50;
 
     /**
-     * Validates non-null record components, rejects a blank {@code id}, and clamps
-     * {@code priority} into the allowed range.
+     * Validates non-null record components, rejects a blank {@code id}, clamps
+     * {@code priority} into the allowed range, and copies the resource tags.
      *
-     * @throws NullPointerException     if {@code id}, {@code displayName}, or {@code description} is {@code null}
+     * @throws NullPointerException     if any component or resource tag is {@code null}
      * @throws IllegalArgumentException if {@code id} is blank
      */
     public PluginMetadata
@@ -36,6 +52,21 @@ public record PluginMetadata(String id, String displayName, String description,
             throw new IllegalArgumentException("ID must not be blank.");
         }
         priority = clampPriority(priority);
+        reads = Set.copyOf(Objects.requireNonNull(reads, "Reads can't be null."));
+        writes = Set.copyOf(Objects.requireNonNull(writes, "Writes can't be null."));
+    }
+
+    /**
+     * Creates metadata without resource tags.
+     *
+     * @param id          a non-blank unique plugin identifier
+     * @param displayName a human-readable name shown in logs or UI
+     * @param description a short description of what the plugin does
+     * @param priority    the execution priority before clamping
+     */
+    public PluginMetadata(String id, String displayName, String description, int priority)
+    {
+        this(id, displayName, description, priority, Set.of(), Set.of());
     }
 
     /**
@@ -65,6 +96,66 @@ public record PluginMetadata(String id, String displayName, String description,
         return new PluginMetadata(id, displayName, description, priority);
     }
 
+    /**
+     * Returns a copy of this metadata that additionally reads the given resources.
+     *
+     * @param resources the resource tags, e.g. {@link PluginResources#UUID_MAP}
+     * @return the extended metadata
+     * @throws NullPointerException if a tag is {@code null}
+     */
+    public PluginMetadata reading(String... resources)
+    {
+        return new PluginMetadata(id, displayName, description, priority, union(reads, resources), writes);
+    }
+
+    /**
+     * Returns a copy of this metadata that additionally writes the given resources.
+     *
+     * @param resources the resource tags, e.g. {@link PluginResources#WORLD}
+     * @return the extended metadata
+     * @throws NullPointerException if a tag is {@code null}
+     */
+    public PluginMetadata writing(String... resources)
+    {
+        return new PluginMetadata(id, displayName, description, priority, reads, union(writes, resources));
+    }
+
+    /**
+     * Indicates whether the plugin declared any resource tags.
+     *
+     * @return {@code true} if {@link #reads()} or {@link #writes()} is non-empty
+     */
+    public boolean isTagged()
+    {
+        return !reads.isEmpty() || !writes.isEmpty();
+    }
+
+    /**
+     * Checks whether two plugins must not run at the same time.
+     * <p>
+     * Untagged plugins conflict with everything. Tagged plugins conflict when one writes a
+     * resource the other reads or writes; plugins that only share reads do not conflict.
+     *
+     * @param other the metadata of the other plugin
+     * @return {@code true} if the plugins must run one after the other
+     * @throws NullPointerException if {@code other} is {@code null}
+     */
+    public boolean conflictsWith(PluginMetadata other)
+    {
+        if (!isTagged() || !other.isTagged())
+        {
+            return true;
+        }
+        return !Collections.disjoint(writes, other.writes)
+                || !Collections.disjoint(writes, other.reads)
+                || !Collections.disjoint(reads, other.writes);
+    }
+
+    private static Set<String> union(Set<String> tags, String[] more)
+    {
+        return Set.copyOf(Stream.concat(tags.stream(), Stream.of(more)).toList());
+    }
+
     /**
      * Clamps a priority value to the inclusive {@link #MIN_PRIORITY}–{@link #MAX_PRIORITY} range.
      *
@@ -0,0 +1,63 @@
+package me.pauleff.converter.api;
+
+/**
+ * Names the shared resources that built-in plugins declare in {@link PluginMetadata#reads()}
+ * and {@link PluginMetadata#writes()}.
+ * <p>
+ * Tags are plain strings, so third-party plugins can use these or introduce their own.
+ * The UUID map is safe to extend concurrently, so a plugin that only adds mappings as a side
+ * effect of converting files reads {@link #UUID_MAP} rather than writing it. Plugins that
+ * need the map complete before others use it, such as importers, write it.
+ */
+public final class PluginResources
+{
+    /**
+     * The {@code server.properties} file.
+     */
+    public static final String SERVER_PROPERTIES = "server-properties";
+
+    /**
+     * The JSON files in the server root, such as {@code usercache.json} and {@code ops.json}.
+     */
+    public static final String SERVER_FILES = "server-files";
+
+    /**
+     * The detected {@link me.pauleff.converter.ServerType} on the context.
+     */
+    public static final String SERVER_TYPE = "server-type";
+
+    /**
+     * The detected {@link me.pauleff.converter.WorldFolderStructure} on the context.
+     */
+    public static final String WORLD_STRUCTURE = "world-structure";
+
+    /**
+     * The detected {@link me.pauleff.converter.SaveFileFormat} on the context.
+     */
+    public static final String SAVE_FORMAT = "save-format";
+
+    /**
+     * The UUID mappings on the context.
+     */
+    public static final String UUID_MAP = "uuid-map";
+
+    /**
+     * The world folder's player data, entities and other UUID-bearing files, including those
+     * in mod folders such as {@code ftbquests}.
+     */
+    public static final String WORLD = "world";
+
+    /**
+     * The FTB Quests progress files in the world folder.
+     */
+    public static final String FTB_QUESTS = "ftb-quests";
+
+    /**
+     * Standard input, for plugins that ask the user a question.
+     */
+    public static final String CONSOLE = "console";
+
+    private PluginResources()
+    {
+    }
+}
@@ -1,15 +1,22 @@
 package me.pauleff.converter.plugins;
 
+import me.pauleff.common.handlers.files.IndexedFile;
+import me.pauleff.common.handlers.files.WorldIndex;
 import me.pauleff.converter.ConverterV3;
+import me.pauleff.converter.WorldFolderStructure;
 import me.pauleff.converter.api.PluginContext;
 import me.pauleff.converter.api.ServerTypePlugin;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
- * Base {@link ServerTypePlugin} that converts all files under the world's dimension roots.
+ * Base {@link ServerTypePlugin} that converts all files under the world's UUID-bearing folders,
+ * plus the top-level files of its world folders.
  * <p>
  * Subclasses supply server-type compatibility and metadata; targeting and conversion
  * are shared via {@link ConverterV3}.
@@ -17,29 +24,56 @@ import java.util.List;
 abstract class AbstractWorldConversionPlugin implements ServerTypePlugin
 {
     /**
-     * Returns every regular file under the dimension root folders for the detected
-     * world folder structure.
+     * Returns the world folder as the sole target.
+     * <p>
+     * The folders to walk are resolved in {@link #run(PluginContext, List)}, since that
+     * requires listing the world folder.
      *
      * @param ctx the shared conversion context
-     * @return all regular files beneath the dimension roots; never {@code null}
+     * @return a single-element list containing the world folder
      */
     @Override
     public List<Path> setTargets(PluginContext ctx)
     {
-        return returnAllFilesInFolders(
-                ctx.worldFolderStructure().dimensionRootFolders(ctx.serverFolder(), ctx.worldFolder()));
+        return List.of(ctx.worldFolder());
     }
 
     /**
-     * Runs UUID conversion on the resolved existing world files via {@link ConverterV3}.
+     * Streams the top-level files of the detected structure's world folders, then the files
+     * under its UUID-bearing folders, into {@link ConverterV3}.
+     * <p>
+     * The folders are read through the context's {@link WorldIndex}, prefetched in parallel
+     * per folder while conversion consumes the walk. World folders are listed without
+     * descending into them, so trees such as {@code poi} are still skipped.
      *
      * @param ctx                     the shared conversion context
-     * @param resolvedExistingTargets the existing target paths to process
-     * @throws IOException if reading or writing world files fails
+     * @param resolvedExistingTargets unused; the folders are derived from {@code ctx}
+     * @throws IOException if listing the world folders or reading or writing world files fails
+     * @see me.pauleff.converter.WorldFolderStructure#uuidBearingFolders(WorldIndex, Path, Path)
+     * @see me.pauleff.converter.WorldFolderStructure#worldFolders(Path, Path)
      */
     @Override
     public void run(PluginContext ctx, List<Path> resolvedExistingTargets) throws IOException
     {
-        new ConverterV3(ctx).convert(resolvedExistingTargets);
+        WorldIndex index = ctx.worldIndex();
+        WorldFolderStructure structure = ctx.worldFolderStructure();
+        List<Path> folders = structure.uuidBearingFolders(index, ctx.serverFolder(), ctx.worldFolder());
+        logger().debug("UUID-bearing folders: {}", folders);
+        index.prefetch(folders);
+
+        List<IndexedFile> topLevelEntries = new ArrayList<>();
+        for (Path worldFolder : structure.worldFolders(ctx.serverFolder(), ctx.worldFolder()))
+        {
+            topLevelEntries.addAll(index.list(worldFolder));
+        }
+        Stream<IndexedFile> files = Stream.concat(topLevelEntries.stream(), folders.stream().flatMap(index::walk))
+                .filter(IndexedFile::isRegularFile);
+        try
+        {
+            new ConverterV3(ctx).convert(files);
+        } catch (UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
     }
 }
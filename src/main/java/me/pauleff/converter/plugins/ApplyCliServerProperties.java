@@ -4,6 +4,7 @@ import me.pauleff.common.handlers.files.ServerPropertiesFile;
 import me.pauleff.converter.api.DefaultPlugin;
 import me.pauleff.converter.api.PluginContext;
 import me.pauleff.converter.api.PluginMetadata;
+import me.pauleff.converter.api.PluginResources;
 
 import java.io.IOException;
 import java.nio.file.Path;
@@ -19,7 +20,8 @@ public class ApplyCliServerProperties implements DefaultPlugin
             "apply-cli-server-properties",
             "Apply CLI Server Properties",
             "Applies key=value pairs from the -properties CLI option to server.properties.",
-            4);
+            4)
+            .writing(PluginResources.SERVER_PROPERTIES);
 
     /**
      * {@inheritDoc}
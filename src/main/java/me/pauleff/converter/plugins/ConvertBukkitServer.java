@@ -2,6 +2,7 @@ package me.pauleff.converter.plugins;
 
 import me.pauleff.converter.ServerType;
 import me.pauleff.converter.api.PluginMetadata;
+import me.pauleff.converter.api.PluginResources;
 
 /**
  * Converts world files for a Bukkit-based Minecraft server (Bukkit, Spigot, Paper, and similar).
@@ -13,7 +14,9 @@ public class ConvertBukkitServer extends AbstractWorldConversionPlugin
     private static final PluginMetadata META = PluginMetadata.of(
             "bukkit-world",
             "Bukkit World",
-            "Conversion of basic world directories/files from a Bukkit Minecraft server (Bukkit, Paper, ...).");
+            "Conversion of basic world directories/files from a Bukkit Minecraft server (Bukkit, Paper, ...).")
+            .reading(PluginResources.SERVER_TYPE, PluginResources.WORLD_STRUCTURE, PluginResources.UUID_MAP)
+            .writing(PluginResources.WORLD);
 
     /**
      * Returns {@link ServerType#BUKKIT}.
@@ -2,6 +2,9 @@ package me.pauleff.converter.plugins;
 
 import me.pauleff.common.handlers.files.FileNames;
 import me.pauleff.common.handlers.files.FileRenamer;
+import me.pauleff.common.handlers.uuid.UuidForm;
+import me.pauleff.common.metrics.Metric;
+import me.pauleff.common.metrics.Metrics;
 import me.pauleff.converter.ConversionTarget;
 import me.pauleff.converter.ConverterV3;
 import me.pauleff.converter.ServerType;
@@ -9,17 +12,18 @@ import me.pauleff.converter.UUIDType;
 import me.pauleff.converter.api.MultiServerPlugin;
 import me.pauleff.converter.api.PluginContext;
 import me.pauleff.converter.api.PluginMetadata;
+import me.pauleff.converter.api.PluginResources;
 import net.querz.nbt.io.SNBTUtil;
 import net.querz.nbt.tag.CompoundTag;
 import net.querz.nbt.tag.Tag;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 
 import static me.pauleff.common.handlers.uuid.MinecraftUuids.*;
@@ -40,7 +44,10 @@ public class ConvertFtbQuests implements MultiServerPlugin
             "convert-ftb-quests",
             "Convert FTB Quests",
             "Converts FTB Quests progress SNBT files (uuid, name, claimed rewards) between online and offline mode.",
-            55);
+            55)
+            .reading(PluginResources.SERVER_TYPE, PluginResources.UUID_MAP)
+            // World conversion also walks world/ftbquests as a mod folder, so the two must not overlap.
+            .writing(PluginResources.FTB_QUESTS, PluginResources.WORLD);
 
     /**
      * {@inheritDoc}
@@ -134,7 +141,8 @@ public class ConvertFtbQuests implements MultiServerPlugin
      * Converts a single progress SNBT file when its UUID matches the conversion direction.
      * <p>
      * Parse, rename, and write failures are logged and treated as a skip rather than
-     * aborting the plugin.
+     * aborting the plugin. When the player's profile lookup fails, the file keeps its name
+     * and identity fields, but mapped UUIDs inside it are still rewritten.
      *
      * @param ctx  the shared conversion context
      * @param path the progress file to convert
@@ -142,8 +150,9 @@ public class ConvertFtbQuests implements MultiServerPlugin
      */
     private boolean convertProgressFile(PluginContext ctx, Path path)
     {
+        Metrics.increment(Metric.FILES_VISITED);
         String baseName = FileNames.stripExtension(path.getFileName().toString());
-        UUID sourceUuid = UUID.fromString(baseName);
+        UUID sourceUuid = parseValid(baseName);
         UUIDType sourceType = typeOf(sourceUuid);
 
         if (!((ctx.conversionTarget() == ConversionTarget.ONLINE && sourceType == UUIDType.OFFLINE)
@@ -155,14 +164,25 @@ public class ConvertFtbQuests implements MultiServerPlugin
 
         try
         {
-            UUID targetUuid = resolveTargetUuid(ctx, sourceUuid);
-            if (targetUuid == null)
+            UUID targetUuid;
+            try
             {
-                logger().warn("No mapping available for UUID {} in {}. Skipping.", sourceUuid, path.normalize());
-                return false;
+                targetUuid = resolveTargetUuid(ctx, sourceUuid);
+                if (targetUuid == null)
+                {
+                    logger().warn("No mapping available for UUID {} in {}. Skipping.", sourceUuid, path.normalize());
+                    return false;
+                }
+            } catch (IOException e)
+            {
+                logger().warn("Could not look up UUID {} in {}: {}. Keeping its name.",
+                        sourceUuid, path.normalize(), e.getMessage());
+                targetUuid = null;
             }
 
-            String snbt = Files.readString(path);
+            byte[] content = Files.readAllBytes(path);
+            Metrics.add(Metric.BYTES_READ, content.length);
+            String snbt = new String(content, StandardCharsets.UTF_8);
             Tag<?> root = SNBTUtil.fromSNBT(snbt, true);
             if (!(root instanceof CompoundTag compound))
             {
@@ -170,11 +190,23 @@ public class ConvertFtbQuests implements MultiServerPlugin
                 return false;
             }
 
-            updateIdentityFields(compound, targetUuid);
+            if (targetUuid != null)
+            {
+                updateIdentityFields(compound, targetUuid);
+            }
             String updatedSnbt = replaceMappedUuids(SNBTUtil.toSNBT(compound), ctx);
 
-            Path renamed = FileRenamer.renamePreservingExtension(path, targetUuid.toString());
-            Files.writeString(renamed, updatedSnbt);
+            Path destination = targetUuid == null
+                    ? path
+                    : FileRenamer.renamePreservingExtension(path, targetUuid.toString());
+            byte[] updated = updatedSnbt.getBytes(StandardCharsets.UTF_8);
+            Files.write(destination, updated);
+            Metrics.add(Metric.BYTES_WRITTEN, updated.length);
+            if (targetUuid == null)
+            {
+                logger().info("Updated UUID references in FTB Quests progress {}", sourceUuid);
+                return false;
+            }
             logger().info("Converted FTB Quests progress {} -> {}", sourceUuid, targetUuid);
             return true;
         } catch (IOException | RuntimeException e)
@@ -215,8 +247,8 @@ public class ConvertFtbQuests implements MultiServerPlugin
     /**
      * Replaces every mapped UUID string in {@code snbt} with its remapped counterpart.
      * <p>
-     * Both hyphenated and dashless forms are replaced so nested references remain consistent
-     * with the renamed progress file.
+     * Hyphenated and dashless forms are replaced so nested references remain consistent with
+     * the renamed progress file.
      *
      * @param snbt the SNBT text to rewrite
      * @param ctx  the shared conversion context holding UUID mappings
@@ -224,21 +256,7 @@ public class ConvertFtbQuests implements MultiServerPlugin
      */
     private String replaceMappedUuids(String snbt, PluginContext ctx)
     {
-        String updated = snbt;
-        for (Map.Entry<UUID, UUID> entry : ctx.uuidMap().entrySet())
-        {
-            UUID from = entry.getKey();
-            UUID to = entry.getValue();
-            if (to == null)
-            {
-                continue;
-            }
-            String fromHyphen = from.toString();
-            String toHyphen = to.toString();
-            updated = updated.replace(fromHyphen, toHyphen);
-            updated = updated.replace(dashless(from), dashless(to));
-        }
-        return updated;
+        return ctx.uuidRewriter(UuidForm.HYPHENATED, UuidForm.DASHLESS).rewrite(snbt);
     }
 
     /**
@@ -2,6 +2,7 @@ package me.pauleff.converter.plugins;
 
 import me.pauleff.converter.ServerType;
 import me.pauleff.converter.api.PluginMetadata;
+import me.pauleff.converter.api.PluginResources;
 
 /**
  * Converts world files for a modded Minecraft server (Forge, Fabric, and similar).
@@ -13,7 +14,9 @@ public class ConvertModdedServer extends AbstractWorldConversionPlugin
     private static final PluginMetadata META = PluginMetadata.of(
             "modded-world",
             "Modded World",
-            "Conversion of basic world directories/files from a modded Minecraft server (Forge, Fabric, ...).");
+            "Conversion of basic world directories/files from a modded Minecraft server (Forge, Fabric, ...).")
+            .reading(PluginResources.SERVER_TYPE, PluginResources.WORLD_STRUCTURE, PluginResources.UUID_MAP)
+            .writing(PluginResources.WORLD);
 
     /**
      * Returns {@link ServerType#MODDED}.
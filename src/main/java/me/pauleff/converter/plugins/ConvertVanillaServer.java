@@ -2,6 +2,7 @@ package me.pauleff.converter.plugins;
 
 import me.pauleff.converter.ServerType;
 import me.pauleff.converter.api.PluginMetadata;
+import me.pauleff.converter.api.PluginResources;
 
 /**
  * Converts world files for a Vanilla Minecraft server.
@@ -13,7 +14,9 @@ public class ConvertVanillaServer extends AbstractWorldConversionPlugin
     private static final PluginMetadata META = PluginMetadata.of(
             "vanilla-world",
             "Vanilla World",
-            "Conversion of basic world directories/files from a vanilla Minecraft server.");
+            "Conversion of basic world directories/files from a vanilla Minecraft server.")
+            .reading(PluginResources.SERVER_TYPE, PluginResources.WORLD_STRUCTURE, PluginResources.UUID_MAP)
+            .writing(PluginResources.WORLD);
 
     /**
      * Returns {@link ServerType#VANILLA}.
@@ -2,9 +2,13 @@ package me.pauleff.converter.plugins;
 
 import me.pauleff.common.handlers.NBTHandler;
 import me.pauleff.common.handlers.files.FileNames;
+import me.pauleff.common.handlers.files.IndexedFile;
+import me.pauleff.common.metrics.Metric;
+import me.pauleff.common.metrics.Metrics;
 import me.pauleff.converter.api.DefaultPlugin;
 import me.pauleff.converter.api.PluginContext;
 import me.pauleff.converter.api.PluginMetadata;
+import me.pauleff.converter.api.PluginResources;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -17,6 +21,7 @@ import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import static me.pauleff.common.handlers.uuid.MinecraftUuids.isValid;
 
@@ -32,7 +37,9 @@ public class CopyCliPlayerData implements DefaultPlugin
             "copy-cli-player-data",
             "Copy CLI Player Data",
             "Copies player data from a source world to the current world when -copy <world-name> is set.",
-            5);
+            5)
+            .reading(PluginResources.WORLD_STRUCTURE)
+            .writing(PluginResources.WORLD, PluginResources.CONSOLE);
 
     private static final Set<String> IGNORED_FILE_EXTENSIONS = Set.of(
             "mcr", "mca", "jar", "gz", "lock", "sh", "bat", "log", "mcmeta",
@@ -198,47 +205,59 @@ public class CopyCliPlayerData implements DefaultPlugin
                 continue;
             }
 
-            for (Path currentPath : returnAllFilesInFolders(List.of(sourceRoot)))
+            try (Stream<IndexedFile> sourceFiles = ctx.worldIndex().walk(sourceRoot))
             {
-                if (!Files.isRegularFile(currentPath) || hasIgnoredExtension(currentPath))
+                for (IndexedFile sourceFile : (Iterable<IndexedFile>) sourceFiles::iterator)
                 {
-                    continue;
-                }
-                logger().debug("Processing file: {}", currentPath);
-                try
-                {
-                    Path finalPath = destRoot.resolve(sourceRoot.relativize(currentPath));
-
-                    if (isPlayerDataFile(currentPath))
+                    Path currentPath = sourceFile.path();
+                    if (!sourceFile.isRegularFile() || hasIgnoredExtension(currentPath))
                     {
-                        if (NBTHandler.isNBTFile(currentPath.toFile()))
-                        {
-                            logger().debug("Copying NBT file to {}", finalPath.normalize());
-                            Files.createDirectories(finalPath.getParent());
-                            NBTHandler.copyPlayerDataNBT(currentPath, finalPath);
-                            movedFiles++;
-                            continue;
-                        }
-                    } else
+                        continue;
+                    }
+                    Metrics.increment(Metric.FILES_VISITED);
+                    logger().debug("Processing file: {}", currentPath);
+                    try
                     {
-                        String fileName = FileNames.stripExtension(currentPath.getFileName().toString());
-                        if (!isValid(fileName))
+                        Path finalPath = destRoot.resolve(sourceRoot.relativize(currentPath));
+
+                        if (isPlayerDataFile(currentPath))
+                        {
+                            // Only the header is read here; the document is parsed once, while merging.
+                            if (NBTHandler.probe(currentPath)
+                                    .filter(header -> header.hasCompoundRoot() && header.isReadableByNBTUtil())
+                                    .isPresent())
+                            {
+                                logger().debug("Copying NBT file to {}", finalPath.normalize());
+                                Files.createDirectories(finalPath.getParent());
+                                NBTHandler.copyPlayerDataNBT(currentPath, finalPath,
+                                        ctx.parsedArguments().compressionLevel());
+                                movedFiles++;
+                                continue;
+                            }
+                        } else
                         {
-                            continue;
+                            String fileName = FileNames.stripExtension(currentPath.getFileName().toString());
+                            if (!isValid(fileName))
+                            {
+                                continue;
+                            }
                         }
-                    }
 
-                    logger().debug("Copying file to {}", finalPath.normalize());
-                    Files.createDirectories(finalPath.getParent());
-                    Files.copy(currentPath, finalPath, StandardCopyOption.REPLACE_EXISTING);
-                    movedFiles++;
-                } catch (IllegalArgumentException | IOException e)
-                {
-                    logger().warn("Skipping file {} due to an error: {}", currentPath.normalize(), e.getMessage());
+                        logger().debug("Copying file to {}", finalPath.normalize());
+                        Files.createDirectories(finalPath.getParent());
+                        Files.copy(currentPath, finalPath, StandardCopyOption.REPLACE_EXISTING);
+                        Metrics.add(Metric.BYTES_READ, sourceFile.attributes().size());
+                        Metrics.add(Metric.BYTES_WRITTEN, sourceFile.attributes().size());
+                        movedFiles++;
+                    } catch (IllegalArgumentException | IOException e)
+                    {
+                        logger().warn("Skipping file {} due to an error: {}", currentPath.normalize(), e.getMessage());
+                    }
                 }
             }
         }
 
+        ctx.worldIndex().invalidateTree(destWorldFolder);
         logger().info("Copied {} files to {}", movedFiles, destWorldFolder.normalize());
     }
 }
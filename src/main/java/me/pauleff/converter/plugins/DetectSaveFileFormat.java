@@ -1,15 +1,17 @@
 package me.pauleff.converter.plugins;
 
+import me.pauleff.common.handlers.files.IndexedFile;
+import me.pauleff.common.handlers.files.WorldIndex;
 import me.pauleff.converter.api.DefaultPlugin;
 import me.pauleff.converter.api.PluginContext;
 import me.pauleff.converter.api.PluginMetadata;
+import me.pauleff.converter.api.PluginResources;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Locale;
-import java.util.stream.Stream;
 
 import static me.pauleff.converter.SaveFileFormat.ANVIL;
 import static me.pauleff.converter.SaveFileFormat.MC_REGION;
@@ -27,7 +29,8 @@ public class DetectSaveFileFormat implements DefaultPlugin
             "detect-world-savefile-format",
             "Detect World save file format",
             "Detect the Minecraft's world file format (Alpha, McRegion, Anvil...).",
-            1);
+            1)
+            .writing(PluginResources.SAVE_FORMAT);
 
     /**
      * {@inheritDoc}
@@ -54,7 +57,7 @@ public class DetectSaveFileFormat implements DefaultPlugin
      * Sets the save file format on the context, or exits if McRegion (pre-UUID) is found.
      *
      * @param ctx                     the shared conversion context
-     * @param resolvedExistingTargets unused; detection walks the world folder from {@code ctx}
+     * @param resolvedExistingTargets unused; detection queries the world folder from {@code ctx}
      * @throws IOException if walking the world folder fails
      */
     @Override
@@ -77,6 +80,10 @@ public class DetectSaveFileFormat implements DefaultPlugin
 
     /**
      * Indicates whether any Anvil ({@code .mca}) region files exist under the world folder.
+     * <p>
+     * Checks the overworld {@code region} folder first, which settles almost every world
+     * with a single listing, and only then walks the rest of the world through the
+     * {@link WorldIndex}, stopping at the first match.
      *
      * @param ctx the shared conversion context
      * @return {@code true} if at least one {@code .mca} file is found; {@code false} otherwise
@@ -84,11 +91,22 @@ public class DetectSaveFileFormat implements DefaultPlugin
      */
     private boolean hasAnvilRegionFiles(PluginContext ctx) throws IOException
     {
-        try (Stream<Path> pathStream = Files.walk(ctx.worldFolder()))
+        WorldIndex index = ctx.worldIndex();
+        if (index.list(ctx.worldFolder().resolve("region")).stream().anyMatch(DetectSaveFileFormat::isAnvilFile))
         {
-            return pathStream.filter(Files::isRegularFile)
-                    .map(path -> path.getFileName().toString().toLowerCase(Locale.ROOT))
-                    .anyMatch(name -> name.endsWith(".mca"));
+            return true;
         }
+        try
+        {
+            return index.walk(ctx.worldFolder()).anyMatch(DetectSaveFileFormat::isAnvilFile);
+        } catch (UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+    }
+
+    private static boolean isAnvilFile(IndexedFile entry)
+    {
+        return entry.isRegularFile() && entry.fileName().toLowerCase(Locale.ROOT).endsWith(".mca");
     }
 }
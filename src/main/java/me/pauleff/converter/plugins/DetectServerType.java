@@ -3,6 +3,7 @@ package me.pauleff.converter.plugins;
 import me.pauleff.converter.api.DefaultPlugin;
 import me.pauleff.converter.api.PluginContext;
 import me.pauleff.converter.api.PluginMetadata;
+import me.pauleff.converter.api.PluginResources;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -24,7 +25,8 @@ public class DetectServerType implements DefaultPlugin
             "detect-server-type",
             "Detect Server Type",
             "Detect the Minecraft server type (Vanilla, Bukkit, Modded..).",
-            0);
+            0)
+            .writing(PluginResources.SERVER_TYPE);
 
     /**
      * {@inheritDoc}
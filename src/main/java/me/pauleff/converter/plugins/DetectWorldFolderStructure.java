@@ -1,16 +1,16 @@
 package me.pauleff.converter.plugins;
 
 import me.pauleff.common.exceptions.UnknownWorldFolderStructureException;
+import me.pauleff.common.handlers.files.IndexedFile;
 import me.pauleff.converter.api.DefaultPlugin;
 import me.pauleff.converter.api.PluginContext;
 import me.pauleff.converter.api.PluginMetadata;
+import me.pauleff.converter.api.PluginResources;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Locale;
-import java.util.stream.Stream;
 
 import static me.pauleff.converter.WorldFolderStructure.*;
 
@@ -27,7 +27,8 @@ public class DetectWorldFolderStructure implements DefaultPlugin
             "detect-world-format",
             "Detect World Format",
             "Detect the Minecraft world format (single folder, _ separated dimension folders, single folder 2026.1 style).",
-            1);
+            1)
+            .writing(PluginResources.WORLD_STRUCTURE);
 
     /**
      * {@inheritDoc}
@@ -89,12 +90,10 @@ public class DetectWorldFolderStructure implements DefaultPlugin
      */
     private boolean hasSingleWorldFolder(PluginContext ctx) throws IOException
     {
-        try (Stream<Path> pathStream = Files.list(ctx.serverFolder()))
-        {
-            return pathStream.filter(Files::isDirectory)
-                    .map(path -> path.getFileName().toString().toLowerCase(Locale.ROOT))
-                    .noneMatch(name -> name.contains("_nether") || name.contains("_the_end"));
-        }
+        return ctx.worldIndex().list(ctx.serverFolder()).stream()
+                .filter(IndexedFile::isDirectory)
+                .map(entry -> entry.fileName().toLowerCase(Locale.ROOT))
+                .noneMatch(name -> name.contains("_nether") || name.contains("_the_end"));
     }
 
     /**
@@ -106,12 +105,10 @@ public class DetectWorldFolderStructure implements DefaultPlugin
      */
     private boolean hasDIMFoldersInWorldFolder(PluginContext ctx) throws IOException
     {
-        try (Stream<Path> pathStream = Files.list(ctx.worldFolder()))
-        {
-            return pathStream.filter(Files::isDirectory)
-                    .map(path -> path.getFileName().toString().toLowerCase(Locale.ROOT))
-                    .anyMatch(name -> name.equals("dim1") || name.equals("dim-1"));
-        }
+        return ctx.worldIndex().list(ctx.worldFolder()).stream()
+                .filter(IndexedFile::isDirectory)
+                .map(entry -> entry.fileName().toLowerCase(Locale.ROOT))
+                .anyMatch(name -> name.equals("dim1") || name.equals("dim-1"));
     }
 
     /**
@@ -123,20 +120,25 @@ public class DetectWorldFolderStructure implements DefaultPlugin
      */
     private boolean hasMinecraftDimensionsFolderInWorldFolder(PluginContext ctx) throws IOException
     {
-        try (Stream<Path> pathStream = Files.list(ctx.worldFolder()))
+        for (IndexedFile entry : ctx.worldIndex().list(ctx.worldFolder()))
         {
-            return pathStream.filter(Files::isDirectory)
-                    .filter(path -> path.getFileName().toString().equalsIgnoreCase("dimensions"))
-                    .anyMatch(dimensionsPath -> {
-                        try (Stream<Path> dimensionsContents = Files.list(dimensionsPath))
-                        {
-                            return dimensionsContents.filter(Files::isDirectory)
-                                    .anyMatch(path -> path.getFileName().toString().equalsIgnoreCase("minecraft"));
-                        } catch (IOException e)
-                        {
-                            return false;
-                        }
-                    });
+            if (!entry.isDirectory() || !entry.fileName().equalsIgnoreCase("dimensions"))
+            {
+                continue;
+            }
+            try
+            {
+                if (ctx.worldIndex().list(entry.path()).stream()
+                        .filter(IndexedFile::isDirectory)
+                        .anyMatch(dimension -> dimension.fileName().equalsIgnoreCase("minecraft")))
+                {
+                    return true;
+                }
+            } catch (IOException e)
+            {
+                // An unreadable dimensions folder counts as absent.
+            }
         }
+        return false;
     }
 }
@@ -0,0 +1,82 @@
+package me.pauleff.converter.plugins;
+
+import me.pauleff.common.handlers.files.UuidMappingFile;
+import me.pauleff.converter.api.DefaultPlugin;
+import me.pauleff.converter.api.PluginContext;
+import me.pauleff.converter.api.PluginMetadata;
+import me.pauleff.converter.api.PluginResources;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes the final context UUID map to the file given with {@code -exportMappings <file>}.
+ * <p>
+ * Run by the orchestrator once conversion has finished, so mappings discovered during
+ * conversion are included. The file can be fed to {@link ImportUuidMappings} on later runs.
+ */
+public class ExportUuidMappings implements DefaultPlugin
+{
+    private static final PluginMetadata META = PluginMetadata.of(
+            "export-uuid-mappings",
+            "Export UUID mappings",
+            "Writes all UUID mappings to the file given with -exportMappings <file>.",
+            PluginMetadata.MAX_PRIORITY)
+            .reading(PluginResources.UUID_MAP);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PluginMetadata metadata()
+    {
+        return META;
+    }
+
+    /**
+     * Returns {@code true} when a conversion was requested together with an export file.
+     *
+     * @param ctx the shared conversion context
+     * @return {@code true} if mappings should be exported; {@code false} otherwise
+     */
+    @Override
+    public boolean isEnabled(PluginContext ctx)
+    {
+        return ctx.isConversionOperation() && ctx.parsedArguments().exportMappings().isPresent();
+    }
+
+    /**
+     * Returns the folder of the export file, which must exist for the file to be written.
+     * <p>
+     * The export file itself usually does not exist yet, so it cannot be the target.
+     *
+     * @param ctx the shared conversion context
+     * @return a single-element list containing the export file's folder
+     */
+    @Override
+    public List<Path> setTargets(PluginContext ctx)
+    {
+        return List.of(exportFile(ctx).getParent());
+    }
+
+    /**
+     * Writes the context UUID map to the export file.
+     *
+     * @param ctx                     the shared conversion context
+     * @param resolvedExistingTargets the export file's folder
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void run(PluginContext ctx, List<Path> resolvedExistingTargets) throws IOException
+    {
+        Path path = exportFile(ctx);
+        UuidMappingFile.write(path, ctx.uuidMap());
+        logger().info("Exported {} UUID mapping(s) to {}.", ctx.uuidMap().size(), path.normalize());
+    }
+
+    private static Path exportFile(PluginContext ctx)
+    {
+        return ctx.parsedArguments().exportMappings().orElseThrow().toAbsolutePath().normalize();
+    }
+}
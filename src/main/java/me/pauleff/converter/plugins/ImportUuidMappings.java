@@ -0,0 +1,104 @@
+package me.pauleff.converter.plugins;
+
+import me.pauleff.common.handlers.files.UuidMappingFile;
+import me.pauleff.converter.ConversionTarget;
+import me.pauleff.converter.UUIDType;
+import me.pauleff.converter.api.DefaultPlugin;
+import me.pauleff.converter.api.PluginContext;
+import me.pauleff.converter.api.PluginMetadata;
+import me.pauleff.converter.api.PluginResources;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static me.pauleff.common.handlers.uuid.MinecraftUuids.typeOf;
+
+/**
+ * Prefills the context UUID map from a mapping file given with {@code -importMappings <file>}.
+ * <p>
+ * Runs before {@link PrefetchUsercache}, which then skips every player whose UUID the file
+ * already maps, so a mapping exported from an earlier run (see {@link ExportUuidMappings})
+ * can be replayed on other servers without any network lookups.
+ * <p>
+ * Only mappings whose original UUID is of the type being converted from are imported, so a
+ * file exported by a conversion in the opposite direction can't map players back.
+ */
+public class ImportUuidMappings implements DefaultPlugin
+{
+    private static final PluginMetadata META = PluginMetadata.of(
+            "import-uuid-mappings",
+            "Import UUID mappings",
+            "Reads UUID mappings from the file given with -importMappings <file>.",
+            2)
+            .writing(PluginResources.UUID_MAP);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PluginMetadata metadata()
+    {
+        return META;
+    }
+
+    /**
+     * Returns {@code true} when a conversion was requested together with a mapping file.
+     *
+     * @param ctx the shared conversion context
+     * @return {@code true} if mappings should be imported; {@code false} otherwise
+     */
+    @Override
+    public boolean isEnabled(PluginContext ctx)
+    {
+        return ctx.isConversionOperation() && ctx.parsedArguments().importMappings().isPresent();
+    }
+
+    /**
+     * Returns the mapping file, resolved against the working directory.
+     *
+     * @param ctx the shared conversion context
+     * @return a single-element list containing the mapping file path
+     */
+    @Override
+    public List<Path> setTargets(PluginContext ctx)
+    {
+        return ctx.parsedArguments().importMappings()
+                .map(path -> List.of(path.toAbsolutePath()))
+                .orElse(List.of());
+    }
+
+    /**
+     * Stores every mapping of the resolved file on the context, skipping with a warning those
+     * whose original UUID is not of the type being converted from.
+     *
+     * @param ctx                     the shared conversion context
+     * @param resolvedExistingTargets the existing mapping file
+     * @throws IOException if the file cannot be read or contains an invalid mapping
+     */
+    @Override
+    public void run(PluginContext ctx, List<Path> resolvedExistingTargets) throws IOException
+    {
+        for (Path path : resolvedExistingTargets)
+        {
+            Map<UUID, UUID> mappings = UuidMappingFile.read(path);
+            UUIDType sourceType = ctx.conversionTarget() == ConversionTarget.ONLINE ? UUIDType.OFFLINE : UUIDType.ONLINE;
+            int imported = 0;
+            for (Map.Entry<UUID, UUID> mapping : mappings.entrySet())
+            {
+                if (typeOf(mapping.getKey()) != sourceType)
+                {
+                    logger().warn("Skipping mapping {} -> {} from {}: converting to {} needs {} original UUIDs.",
+                            mapping.getKey(), mapping.getValue(), path.normalize(),
+                            ctx.conversionTarget().name(), sourceType.name());
+                    continue;
+                }
+                ctx.putUuidMapping(mapping.getKey(), mapping.getValue());
+                imported++;
+            }
+            logger().info("Imported {} of {} UUID mapping(s) from {}.", imported, mappings.size(), path.normalize());
+        }
+    }
+}
@@ -1,27 +1,32 @@
 package me.pauleff.converter.plugins;
 
 import me.pauleff.common.handlers.files.UsercacheFile;
+import me.pauleff.common.handlers.files.UsercacheFile.Player;
+import me.pauleff.common.handlers.uuid.OnlineProfileLookup;
 import me.pauleff.converter.ConversionTarget;
 import me.pauleff.converter.api.DefaultPlugin;
 import me.pauleff.converter.api.PluginContext;
 import me.pauleff.converter.api.PluginMetadata;
-import org.json.JSONArray;
-import org.json.JSONObject;
+import me.pauleff.converter.api.PluginResources;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static me.pauleff.common.handlers.uuid.MinecraftUuids.offlineFromName;
-import static me.pauleff.common.handlers.uuid.OnlineProfileLookup.nameToOnlineUuid;
+import static me.pauleff.common.handlers.uuid.OnlineProfileLookup.namesToOnlineUuidsInBackground;
 
 /**
  * Prefills the context UUID map from {@code usercache.json} for an online/offline conversion.
  * <p>
  * Exits early when {@code usercache.json} is missing, which usually indicates a pre-1.7.6 server
- * that does not need UUID conversion.
+ * that does not need UUID conversion. Players whose UUID is already mapped, for example by
+ * {@link ImportUuidMappings}, are left as they are and not looked up.
  */
 public class PrefetchUsercache implements DefaultPlugin
 {
@@ -29,7 +34,9 @@ public class PrefetchUsercache implements DefaultPlugin
             "prefetch-usercache",
             "Prefetch usercache",
             "Reads usercache.json and fills UUID mappings for online/offline conversion.",
-            2);
+            2)
+            .reading(PluginResources.SERVER_FILES)
+            .writing(PluginResources.UUID_MAP);
 
     /**
      * {@inheritDoc}
@@ -97,51 +104,87 @@ public class PrefetchUsercache implements DefaultPlugin
 
     /**
      * Reads players from a usercache file and maps each UUID toward the conversion target mode.
+     * <p>
+     * The file is streamed one entry at a time. For online conversion, names are collected
+     * into batches of {@link OnlineProfileLookup#MAX_BULK_NAMES}, and each batch is looked up in
+     * the background as soon as it is full, so lookups overlap with reading the rest of the file.
+     * Requests are sent concurrently within the API's rate limit.
      *
      * @param path the usercache.json path
      * @param ctx  the shared conversion context
      */
     private void prefetchFromUsercache(Path path, PluginContext ctx)
     {
-        JSONArray knownPlayers = UsercacheFile.loadArray(path);
-        int prefetched = 0;
+        AtomicInteger skipped = new AtomicInteger();
+        AtomicInteger prefetched = new AtomicInteger();
+        List<Player> batch = new ArrayList<>();
+        List<CompletableFuture<Void>> lookups = new ArrayList<>();
 
-        for (Object obj : knownPlayers)
+        UsercacheFile.of(path).forEachPlayer(player ->
         {
-            if (!(obj instanceof JSONObject knownPlayer))
+            if (ctx.getTargetUuid(player.uuid()) != null)
             {
-                continue;
+                skipped.incrementAndGet();
+            } else if (ctx.conversionTarget() == ConversionTarget.OFFLINE)
+            {
+                UUID offlineUUID = offlineFromName(player.name());
+                ctx.putUuidMapping(player.uuid(), offlineUUID);
+                logger().info("Prefetched {} -> {}", player.name(), offlineUUID);
+                prefetched.incrementAndGet();
+            } else
+            {
+                batch.add(player);
+                if (batch.size() == OnlineProfileLookup.MAX_BULK_NAMES)
+                {
+                    lookups.add(lookUpOnline(List.copyOf(batch), ctx, prefetched));
+                    batch.clear();
+                }
             }
+        });
+        if (!batch.isEmpty())
+        {
+            lookups.add(lookUpOnline(List.copyOf(batch), ctx, prefetched));
+        }
+        lookups.forEach(CompletableFuture::join);
 
-            try
-            {
-                String playerName = knownPlayer.getString("name");
-                UUID playerUUID = UUID.fromString(knownPlayer.getString("uuid"));
+        if (skipped.get() > 0)
+        {
+            logger().info("Skipped {} already mapped player(s).", skipped.get());
+        }
+        logger().info("Prefetched {} player profile(s) from usercache.", prefetched.get());
+    }
 
-                if (ctx.conversionTarget() == ConversionTarget.ONLINE)
+    /**
+     * Starts looking up the online UUIDs of a batch of players and stores the mappings found.
+     *
+     * @return a future completing once the mappings are stored
+     */
+    private CompletableFuture<Void> lookUpOnline(List<Player> players, PluginContext ctx, AtomicInteger prefetched)
+    {
+        return namesToOnlineUuidsInBackground(players.stream().map(Player::name).distinct().toList())
+                .thenAccept(onlineUuids ->
                 {
-                    UUID onlineUUID = nameToOnlineUuid(playerName);
-                    if (onlineUUID == null)
+                    for (Player player : players)
                     {
-                        logger().warn("Skipping '{}' — no online UUID found (Mojang API).", playerName);
-                        continue;
+                        prefetched.addAndGet(applyOnlineUuid(player, onlineUuids.get(player.name()), ctx));
                     }
-                    ctx.putUuidMapping(playerUUID, onlineUUID);
-                    logger().info("Prefetched {} -> {}", playerName, onlineUUID);
-                    prefetched++;
-                } else
-                {
-                    UUID offlineUUID = offlineFromName(playerName);
-                    ctx.putUuidMapping(playerUUID, offlineUUID);
-                    logger().info("Prefetched {} -> {}", playerName, offlineUUID);
-                    prefetched++;
-                }
-            } catch (IOException e)
-            {
-                logger().warn("There was an error whilst fetching information from the Mojang API.", e);
-            }
-        }
+                });
+    }
 
-        logger().info("Prefetched {} player profile(s) from usercache.", prefetched);
+    /**
+     * Stores the mapping to a player's online UUID, or logs that none was found.
+     *
+     * @return {@code 1} if a mapping was stored; {@code 0} otherwise
+     */
+    private int applyOnlineUuid(Player player, UUID onlineUUID, PluginContext ctx)
+    {
+        if (onlineUUID == null)
+        {
+            logger().warn("Skipping '{}' — no online UUID found (Mojang API).", player.name());
+            return 0;
+        }
+        ctx.putUuidMapping(player.uuid(), onlineUUID);
+        logger().info("Prefetched {} -> {}", player.name(), onlineUUID);
+        return 1;
     }
 }
@@ -1,15 +1,17 @@
 package me.pauleff.converter.plugins;
 
+import me.pauleff.common.handlers.uuid.UuidForm;
+import me.pauleff.common.metrics.Metric;
+import me.pauleff.common.metrics.Metrics;
 import me.pauleff.converter.api.DefaultPlugin;
 import me.pauleff.converter.api.PluginContext;
 import me.pauleff.converter.api.PluginMetadata;
+import me.pauleff.converter.api.PluginResources;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
-import java.util.Map;
-import java.util.UUID;
 
 /**
  * Rewrites remapped player UUIDs in root server JSON files such as whitelist, bans, and ops.
@@ -20,7 +22,9 @@ public class UpdateDefaultServerFiles implements DefaultPlugin
             "update-default-server-files",
             "Update default server files",
             "Rewrites UUIDs in root server files (whitelist, bans, ops, etc.).",
-            3);
+            3)
+            .reading(PluginResources.UUID_MAP)
+            .writing(PluginResources.SERVER_FILES);
 
     private static final List<String> SERVER_FILE_NAMES = List.of(
             "whitelist.json",
@@ -96,19 +100,16 @@ public class UpdateDefaultServerFiles implements DefaultPlugin
      */
     private void updateUuidReferences(PluginContext ctx, Path path) throws IOException
     {
-        String fileContent = Files.readString(path);
-
-        for (Map.Entry<UUID, UUID> entry : ctx.uuidMap().entrySet())
+        Metrics.increment(Metric.FILES_VISITED);
+        byte[] fileContent = Files.readAllBytes(path);
+        Metrics.add(Metric.BYTES_READ, fileContent.length);
+        if (ctx.uuidRewriter(UuidForm.HYPHENATED).rewriteInPlace(fileContent) == 0)
         {
-            UUID targetUuid = ctx.getTargetUuid(entry.getKey());
-            if (targetUuid == null)
-            {
-                continue;
-            }
-            fileContent = fileContent.replace(entry.getKey().toString(), targetUuid.toString());
+            return;
         }
 
-        Files.writeString(path, fileContent);
+        Files.write(path, fileContent);
+        Metrics.add(Metric.BYTES_WRITTEN, fileContent.length);
         logger().debug("Updated file: {}", ctx.serverFolder().relativize(path));
     }
 }
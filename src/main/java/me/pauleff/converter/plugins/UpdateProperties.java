@@ -5,6 +5,7 @@ import me.pauleff.converter.ConversionTarget;
 import me.pauleff.converter.api.DefaultPlugin;
 import me.pauleff.converter.api.PluginContext;
 import me.pauleff.converter.api.PluginMetadata;
+import me.pauleff.converter.api.PluginResources;
 
 import java.io.IOException;
 import java.nio.file.Path;
@@ -19,7 +20,8 @@ public class UpdateProperties implements DefaultPlugin
             "update-properties",
             "Update Properties",
             "Sets online-mode from the conversion direction.",
-            4);
+            4)
+            .writing(PluginResources.SERVER_PROPERTIES);
 
     /**
      * {@inheritDoc}
@@ -0,0 +1,74 @@
+package me.pauleff.common.handlers;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryBudgetTest
+{
+    @Nested
+    class Reserve
+    {
+        @Test
+        void returnsBytes_when_closed()
+        {
+            MemoryBudget budget = new MemoryBudget(8 * 1024);
+
+            try (MemoryBudget.Reservation _ = budget.reserve(3 * 1024))
+            {
+                assertEquals(5 * 1024, budget.availableBytes());
+            }
+            assertEquals(8 * 1024, budget.availableBytes());
+        }
+
+        @Test
+        void releasesOnlyOnce_when_closedTwice()
+        {
+            MemoryBudget budget = new MemoryBudget(8 * 1024);
+            MemoryBudget.Reservation first = budget.reserve(4 * 1024);
+            MemoryBudget.Reservation second = budget.reserve(4 * 1024);
+
+            first.close();
+            first.close();
+
+            assertEquals(4 * 1024, budget.availableBytes());
+            second.close();
+        }
+
+        @Test
+        void clampsToWholeBudget_when_requestIsLarger()
+        {
+            MemoryBudget budget = new MemoryBudget(4 * 1024);
+
+            try (MemoryBudget.Reservation _ = budget.reserve(Long.MAX_VALUE / 2))
+            {
+                assertEquals(0, budget.availableBytes());
+            }
+        }
+
+        @Test
+        void blocks_until_enoughBytesAreReleased() throws Exception
+        {
+            MemoryBudget budget = new MemoryBudget(4 * 1024);
+            MemoryBudget.Reservation held = budget.reserve(3 * 1024);
+
+            CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> budget.reserve(2 * 1024).close());
+            assertThrows(TimeoutException.class, () -> waiting.get(100, TimeUnit.MILLISECONDS));
+
+            held.close();
+            waiting.get(5, TimeUnit.SECONDS);
+            assertEquals(4 * 1024, budget.availableBytes());
+        }
+    }
+
+    @Test
+    void rejectsNonPositiveBudget()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new MemoryBudget(0));
+    }
+}
@@ -0,0 +1,145 @@
+package me.pauleff.common.handlers;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NBTHandlerTest
+{
+    // Compound root named "" holding a single TAG_End.
+    private static final byte[] EMPTY_COMPOUND = {0x0A, 0x00, 0x00, 0x00};
+
+    @TempDir
+    Path tempDir;
+
+    private static byte[] gzip(byte[] data) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes))
+        {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] zlib(byte[] data) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new DeflaterOutputStream(bytes))
+        {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Nested
+    class Probe
+    {
+        @Test
+        void detectsGzipCompound() throws IOException
+        {
+            Path file = Files.write(tempDir.resolve("player.dat"), gzip(EMPTY_COMPOUND));
+
+            assertEquals(Optional.of(new NBTHeader(NBTCompression.GZIP, 10, 0)), NBTHandler.probe(file));
+        }
+
+        @Test
+        void detectsZlibCompound() throws IOException
+        {
+            Path file = Files.write(tempDir.resolve("chunk.nbt"), zlib(EMPTY_COMPOUND));
+
+            assertEquals(Optional.of(new NBTHeader(NBTCompression.ZLIB, 10, 0)), NBTHandler.probe(file));
+        }
+
+        @Test
+        void detectsUncompressedCompound() throws IOException
+        {
+            Path file = Files.write(tempDir.resolve("structure.nbt"), EMPTY_COMPOUND);
+
+            assertEquals(Optional.of(new NBTHeader(NBTCompression.NONE, 10, 0)), NBTHandler.probe(file));
+        }
+
+        @Test
+        void returnsEmpty_when_fileIsText() throws IOException
+        {
+            Path file = Files.writeString(tempDir.resolve("notes.txt"), "{\"uuid\": \"none\"}");
+
+            assertTrue(NBTHandler.probe(file).isEmpty());
+        }
+
+        @Test
+        void returnsEmpty_when_rootNameExceedsFile() throws IOException
+        {
+            Path file = Files.writeString(tempDir.resolve("short.txt"), "\n  ");
+
+            assertTrue(NBTHandler.probe(file).isEmpty());
+        }
+
+        @Test
+        void returnsEmpty_when_textStartsWithTab() throws IOException
+        {
+            String text = "\t\tname = value\n".repeat(400);
+            Path file = Files.writeString(tempDir.resolve("indented.cfg"), text);
+
+            assertTrue(NBTHandler.probe(file).isEmpty());
+        }
+
+        @Test
+        void returnsEmpty_when_jsonStartsWithNewline() throws IOException
+        {
+            String json = "\n{\n" + "\t\"owner\": \"069a79f4-44e9-4726-a5be-fca90e38aaf5\",\n".repeat(800) + "}\n";
+            Path file = Files.writeString(tempDir.resolve("data.json"), json);
+
+            assertTrue(NBTHandler.probe(file).isEmpty());
+        }
+
+        @Test
+        void detectsUncompressedCompound_when_firstChildIsNamed() throws IOException
+        {
+            // Compound named "" holding TAG_String "id" = "x", then TAG_End.
+            byte[] nbt = {0x0A, 0x00, 0x00, 0x08, 0x00, 0x02, 'i', 'd', 0x00, 0x01, 'x', 0x00};
+            Path file = Files.write(tempDir.resolve("structure.nbt"), nbt);
+
+            assertEquals(Optional.of(new NBTHeader(NBTCompression.NONE, 10, 0)), NBTHandler.probe(file));
+        }
+
+        @Test
+        void returnsEmpty_when_gzipIsTruncated() throws IOException
+        {
+            Path file = Files.write(tempDir.resolve("broken.dat"), new byte[]{0x1F, (byte) 0x8B, 0x08});
+
+            assertTrue(NBTHandler.probe(file).isEmpty());
+        }
+    }
+
+    @Nested
+    class IsNBTFile
+    {
+        @Test
+        void returnsFalse_when_zlibCompressed() throws IOException
+        {
+            Path file = Files.write(tempDir.resolve("chunk.nbt"), zlib(EMPTY_COMPOUND));
+
+            assertFalse(NBTHandler.isNBTFile(file.toFile()));
+        }
+
+        @Test
+        void returnsTrue_when_gzipCompressed() throws IOException
+        {
+            Path file = Files.write(tempDir.resolve("player.dat"), gzip(EMPTY_COMPOUND));
+
+            assertTrue(NBTHandler.isNBTFile(file.toFile()));
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package me.pauleff.common.handlers;
+
+import me.pauleff.common.handlers.uuid.UuidForm;
+import me.pauleff.common.handlers.uuid.UuidTokenScanner;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NBTUuidRewriterTest
+{
+    private static final UUID OFFLINE = UUID.fromString("7d1b9e4a-1c3f-3a2b-9c8d-0e1f2a3b4c5d");
+    private static final UUID ONLINE = UUID.fromString("069a79f4-44e9-4726-a5be-fca90e38aaf5");
+    private static final UUID UNMAPPED = UUID.fromString("ffffffff-ffff-4fff-bfff-ffffffffffff");
+    private static final Map<UUID, UUID> MAPPINGS = Map.of(OFFLINE, ONLINE);
+
+    @TempDir
+    Path tempDir;
+
+    private static NBTUuidRewriter rewriter()
+    {
+        return new NBTUuidRewriter(MAPPINGS, UuidTokenScanner.forMappings(MAPPINGS, EnumSet.of(UuidForm.HYPHENATED)));
+    }
+
+    /**
+     * Writes a player-like compound using every supported UUID encoding.
+     */
+    private static byte[] document(UUID intArrayUuid, UUID longPairUuid, UUID stringUuid) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(10);
+        out.writeUTF("");
+
+        out.writeByte(11);
+        out.writeUTF("UUID");
+        out.writeInt(4);
+        out.writeInt((int) (intArrayUuid.getMostSignificantBits() >>> 32));
+        out.writeInt((int) intArrayUuid.getMostSignificantBits());
+        out.writeInt((int) (intArrayUuid.getLeastSignificantBits() >>> 32));
+        out.writeInt((int) intArrayUuid.getLeastSignificantBits());
+
+        out.writeByte(9);
+        out.writeUTF("Passengers");
+        out.writeByte(10);
+        out.writeInt(1);
+        out.writeByte(4);
+        out.writeUTF("OwnerUUIDMost");
+        out.writeLong(longPairUuid.getMostSignificantBits());
+        out.writeByte(1);
+        out.writeUTF("Sitting");
+        out.writeByte(1);
+        out.writeByte(4);
+        out.writeUTF("OwnerUUIDLeast");
+        out.writeLong(longPairUuid.getLeastSignificantBits());
+        out.writeByte(0);
+
+        out.writeByte(8);
+        out.writeUTF("Owner");
+        out.writeUTF(stringUuid.toString());
+
+        out.writeByte(7);
+        out.writeUTF("Bytes");
+        out.writeInt(3);
+        out.write(new byte[]{1, 2, 3});
+
+        out.writeByte(0);
+        return bytes.toByteArray();
+    }
+
+    @Nested
+    class Rewrite
+    {
+        @Test
+        void rewritesEveryEncoding_when_mapped() throws IOException
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            int replaced = rewriter().rewrite(new ByteArrayInputStream(document(OFFLINE, OFFLINE, OFFLINE)), out);
+
+            assertEquals(3, replaced);
+            assertArrayEquals(document(ONLINE, ONLINE, ONLINE), out.toByteArray());
+        }
+
+        @Test
+        void copiesUnchanged_when_uuidsUnmapped() throws IOException
+        {
+            byte[] input = document(UNMAPPED, UNMAPPED, UNMAPPED);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            assertEquals(0, rewriter().rewrite(new ByteArrayInputStream(input), out));
+            assertArrayEquals(input, out.toByteArray());
+        }
+
+        @Test
+        void reportsCountBeforeWriting_when_rewrittenIntoMemory() throws IOException
+        {
+            NBTUuidRewriter.Rewritten unchanged = rewriter().rewrite(new ByteArrayInputStream(document(UNMAPPED, UNMAPPED, UNMAPPED)));
+            NBTUuidRewriter.Rewritten changed = rewriter().rewrite(new ByteArrayInputStream(document(OFFLINE, UNMAPPED, OFFLINE)));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            changed.writeTo(out);
+
+            assertEquals(0, unchanged.replaced());
+            assertEquals(2, changed.replaced());
+            assertArrayEquals(document(ONLINE, UNMAPPED, ONLINE), out.toByteArray());
+        }
+
+        @Test
+        void throws_when_tagIdInvalid()
+        {
+            byte[] input = {10, 0, 0, 42, 0, 0};
+
+            assertThrows(IOException.class, () -> rewriter().rewrite(new ByteArrayInputStream(input), new ByteArrayOutputStream()));
+        }
+    }
+
+    @Nested
+    class RewriteFile
+    {
+        @Test
+        void keepsGzipCompression_when_rewriting() throws IOException
+        {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (OutputStream out = new GZIPOutputStream(compressed))
+            {
+                out.write(document(OFFLINE, UNMAPPED, UNMAPPED));
+            }
+            Path file = Files.write(tempDir.resolve("player.dat"), compressed.toByteArray());
+
+            assertEquals(1, rewriter().rewriteFile(file));
+            try (GZIPInputStream in = new GZIPInputStream(Files.newInputStream(file)))
+            {
+                assertArrayEquals(document(ONLINE, UNMAPPED, UNMAPPED), in.readAllBytes());
+            }
+        }
+
+        @Test
+        void replacesFileInsteadOfOverwriting_when_rewriting() throws IOException
+        {
+            byte[] original = document(OFFLINE, UNMAPPED, UNMAPPED);
+            Path file = Files.write(tempDir.resolve("player.dat"), original);
+            // A hard link shares the original's contents only as long as they are written in place.
+            Path link = Files.createLink(tempDir.resolve("link.dat"), file);
+
+            assertEquals(1, rewriter().rewriteFile(file));
+            assertArrayEquals(document(ONLINE, UNMAPPED, UNMAPPED), Files.readAllBytes(file));
+            assertArrayEquals(original, Files.readAllBytes(link));
+            assertFalse(Files.exists(tempDir.resolve("player.dat.tmp")));
+        }
+
+        @Test
+        void leavesFileUntouched_when_notNbt() throws IOException
+        {
+            Path file = Files.writeString(tempDir.resolve("notes.dat"), "plain " + OFFLINE);
+
+            assertEquals(0, rewriter().rewriteFile(file));
+            assertEquals("plain " + OFFLINE, Files.readString(file));
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package me.pauleff.common.handlers;
+
+import me.pauleff.common.handlers.uuid.UuidForm;
+import me.pauleff.common.handlers.uuid.UuidTokenScanner;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static me.pauleff.common.handlers.RegionFileRewriter.SECTOR_SIZE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegionFileRewriterTest
+{
+    private static final UUID OFFLINE = UUID.fromString("7d1b9e4a-1c3f-3a2b-9c8d-0e1f2a3b4c5d");
+    private static final UUID ONLINE = UUID.fromString("069a79f4-44e9-4726-a5be-fca90e38aaf5");
+    private static final UUID UNMAPPED = UUID.fromString("ffffffff-ffff-4fff-bfff-ffffffffffff");
+    private static final Map<UUID, UUID> MAPPINGS = Map.of(OFFLINE, ONLINE);
+    private static final int ZLIB = 2;
+
+    @TempDir
+    Path tempDir;
+
+    private static RegionFileRewriter rewriter()
+    {
+        return new RegionFileRewriter(new NBTUuidRewriter(MAPPINGS,
+                UuidTokenScanner.forMappings(MAPPINGS, EnumSet.of(UuidForm.HYPHENATED))));
+    }
+
+    /**
+     * Writes an entity chunk holding a tamed wolf whose owner is stored as an int array.
+     */
+    private static byte[] entityChunk(UUID owner) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(10);
+        out.writeUTF("");
+        out.writeByte(9);
+        out.writeUTF("Entities");
+        out.writeByte(10);
+        out.writeInt(1);
+        out.writeByte(8);
+        out.writeUTF("id");
+        out.writeUTF("minecraft:wolf");
+        out.writeByte(11);
+        out.writeUTF("Owner");
+        out.writeInt(4);
+        out.writeLong(owner.getMostSignificantBits());
+        out.writeLong(owner.getLeastSignificantBits());
+        out.writeByte(0);
+        out.writeByte(0);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes a chunk holding a list of trusted player UUIDs, in iteration order.
+     */
+    private static byte[] trustedChunk(Collection<UUID> trusted) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(10);
+        out.writeUTF("");
+        out.writeByte(9);
+        out.writeUTF("Trusted");
+        out.writeByte(11);
+        out.writeInt(trusted.size());
+        for (UUID uuid : trusted)
+        {
+            out.writeInt(4);
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        }
+        out.writeByte(0);
+        return bytes.toByteArray();
+    }
+
+    private static byte[] zlib(byte[] data) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new DeflaterOutputStream(bytes))
+        {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes a region file with the given zlib-compressed chunks at indices 0, 1, ...,
+     * each in its own sector after the header.
+     */
+    private Path regionFile(String name, byte[]... chunks) throws IOException
+    {
+        ByteBuffer file = ByteBuffer.allocate((2 + chunks.length) * SECTOR_SIZE);
+        for (int i = 0; i < chunks.length; i++)
+        {
+            byte[] compressed = zlib(chunks[i]);
+            file.putInt(i * 4, (2 + i) << 8 | 1);
+            file.position((2 + i) * SECTOR_SIZE);
+            file.putInt(compressed.length + 1).put((byte) ZLIB).put(compressed);
+        }
+        return Files.write(tempDir.resolve(name), file.array());
+    }
+
+    private static int location(byte[] region, int index)
+    {
+        return ByteBuffer.wrap(region).getInt(index * 4);
+    }
+
+    private static byte[] readChunk(byte[] region, int index) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(region);
+        int offset = (location(region, index) >>> 8) * SECTOR_SIZE;
+        int length = buffer.getInt(offset);
+        assertEquals(ZLIB, buffer.get(offset + 4));
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(region, offset + 5, length - 1)))
+        {
+            return in.readAllBytes();
+        }
+    }
+
+    @Nested
+    class Rewrite
+    {
+        @Test
+        void writesChangedChunkToNewSectorsAndKeepsOldOnes() throws IOException
+        {
+            Path region = regionFile("r.0.0.mca", entityChunk(UNMAPPED), entityChunk(OFFLINE));
+            byte[] before = Files.readAllBytes(region);
+
+            int changed = rewriter().rewrite(region);
+
+            byte[] after = Files.readAllBytes(region);
+            assertEquals(1, changed);
+            assertEquals(location(before, 0), location(after, 0));
+            assertEquals(4 << 8 | 1, location(after, 1));
+            // The old sectors stay intact, so a crash before the header write loses nothing.
+            assertArrayEquals(
+                    Arrays.copyOfRange(before, 2 * SECTOR_SIZE, 4 * SECTOR_SIZE),
+                    Arrays.copyOfRange(after, 2 * SECTOR_SIZE, 4 * SECTOR_SIZE));
+            assertArrayEquals(entityChunk(ONLINE), readChunk(after, 1));
+        }
+
+        @Test
+        void reusesFreeSectors_before_growingFile() throws IOException
+        {
+            Path region = regionFile("r.0.0.mca", entityChunk(UNMAPPED), entityChunk(UNMAPPED), entityChunk(OFFLINE));
+            // Free chunk 0's sector, leaving a one-sector gap after the header.
+            try (FileChannel channel = FileChannel.open(region, StandardOpenOption.WRITE))
+            {
+                channel.write(ByteBuffer.allocate(4), 0);
+            }
+            long sizeBefore = Files.size(region);
+
+            assertEquals(1, rewriter().rewrite(region));
+
+            byte[] after = Files.readAllBytes(region);
+            assertEquals(sizeBefore, after.length);
+            assertEquals(2 << 8 | 1, location(after, 2));
+            assertArrayEquals(entityChunk(ONLINE), readChunk(after, 2));
+        }
+
+        @Test
+        void appendsChunk_when_itNoLongerFitsItsSectors() throws IOException
+        {
+            Map<UUID, UUID> mappings = new HashMap<>();
+            Random random = new Random(42);
+            for (int i = 0; i < 400; i++)
+            {
+                mappings.put(new UUID(0, i), new UUID(random.nextLong(), random.nextLong()));
+            }
+            Path region = regionFile("r.0.0.mca", trustedChunk(mappings.keySet()), entityChunk(UNMAPPED));
+            byte[] before = Files.readAllBytes(region);
+            RegionFileRewriter rewriter = new RegionFileRewriter(new NBTUuidRewriter(mappings,
+                    UuidTokenScanner.forMappings(mappings, EnumSet.of(UuidForm.HYPHENATED))));
+
+            assertEquals(1, rewriter.rewrite(region));
+
+            byte[] after = Files.readAllBytes(region);
+            assertEquals(before.length / SECTOR_SIZE, location(after, 0) >>> 8);
+            assertTrue((location(after, 0) & 0xFF) > 1);
+            assertEquals(0, after.length % SECTOR_SIZE);
+            assertArrayEquals(trustedChunk(mappings.values()), readChunk(after, 0));
+            assertEquals(location(before, 1), location(after, 1));
+        }
+
+        @Test
+        void leavesFileUnchanged_when_noUuidIsMapped() throws IOException
+        {
+            Path region = regionFile("r.0.0.mca", entityChunk(UNMAPPED));
+            byte[] before = Files.readAllBytes(region);
+
+            assertEquals(0, rewriter().rewrite(region));
+            assertArrayEquals(before, Files.readAllBytes(region));
+        }
+
+        @Test
+        void rewritesExternalChunkFile() throws IOException
+        {
+            Path region = tempDir.resolve("r.-1.2.mca");
+            ByteBuffer file = ByteBuffer.allocate(3 * SECTOR_SIZE);
+            int index = 5 + 3 * 32;
+            file.putInt(index * 4, 2 << 8 | 1);
+            file.position(2 * SECTOR_SIZE);
+            file.putInt(1).put((byte) (0x80 | ZLIB));
+            Files.write(region, file.array());
+            Path external = tempDir.resolve("c.-27.67.mcc");
+            Files.write(external, zlib(entityChunk(OFFLINE)));
+
+            assertEquals(1, rewriter().rewrite(region));
+
+            try (InputStream in = new InflaterInputStream(Files.newInputStream(external)))
+            {
+                assertArrayEquals(entityChunk(ONLINE), in.readAllBytes());
+            }
+            assertArrayEquals(file.array(), Files.readAllBytes(region));
+        }
+
+        @Test
+        void skipsCorruptChunkAndRewritesOthers() throws IOException
+        {
+            Path region = regionFile("r.0.0.mca", entityChunk(OFFLINE), entityChunk(OFFLINE));
+            byte[] bytes = Files.readAllBytes(region);
+            ByteBuffer.wrap(bytes).putInt(2 * SECTOR_SIZE, Integer.MAX_VALUE);
+            Files.write(region, bytes);
+
+            assertEquals(1, rewriter().rewrite(region));
+            assertArrayEquals(entityChunk(ONLINE), readChunk(Files.readAllBytes(region), 1));
+        }
+
+        @Test
+        void releasesMemoryBudget_when_done() throws IOException
+        {
+            Path region = regionFile("r.0.0.mca", entityChunk(OFFLINE), entityChunk(UNMAPPED));
+            MemoryBudget budget = new MemoryBudget(64 * 1024);
+            RegionFileRewriter rewriter = new RegionFileRewriter(new NBTUuidRewriter(MAPPINGS,
+                    UuidTokenScanner.forMappings(MAPPINGS, EnumSet.of(UuidForm.HYPHENATED))), budget);
+
+            assertEquals(1, rewriter.rewrite(region));
+            assertEquals(budget.totalBytes(), budget.availableBytes());
+        }
+
+        @Test
+        void ignoresEmptyFile() throws IOException
+        {
+            Path region = Files.write(tempDir.resolve("r.0.0.mca"), new byte[0]);
+
+            assertEquals(0, rewriter().rewrite(region));
+        }
+    }
+}
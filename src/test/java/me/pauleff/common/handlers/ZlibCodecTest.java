@@ -0,0 +1,160 @@
+package me.pauleff.common.handlers;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZlibCodecTest
+{
+    private static final byte[] DATA = "player-owned wolf ".repeat(2000).getBytes(StandardCharsets.US_ASCII);
+
+    private static byte[] gzip(byte[] data) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = ZlibCodec.gzipOutput(bytes))
+        {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] zlib(byte[] data) throws IOException
+    {
+        return zlib(data, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    private static byte[] zlib(byte[] data, int level) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = ZlibCodec.zlibOutput(bytes, level))
+        {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Nested
+    class Gzip
+    {
+        @Test
+        void isReadableByJdkGzip() throws IOException
+        {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip(DATA))))
+            {
+                assertArrayEquals(DATA, in.readAllBytes());
+            }
+        }
+
+        @Test
+        void readsJdkGzip() throws IOException
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (OutputStream out = new GZIPOutputStream(bytes))
+            {
+                out.write(DATA);
+            }
+
+            try (InputStream in = ZlibCodec.gzipInput(new ByteArrayInputStream(bytes.toByteArray())))
+            {
+                assertArrayEquals(DATA, in.readAllBytes());
+            }
+        }
+
+        @Test
+        void roundTrips_when_streamsAreReused() throws IOException
+        {
+            for (int i = 0; i < 50; i++)
+            {
+                byte[] data = ("run " + i).repeat(i + 1).getBytes(StandardCharsets.US_ASCII);
+                try (InputStream in = ZlibCodec.gzipInput(new ByteArrayInputStream(gzip(data))))
+                {
+                    assertArrayEquals(data, in.readAllBytes());
+                }
+            }
+        }
+
+        @Test
+        void throwsZipException_when_trailerIsCorrupt() throws IOException
+        {
+            byte[] compressed = gzip(DATA);
+            compressed[compressed.length - 8] ^= 1;
+
+            try (InputStream in = ZlibCodec.gzipInput(new ByteArrayInputStream(compressed)))
+            {
+                assertThrows(ZipException.class, in::readAllBytes);
+            }
+        }
+
+        @Test
+        void throwsZipException_when_notGzip()
+        {
+            assertThrows(ZipException.class, () -> ZlibCodec.gzipInput(new ByteArrayInputStream(zlib(DATA))));
+        }
+    }
+
+    @Nested
+    class Zlib
+    {
+        @Test
+        void isReadableByJdkInflater() throws IOException
+        {
+            try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(zlib(DATA))))
+            {
+                assertArrayEquals(DATA, in.readAllBytes());
+            }
+        }
+
+        @Test
+        void readsJdkZlib() throws IOException
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (OutputStream out = new DeflaterOutputStream(bytes))
+            {
+                out.write(DATA);
+            }
+
+            try (InputStream in = ZlibCodec.zlibInput(new ByteArrayInputStream(bytes.toByteArray())))
+            {
+                assertArrayEquals(DATA, in.readAllBytes());
+            }
+        }
+    }
+
+    @Nested
+    class CompressionLevel
+    {
+        @Test
+        void storesUncompressed_when_levelIsZero() throws IOException
+        {
+            assertTrue(zlib(DATA, Deflater.NO_COMPRESSION).length > DATA.length);
+        }
+
+        @Test
+        void compresses_when_pooledDeflaterLastStoredOnly() throws IOException
+        {
+            zlib(DATA, Deflater.NO_COMPRESSION);
+
+            assertTrue(zlib(DATA).length < DATA.length / 10);
+        }
+
+        @Test
+        void rejectsOutOfRangeLevel()
+        {
+            assertThrows(IllegalArgumentException.class, () -> ZlibCodec.zlibOutput(new ByteArrayOutputStream(), 10));
+        }
+    }
+}
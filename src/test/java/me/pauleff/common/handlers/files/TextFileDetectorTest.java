@@ -7,6 +7,7 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -87,4 +88,35 @@ class TextFileDetectorTest
                     () -> TextFileDetector.isTextBased(missing));
         }
     }
+
+    @Nested
+    class IsTextBasedWithAttributes
+    {
+        @Test
+        void returnsFalse_when_fileContainsBytes() throws IOException
+        {
+            Path path = Files.write(tempDir.resolve("binary.dat"), new byte[]{0x00, 0x01, 0x02, 0x03});
+
+            assertFalse(TextFileDetector.isTextBased(path, Files.readAttributes(path, BasicFileAttributes.class)));
+        }
+
+        @Test
+        void returnsTrue_when_attributesReportEmptyFile() throws IOException
+        {
+            Path path = Files.writeString(tempDir.resolve("empty.txt"), "");
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            Files.delete(path);
+
+            assertTrue(TextFileDetector.isTextBased(path, attributes));
+        }
+
+        @Test
+        void throws_when_attributesDescribeDirectory() throws IOException
+        {
+            BasicFileAttributes attributes = Files.readAttributes(tempDir, BasicFileAttributes.class);
+
+            assertThrows(IllegalArgumentException.class,
+                    () -> TextFileDetector.isTextBased(tempDir, attributes));
+        }
+    }
 }
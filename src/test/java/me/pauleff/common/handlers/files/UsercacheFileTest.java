@@ -8,6 +8,9 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -77,4 +80,50 @@ class UsercacheFileTest
             assertTrue(result.isEmpty());
         }
     }
+
+    @Nested
+    class ForEachPlayer
+    {
+        @Test
+        void streamsPlayersAndSkipsMalformedEntries() throws IOException
+        {
+            String json = """
+                    [
+                      {"name":"Steve","uuid":"11111111-1111-1111-1111-111111111111","expiresOn":"2026-08-25 01:04:11 +0200"},
+                      {"name":"Broken","uuid":"not-a-uuid"},
+                      "unexpected",
+                      {"name":"Alex","uuid":"22222222-2222-2222-2222-222222222222","expiresOn":"2026-08-25 01:04:11 +0200"}
+                    ]
+                    """;
+            Path path = Files.writeString(tempDir.resolve("usercache.json"), json);
+            List<UsercacheFile.Player> players = new ArrayList<>();
+
+            int count = UsercacheFile.of(path).forEachPlayer(players::add);
+
+            assertEquals(2, count);
+            assertEquals(List.of(
+                    new UsercacheFile.Player("Steve", UUID.fromString("11111111-1111-1111-1111-111111111111")),
+                    new UsercacheFile.Player("Alex", UUID.fromString("22222222-2222-2222-2222-222222222222"))), players);
+        }
+
+        @Test
+        void keepsPlayersReadBeforeSyntaxError() throws IOException
+        {
+            Path path = Files.writeString(tempDir.resolve("usercache.json"),
+                    "[{\"name\":\"Steve\",\"uuid\":\"11111111-1111-1111-1111-111111111111\"} {\"name\":");
+            List<UsercacheFile.Player> players = new ArrayList<>();
+
+            assertEquals(1, UsercacheFile.of(path).forEachPlayer(players::add));
+            assertEquals("Steve", players.getFirst().name());
+        }
+
+        @Test
+        void readsNothing_when_fileIsMissingOrEmptyArray() throws IOException
+        {
+            Path empty = Files.writeString(tempDir.resolve("usercache.json"), " [ ] ");
+
+            assertEquals(0, UsercacheFile.of(empty).forEachPlayer(player -> fail()));
+            assertEquals(0, UsercacheFile.of(tempDir.resolve("missing.json")).forEachPlayer(player -> fail()));
+        }
+    }
 }
@@ -0,0 +1,93 @@
+package me.pauleff.common.handlers.files;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidMappingFileTest
+{
+    private static final UUID OFFLINE = UUID.fromString("7d1b9e4a-1c3f-3a2b-9c8d-0e1f2a3b4c5d");
+    private static final UUID ONLINE = UUID.fromString("069a79f4-44e9-4726-a5be-fca90e38aaf5");
+
+    @TempDir
+    Path tempDir;
+
+    @Nested
+    class Read
+    {
+        @Test
+        void parsesCsv_when_fileHasHeaderCommentsAndExtraColumns() throws IOException
+        {
+            Path path = Files.writeString(tempDir.resolve("mappings.csv"), """
+                    from,to,name
+                    # exported from survival
+                    7d1b9e4a-1c3f-3a2b-9c8d-0e1f2a3b4c5d,069a79f444e94726a5befca90e38aaf5,Notch
+
+                    """);
+
+            assertEquals(Map.of(OFFLINE, ONLINE), UuidMappingFile.read(path));
+        }
+
+        @Test
+        void parsesJsonObject() throws IOException
+        {
+            Path path = Files.writeString(tempDir.resolve("mappings.json"),
+                    "{\"7d1b9e4a-1c3f-3a2b-9c8d-0e1f2a3b4c5d\": \"069a79f4-44e9-4726-a5be-fca90e38aaf5\"}");
+
+            assertEquals(Map.of(OFFLINE, ONLINE), UuidMappingFile.read(path));
+        }
+
+        @Test
+        void parsesJsonArray() throws IOException
+        {
+            Path path = Files.writeString(tempDir.resolve("mappings.txt"),
+                    "[{\"from\": \"7d1b9e4a-1c3f-3a2b-9c8d-0e1f2a3b4c5d\", \"to\": \"069a79f4-44e9-4726-a5be-fca90e38aaf5\"}]");
+
+            assertEquals(Map.of(OFFLINE, ONLINE), UuidMappingFile.read(path));
+        }
+
+        @Test
+        void throws_when_uuidIsInvalid() throws IOException
+        {
+            Path path = Files.writeString(tempDir.resolve("mappings.csv"),
+                    "7d1b9e4a-1c3f-3a2b-9c8d-0e1f2a3b4c5d,069a79f4-44e9-4726-a5be-fca90e38aaf5\nnot-a-uuid,also-not\n");
+
+            IOException e = assertThrows(IOException.class, () -> UuidMappingFile.read(path));
+            assertTrue(e.getMessage().contains("line 2"));
+        }
+    }
+
+    @Nested
+    class Write
+    {
+        @Test
+        void roundTrips_when_csv() throws IOException
+        {
+            Path path = tempDir.resolve("out/mappings.csv");
+
+            UuidMappingFile.write(path, Map.of(OFFLINE, ONLINE, ONLINE, OFFLINE));
+
+            assertEquals(Map.of(OFFLINE, ONLINE, ONLINE, OFFLINE), UuidMappingFile.read(path));
+            assertTrue(Files.readString(path).startsWith("from,to"));
+        }
+
+        @Test
+        void roundTrips_when_json() throws IOException
+        {
+            Path path = tempDir.resolve("mappings.json");
+
+            UuidMappingFile.write(path, Map.of(OFFLINE, ONLINE));
+
+            assertEquals(Map.of(OFFLINE, ONLINE), UuidMappingFile.read(path));
+            assertTrue(Files.readString(path).startsWith("{"));
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package me.pauleff.common.handlers.files;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorldIndexTest
+{
+    @TempDir
+    Path tempDir;
+
+    @Nested
+    class ListDirectory
+    {
+        @Test
+        void returnsEntriesWithAttributes() throws IOException
+        {
+            Files.createDirectories(tempDir.resolve("data"));
+            Files.writeString(tempDir.resolve("level.dat"), "x");
+
+            List<IndexedFile> entries = new WorldIndex().list(tempDir);
+
+            assertEquals(2, entries.size());
+            assertTrue(entries.get(0).isDirectory());
+            assertEquals("data", entries.get(0).fileName());
+            assertTrue(entries.get(1).isRegularFile());
+        }
+
+        @Test
+        void returnsEmptyList_when_directoryMissing() throws IOException
+        {
+            assertTrue(new WorldIndex().list(tempDir.resolve("missing")).isEmpty());
+        }
+
+        @Test
+        void servesMemoizedListing_until_invalidated() throws IOException
+        {
+            WorldIndex index = new WorldIndex();
+            assertTrue(index.list(tempDir).isEmpty());
+
+            Files.writeString(tempDir.resolve("new.json"), "{}");
+
+            assertTrue(index.list(tempDir).isEmpty());
+            index.invalidate(tempDir);
+            assertEquals(1, index.list(tempDir).size());
+        }
+
+        @Test
+        void keepsSubdirectoryListings_when_parentInvalidated() throws IOException
+        {
+            Path child = Files.createDirectories(tempDir.resolve("child"));
+            WorldIndex index = new WorldIndex();
+            index.list(tempDir);
+            assertTrue(index.list(child).isEmpty());
+
+            Files.writeString(child.resolve("new.json"), "{}");
+            index.invalidate(tempDir);
+
+            assertTrue(index.list(child).isEmpty());
+        }
+
+        @Test
+        void dropsSubdirectoryListings_when_treeInvalidated() throws IOException
+        {
+            Path child = Files.createDirectories(tempDir.resolve("child"));
+            WorldIndex index = new WorldIndex();
+            assertTrue(index.list(child).isEmpty());
+
+            Files.writeString(child.resolve("new.json"), "{}");
+            index.invalidateTree(tempDir);
+
+            assertEquals(1, index.list(child).size());
+        }
+
+        @Test
+        void rereadsDirectories_when_cleared() throws IOException
+        {
+            WorldIndex index = new WorldIndex();
+            assertTrue(index.list(tempDir).isEmpty());
+
+            Files.writeString(tempDir.resolve("new.json"), "{}");
+            index.clear();
+
+            assertEquals(1, index.list(tempDir).size());
+        }
+    }
+
+    @Nested
+    class Walk
+    {
+        @Test
+        void returnsNestedEntries_excludingRoot() throws IOException
+        {
+            Files.createDirectories(tempDir.resolve("a/b"));
+            Files.writeString(tempDir.resolve("a/b/file.txt"), "x");
+
+            try (Stream<IndexedFile> entries = new WorldIndex().walk(tempDir))
+            {
+                assertEquals(List.of(tempDir.resolve("a"), tempDir.resolve("a/b"), tempDir.resolve("a/b/file.txt")),
+                        entries.map(IndexedFile::path).toList());
+            }
+        }
+
+        @Test
+        void reusesListings_when_prefetched() throws IOException
+        {
+            Files.createDirectories(tempDir.resolve("a"));
+            Files.writeString(tempDir.resolve("a/file.txt"), "x");
+            WorldIndex index = new WorldIndex();
+            index.prefetch(List.of(tempDir));
+
+            try (Stream<IndexedFile> entries = index.walk(tempDir))
+            {
+                assertEquals(2, entries.count());
+            }
+        }
+
+        @Test
+        void dropsListings_when_walkHasLeftDirectory() throws IOException
+        {
+            Files.createDirectories(tempDir.resolve("a"));
+            WorldIndex index = new WorldIndex();
+            try (Stream<IndexedFile> entries = index.walk(tempDir))
+            {
+                assertEquals(1, entries.count());
+            }
+
+            Files.writeString(tempDir.resolve("a/file.txt"), "x");
+
+            assertEquals(1, index.list(tempDir.resolve("a")).size());
+        }
+
+        @Test
+        void yieldsFirstEntry_before_listingSubdirectories() throws IOException
+        {
+            Files.createDirectories(tempDir.resolve("a"));
+            Files.writeString(tempDir.resolve("b.txt"), "x");
+            WorldIndex index = new WorldIndex();
+            Iterator<IndexedFile> entries = index.walk(tempDir).iterator();
+
+            assertEquals(tempDir.resolve("a"), entries.next().path());
+            Files.writeString(tempDir.resolve("a/late.txt"), "x");
+
+            assertEquals(tempDir.resolve("a/late.txt"), entries.next().path());
+        }
+    }
+
+    @Nested
+    class Clear
+    {
+        @Test
+        void stopsPrefetch_before_droppingListings() throws IOException
+        {
+            for (int i = 0; i < 50; i++)
+            {
+                Files.createDirectories(tempDir.resolve("d" + i + "/nested"));
+            }
+            WorldIndex index = new WorldIndex();
+            index.prefetch(List.of(tempDir));
+
+            index.clear();
+            Files.writeString(tempDir.resolve("new.json"), "{}");
+
+            assertEquals(51, index.list(tempDir).size());
+        }
+    }
+}
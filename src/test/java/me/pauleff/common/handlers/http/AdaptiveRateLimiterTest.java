@@ -0,0 +1,88 @@
+package me.pauleff.common.handlers.http;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveRateLimiterTest
+{
+    @Nested
+    class Acquire
+    {
+        @Test
+        void doesNotWait_when_withinBurst() throws InterruptedException
+        {
+            AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(1, 1, 1, 5);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < 5; i++)
+            {
+                limiter.acquire();
+            }
+
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 500);
+        }
+
+        @Test
+        void waitsForRefill_when_bucketIsEmpty() throws InterruptedException
+        {
+            AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(20, 20, 20, 1);
+            limiter.acquire();
+
+            long start = System.nanoTime();
+            limiter.acquire();
+
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() >= 40);
+        }
+
+        @Test
+        void waitsForRetryAfter_when_throttled() throws InterruptedException
+        {
+            AdaptiveRateLimiter limiter = AdaptiveRateLimiter.unlimited();
+            limiter.onThrottled(Duration.ofMillis(150));
+
+            long start = System.nanoTime();
+            limiter.acquire();
+
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() >= 140);
+        }
+    }
+
+    @Nested
+    class Adapt
+    {
+        @Test
+        void halvesRate_when_throttledButNotBelowMinimum()
+        {
+            AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(8, 3, 10, 1);
+
+            limiter.onThrottled(Duration.ZERO);
+            assertEquals(4, limiter.rate());
+            limiter.onThrottled(Duration.ZERO);
+            assertEquals(3, limiter.rate());
+        }
+
+        @Test
+        void raisesRate_when_successfulButNotAboveMaximum()
+        {
+            AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(9.5, 1, 10, 1);
+
+            limiter.onSuccess();
+            assertTrue(limiter.rate() > 9.5);
+            for (int i = 0; i < 10; i++)
+            {
+                limiter.onSuccess();
+            }
+            assertEquals(10, limiter.rate());
+        }
+    }
+
+    @Test
+    void rejectsInconsistentSettings()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveRateLimiter(1, 2, 3, 1));
+    }
+}
@@ -0,0 +1,324 @@
+package me.pauleff.common.handlers.uuid;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import me.pauleff.common.handlers.http.AdaptiveRateLimiter;
+import me.pauleff.common.handlers.http.HttpGet;
+import me.pauleff.common.handlers.http.HttpPost;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OnlineProfileLookupTest
+{
+    private HttpServer server;
+    private final List<JSONArray> bulkRequests = new CopyOnWriteArrayList<>();
+    private final List<String> singleRequests = new CopyOnWriteArrayList<>();
+    private final List<String> nameRequests = new CopyOnWriteArrayList<>();
+    private volatile int bulkStatus = 200;
+    private volatile int singleStatus = 200;
+    private final AtomicInteger throttledResponses = new AtomicInteger();
+
+    /**
+     * Derives a stable UUID for a player name, as the stub's "Mojang" would.
+     */
+    private static UUID uuidOf(String name)
+    {
+        return UUID.nameUUIDFromBytes(name.toLowerCase().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @BeforeEach
+    void startServer() throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/minecraft/profile/lookup/bulk/byname", exchange ->
+        {
+            JSONArray names = new JSONArray(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            bulkRequests.add(names);
+            if (throttledResponses.getAndDecrement() > 0)
+            {
+                exchange.getResponseHeaders().add("Retry-After", "0");
+                respond(exchange, 429, "");
+                return;
+            }
+            JSONArray profiles = new JSONArray();
+            for (int i = 0; i < names.length(); i++)
+            {
+                String name = names.getString(i);
+                if (!name.startsWith("unknown"))
+                {
+                    profiles.put(new JSONObject()
+                            .put("id", uuidOf(name).toString().replace("-", ""))
+                            .put("name", name.toUpperCase()));
+                }
+            }
+            respond(exchange, bulkStatus, profiles.toString());
+        });
+        server.createContext("/users/profiles/minecraft/", exchange ->
+        {
+            String path = exchange.getRequestURI().getPath();
+            String name = path.substring(path.lastIndexOf('/') + 1);
+            singleRequests.add(name);
+            if (singleStatus != 200)
+            {
+                respond(exchange, singleStatus, "");
+                return;
+            }
+            respond(exchange, 200, new JSONObject()
+                    .put("id", uuidOf(name).toString().replace("-", ""))
+                    .put("name", name).toString());
+        });
+        server.createContext("/minecraft/profile/lookup/", exchange ->
+        {
+            String path = exchange.getRequestURI().getPath();
+            nameRequests.add(path.substring(path.lastIndexOf('/') + 1));
+            try
+            {
+                Thread.sleep(100);
+            } catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer()
+    {
+        server.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException
+    {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody())
+        {
+            out.write(bytes);
+        }
+    }
+
+    private String baseUrl()
+    {
+        return "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    @Nested
+    class LookupOnlineUuids
+    {
+        @Test
+        void postsBatchesOfAtMostTenNames() throws IOException
+        {
+            OnlineProfileLookup lookup = OnlineProfileLookup.of(ProfileApiConfig.defaults().withCustomApiBaseUrl(baseUrl()));
+            List<String> names = IntStream.range(0, 25).mapToObj(i -> "player" + i).toList();
+
+            Map<String, UUID> uuids = lookup.lookupOnlineUuids(names);
+
+            assertEquals(25, uuids.size());
+            assertEquals(uuidOf("player7"), uuids.get("player7"));
+            assertEquals(List.of(10, 10, 5), bulkRequests.stream().map(JSONArray::length).sorted(Comparator.reverseOrder()).toList());
+            assertTrue(singleRequests.isEmpty());
+        }
+
+        @Test
+        void matchesNamesCaseInsensitivelyAndOmitsUnknownOnes() throws IOException
+        {
+            OnlineProfileLookup lookup = OnlineProfileLookup.of(ProfileApiConfig.defaults().withCustomApiBaseUrl(baseUrl()));
+
+            Map<String, UUID> uuids = lookup.lookupOnlineUuids(List.of("Notch", "unknownPlayer"));
+
+            assertEquals(Map.of("Notch", uuidOf("notch")), uuids);
+        }
+
+        @Test
+        void returnsNoUuids_when_bulkRequestFails() throws IOException
+        {
+            bulkStatus = 500;
+            OnlineProfileLookup lookup = OnlineProfileLookup.of(ProfileApiConfig.defaults().withCustomApiBaseUrl(baseUrl()));
+
+            assertTrue(lookup.lookupOnlineUuids(List.of("Notch")).isEmpty());
+        }
+
+        @Test
+        void retriesAndSlowsDown_when_throttled()
+        {
+            throttledResponses.set(2);
+            AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(20, 1, 20, 5);
+            HttpClient client = HttpClient.newHttpClient();
+            OnlineProfileLookup lookup = OnlineProfileLookup.of(
+                    ProfileApiConfig.defaults().withCustomApiBaseUrl(baseUrl()),
+                    HttpGet.of(client, limiter),
+                    HttpPost.of(client, limiter));
+
+            assertEquals(Map.of("Notch", uuidOf("notch")), lookup.lookupOnlineUuids(List.of("Notch")));
+            assertEquals(3, bulkRequests.size());
+            assertTrue(limiter.rate() < 20);
+        }
+
+        @Test
+        void usesBulkUrlOverride() throws IOException
+        {
+            OnlineProfileLookup lookup = OnlineProfileLookup.of(ProfileApiConfig.defaults()
+                    .withRetrieveUuidUrl("http://invalid.invalid/")
+                    .withRetrieveUuidsBulkUrl(baseUrl() + "minecraft/profile/lookup/bulk/byname"));
+
+            assertEquals(Map.of("jeb_", uuidOf("jeb_")), lookup.lookupOnlineUuids(List.of("jeb_")));
+            assertEquals(1, bulkRequests.size());
+        }
+
+        @Test
+        void looksUpNamesOneByOne_when_onlyRetrieveUuidUrlIsSet() throws IOException
+        {
+            OnlineProfileLookup lookup = OnlineProfileLookup.of(ProfileApiConfig.defaults()
+                    .withRetrieveUuidUrl(baseUrl() + "users/profiles/minecraft/"));
+
+            Map<String, UUID> uuids = lookup.lookupOnlineUuids(List.of("Notch", "jeb_"));
+
+            assertEquals(Map.of("Notch", uuidOf("notch"), "jeb_", uuidOf("jeb_")), uuids);
+            assertEquals(List.of("Notch", "jeb_"), singleRequests.stream().sorted().toList());
+            assertTrue(bulkRequests.isEmpty());
+        }
+    }
+
+    @Nested
+    class Caching
+    {
+        @TempDir
+        Path tempDir;
+
+        @Test
+        void needsNoRequests_when_namesWereResolvedBefore() throws IOException
+        {
+            ProfileApiConfig config = ProfileApiConfig.defaults().withCustomApiBaseUrl(baseUrl());
+            Path file = tempDir.resolve("profiles.cache");
+            try (ProfileCache cache = ProfileCache.open(file))
+            {
+                OnlineProfileLookup.of(config).withCache(cache).lookupOnlineUuids(List.of("Notch", "unknownPlayer"));
+            }
+            bulkRequests.clear();
+
+            try (ProfileCache cache = ProfileCache.open(file))
+            {
+                OnlineProfileLookup lookup = OnlineProfileLookup.of(config).withCache(cache);
+
+                assertEquals(Map.of("NOTCH", uuidOf("notch")), lookup.lookupOnlineUuids(List.of("NOTCH", "unknownPlayer")));
+                assertEquals(uuidOf("notch"), lookup.lookupOnlineUuid("Notch"));
+            }
+            assertTrue(bulkRequests.isEmpty());
+            assertTrue(singleRequests.isEmpty());
+        }
+
+        @Test
+        void cachesSingleLookups() throws IOException
+        {
+            OnlineProfileLookup lookup = OnlineProfileLookup.of(ProfileApiConfig.defaults()
+                    .withRetrieveUuidUrl(baseUrl() + "users/profiles/minecraft/"));
+            try (ProfileCache cache = ProfileCache.open(tempDir.resolve("profiles.cache")))
+            {
+                OnlineProfileLookup cached = lookup.withCache(cache);
+
+                assertEquals(uuidOf("jeb_"), cached.lookupOnlineUuid("jeb_"));
+                assertEquals(uuidOf("jeb_"), cached.lookupOnlineUuid("jeb_"));
+            }
+            assertEquals(List.of("jeb_"), singleRequests);
+        }
+
+        @Test
+        void throwsAndRetriesLater_when_serverErrors() throws IOException
+        {
+            singleStatus = 503;
+            try (ProfileCache cache = ProfileCache.open(tempDir.resolve("profiles.cache")))
+            {
+                OnlineProfileLookup lookup = OnlineProfileLookup.of(ProfileApiConfig.defaults()
+                        .withRetrieveUuidUrl(baseUrl() + "users/profiles/minecraft/")).withCache(cache);
+
+                assertThrows(IOException.class, () -> lookup.lookupOnlineUuid("jeb_"));
+                assertTrue(cache.findUuid("jeb_").isEmpty());
+
+                singleStatus = 200;
+                assertEquals(uuidOf("jeb_"), lookup.lookupOnlineUuid("jeb_"));
+            }
+            assertEquals(List.of("jeb_", "jeb_"), singleRequests);
+        }
+
+        @Test
+        void doesNotCache_when_requestFails() throws IOException
+        {
+            bulkStatus = 500;
+            try (ProfileCache cache = ProfileCache.open(tempDir.resolve("profiles.cache")))
+            {
+                OnlineProfileLookup.of(ProfileApiConfig.defaults().withCustomApiBaseUrl(baseUrl()))
+                        .withCache(cache).lookupOnlineUuids(List.of("Notch"));
+
+                assertTrue(cache.findUuid("Notch").isEmpty());
+            }
+        }
+    }
+
+    @Nested
+    class LookupName
+    {
+        @Test
+        void sendsOneRequest_when_manyWorkersAskForSameUnknownUuid() throws Exception
+        {
+            OnlineProfileLookup lookup = OnlineProfileLookup.of(ProfileApiConfig.defaults().withCustomApiBaseUrl(baseUrl()));
+            UUID offline = UUID.nameUUIDFromBytes("OfflinePlayer:Steve".getBytes(StandardCharsets.UTF_8));
+            List<Future<String>> names = new ArrayList<>();
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+            {
+                for (int i = 0; i < 8; i++)
+                {
+                    names.add(executor.submit(() -> lookup.lookupName(offline)));
+                }
+                for (Future<String> name : names)
+                {
+                    assertNull(name.get());
+                }
+            }
+            assertNull(lookup.lookupName(offline));
+            assertEquals(List.of(offline.toString()), nameRequests);
+        }
+    }
+
+    @Nested
+    class LookupOnlineUuidsAsync
+    {
+        @Test
+        void rejectsMoreThanTenNames()
+        {
+            OnlineProfileLookup lookup = OnlineProfileLookup.of(ProfileApiConfig.defaults().withCustomApiBaseUrl(baseUrl()));
+            List<String> names = IntStream.range(0, 11).mapToObj(i -> "player" + i).toList();
+
+            assertThrows(IllegalArgumentException.class, () -> lookup.lookupOnlineUuidsAsync(names));
+        }
+    }
+}
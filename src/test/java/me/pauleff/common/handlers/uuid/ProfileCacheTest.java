@@ -0,0 +1,213 @@
+package me.pauleff.common.handlers.uuid;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProfileCacheTest
+{
+    private static final UUID NOTCH = UUID.fromString("069a79f4-44e9-4726-a5be-fca90e38aaf5");
+    private static final Instant NOW = Instant.parse("2026-05-01T12:00:00Z");
+
+    @TempDir
+    Path tempDir;
+
+    private static Clock clockAt(Instant instant)
+    {
+        return Clock.fixed(instant, ZoneOffset.UTC);
+    }
+
+    private Path cacheFile()
+    {
+        return tempDir.resolve("cache/profiles.cache");
+    }
+
+    @Nested
+    class Open
+    {
+        @Test
+        void restoresEntries_when_reopened() throws IOException
+        {
+            try (ProfileCache cache = ProfileCache.open(cacheFile(), clockAt(NOW)))
+            {
+                cache.putUuid("Notch", NOTCH);
+                cache.putName(NOTCH, "Notch");
+            }
+
+            try (ProfileCache cache = ProfileCache.open(cacheFile(), clockAt(NOW)))
+            {
+                assertEquals(Optional.of(NOTCH), cache.findUuid("notch").map(ProfileCache.Entry::value));
+                assertEquals(Optional.of("Notch"), cache.findName(NOTCH).map(ProfileCache.Entry::value));
+            }
+        }
+
+        @Test
+        void keepsLatestEntry_when_keyWasWrittenTwice() throws IOException
+        {
+            UUID other = UUID.randomUUID();
+            try (ProfileCache cache = ProfileCache.open(cacheFile(), clockAt(NOW)))
+            {
+                cache.putUuid("Notch", NOTCH);
+                cache.putUuid("NOTCH", other);
+            }
+
+            try (ProfileCache cache = ProfileCache.open(cacheFile(), clockAt(NOW)))
+            {
+                assertEquals(other, cache.findUuid("Notch").orElseThrow().value());
+            }
+        }
+
+        @Test
+        void dropsExpiredEntries() throws IOException
+        {
+            try (ProfileCache cache = ProfileCache.open(cacheFile(), clockAt(NOW)))
+            {
+                cache.putUuid("Notch", NOTCH);
+                cache.putUuid("unknownPlayer", null);
+            }
+
+            Instant later = NOW.plus(ProfileCache.NEGATIVE_TTL).plus(Duration.ofMinutes(1));
+            try (ProfileCache cache = ProfileCache.open(cacheFile(), clockAt(later)))
+            {
+                assertTrue(cache.findUuid("unknownPlayer").isEmpty());
+                assertTrue(cache.findUuid("Notch").isPresent());
+            }
+
+            Instant muchLater = NOW.plus(ProfileCache.POSITIVE_TTL).plus(Duration.ofMinutes(1));
+            try (ProfileCache cache = ProfileCache.open(cacheFile(), clockAt(muchLater)))
+            {
+                assertTrue(cache.findUuid("Notch").isEmpty());
+            }
+        }
+
+        @Test
+        void discardsTornRecord() throws IOException
+        {
+            try (ProfileCache cache = ProfileCache.open(cacheFile(), clockAt(NOW)))
+            {
+                cache.putUuid("Notch", NOTCH);
+                cache.putUuid("jeb_", UUID.randomUUID());
+            }
+            byte[] bytes = Files.readAllBytes(cacheFile());
+            Files.write(cacheFile(), Arrays.copyOf(bytes, bytes.length - 3));
+
+            try (ProfileCache cache = ProfileCache.open(cacheFile(), clockAt(NOW)))
+            {
+                assertTrue(cache.findUuid("Notch").isPresent());
+                assertTrue(cache.findUuid("jeb_").isEmpty());
+                cache.putName(NOTCH, "Notch");
+            }
+
+            try (ProfileCache cache = ProfileCache.open(cacheFile(), clockAt(NOW)))
+            {
+                assertEquals("Notch", cache.findName(NOTCH).orElseThrow().value());
+            }
+        }
+
+        @Test
+        void compactsFile_when_mostRecordsAreSuperseded() throws IOException
+        {
+            try (ProfileCache cache = ProfileCache.open(cacheFile(), clockAt(NOW)))
+            {
+                for (int i = 0; i < 2000; i++)
+                {
+                    cache.putUuid("Notch", new UUID(0, i));
+                }
+            }
+            long before = Files.size(cacheFile());
+
+            try (ProfileCache cache = ProfileCache.open(cacheFile(), clockAt(NOW)))
+            {
+                assertEquals(new UUID(0, 1999), cache.findUuid("Notch").orElseThrow().value());
+                cache.putName(NOTCH, "Notch");
+            }
+            assertTrue(Files.size(cacheFile()) < before / 100);
+            assertFalse(Files.exists(cacheFile().resolveSibling("profiles.cache.tmp")));
+
+            try (ProfileCache cache = ProfileCache.open(cacheFile(), clockAt(NOW)))
+            {
+                assertEquals("Notch", cache.findName(NOTCH).orElseThrow().value());
+            }
+        }
+
+        @Test
+        void throws_when_fileIsNotACache() throws IOException
+        {
+            Files.createDirectories(cacheFile().getParent());
+            Files.writeString(cacheFile(), "not a cache");
+
+            assertThrows(IOException.class, () -> ProfileCache.open(cacheFile()));
+        }
+    }
+
+    @Nested
+    class Deferred
+    {
+        @Test
+        void doesNotCreateFile_until_firstUse() throws IOException
+        {
+            try (ProfileCache cache = ProfileCache.deferred(cacheFile(), clockAt(NOW)))
+            {
+                assertFalse(Files.exists(cacheFile().getParent()));
+
+                cache.putUuid("Notch", NOTCH);
+
+                assertTrue(Files.exists(cacheFile()));
+            }
+            try (ProfileCache cache = ProfileCache.open(cacheFile(), clockAt(NOW)))
+            {
+                assertEquals(NOTCH, cache.findUuid("Notch").orElseThrow().value());
+            }
+        }
+
+        @Test
+        void keepsAnswersInMemory_when_fileCannotBeOpened() throws IOException
+        {
+            Files.writeString(tempDir.resolve("cache"), "a file, not a folder");
+
+            try (ProfileCache cache = ProfileCache.deferred(cacheFile(), clockAt(NOW)))
+            {
+                cache.putUuid("Notch", NOTCH);
+
+                assertEquals(NOTCH, cache.findUuid("Notch").orElseThrow().value());
+            }
+        }
+    }
+
+    @Nested
+    class Find
+    {
+        @Test
+        void returnsNegativeEntry_when_profileIsKnownMissing() throws IOException
+        {
+            try (ProfileCache cache = ProfileCache.open(cacheFile(), clockAt(NOW)))
+            {
+                cache.putName(NOTCH, null);
+
+                assertTrue(cache.findName(NOTCH).orElseThrow().isNegative());
+            }
+        }
+
+        @Test
+        void neverHits_when_disabled()
+        {
+            ProfileCache cache = ProfileCache.disabled();
+            cache.putUuid("Notch", NOTCH);
+
+            assertTrue(cache.findUuid("Notch").isEmpty());
+        }
+    }
+}
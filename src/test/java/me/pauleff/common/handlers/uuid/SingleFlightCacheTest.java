@@ -0,0 +1,147 @@
+package me.pauleff.common.handlers.uuid;
+
+import me.pauleff.common.metrics.Metric;
+import me.pauleff.common.metrics.Metrics;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightCacheTest
+{
+    @Nested
+    class Get
+    {
+        @Test
+        void remembersNullResult() throws IOException
+        {
+            SingleFlightCache<String, String> cache = new SingleFlightCache<>(10);
+            AtomicInteger calls = new AtomicInteger();
+
+            assertNull(cache.get("key", () ->
+            {
+                calls.incrementAndGet();
+                return null;
+            }));
+            assertNull(cache.get("key", () -> fail("looked up again")));
+            assertEquals(1, calls.get());
+        }
+
+        @Test
+        void runsOneLookup_when_calledConcurrently() throws Exception
+        {
+            SingleFlightCache<String, String> cache = new SingleFlightCache<>(10);
+            AtomicInteger calls = new AtomicInteger();
+            CompletableFuture<Void> release = new CompletableFuture<>();
+            List<Future<String>> results = new ArrayList<>();
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+            {
+                for (int i = 0; i < 16; i++)
+                {
+                    results.add(executor.submit(() -> cache.get("key", () ->
+                    {
+                        calls.incrementAndGet();
+                        release.join();
+                        return "value";
+                    })));
+                }
+                Thread.sleep(100);
+                release.complete(null);
+                for (Future<String> result : results)
+                {
+                    assertEquals("value", result.get());
+                }
+            }
+            assertEquals(1, calls.get());
+        }
+
+        @Test
+        void failsWaiters_when_lookupThrowsError() throws Exception
+        {
+            SingleFlightCache<String, String> cache = new SingleFlightCache<>(10);
+            CountDownLatch started = new CountDownLatch(1);
+            CompletableFuture<Void> release = new CompletableFuture<>();
+
+            // Plain virtual threads, so a waiter that never wakes up fails the test instead of hanging it.
+            FutureTask<String> first = new FutureTask<>(() -> cache.get("key", () ->
+            {
+                started.countDown();
+                release.join();
+                throw new AssertionError("lookup broke");
+            }));
+            Thread.ofVirtual().start(first);
+            started.await();
+            FutureTask<String> waiter = new FutureTask<>(() -> cache.get("key", () -> "value"));
+            Thread.ofVirtual().start(waiter);
+            Thread.sleep(100);
+            release.complete(null);
+
+            assertInstanceOf(AssertionError.class, assertThrows(ExecutionException.class, first::get).getCause());
+            assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+            assertEquals("value", cache.get("key", () -> "value"));
+        }
+
+        @Test
+        void countsOneHit_when_servedFromCache() throws IOException
+        {
+            SingleFlightCache<String, String> cache = new SingleFlightCache<>(10);
+            cache.put("key", "value");
+            Metrics metrics = new Metrics();
+
+            metrics.run(() ->
+            {
+                try
+                {
+                    cache.get("key", () -> fail("looked up again"));
+                } catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            assertEquals(1, metrics.get(Metric.CACHE_HITS));
+        }
+
+        @Test
+        void doesNotCacheFailure()
+        {
+            SingleFlightCache<String, String> cache = new SingleFlightCache<>(10);
+
+            assertThrows(IOException.class, () -> cache.get("key", () ->
+            {
+                throw new IOException("offline");
+            }));
+            assertTrue(cache.find("key").isEmpty());
+        }
+
+        @Test
+        void evictsLeastRecentlyUsed_when_full() throws IOException
+        {
+            SingleFlightCache<String, String> cache = new SingleFlightCache<>(2);
+            cache.put("a", "1");
+            cache.put("b", "2");
+            cache.get("a", () -> fail("looked up again"));
+
+            cache.put("c", "3");
+
+            assertTrue(cache.find("a").isPresent());
+            assertTrue(cache.find("b").isEmpty());
+            assertTrue(cache.find("c").isPresent());
+        }
+    }
+}
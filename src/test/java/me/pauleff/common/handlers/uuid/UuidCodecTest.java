@@ -0,0 +1,87 @@
+package me.pauleff.common.handlers.uuid;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidCodecTest
+{
+    private static final UUID NOTCH = UUID.fromString("069a79f4-44e9-4726-a5be-fca90e38aaf5");
+
+    @Nested
+    class Decode
+    {
+        @ParameterizedTest
+        @ValueSource(strings = {
+                "069a79f4-44e9-4726-a5be-fca90e38aaf5",
+                "069a79f444e94726a5befca90e38aaf5",
+                "069A79F4-44E9-4726-A5BE-FCA90E38AAF5"})
+        void decodesUuid_when_hyphenatedOrDashlessInAnyCase(String text)
+        {
+            assertEquals(NOTCH, UuidCodec.decode(text));
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {
+                "",
+                "level",
+                "069a79f4-44e9-4726-a5be-fca90e38aaf",
+                "069a79f4-44e9-4726-a5be-fca90e38aafg",
+                "069a79f444e9-4726-a5be-fca90e38aaf5-",
+                "069a79f4_44e9_4726_a5be_fca90e38aaf5",
+                "069a79f444e94726a5befca90e38aaf٥"})
+        void returnsNull_when_notUuid(String text)
+        {
+            assertNull(UuidCodec.decode(text));
+            assertFalse(UuidCodec.isUuid(text));
+        }
+
+        @Test
+        void decodesRange_when_embeddedInText()
+        {
+            String text = "playerdata/069a79f4-44e9-4726-a5be-fca90e38aaf5.dat";
+            long[] bits = new long[2];
+
+            assertTrue(UuidCodec.decode(text, 11, 47, bits));
+            assertEquals(NOTCH, new UUID(bits[0], bits[1]));
+        }
+    }
+
+    @Nested
+    class Encode
+    {
+        @Test
+        void dashless_matchesToStringWithoutDashes()
+        {
+            UUID uuid = UUID.randomUUID();
+
+            assertEquals(uuid.toString().replace("-", ""), UuidCodec.dashless(uuid));
+        }
+
+        @Test
+        void hyphenated_matchesToStringInRequestedCase()
+        {
+            UUID uuid = UUID.randomUUID();
+
+            assertEquals(uuid.toString(), UuidCodec.hyphenated(uuid, false));
+            assertEquals(uuid.toString().toUpperCase(), UuidCodec.hyphenated(uuid, true));
+        }
+
+        @Test
+        void intArray_writesSignedIntsFromMostSignificant()
+        {
+            assertEquals("[I;110787060,1156138790,-1514210135,238594805]", UuidCodec.intArray(NOTCH));
+        }
+
+        @Test
+        void version_matchesUuidVersion()
+        {
+            assertEquals(NOTCH.version(), UuidCodec.version(NOTCH.getMostSignificantBits()));
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package me.pauleff.common.handlers.uuid;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidMapTest
+{
+    private static final UUID ONLINE = UUID.fromString("069a79f4-44e9-4726-a5be-fca90e38aaf5");
+    private static final UUID OFFLINE = UUID.fromString("b50ad385-829d-3141-a216-7e7d7539ba7f");
+
+    @Nested
+    class Put
+    {
+        @ParameterizedTest
+        @EnumSource(UuidMap.Storage.class)
+        void keepsAllMappings_when_tableGrows(UuidMap.Storage storage)
+        {
+            UuidMap map = UuidMap.create(storage);
+            Map<UUID, UUID> expected = new HashMap<>();
+            Random random = new Random(42);
+            for (int i = 0; i < 10_000; i++)
+            {
+                UUID from = new UUID(random.nextLong(), random.nextLong());
+                UUID to = new UUID(random.nextLong(), random.nextLong());
+                map.put(from, to);
+                expected.put(from, to);
+            }
+
+            assertEquals(expected, map);
+            assertEquals(expected.size(), map.size());
+        }
+
+        @Test
+        void returnsPreviousTarget_when_keyIsMappedAgain()
+        {
+            UuidMap map = UuidMap.create();
+            map.put(ONLINE, OFFLINE);
+
+            assertEquals(OFFLINE, map.put(ONLINE, ONLINE));
+            assertEquals(ONLINE, map.get(ONLINE));
+            assertEquals(1, map.size());
+        }
+
+        @Test
+        void mapsNilUuid()
+        {
+            UuidMap map = UuidMap.create();
+            UUID nil = new UUID(0, 0);
+            map.put(nil, OFFLINE);
+
+            assertEquals(OFFLINE, map.get(nil));
+            assertEquals(Map.of(nil, OFFLINE), map);
+            assertEquals(OFFLINE, map.remove(nil));
+            assertTrue(map.isEmpty());
+        }
+    }
+
+    @Nested
+    class FindTarget
+    {
+        @Test
+        void writesTargetBits_when_mapped()
+        {
+            UuidMap map = UuidMap.create();
+            map.put(ONLINE, OFFLINE);
+            long[] target = new long[2];
+
+            assertTrue(map.findTarget(ONLINE.getMostSignificantBits(), ONLINE.getLeastSignificantBits(), target));
+            assertEquals(OFFLINE, new UUID(target[0], target[1]));
+        }
+
+        @Test
+        void leavesTargetUnchanged_when_notMapped()
+        {
+            UuidMap map = UuidMap.create();
+            map.put(ONLINE, OFFLINE);
+            long[] target = {1, 2};
+
+            assertFalse(map.findTarget(OFFLINE.getMostSignificantBits(), OFFLINE.getLeastSignificantBits(), target));
+            assertArrayEquals(new long[]{1, 2}, target);
+        }
+    }
+
+    @Nested
+    class Remove
+    {
+        @Test
+        void keepsCollidingKeysReachable()
+        {
+            UuidMap map = UuidMap.create();
+            // Seven keys in the initial sixteen slots form probe runs that removals must keep intact.
+            UUID[] keys = IntStream.range(1, 8).mapToObj(i -> new UUID(0, i)).toArray(UUID[]::new);
+            for (UUID key : keys)
+            {
+                map.put(key, ONLINE);
+            }
+
+            assertEquals(ONLINE, map.remove(keys[0]));
+            assertEquals(ONLINE, map.remove(keys[3]));
+
+            for (int i = 0; i < keys.length; i++)
+            {
+                assertEquals(i != 0 && i != 3, map.containsKey(keys[i]), "key " + i);
+            }
+            assertEquals(keys.length - 2, map.size());
+        }
+
+        @Test
+        void removesMapping_when_removedThroughIterator()
+        {
+            UuidMap map = UuidMap.create();
+            map.put(ONLINE, OFFLINE);
+            map.put(OFFLINE, ONLINE);
+
+            Iterator<Map.Entry<UUID, UUID>> iterator = map.entrySet().iterator();
+            while (iterator.hasNext())
+            {
+                if (iterator.next().getKey().equals(ONLINE))
+                {
+                    iterator.remove();
+                }
+            }
+
+            assertEquals(Map.of(OFFLINE, ONLINE), map);
+        }
+    }
+
+    @Nested
+    class CopyOf
+    {
+        @Test
+        void returnsSameMap_when_alreadyUuidMap()
+        {
+            UuidMap map = UuidMap.create();
+
+            assertSame(map, UuidMap.copyOf(map));
+        }
+
+        @Test
+        void copiesMappings_when_otherMap()
+        {
+            assertEquals(Map.of(ONLINE, OFFLINE), UuidMap.copyOf(Map.of(ONLINE, OFFLINE)));
+        }
+    }
+
+    @Nested
+    class Concurrent
+    {
+        @ParameterizedTest
+        @EnumSource(UuidMap.Storage.class)
+        void findsEveryMapping_when_readWhileWritten(UuidMap.Storage storage)
+        {
+            UuidMap map = UuidMap.concurrent(storage);
+            int count = 20_000;
+            map.put(ONLINE, OFFLINE);
+
+            try (ExecutorService executor = Executors.newFixedThreadPool(4))
+            {
+                CompletableFuture<Void> writer = CompletableFuture.runAsync(() ->
+                {
+                    for (int i = 1; i <= count; i++)
+                    {
+                        map.put(new UUID(i, i), new UUID(-i, -i));
+                    }
+                }, executor);
+                CompletableFuture<?>[] readers = IntStream.range(0, 3)
+                        .mapToObj(r -> CompletableFuture.runAsync(() ->
+                        {
+                            long[] target = new long[2];
+                            while (!writer.isDone())
+                            {
+                                assertTrue(map.findTarget(ONLINE.getMostSignificantBits(),
+                                        ONLINE.getLeastSignificantBits(), target));
+                                assertEquals(OFFLINE, new UUID(target[0], target[1]));
+                            }
+                        }, executor))
+                        .toArray(CompletableFuture[]::new);
+
+                CompletableFuture.allOf(readers).join();
+                writer.join();
+            }
+
+            assertEquals(count + 1, map.size());
+            for (int i = 1; i <= count; i++)
+            {
+                assertEquals(new UUID(-i, -i), map.get(new UUID(i, i)));
+            }
+        }
+    }
+}
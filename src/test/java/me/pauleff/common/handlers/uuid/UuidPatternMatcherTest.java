@@ -0,0 +1,138 @@
+package me.pauleff.common.handlers.uuid;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidPatternMatcherTest
+{
+    private static final UUID OFFLINE = UUID.fromString("7d1b9e4a-1c3f-3a2b-9c8d-0e1f2a3b4c5d");
+    private static final UUID ONLINE = UUID.fromString("069a79f4-44e9-4726-a5be-fca90e38aaf5");
+
+    @Nested
+    class Compile
+    {
+        @Test
+        void replacesAllPatterns_when_severalOccur()
+        {
+            UuidPatternMatcher matcher = UuidPatternMatcher.compile(Map.of("he", "HE", "she", "SHE", "hers", "HERS"));
+
+            assertEquals("uSHErs", matcher.rewrite("ushers"));
+        }
+
+        @Test
+        void prefersLongestPattern_when_matchesEndTogether()
+        {
+            UuidPatternMatcher matcher = UuidPatternMatcher.compile(Map.of("abc", "1", "bc", "2"));
+
+            assertEquals("x1x2", matcher.rewrite("xabcxbc"));
+        }
+
+        @Test
+        void returnsSameInstance_when_nothingMatches()
+        {
+            UuidPatternMatcher matcher = UuidPatternMatcher.compile(Map.of("needle", "pin"));
+            String input = "haystack without it";
+
+            assertSame(input, matcher.rewrite(input));
+        }
+
+        @Test
+        void throws_when_patternIsEmpty()
+        {
+            assertThrows(IllegalArgumentException.class, () -> UuidPatternMatcher.compile(Map.of("", "x")));
+        }
+
+        @Test
+        void throws_when_patternIsNotAscii()
+        {
+            assertThrows(IllegalArgumentException.class, () -> UuidPatternMatcher.compile(Map.of("ä", "a")));
+        }
+
+        @Test
+        void rewriteInPlaceThrows_when_replacementLengthDiffers()
+        {
+            UuidPatternMatcher matcher = UuidPatternMatcher.compile(Map.of("abc", "x"));
+
+            assertFalse(matcher.supportsInPlace());
+            assertThrows(UnsupportedOperationException.class, () -> matcher.rewriteInPlace(new byte[3]));
+        }
+    }
+
+    @Nested
+    class ForMappings
+    {
+        @Test
+        void replacesHyphenatedUuid_when_mapped()
+        {
+            UuidPatternMatcher matcher = UuidPatternMatcher.forMappings(Map.of(OFFLINE, ONLINE), EnumSet.of(UuidForm.HYPHENATED));
+
+            assertEquals("{\"uuid\":\"" + ONLINE + "\"}", matcher.rewrite("{\"uuid\":\"" + OFFLINE + "\"}"));
+        }
+
+        @Test
+        void replacesEachFormInItsOwnEncoding_when_bothFormsRequested()
+        {
+            UuidPatternMatcher matcher = UuidPatternMatcher.forMappings(Map.of(OFFLINE, ONLINE),
+                    EnumSet.of(UuidForm.HYPHENATED, UuidForm.DASHLESS));
+            String input = OFFLINE + " " + MinecraftUuids.dashless(OFFLINE);
+
+            assertEquals(ONLINE + " " + MinecraftUuids.dashless(ONLINE), matcher.rewrite(input));
+        }
+
+        @Test
+        void ignoresDashlessForm_when_onlyHyphenatedRequested()
+        {
+            UuidPatternMatcher matcher = UuidPatternMatcher.forMappings(Map.of(OFFLINE, ONLINE), EnumSet.of(UuidForm.HYPHENATED));
+            String input = MinecraftUuids.dashless(OFFLINE);
+
+            assertSame(input, matcher.rewrite(input));
+        }
+
+        @Test
+        void skipsIdentityMappings()
+        {
+            UuidPatternMatcher matcher = UuidPatternMatcher.forMappings(Map.of(OFFLINE, OFFLINE), EnumSet.of(UuidForm.HYPHENATED));
+
+            assertEquals(0, matcher.patternCount());
+        }
+
+        @Test
+        void encodesEachUuidOnce_when_encodingsAreCached()
+        {
+            Map<UUID, UuidEncodings> cache = new HashMap<>();
+            Map<UUID, Integer> encoded = new HashMap<>();
+            Function<UUID, UuidEncodings> encodings = uuid -> cache.computeIfAbsent(uuid, key ->
+            {
+                encoded.merge(key, 1, Integer::sum);
+                return UuidEncodings.of(key);
+            });
+
+            UuidPatternMatcher.forMappings(Map.of(OFFLINE, ONLINE), encodings, EnumSet.allOf(UuidForm.class));
+            UuidPatternMatcher matcher = UuidPatternMatcher.forMappings(Map.of(OFFLINE, ONLINE), encodings,
+                    EnumSet.allOf(UuidForm.class));
+
+            assertEquals(Map.of(OFFLINE, 1, ONLINE, 1), encoded);
+            assertEquals(UuidForm.INT_ARRAY.format(ONLINE) + " " + ONLINE.toString().toUpperCase(),
+                    matcher.rewrite(UuidForm.INT_ARRAY.format(OFFLINE) + " " + OFFLINE.toString().toUpperCase()));
+        }
+
+        @Test
+        void rewritesBytesInPlace_when_contentHasNonAsciiBytes()
+        {
+            UuidPatternMatcher matcher = UuidPatternMatcher.forMappings(Map.of(OFFLINE, ONLINE), EnumSet.of(UuidForm.HYPHENATED));
+            byte[] content = ("Jörg " + OFFLINE + " Jörg " + OFFLINE).getBytes(StandardCharsets.UTF_8);
+
+            assertEquals(2, matcher.rewriteInPlace(content));
+            assertEquals("Jörg " + ONLINE + " Jörg " + ONLINE, new String(content, StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package me.pauleff.common.handlers.uuid;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidTokenScannerTest
+{
+    private static final UUID OFFLINE = UUID.fromString("7d1b9e4a-1c3f-3a2b-9c8d-0e1f2a3b4c5d");
+    private static final UUID ONLINE = UUID.fromString("069a79f4-44e9-4726-a5be-fca90e38aaf5");
+    private static final UUID UNMAPPED = UUID.fromString("ffffffff-ffff-4fff-bfff-ffffffffffff");
+
+    private static UuidTokenScanner scanner(UuidForm first, UuidForm... rest)
+    {
+        return UuidTokenScanner.forMappings(Map.of(OFFLINE, ONLINE), EnumSet.of(first, rest));
+    }
+
+    @Nested
+    class Rewrite
+    {
+        @Test
+        void replacesHyphenatedUuid_when_mapped()
+        {
+            String input = "[{\"uuid\":\"" + OFFLINE + "\",\"name\":\"Steve\"}]";
+
+            assertEquals("[{\"uuid\":\"" + ONLINE + "\",\"name\":\"Steve\"}]",
+                    scanner(UuidForm.HYPHENATED).rewrite(input));
+        }
+
+        @Test
+        void replacesDashlessUuid_when_dashlessFormRequested()
+        {
+            String input = "uuid: \"" + MinecraftUuids.dashless(OFFLINE) + "\"";
+
+            assertEquals("uuid: \"" + MinecraftUuids.dashless(ONLINE) + "\"",
+                    scanner(UuidForm.HYPHENATED, UuidForm.DASHLESS).rewrite(input));
+        }
+
+        @Test
+        void replacesEveryOccurrence_when_uuidRepeats()
+        {
+            String input = OFFLINE + "," + OFFLINE + OFFLINE;
+
+            assertEquals(ONLINE + "," + ONLINE + ONLINE, scanner(UuidForm.HYPHENATED).rewrite(input));
+        }
+
+        @Test
+        void findsUuid_when_embeddedInLongerHexRun()
+        {
+            String input = "abc" + MinecraftUuids.dashless(OFFLINE) + "def";
+
+            assertEquals("abc" + MinecraftUuids.dashless(ONLINE) + "def",
+                    scanner(UuidForm.DASHLESS).rewrite(input));
+        }
+
+        @Test
+        void returnsSameInstance_when_uuidIsUnmapped()
+        {
+            String input = "owner=" + UNMAPPED + " " + MinecraftUuids.dashless(UNMAPPED);
+
+            assertSame(input, scanner(UuidForm.HYPHENATED, UuidForm.DASHLESS).rewrite(input));
+        }
+
+        @Test
+        void ignoresUpperCaseUuid()
+        {
+            String input = OFFLINE.toString().toUpperCase();
+
+            assertSame(input, scanner(UuidForm.HYPHENATED).rewrite(input));
+        }
+
+        @Test
+        void replacesUpperCaseUuidInUpperCase_when_upperCaseFormRequested()
+        {
+            String input = OFFLINE.toString().toUpperCase() + " " + OFFLINE;
+
+            assertEquals(ONLINE.toString().toUpperCase() + " " + ONLINE,
+                    scanner(UuidForm.HYPHENATED, UuidForm.UPPER_CASE).rewrite(input));
+        }
+
+        @Test
+        void replacesIntArray_when_intArrayFormRequested()
+        {
+            String input = "{Owner:" + UuidForm.INT_ARRAY.format(OFFLINE) + ",Other:[I;1,2,3,4]}";
+
+            assertEquals("{Owner:" + UuidForm.INT_ARRAY.format(ONLINE) + ",Other:[I;1,2,3,4]}",
+                    scanner(UuidForm.INT_ARRAY).rewrite(input));
+        }
+
+        @Test
+        void ignoresIntArray_when_valueIsOutOfIntRange()
+        {
+            String input = "[I;2147483648,0,0,0] [I;-,0,0,0] [I;1,2,3]";
+
+            assertSame(input, UuidTokenScanner.forMappings(Map.of(new UUID(0, 0), ONLINE),
+                    EnumSet.of(UuidForm.INT_ARRAY)).rewrite(input));
+        }
+
+        @Test
+        void ignoresDashlessForm_when_onlyHyphenatedRequested()
+        {
+            String input = MinecraftUuids.dashless(OFFLINE);
+
+            assertSame(input, scanner(UuidForm.HYPHENATED).rewrite(input));
+        }
+
+        @Test
+        void replacesMappingAddedLater_when_builtOverUuidMap()
+        {
+            UuidMap mappings = UuidMap.create();
+            UuidTokenScanner scanner = UuidTokenScanner.forMappings(mappings, EnumSet.of(UuidForm.HYPHENATED));
+            String input = "owner=" + OFFLINE;
+
+            assertSame(input, scanner.rewrite(input));
+            mappings.put(OFFLINE, ONLINE);
+            assertEquals("owner=" + ONLINE, scanner.rewrite(input));
+        }
+
+        @Test
+        void returnsInput_when_hexRunNearEndIsShorterThanDashless()
+        {
+            String input = "x deadbeefdeadbeef";
+
+            assertSame(input, scanner(UuidForm.DASHLESS, UuidForm.INT_ARRAY).rewrite(input));
+        }
+
+        @Test
+        void returnsInput_when_shorterThanUuid()
+        {
+            assertEquals("short", scanner(UuidForm.HYPHENATED).rewrite("short"));
+        }
+    }
+
+    @Nested
+    class RewriteInPlace
+    {
+        @Test
+        void preservesNonAsciiBytes_when_replacingUuid()
+        {
+            byte[] content = ("name=Jörg uuid=" + OFFLINE).getBytes(StandardCharsets.ISO_8859_1);
+
+            assertEquals(1, scanner(UuidForm.HYPHENATED).rewriteInPlace(content));
+            assertEquals("name=Jörg uuid=" + ONLINE, new String(content, StandardCharsets.ISO_8859_1));
+        }
+
+        @Test
+        void countsEveryReplacement_when_bothFormsOccur()
+        {
+            byte[] content = (OFFLINE + " " + MinecraftUuids.dashless(OFFLINE)).getBytes(StandardCharsets.UTF_8);
+
+            assertEquals(2, scanner(UuidForm.HYPHENATED, UuidForm.DASHLESS).rewriteInPlace(content));
+            assertEquals(ONLINE + " " + MinecraftUuids.dashless(ONLINE), new String(content, StandardCharsets.UTF_8));
+        }
+
+        @Test
+        void rewritesOnlyGivenRange()
+        {
+            String uuid = OFFLINE.toString();
+            byte[] content = (uuid + uuid).getBytes(StandardCharsets.UTF_8);
+
+            assertEquals(1, scanner(UuidForm.HYPHENATED).rewriteInPlace(content, uuid.length(), uuid.length()));
+            assertEquals(uuid + ONLINE, new String(content, StandardCharsets.UTF_8));
+        }
+
+        @Test
+        void ignoresBytesPastRange_when_hexRunContinuesBeyondIt()
+        {
+            String dashless = MinecraftUuids.dashless(OFFLINE);
+            byte[] content = ("x " + dashless).getBytes(StandardCharsets.UTF_8);
+
+            assertEquals(0, scanner(UuidForm.DASHLESS).rewriteInPlace(content, 0, content.length - 1));
+            assertEquals("x " + dashless, new String(content, StandardCharsets.UTF_8));
+        }
+
+        @Test
+        void supportsInPlace_unless_intArrayFormRequested()
+        {
+            assertTrue(scanner(UuidForm.HYPHENATED, UuidForm.DASHLESS, UuidForm.UPPER_CASE).supportsInPlace());
+            assertFalse(scanner(UuidForm.HYPHENATED, UuidForm.INT_ARRAY).supportsInPlace());
+        }
+
+        @Test
+        void throws_when_intArrayFormRequested()
+        {
+            assertThrows(UnsupportedOperationException.class,
+                    () -> scanner(UuidForm.INT_ARRAY).rewriteInPlace(new byte[16]));
+        }
+
+        @Test
+        void throws_when_rangeOutOfBounds()
+        {
+            assertThrows(IndexOutOfBoundsException.class,
+                    () -> scanner(UuidForm.HYPHENATED).rewriteInPlace(new byte[4], 2, 4));
+        }
+    }
+}
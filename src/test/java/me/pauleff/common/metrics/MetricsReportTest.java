@@ -0,0 +1,129 @@
+package me.pauleff.common.metrics;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsReportTest
+{
+    private static MetricsReport sampleReport()
+    {
+        MetricsReport report = new MetricsReport();
+        MetricsReport.Phase phase = report.startPhase("conversion");
+        phase.plugin("vanilla-world").measure(() ->
+        {
+            Metrics.add(Metric.BYTES_READ, 100);
+            Metrics.increment(Metric.FILES_RENAMED);
+            return MetricsReport.Outcome.COMPLETED;
+        });
+        phase.plugin("ftb-quests").measure(() ->
+        {
+            Metrics.add(Metric.BYTES_READ, 20);
+            return MetricsReport.Outcome.SKIPPED;
+        });
+        phase.finish();
+        report.finish();
+        return report;
+    }
+
+    @Nested
+    class Measure
+    {
+        @Test
+        void recordsFailure_when_taskThrows()
+        {
+            MetricsReport.PluginRun run = new MetricsReport().startPhase("misc").plugin("broken");
+
+            assertThrows(IllegalStateException.class, () -> run.measure(() ->
+            {
+                Metrics.increment(Metric.FILES_VISITED);
+                throw new IllegalStateException("boom");
+            }));
+
+            assertEquals(MetricsReport.Outcome.FAILED, run.outcome());
+            assertEquals(1, run.metrics().get(Metric.FILES_VISITED));
+        }
+
+        @Test
+        void reportsSkipped_when_neverMeasured()
+        {
+            MetricsReport.PluginRun run = new MetricsReport().startPhase("misc").plugin("waiting");
+
+            assertEquals(MetricsReport.Outcome.SKIPPED, run.outcome());
+            assertEquals(0, run.wallSeconds());
+        }
+
+        @Test
+        void sumsPluginsIntoPhaseAndRun()
+        {
+            MetricsReport report = sampleReport();
+
+            assertEquals(120, report.phases().getFirst().total(Metric.BYTES_READ));
+            assertEquals(120, report.total(Metric.BYTES_READ));
+            assertEquals(1, report.total(Metric.FILES_RENAMED));
+        }
+    }
+
+    @Nested
+    class Json
+    {
+        @Test
+        void listsPhasesAndPluginsInOrder()
+        {
+            JSONObject json = sampleReport().toJson();
+
+            JSONObject phase = json.getJSONArray("phases").getJSONObject(0);
+            assertEquals("conversion", phase.getString("name"));
+            assertEquals(120, phase.getJSONObject("metrics").getLong("read_bytes"));
+            JSONObject plugin = phase.getJSONArray("plugins").getJSONObject(0);
+            assertEquals("vanilla-world", plugin.getString("id"));
+            assertEquals("completed", plugin.getString("outcome"));
+            assertEquals(1, plugin.getJSONObject("metrics").getLong("files_renamed"));
+            assertEquals("skipped", phase.getJSONArray("plugins").getJSONObject(1).getString("outcome"));
+            assertTrue(json.has("startedAt"));
+        }
+
+        @Test
+        void writesReadableFile(@TempDir Path dir) throws IOException
+        {
+            Path file = dir.resolve("reports").resolve("metrics.json");
+
+            sampleReport().writeJson(file);
+
+            assertEquals(120, new JSONObject(Files.readString(file)).getJSONObject("metrics").getLong("read_bytes"));
+            assertFalse(Files.exists(dir.resolve("reports").resolve("metrics.json.tmp")));
+        }
+    }
+
+    @Nested
+    class Prometheus
+    {
+        @Test
+        void writesGaugesWithPhaseAndPluginLabels()
+        {
+            String text = sampleReport().toPrometheus();
+
+            assertTrue(text.contains("# TYPE mooc_phase_read_bytes gauge\n"));
+            assertTrue(text.contains("mooc_phase_read_bytes{phase=\"conversion\"} 120\n"));
+            assertTrue(text.contains("mooc_plugin_read_bytes{phase=\"conversion\",plugin=\"vanilla-world\"} 100\n"));
+            assertTrue(text.contains("mooc_plugin_info{phase=\"conversion\",plugin=\"ftb-quests\",outcome=\"skipped\"} 1\n"));
+            assertTrue(text.endsWith("\n"));
+        }
+
+        @Test
+        void declaresEachFamilyOnce()
+        {
+            String text = sampleReport().toPrometheus();
+
+            assertEquals(text.indexOf("# TYPE mooc_plugin_wall_seconds "), text.lastIndexOf("# TYPE mooc_plugin_wall_seconds "));
+            assertEquals(2, text.lines().filter(line -> line.startsWith("mooc_plugin_wall_seconds{")).count());
+        }
+    }
+}
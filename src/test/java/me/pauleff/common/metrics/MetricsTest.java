@@ -0,0 +1,113 @@
+package me.pauleff.common.metrics;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest
+{
+    @Nested
+    class Add
+    {
+        @Test
+        void recordsIntoBoundMetrics()
+        {
+            Metrics metrics = new Metrics();
+
+            metrics.run(() ->
+            {
+                Metrics.add(Metric.BYTES_READ, 40);
+                Metrics.increment(Metric.BYTES_READ);
+                Metrics.increment(Metric.FILES_RENAMED);
+            });
+
+            assertEquals(41, metrics.get(Metric.BYTES_READ));
+            assertEquals(1, metrics.get(Metric.FILES_RENAMED));
+            assertEquals(0, metrics.get(Metric.HTTP_CALLS));
+        }
+
+        @Test
+        void doesNothing_when_noMetricsBound()
+        {
+            Metrics metrics = new Metrics();
+
+            Metrics.increment(Metric.FILES_VISITED);
+
+            assertEquals(0, metrics.get(Metric.FILES_VISITED));
+        }
+    }
+
+    @Nested
+    class Capture
+    {
+        @Test
+        void recordsForSubmitter_when_runOnAnotherThread()
+        {
+            Metrics metrics = new Metrics();
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+            {
+                metrics.run(() ->
+                {
+                    executor.execute(Metrics.capture(() -> Metrics.increment(Metric.HTTP_CALLS)));
+                    String result = CompletableFuture.supplyAsync(Metrics.capture(() ->
+                    {
+                        Metrics.increment(Metric.CACHE_HITS);
+                        return "done";
+                    }), executor).join();
+                    assertEquals("done", result);
+                });
+            }
+
+            assertEquals(1, metrics.get(Metric.HTTP_CALLS));
+            assertEquals(1, metrics.get(Metric.CACHE_HITS));
+        }
+
+        @Test
+        void returnsTaskItself_when_noMetricsBound()
+        {
+            Runnable task = () -> { };
+
+            assertSame(task, Metrics.capture(task));
+        }
+    }
+
+    @Nested
+    class Streams
+    {
+        @Test
+        void countsBytesReadAndWritten() throws IOException
+        {
+            Metrics metrics = new Metrics();
+            byte[] data = new byte[1000];
+            ByteArrayOutputStream sink = new ByteArrayOutputStream();
+
+            metrics.run(() ->
+            {
+                try (InputStream in = Metrics.countReads(new ByteArrayInputStream(data));
+                     OutputStream out = Metrics.countWrites(sink))
+                {
+                    out.write(in.read());
+                    in.transferTo(out);
+                } catch (IOException e)
+                {
+                    fail(e);
+                }
+            });
+
+            assertEquals(data.length, metrics.get(Metric.BYTES_READ));
+            assertEquals(data.length, metrics.get(Metric.BYTES_WRITTEN));
+            assertEquals(data.length, sink.size());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package me.pauleff.converter;
+
+import me.pauleff.common.argparse.ParsedArguments;
+import me.pauleff.common.exceptions.PathNotValidException;
+import me.pauleff.common.handlers.files.IndexedFile;
+import me.pauleff.common.handlers.uuid.MinecraftUuids;
+import me.pauleff.common.handlers.uuid.UuidMap;
+import me.pauleff.common.handlers.uuid.UuidRewriteMode;
+import me.pauleff.converter.api.PluginContext;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConverterV3Test
+{
+    private static final UUID OFFLINE = MinecraftUuids.offlineFromName("jeb_");
+    private static final UUID ONLINE = UUID.fromString("853c80ef-3c37-49fd-aa49-938b674adae6");
+
+    @TempDir
+    Path serverFolder;
+
+    private PluginContext context(int threads) throws IOException, PathNotValidException
+    {
+        Files.writeString(serverFolder.resolve("server.properties"), "level-name=world\n");
+        Files.createDirectories(serverFolder.resolve("world"));
+        PluginContext ctx = PluginContext.from(new ParsedArguments(
+                Optional.of(serverFolder),
+                Optional.of(true),
+                Optional.empty(),
+                Map.of(),
+                UuidRewriteMode.TOKEN,
+                threads,
+                64L << 20,
+                Deflater.DEFAULT_COMPRESSION,
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                UuidMap.Storage.HEAP,
+                Optional.empty(),
+                Optional.empty()));
+        ctx.putUuidMapping(OFFLINE, ONLINE);
+        return ctx;
+    }
+
+    /**
+     * Waits up to five seconds for a worker to create the given file.
+     */
+    private static boolean awaitExists(Path file)
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!Files.exists(file) && System.nanoTime() < deadline)
+        {
+            Thread.onSpinWait();
+        }
+        return Files.exists(file);
+    }
+
+    @Nested
+    class ConvertStream
+    {
+        @Test
+        void convertsFirstFile_before_flatMappedWalkIsExhausted() throws Exception
+        {
+            PluginContext ctx = context(2);
+            Path world = ctx.worldFolder();
+            Path playerFile = Files.writeString(world.resolve(OFFLINE + ".json"), "{}");
+            Path renamed = world.resolve(ONLINE + ".json");
+            IndexedFile first = IndexedFile.read(playerFile);
+            IndexedFile folder = IndexedFile.read(world);
+            AtomicInteger produced = new AtomicInteger();
+            AtomicBoolean convertedEarly = new AtomicBoolean();
+
+            // Like a directory walk: one inner stream per root, far longer than the thread count.
+            Stream<IndexedFile> walk = Stream.of(world).flatMap(root -> Stream.concat(
+                            Stream.of(first),
+                            Stream.generate(() -> folder).limit(100_000))
+                    .peek(file ->
+                    {
+                        if (produced.incrementAndGet() == 50)
+                        {
+                            convertedEarly.set(awaitExists(renamed));
+                        }
+                    }));
+
+            new ConverterV3(ctx).convert(walk);
+
+            assertTrue(convertedEarly.get());
+            assertTrue(Files.exists(renamed));
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package me.pauleff.converter;
+
+import me.pauleff.common.argparse.ParsedArguments;
+import me.pauleff.common.exceptions.PathNotValidException;
+import me.pauleff.common.handlers.uuid.UuidMap;
+import me.pauleff.common.handlers.uuid.UuidRewriteMode;
+import me.pauleff.converter.api.DefaultPlugin;
+import me.pauleff.converter.api.MOOCPlugin;
+import me.pauleff.converter.api.PluginContext;
+import me.pauleff.converter.api.PluginMetadata;
+import me.pauleff.converter.plugins.ConvertFtbQuests;
+import me.pauleff.converter.plugins.ConvertModdedServer;
+import me.pauleff.converter.plugins.UpdateProperties;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PluginOrchestratorTest
+{
+    @TempDir
+    Path serverFolder;
+
+    private PluginContext context() throws IOException, PathNotValidException
+    {
+        Files.writeString(serverFolder.resolve("server.properties"), "level-name=world\n");
+        Files.createDirectories(serverFolder.resolve("world"));
+        return PluginContext.from(new ParsedArguments(
+                Optional.of(serverFolder),
+                Optional.empty(),
+                Optional.empty(),
+                Map.of(),
+                UuidRewriteMode.TOKEN,
+                4,
+                64L << 20,
+                Deflater.DEFAULT_COMPRESSION,
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                UuidMap.Storage.HEAP,
+                Optional.empty(),
+                Optional.empty()));
+    }
+
+    /**
+     * Runs the given plugins as the discovery phase, which runs even without a conversion.
+     */
+    private void runAsDiscovery(PluginContext ctx, MOOCPlugin... plugins)
+    {
+        new PluginOrchestrator(new PluginRegistry(List.of(plugins), List.of(), List.of())).run(ctx);
+    }
+
+    @Nested
+    class RunPhase
+    {
+        @Test
+        void serializesFtbQuestsAndWorldConversion() throws Exception
+        {
+            PluginContext ctx = context();
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+
+            runAsDiscovery(ctx,
+                    new RecordingPlugin(new ConvertModdedServer().metadata(), running, maxRunning, null),
+                    new RecordingPlugin(new ConvertFtbQuests().metadata(), running, maxRunning, null));
+
+            assertEquals(1, maxRunning.get());
+        }
+
+        @Test
+        void overlapsPlugins_when_resourcesDisjoint() throws Exception
+        {
+            PluginContext ctx = context();
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            CountDownLatch bothStarted = new CountDownLatch(2);
+
+            runAsDiscovery(ctx,
+                    new RecordingPlugin(new ConvertModdedServer().metadata(), running, maxRunning, bothStarted),
+                    new RecordingPlugin(new UpdateProperties().metadata(), running, maxRunning, bothStarted));
+
+            assertEquals(2, maxRunning.get());
+        }
+    }
+
+    /**
+     * Borrows another plugin's metadata and records how many plugins run at once.
+     * <p>
+     * Each run waits for {@code started} to count down, or for a short while without one, so
+     * plugins that may overlap get the chance to.
+     */
+    private record RecordingPlugin(
+            PluginMetadata metadata,
+            AtomicInteger running,
+            AtomicInteger maxRunning,
+            CountDownLatch started) implements DefaultPlugin
+    {
+        @Override
+        public List<Path> setTargets(PluginContext ctx)
+        {
+            return List.of(ctx.serverFolder());
+        }
+
+        @Override
+        public boolean isEnabled(PluginContext ctx)
+        {
+            return true;
+        }
+
+        @Override
+        public void run(PluginContext ctx, List<Path> resolvedExistingTargets)
+        {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try
+            {
+                if (started == null)
+                {
+                    Thread.sleep(100);
+                } else
+                {
+                    started.countDown();
+                    started.await(5, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            } finally
+            {
+                running.decrementAndGet();
+            }
+        }
+    }
+}
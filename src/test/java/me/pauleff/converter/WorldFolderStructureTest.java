@@ -0,0 +1,122 @@
+package me.pauleff.converter;
+
+import me.pauleff.common.handlers.files.WorldIndex;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorldFolderStructureTest
+{
+    @TempDir
+    Path serverFolder;
+
+    @Nested
+    class UuidBearingFolders
+    {
+        @Test
+        void includesPlayerAndDataFolders_when_single() throws IOException
+        {
+            Path world = Files.createDirectories(serverFolder.resolve("world"));
+
+            List<Path> folders = WorldFolderStructure.SINGLE.uuidBearingFolders(new WorldIndex(), serverFolder, world);
+
+            assertTrue(folders.containsAll(List.of(
+                    world.resolve("playerdata"),
+                    world.resolve("advancements"),
+                    world.resolve("stats"),
+                    world.resolve("data"),
+                    world.resolve("DIM-1/data"),
+                    world.resolve("DIM1/data"))));
+        }
+
+        @Test
+        void includesModAndChunkFoldersButNotOtherVanillaTrees() throws IOException
+        {
+            Path world = Files.createDirectories(serverFolder.resolve("world"));
+            Files.createDirectories(world.resolve("region"));
+            Files.createDirectories(world.resolve("poi"));
+            Files.createDirectories(world.resolve("datapacks"));
+            Files.createDirectories(world.resolve("ftbteams"));
+            Files.writeString(world.resolve("level.dat"), "");
+
+            List<Path> folders = WorldFolderStructure.SINGLE.uuidBearingFolders(new WorldIndex(), serverFolder, world);
+
+            assertTrue(folders.containsAll(List.of(
+                    world.resolve("ftbteams"),
+                    world.resolve("region"),
+                    world.resolve("entities"),
+                    world.resolve("DIM-1/entities"))));
+            assertFalse(folders.contains(world.resolve("poi")));
+            assertFalse(folders.contains(world.resolve("datapacks")));
+            assertFalse(folders.contains(world.resolve("level.dat")));
+        }
+
+        @Test
+        void includesEveryDimensionDataFolder_when_single2026() throws IOException
+        {
+            Path world = Files.createDirectories(serverFolder.resolve("world"));
+            Files.createDirectories(world.resolve("dimensions/minecraft/overworld"));
+            Files.createDirectories(world.resolve("dimensions/minecraft/the_end"));
+            Files.createDirectories(world.resolve("dimensions/aether/the_aether"));
+
+            List<Path> folders = WorldFolderStructure.SINGLE_2026.uuidBearingFolders(new WorldIndex(), serverFolder, world);
+
+            assertTrue(folders.containsAll(List.of(
+                    world.resolve("players/data"),
+                    world.resolve("players/advancements"),
+                    world.resolve("players/stats"),
+                    world.resolve("dimensions/minecraft/overworld/data"),
+                    world.resolve("dimensions/minecraft/the_end/data"),
+                    world.resolve("dimensions/aether/the_aether/data"),
+                    world.resolve("dimensions/aether/the_aether/region"),
+                    world.resolve("dimensions/minecraft/overworld/entities"))));
+            assertFalse(folders.contains(world.resolve("players")));
+        }
+
+        @Test
+        void includesSiblingDimensionFolders_when_perDimension() throws IOException
+        {
+            Path world = Files.createDirectories(serverFolder.resolve("world"));
+            Files.createDirectories(serverFolder.resolve("world_nether/DIM-1/region"));
+
+            List<Path> folders = WorldFolderStructure.PER_DIMENSION.uuidBearingFolders(new WorldIndex(), serverFolder, world);
+
+            assertTrue(folders.containsAll(List.of(
+                    world.resolve("playerdata"),
+                    serverFolder.resolve("world_nether/DIM-1/data"),
+                    serverFolder.resolve("world_the_end/DIM1/data"),
+                    serverFolder.resolve("world_nether/DIM-1/region"),
+                    serverFolder.resolve("world_the_end/DIM1/entities"))));
+            assertFalse(folders.contains(serverFolder.resolve("world_nether/DIM-1")));
+        }
+    }
+
+    @Nested
+    class WorldFolders
+    {
+        @Test
+        void returnsWorldFolder_when_single2026()
+        {
+            Path world = serverFolder.resolve("world");
+
+            assertEquals(List.of(world), WorldFolderStructure.SINGLE_2026.worldFolders(serverFolder, world));
+        }
+
+        @Test
+        void includesSiblingFolders_when_perDimension()
+        {
+            Path world = serverFolder.resolve("world");
+
+            assertEquals(
+                    List.of(world, serverFolder.resolve("world_nether"), serverFolder.resolve("world_the_end")),
+                    WorldFolderStructure.PER_DIMENSION.worldFolders(serverFolder, world));
+        }
+    }
+}
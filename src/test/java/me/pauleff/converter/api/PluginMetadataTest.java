@@ -0,0 +1,100 @@
+package me.pauleff.converter.api;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PluginMetadataTest
+{
+    private static PluginMetadata plugin(String id)
+    {
+        return PluginMetadata.of(id, id, id);
+    }
+
+    @Nested
+    class Tags
+    {
+        @Test
+        void accumulatesTags_when_readingAndWritingChained()
+        {
+            PluginMetadata meta = plugin("a")
+                    .reading(PluginResources.SERVER_TYPE)
+                    .reading(PluginResources.UUID_MAP)
+                    .writing(PluginResources.WORLD);
+
+            assertEquals(Set.of(PluginResources.SERVER_TYPE, PluginResources.UUID_MAP), meta.reads());
+            assertEquals(Set.of(PluginResources.WORLD), meta.writes());
+            assertTrue(meta.isTagged());
+        }
+
+        @Test
+        void keepsIdentityAndPriority_when_tagged()
+        {
+            PluginMetadata meta = PluginMetadata.of("a", "A", "desc", 7).writing(PluginResources.WORLD);
+
+            assertEquals("a", meta.id());
+            assertEquals(7, meta.priority());
+        }
+
+        @Test
+        void isUntagged_when_createdByFactory()
+        {
+            assertFalse(plugin("a").isTagged());
+        }
+
+        @Test
+        void throwsNullPointerException_when_tagIsNull()
+        {
+            assertThrows(NullPointerException.class, () -> plugin("a").reading((String) null));
+        }
+    }
+
+    @Nested
+    class ConflictsWith
+    {
+        @Test
+        void conflicts_when_eitherIsUntagged()
+        {
+            PluginMetadata tagged = plugin("a").writing(PluginResources.WORLD);
+
+            assertTrue(plugin("b").conflictsWith(tagged));
+            assertTrue(tagged.conflictsWith(plugin("b")));
+        }
+
+        @Test
+        void conflicts_when_oneWritesWhatTheOtherReads()
+        {
+            PluginMetadata writer = plugin("a").writing(PluginResources.SERVER_FILES);
+            PluginMetadata reader = plugin("b").reading(PluginResources.SERVER_FILES).writing(PluginResources.UUID_MAP);
+
+            assertTrue(writer.conflictsWith(reader));
+            assertTrue(reader.conflictsWith(writer));
+        }
+
+        @Test
+        void conflicts_when_bothWriteSameResource()
+        {
+            PluginMetadata first = plugin("a").writing(PluginResources.SERVER_PROPERTIES);
+            PluginMetadata second = plugin("b").writing(PluginResources.SERVER_PROPERTIES);
+
+            assertTrue(first.conflictsWith(second));
+        }
+
+        @Test
+        void doesNotConflict_when_onlyReadsAreShared()
+        {
+            PluginMetadata world = plugin("a")
+                    .reading(PluginResources.SERVER_TYPE, PluginResources.UUID_MAP)
+                    .writing(PluginResources.WORLD);
+            PluginMetadata quests = plugin("b")
+                    .reading(PluginResources.SERVER_TYPE, PluginResources.UUID_MAP)
+                    .writing(PluginResources.FTB_QUESTS);
+
+            assertFalse(world.conflictsWith(quests));
+            assertFalse(quests.conflictsWith(world));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package me.pauleff.converter.plugins;
+
+import me.pauleff.common.argparse.ParsedArguments;
+import me.pauleff.common.exceptions.PathNotValidException;
+import me.pauleff.common.handlers.uuid.MinecraftUuids;
+import me.pauleff.common.handlers.uuid.UuidMap;
+import me.pauleff.common.handlers.uuid.UuidRewriteMode;
+import me.pauleff.converter.WorldFolderStructure;
+import me.pauleff.converter.api.PluginContext;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConvertVanillaServerTest
+{
+    private static final UUID OFFLINE = MinecraftUuids.offlineFromName("jeb_");
+    private static final UUID ONLINE = UUID.fromString("853c80ef-3c37-49fd-aa49-938b674adae6");
+
+    @TempDir
+    Path serverFolder;
+
+    private PluginContext context() throws IOException, PathNotValidException
+    {
+        Files.writeString(serverFolder.resolve("server.properties"), "level-name=world\n");
+        Files.createDirectories(serverFolder.resolve("world"));
+        PluginContext ctx = PluginContext.from(new ParsedArguments(
+                Optional.of(serverFolder),
+                Optional.of(true),
+                Optional.empty(),
+                Map.of(),
+                UuidRewriteMode.TOKEN,
+                1,
+                64L << 20,
+                Deflater.DEFAULT_COMPRESSION,
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                UuidMap.Storage.HEAP,
+                Optional.empty(),
+                Optional.empty()));
+        ctx.setWorldFolderStructure(WorldFolderStructure.SINGLE);
+        ctx.putUuidMapping(OFFLINE, ONLINE);
+        return ctx;
+    }
+
+    @Nested
+    class Run
+    {
+        @Test
+        void convertsTopLevelWorldFiles_but_notSkippedVanillaTrees() throws Exception
+        {
+            PluginContext ctx = context();
+            Path world = ctx.worldFolder();
+            Path topLevel = Files.writeString(world.resolve("owners.txt"), "owner=" + OFFLINE);
+            Path poi = Files.createDirectories(world.resolve("poi"));
+            Path skipped = Files.writeString(poi.resolve("owners.txt"), "owner=" + OFFLINE);
+
+            new ConvertVanillaServer().run(ctx, List.of(world));
+
+            assertEquals("owner=" + ONLINE, Files.readString(topLevel));
+            assertEquals("owner=" + OFFLINE, Files.readString(skipped));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package me.pauleff.converter.plugins;
+
+import me.pauleff.common.argparse.ParsedArguments;
+import me.pauleff.common.exceptions.PathNotValidException;
+import me.pauleff.common.handlers.files.UuidMappingFile;
+import me.pauleff.common.handlers.uuid.MinecraftUuids;
+import me.pauleff.common.handlers.uuid.UuidMap;
+import me.pauleff.common.handlers.uuid.UuidRewriteMode;
+import me.pauleff.converter.api.PluginContext;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportUuidMappingsTest
+{
+    private static final UUID OFFLINE = MinecraftUuids.offlineFromName("jeb_");
+    private static final UUID ONLINE = UUID.fromString("853c80ef-3c37-49fd-aa49-938b674adae6");
+
+    @TempDir
+    Path serverFolder;
+
+    private PluginContext context(Path mappingFile) throws IOException, PathNotValidException
+    {
+        Files.writeString(serverFolder.resolve("server.properties"), "level-name=world\n");
+        Files.createDirectories(serverFolder.resolve("world"));
+        return PluginContext.from(new ParsedArguments(
+                Optional.of(serverFolder),
+                Optional.of(true),
+                Optional.empty(),
+                Map.of(),
+                UuidRewriteMode.TOKEN,
+                1,
+                64L << 20,
+                Deflater.DEFAULT_COMPRESSION,
+                Optional.empty(),
+                Optional.empty(),
+                Optional.of(mappingFile),
+                UuidMap.Storage.HEAP,
+                Optional.empty(),
+                Optional.empty()));
+    }
+
+    @Nested
+    class SetTargets
+    {
+        @Test
+        void targetsExportFileFolder_when_exportPathIsNested() throws Exception
+        {
+            Path mappingFile = serverFolder.resolve("exports/mappings.csv");
+
+            assertEquals(List.of(serverFolder.resolve("exports")), new ExportUuidMappings().setTargets(context(mappingFile)));
+        }
+    }
+
+    @Nested
+    class Run
+    {
+        @Test
+        void writesContextMappings_when_run() throws Exception
+        {
+            Path mappingFile = serverFolder.resolve("mappings.csv");
+            PluginContext ctx = context(mappingFile);
+            ctx.putUuidMapping(OFFLINE, ONLINE);
+
+            new ExportUuidMappings().run(ctx, List.of(serverFolder));
+
+            assertEquals(Map.of(OFFLINE, ONLINE), UuidMappingFile.read(mappingFile));
+        }
+    }
+}